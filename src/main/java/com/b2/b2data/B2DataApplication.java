@@ -1,14 +1,17 @@
 package com.b2.b2data;
 
+import com.b2.b2data.repository.BaseRepositoryImpl;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EnableJpaRepositories("com.b2.b2data.repository")
+@EnableJpaRepositories(value = "com.b2.b2data.repository", repositoryBaseClass = BaseRepositoryImpl.class)
 @EntityScan("com.b2.b2data.domain")
+@EnableScheduling
 //@EnableJpaAuditing(auditorAwareRef = "auditorAwareImpl")
 public class B2DataApplication {
 
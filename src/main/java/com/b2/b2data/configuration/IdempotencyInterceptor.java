@@ -0,0 +1,84 @@
+package com.b2.b2data.configuration;
+
+import com.b2.b2data.domain.IdempotentRequest;
+import com.b2.b2data.service.IdempotencyKeyReusedException;
+import com.b2.b2data.service.IdempotencyService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Answers retried requests with the response stored for their idempotency key before the request body is
+ * parsed, so that a retry is neither parsed nor validated. The body of a retry is only hashed, and a retry with
+ * another body than the first request is rejected. Requests without a completed key are passed on to their
+ * controller unread, and the controller claims the key.
+ */
+@Component
+public class IdempotencyInterceptor implements HandlerInterceptor {
+
+    // the request header holding the idempotency key chosen by the client
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    // the response header marking a stored response
+    public static final String REPLAYED = "Idempotent-Replayed";
+
+    @Autowired
+    private IdempotencyService svc;
+
+    /**
+     * Writes the stored response of the given request, if its idempotency key has been used before
+     *
+     * @param request An HTTP request
+     * @param response An HTTP response
+     * @param handler The handler of the request
+     * @return False if the stored response was written, or true if the request should be handled
+     * @throws IdempotencyKeyReusedException If the key was used for a request with another body
+     * @throws IOException If the request cannot be read or the response cannot be written
+     */
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IdempotencyKeyReusedException, IOException {
+
+        String key = request.getHeader(IDEMPOTENCY_KEY);
+
+        if (key == null || !HttpMethod.POST.matches(request.getMethod()))
+            return true;
+
+        Optional<IdempotentRequest> completed = svc.findCompleted(key, requestOf(request));
+
+        if (completed.isEmpty())
+            return true;
+
+        svc.verify(completed.get(), RequestBodyDigestFilter.bodyHashOf(request));
+        response.setStatus(completed.get().getStatus());
+        response.setHeader(REPLAYED, "true");
+
+        if (completed.get().getLocation() != null)
+            response.setHeader(HttpHeaders.LOCATION, completed.get().getLocation());
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(completed.get().getBody());
+        return false;
+    }
+
+    /**
+     * Identifies the endpoint of the given request, so that an idempotency key is only replayed for the endpoint
+     * it was used for. The body of the request is compared by its hash.
+     *
+     * @param request An HTTP request
+     * @return The method and path of the request, such as "POST /api/transactions"
+     */
+    public static String requestOf(HttpServletRequest request) {
+        return request.getMethod()+" "+request.getRequestURI();
+    }
+}
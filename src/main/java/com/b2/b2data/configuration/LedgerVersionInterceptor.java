@@ -0,0 +1,58 @@
+package com.b2.b2data.configuration;
+
+import com.b2.b2data.controller.LedgerVersioned;
+import com.b2.b2data.service.LedgerVersionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+
+/**
+ * Answers conditional requests to {@link LedgerVersioned} endpoints with 304 Not Modified before the endpoint
+ * runs, so that polling a list that has not changed runs no query. Other requests to those endpoints are
+ * passed on with the entity tag of the state they are read from, which the controller returns in the response.
+ */
+@Component
+public class LedgerVersionInterceptor implements HandlerInterceptor {
+
+    // the request attribute holding the entity tag of the response
+    public static final String ETAG = LedgerVersionInterceptor.class.getName()+".etag";
+
+    @Autowired
+    private LedgerVersionService svc;
+
+    /**
+     * Answers the given request with 304 Not Modified if it is conditional on the current entity tag of its
+     * endpoint, or otherwise stores the tag in the request
+     *
+     * @param request An HTTP request
+     * @param response An HTTP response
+     * @param handler The handler of the request
+     * @return False if the request was answered, or true if it should be handled
+     */
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod method) || !HttpMethod.GET.matches(request.getMethod()))
+            return true;
+
+        LedgerVersioned versioned = method.getMethodAnnotation(LedgerVersioned.class);
+
+        if (versioned == null)
+            return true;
+
+        // the tag is taken before the endpoint reads, so it is never newer than the response
+        String etag = svc.etag(List.of(versioned.value()));
+
+        if (new ServletWebRequest(request, response).checkNotModified(etag))
+            return false;
+
+        request.setAttribute(ETAG, etag);
+        return true;
+    }
+}
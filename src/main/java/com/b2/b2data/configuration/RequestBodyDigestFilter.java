@@ -0,0 +1,200 @@
+package com.b2.b2data.configuration;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Hashes the body of each request made with an idempotency key as it is read, so that the key can be tied to
+ * the body it was first used with. The body is passed through rather than buffered, so large batches are still
+ * streamed.
+ */
+@Component
+public class RequestBodyDigestFilter extends OncePerRequestFilter {
+
+    /**
+     * Skips requests that are not made with an idempotency key
+     *
+     * @param request An HTTP request
+     * @return True if the request is not a POST request with an idempotency key
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getHeader(IdempotencyInterceptor.IDEMPOTENCY_KEY) == null
+                || !HttpMethod.POST.matches(request.getMethod());
+    }
+
+    /**
+     * Passes the given request on with a body that is hashed as it is read
+     *
+     * @param request An HTTP request
+     * @param response An HTTP response
+     * @param filterChain The rest of the filter chain
+     * @throws ServletException If the request cannot be handled
+     * @throws IOException If the request or response cannot be read or written
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        filterChain.doFilter(new DigestingRequest(request), response);
+    }
+
+    /**
+     * Gets the hash of the body of the given request. The rest of the body is read if it has not been read
+     * to the end yet.
+     *
+     * @param request An HTTP request
+     * @return The hex encoded SHA-256 hash of the body of the request
+     * @throws IOException If the body cannot be read
+     */
+    public static String bodyHashOf(HttpServletRequest request) throws IOException {
+        DigestingRequest digestingRequest = WebUtils.getNativeRequest(request, DigestingRequest.class);
+
+        // a request that was not passed through the filter is hashed from what remains of its body
+        if (digestingRequest == null)
+            digestingRequest = new DigestingRequest(request);
+
+        return digestingRequest.digest();
+    }
+
+    /**
+     * A request whose body is hashed as it is read
+     */
+    private static class DigestingRequest extends HttpServletRequestWrapper {
+
+        private final MessageDigest DIGEST;
+        private ServletInputStream inputStream;
+        private String hash;
+
+        /**
+         * Constructs a new digesting request
+         *
+         * @param request An HTTP request
+         */
+        private DigestingRequest(HttpServletRequest request) {
+            super(request);
+
+            try {
+                DIGEST = MessageDigest.getInstance("SHA-256");
+
+            } catch (NoSuchAlgorithmException e) {
+                // every Java platform is required to support SHA-256
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * Gets the body of the request, which is hashed as it is read
+         *
+         * @return An input stream of the body
+         * @throws IOException If the body cannot be read
+         */
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null)
+                inputStream = new DigestingInputStream(super.getInputStream());
+
+            return inputStream;
+        }
+
+        /**
+         * Gets the body of the request as characters, which is hashed as it is read
+         *
+         * @return A reader of the body
+         * @throws IOException If the body cannot be read
+         */
+        @Override
+        public BufferedReader getReader() throws IOException {
+            Charset charset = getCharacterEncoding() == null
+                    ? StandardCharsets.UTF_8
+                    : Charset.forName(getCharacterEncoding());
+
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        /**
+         * Reads the rest of the body and gets its hash
+         *
+         * @return The hex encoded SHA-256 hash of the body
+         * @throws IOException If the body cannot be read
+         */
+        private String digest() throws IOException {
+            if (hash == null) {
+                getInputStream().transferTo(OutputStream.nullOutputStream());
+                hash = HexFormat.of().formatHex(DIGEST.digest());
+            }
+            return hash;
+        }
+
+        /**
+         * An input stream that adds the bytes it reads to the digest of the request
+         */
+        private class DigestingInputStream extends ServletInputStream {
+
+            private final ServletInputStream IN;
+
+            /**
+             * Constructs a new digesting input stream
+             *
+             * @param in The input stream of the body
+             */
+            private DigestingInputStream(ServletInputStream in) {
+                IN = in;
+            }
+
+            @Override
+            public int read() throws IOException {
+                int b = IN.read();
+
+                if (b != -1)
+                    DIGEST.update((byte) b);
+
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = IN.read(b, off, len);
+
+                if (n > 0)
+                    DIGEST.update(b, off, n);
+
+                return n;
+            }
+
+            @Override
+            public boolean isFinished() {
+                return IN.isFinished();
+            }
+
+            @Override
+            public boolean isReady() {
+                return IN.isReady();
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                IN.setReadListener(readListener);
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.b2.b2data.configuration;
+
+import com.b2.b2data.domain.Account;
+import com.b2.b2data.domain.Element;
+import com.b2.b2data.domain.Player;
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Configures the Hibernate second-level cache of the chart of accounts: the {@link Element}, {@link Player}
+ * and {@link Account} entities, and the query results of their finders marked as cacheable.
+ * <br/><br/>
+ * Each entity has its own region, which holds up to a fixed number of entries and evicts the least recently
+ * used once full. The entities are cached read-write, so a write through the persistence context locks its
+ * entries until the database transaction completes and readers in the meantime go to the database. Query
+ * results are invalidated whenever a table they read from is written, as recorded in the update timestamps
+ * region, which therefore never expires. Entries also expire after a time to live, which bounds how long
+ * a change made outside of the application (such as a migration script) goes unseen.
+ * <br/><br/>
+ * Each application context gets its own cache manager, which is closed along with the context.
+ */
+@Configuration
+public class SecondLevelCacheConfiguration {
+
+    // region names chosen by hibernate
+    public static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    public static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    // the number of tables whose last update time is kept
+    private static final int UPDATE_TIMESTAMPS_MAX_ENTRIES = 1000;
+
+    /**
+     * Creates the cache manager holding the second-level cache regions
+     *
+     * @param entityMaxEntries The number of entries kept in each entity region
+     * @param queryMaxEntries The number of query results kept in each query region
+     * @param timeToLiveSeconds The number of seconds an entry or query result is kept after it is cached
+     * @return A cache manager
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(
+            @Value("${b2.second-level-cache.entity-max-entries:1000}") int entityMaxEntries,
+            @Value("${b2.second-level-cache.query-max-entries:100}") int queryMaxEntries,
+            @Value("${b2.second-level-cache.time-to-live-seconds:3600}") long timeToLiveSeconds) {
+
+        Duration timeToLive = Duration.ofSeconds(timeToLiveSeconds);
+        ConfigurationBuilder configuration = ConfigurationBuilder.newConfigurationBuilder();
+
+        for (String region : List.of(Element.CACHE_REGION, Player.CACHE_REGION, Account.CACHE_REGION))
+            configuration = configuration.withCache(region, region(entityMaxEntries, timeToLive));
+
+        for (String region : List.of(QUERY_RESULTS_REGION, Element.QUERY_CACHE_REGION, Player.QUERY_CACHE_REGION,
+                                     Account.QUERY_CACHE_REGION))
+            configuration = configuration.withCache(region, region(queryMaxEntries, timeToLive));
+
+        configuration = configuration.withCache(UPDATE_TIMESTAMPS_REGION, region(UPDATE_TIMESTAMPS_MAX_ENTRIES, null));
+
+        EhcacheCachingProvider provider =
+                (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+
+        return provider.getCacheManager(
+                URI.create("urn:b2:second-level-cache:"+UUID.randomUUID()),
+                configuration.withClassLoader(getClass().getClassLoader()).build()
+        );
+    }
+
+    /**
+     * Hands the second-level cache manager to Hibernate
+     *
+     * @param secondLevelCacheManager The cache manager holding the second-level cache regions
+     * @return A customizer of the Hibernate properties
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+
+    /**
+     * Creates the configuration of one region
+     *
+     * @param maxEntries The number of entries kept in the region
+     * @param timeToLive The time an entry is kept after it is cached, or null to keep entries until evicted
+     * @return A cache configuration
+     */
+    private static CacheConfiguration<Object, Object> region(long maxEntries, Duration timeToLive) {
+        return CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))
+                .withExpiry(timeToLive == null
+                        ? ExpiryPolicyBuilder.noExpiration()
+                        : ExpiryPolicyBuilder.timeToLiveExpiration(timeToLive))
+                .build();
+    }
+}
@@ -0,0 +1,27 @@
+package com.b2.b2data.configuration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+
+    @Autowired
+    private IdempotencyInterceptor idempotencyInterceptor;
+
+    @Autowired
+    private LedgerVersionInterceptor ledgerVersionInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // endpoints that accept an idempotency key
+        registry.addInterceptor(idempotencyInterceptor)
+                .addPathPatterns("/api/transactions", "/api/transactions/batch");
+
+        // endpoints that tag their responses with ledger versions
+        registry.addInterceptor(ledgerVersionInterceptor)
+                .addPathPatterns("/api/accounts", "/api/transactions", "/api/lines");
+    }
+}
@@ -0,0 +1,55 @@
+package com.b2.b2data.controller;
+
+import com.b2.b2data.domain.AccountBalance;
+import com.b2.b2data.dto.AccountBalanceDTO;
+import com.b2.b2data.service.AccountBalanceService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Controls requests for {@link AccountBalance} resources
+ */
+@RestController
+@RequestMapping("/api/accounts")
+public class AccountBalanceController extends ResponseController<AccountBalanceDTO> {
+
+    @Autowired
+    private AccountBalanceService svc;
+
+    /**
+     * Gets the balance of the account with the given number, optionally as of the end of a given date
+     *
+     * @param number An account number
+     * @param asOf A date; if null, the current balance is returned
+     * @return A response entity containing a DTO of the requested account balance, or an error message
+     *         if the account does not exist
+     */
+    @GetMapping("/{number}/balance")
+    public ResponseEntity<Response<AccountBalanceDTO>> getByNumber(
+            @PathVariable(name = "number") String number,
+            @RequestParam(name = "asOf", required = false) LocalDate asOf) {
+
+        AccountBalance balance = asOf == null
+                ? svc.findByAccountNumber(number)
+                : svc.balanceAsOf(number, asOf);
+
+        return responseCodeOk(List.of(new AccountBalanceDTO(balance, asOf)));
+    }
+
+    /**
+     * Checks all stored account balances against a full recomputation from the transaction lines,
+     * and corrects any balance that does not match
+     *
+     * @return A response entity containing a list of DTOs of the corrected account balances,
+     *         sorted by account number ascending
+     */
+    @PostMapping("/balances/rebuild")
+    public ResponseEntity<Response<AccountBalanceDTO>> rebuild() {
+        List<AccountBalanceDTO> data = svc.rebuild().stream().map(AccountBalanceDTO::new).toList();
+        return responseCodeOk(data);
+    }
+}
@@ -1,6 +1,8 @@
 package com.b2.b2data.controller;
 
 import com.b2.b2data.domain.Account;
+import com.b2.b2data.domain.Element;
+import com.b2.b2data.domain.Player;
 import com.b2.b2data.dto.AccountDTO;
 import com.b2.b2data.service.AccountService;
 import com.b2.b2data.service.ElementService;
@@ -35,20 +37,17 @@ public class AccountController extends Controller<Account, AccountDTO, String> {
      * @param elementNumber An element number
      * @param playerName A player name
      * @param isBank True or false
-     * @return A response entity containing a list of account DTOs, sorted by account number ascending
+     * @return A response entity containing a list of account DTOs, sorted by account number ascending,
+     *         or 304 Not Modified if the client holds the current version
      */
     @GetMapping("")
+    @LedgerVersioned({Account.class, Element.class, Player.class})
     public ResponseEntity<Response<AccountDTO>> getAll(
             @RequestParam(name = "elementNumber", required = false) Integer elementNumber,
             @RequestParam(name = "playerName", required = false) String playerName,
             @RequestParam(name = "isBank", required = false) Boolean isBank) {
 
-        List<AccountDTO> data = svc.findAll(elementNumber, playerName, isBank)
-                                   .stream()
-                                   .map(AccountDTO::new)
-                                   .toList();
-
-        return responseCodeOk(data);
+        return responseCodeOk(svc.findAllDtos(elementNumber, playerName, isBank));
     }
 
     /**
@@ -0,0 +1,30 @@
+package com.b2.b2data.controller;
+
+import com.b2.b2data.dto.CacheStatsDTO;
+import com.b2.b2data.service.ReferenceCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controls requests for the statistics of the in-process caches
+ */
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController extends ResponseController<CacheStatsDTO> {
+
+    @Autowired
+    private ReferenceCache cache;
+
+    /**
+     * Gets the statistics of each region of the reference cache
+     *
+     * @return A response entity containing a list of cache stats DTOs, one for each region
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Response<CacheStatsDTO>> getStats() {
+        return responseCodeOk(cache.stats().stream().map(CacheStatsDTO::new).toList());
+    }
+}
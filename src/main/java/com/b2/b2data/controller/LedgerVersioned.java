@@ -0,0 +1,24 @@
+package com.b2.b2data.controller;
+
+import com.b2.b2data.domain.Entry;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a GET endpoint whose response is tagged with the ledger versions of the tables it reads from. A request
+ * whose If-None-Match header holds the current tag is answered with 304 Not Modified before the endpoint runs.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface LedgerVersioned {
+
+    /**
+     * Gets the tables the response is read from
+     *
+     * @return The entry types of the tables
+     */
+    Class<? extends Entry>[] value();
+}
@@ -0,0 +1,54 @@
+package com.b2.b2data.controller;
+
+import com.b2.b2data.domain.Account;
+import com.b2.b2data.dto.ReconciliationSummaryDTO;
+import com.b2.b2data.service.AccountService;
+import com.b2.b2data.service.TransactionLineService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Controls requests for the reconciliation of accounts against bank statements
+ */
+@RestController
+@RequestMapping("/api/accounts")
+public class ReconciliationController extends ResponseController<ReconciliationSummaryDTO> {
+
+    @Autowired
+    private TransactionLineService svc;
+
+    @Autowired
+    private AccountService aSvc;
+
+    /**
+     * Gets the reconciliation of the account with the given number against a statement. The cleared balance
+     * and uncleared total are each summed by one aggregate query, rather than from the lines of the account.
+     *
+     * @param number An account number
+     * @param statementDate The closing date of the statement
+     * @param statementBalance The closing balance of the statement, or null to leave out the difference
+     * @return A response entity containing a DTO of the reconciliation, or an error message
+     *         if the account does not exist
+     */
+    @GetMapping("/{number}/reconciliation")
+    public ResponseEntity<Response<ReconciliationSummaryDTO>> getByNumber(
+            @PathVariable(name = "number") String number,
+            @RequestParam(name = "statementDate") LocalDate statementDate,
+            @RequestParam(name = "statementBalance", required = false) Double statementBalance) {
+
+        Account account = aSvc.findByNumber(number);
+
+        return responseCodeOk(List.of(new ReconciliationSummaryDTO(
+                account.getNumber(),
+                statementDate,
+                statementBalance,
+                svc.sumCleared(account, statementDate),
+                svc.sumUncleared(account, statementDate),
+                svc.findUnclearedDtos(account.getNumber(), statementDate)
+        )));
+    }
+}
@@ -0,0 +1,53 @@
+package com.b2.b2data.controller;
+
+import com.b2.b2data.dto.TrialBalanceAccountDTO;
+import com.b2.b2data.dto.TrialBalanceDTO;
+import com.b2.b2data.repository.TrialBalanceRow;
+import com.b2.b2data.service.ReportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Controls requests for financial reports
+ */
+@RestController
+@RequestMapping("/api/reports")
+public class ReportController extends ResponseController<TrialBalanceDTO> {
+
+    @Autowired
+    private ReportService svc;
+
+    /**
+     * Gets the trial balance of the general ledger as of the end of the given date
+     *
+     * @param asOf A date; if null, the current date is used
+     * @return A response entity containing a list of trial balance DTOs, one for each element
+     *         with activity, sorted by element number ascending
+     */
+    @GetMapping("/trial-balance")
+    public ResponseEntity<Response<TrialBalanceDTO>> getTrialBalance(
+            @RequestParam(name = "asOf", required = false) LocalDate asOf) {
+
+        List<TrialBalanceDTO> data = new ArrayList<>();
+        TrialBalanceDTO element = null;
+
+        // rows are sorted by element, so each element is complete when the next one starts
+        for (TrialBalanceRow row : svc.trialBalance(asOf)) {
+            if (element == null || !Objects.equals(element.getElementNumber(), row.getElementNumber())) {
+                element = new TrialBalanceDTO(row);
+                data.add(element);
+            }
+            element.addAccount(new TrialBalanceAccountDTO(row));
+        }
+        return responseCodeOk(data);
+    }
+}
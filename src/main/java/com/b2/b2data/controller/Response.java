@@ -18,6 +18,7 @@ public class Response<T extends DTO> {
     private List<T> data;
     private String message;
     private String path;
+    private String nextCursor;
 
     /**
      * Constructs a new response with the current date and time
@@ -44,7 +45,8 @@ public class Response<T extends DTO> {
                 && Objects.equals(status, response.status)
                 && Objects.equals(data, response.data)
                 && Objects.equals(message, response.message)
-                && Objects.equals(path, response.path);
+                && Objects.equals(path, response.path)
+                && Objects.equals(nextCursor, response.nextCursor);
     }
 
     /**
@@ -54,7 +56,7 @@ public class Response<T extends DTO> {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(timestamp, status, data, message, path);
+        return Objects.hash(timestamp, status, data, message, path, nextCursor);
     }
 
     /**
@@ -70,6 +72,7 @@ public class Response<T extends DTO> {
                 ", data=" + data +
                 ", message='" + message + '\'' +
                 ", path='" + path + '\'' +
+                ", nextCursor='" + nextCursor + '\'' +
                 '}';
     }
 
@@ -162,4 +165,22 @@ public class Response<T extends DTO> {
     public void setPath(String path) {
         this.path = path;
     }
+
+    /**
+     * Gets the cursor of the next page of the response's data
+     *
+     * @return An opaque cursor to pass to the next request, or null if there are no more pages
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Sets the cursor of the next page of the response's data
+     *
+     * @param nextCursor An opaque cursor, or null if there are no more pages
+     */
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
@@ -0,0 +1,462 @@
+package com.b2.b2data.controller;
+
+import com.b2.b2data.configuration.IdempotencyInterceptor;
+import com.b2.b2data.configuration.LedgerVersionInterceptor;
+import com.b2.b2data.configuration.RequestBodyDigestFilter;
+import com.b2.b2data.domain.IdempotentRequest;
+import com.b2.b2data.dto.DTO;
+import com.b2.b2data.service.IdempotencyConflictException;
+import com.b2.b2data.service.IdempotencyKeyReusedException;
+import com.b2.b2data.service.IdempotencyService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.ValidationException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A base class for all Controllers, which handles exceptions and builds the responses. Controllers that only
+ * read extend this class directly; those that write entries from DTOs extend {@link Controller}.
+ *
+ * @param <U> A DTO
+ */
+public abstract class ResponseController<U extends DTO> {
+
+    // the page size used when a cursor is given without a limit
+    protected static final int DEFAULT_LIMIT = 100;
+
+    // the largest page size a client may request
+    protected static final int MAX_LIMIT = 1000;
+
+    @Autowired
+    private IdempotencyService idempotencySvc;
+
+    @Autowired
+    private ObjectMapper responseMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Handles a request that may be retried
+     *
+     * @param <U> A DTO
+     * @param <E> An exception thrown by the handler
+     */
+    @FunctionalInterface
+    protected interface RequestHandler<U extends DTO, E extends Exception> {
+
+        /**
+         * Handles the request
+         *
+         * @return A response entity
+         * @throws E If the request cannot be handled
+         */
+        ResponseEntity<Response<U>> handle() throws E;
+    }
+
+    /**
+     * Handles NoSuchElementExceptions
+     *
+     * @param e A NoSuchElementException
+     * @return A 404 Not Found response entity
+     */
+    @ExceptionHandler({NoSuchElementException.class})
+    private ResponseEntity<Response<U>> handleException(NoSuchElementException e) {
+        return responseCodeNotFound(e.getMessage());
+    }
+
+    /**
+     * Handles HttpMessageNotReadableExceptions
+     *
+     * @param e An HttpMessageNotReadableException
+     * @return A 400 Bad Request response entity
+     */
+    @ExceptionHandler({HttpMessageNotReadableException.class})
+    private ResponseEntity<Response<U>> handleException(HttpMessageNotReadableException e) {
+        return responseCodeBadRequest(e.getMessage());
+    }
+
+    /**
+     * Handles ValidationExceptions
+     *
+     * @param e A ValidationException
+     * @return A 400 Bad Request response entity
+     */
+    @ExceptionHandler({ValidationException.class})
+    private ResponseEntity<Response<U>> handleException(ValidationException e) {
+        return responseCodeBadRequest(e.getMessage());
+    }
+
+    /**
+     * Handles IdempotencyKeyReusedExceptions
+     *
+     * @param e An IdempotencyKeyReusedException
+     * @return A 422 Unprocessable Entity response entity
+     */
+    @ExceptionHandler({IdempotencyKeyReusedException.class})
+    private ResponseEntity<Response<U>> handleException(IdempotencyKeyReusedException e) {
+        return responseCodeUnprocessableEntity(e.getMessage());
+    }
+
+    /**
+     * Handles MethodArgumentNotValidExceptions
+     *
+     * @param e A MethodArgumentNotValidException
+     * @return A 400 Bad Request response entity
+     */
+    @ExceptionHandler({MethodArgumentNotValidException.class})
+    private ResponseEntity<Response<U>> handleException(MethodArgumentNotValidException e) {
+        return responseCodeBadRequest(e.getMessage());
+    }
+
+    /**
+     * Handles SQLIntegrityConstraintViolationExceptions
+     *
+     * @param e A SQLIntegrityConstraintViolationException
+     * @return A 400 Bad Request response entity
+     */
+    @ExceptionHandler({SQLIntegrityConstraintViolationException.class})
+    private ResponseEntity<Response<U>> handleException(SQLIntegrityConstraintViolationException e) {
+        return responseCodeBadRequest(e.getMessage());
+    }
+
+    /**
+     * Handles IdempotencyConflictExceptions
+     *
+     * @param e An IdempotencyConflictException
+     * @return A 409 Conflict response entity
+     */
+    @ExceptionHandler({IdempotencyConflictException.class})
+    private ResponseEntity<Response<U>> handleException(IdempotencyConflictException e) {
+        return responseCodeConflict(e.getMessage());
+    }
+
+    /**
+     * Handles a request made with the given idempotency key. The first request with a key is handled and its
+     * response is stored along with a hash of its body; a retry of it is answered with the stored response without
+     * being handled again. The request is handled and its response stored in one database transaction, so that
+     * nothing it writes is committed without the response. If the request fails, its writes are rolled back and
+     * the key is released so that the request can be retried.
+     *
+     * @param idempotencyKey An idempotency key chosen by the client, or null to handle the request as is
+     * @param dtoType The class of the DTOs in the response
+     * @param handler The handler of the request
+     * @param <E> An exception thrown by the handler
+     * @return The response of the handler, or the stored response of the first request with the key
+     * @throws IdempotencyKeyReusedException If the key has been used for another request, or with another body
+     * @throws IdempotencyConflictException If a request with the key is still being handled
+     * @throws E If the handler throws
+     */
+    protected <E extends Exception> ResponseEntity<Response<U>> idempotent(String idempotencyKey, Class<U> dtoType,
+                                                                           RequestHandler<U, E> handler)
+            throws IdempotencyKeyReusedException, IdempotencyConflictException, E {
+
+        if (idempotencyKey == null)
+            return handler.handle();
+
+        HttpServletRequest servletRequest =
+                ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+        String request = IdempotencyInterceptor.requestOf(servletRequest);
+        Optional<IdempotentRequest> completed;
+
+        try {
+            completed = idempotencySvc.claim(idempotencyKey, request);
+
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent request claimed the key first
+            throw new IdempotencyConflictException(
+                    "A request with idempotency key='"+idempotencyKey+"' is still being handled.");
+        }
+        if (completed.isPresent()) {
+            idempotencySvc.verify(completed.get(), bodyHashOf(servletRequest));
+            return replay(completed.get(), dtoType);
+        }
+        ResponseEntity<Response<U>> responseEntity;
+        TransactionStatus status = transactionManager.getTransaction(TransactionDefinition.withDefaults());
+
+        try {
+            responseEntity = handler.handle();
+            complete(idempotencyKey, servletRequest, responseEntity);
+            transactionManager.commit(status);
+
+        } catch (Exception e) {
+            if (!status.isCompleted())
+                transactionManager.rollback(status);
+
+            idempotencySvc.release(idempotencyKey);
+            throw e;
+        }
+        return responseEntity;
+    }
+
+    /**
+     * Stores the given response to the request with the given idempotency key
+     *
+     * @param idempotencyKey A claimed idempotency key
+     * @param servletRequest The request
+     * @param responseEntity The response to the request
+     */
+    private void complete(String idempotencyKey, HttpServletRequest servletRequest,
+                          ResponseEntity<Response<U>> responseEntity) {
+        URI location = responseEntity.getHeaders().getLocation();
+
+        try {
+            idempotencySvc.complete(
+                    idempotencyKey,
+                    bodyHashOf(servletRequest),
+                    responseEntity.getStatusCodeValue(),
+                    location == null ? null : location.toString(),
+                    responseMapper.writeValueAsString(responseEntity.getBody())
+            );
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Gets the hash of the body of the given request
+     *
+     * @param request An HTTP request
+     * @return The hex encoded SHA-256 hash of the body of the request
+     */
+    private static String bodyHashOf(HttpServletRequest request) {
+        try {
+            return RequestBodyDigestFilter.bodyHashOf(request);
+
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Creates a response entity from the stored response of the given request
+     *
+     * @param completed A completed idempotent request
+     * @param dtoType The class of the DTOs in the response
+     * @return A response entity equal to the one the request was first answered with
+     */
+    private ResponseEntity<Response<U>> replay(IdempotentRequest completed, Class<U> dtoType) {
+        JavaType type = responseMapper.getTypeFactory().constructParametricType(Response.class, dtoType);
+        Response<U> response;
+
+        try {
+            response = responseMapper.readValue(completed.getBody(), type);
+
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity
+                .status(completed.getStatus())
+                .header(IdempotencyInterceptor.REPLAYED, "true");
+
+        if (completed.getLocation() != null)
+            builder.header(HttpHeaders.LOCATION, completed.getLocation());
+
+        return builder.body(response);
+    }
+
+    /**
+     * Creates a response entity indicating that the request was successful. The response to a
+     * {@link LedgerVersioned} endpoint carries the ledger versions it was read at as a strong ETag.
+     *
+     * @param data A list of data to send in the response body
+     * @return A 200 OK response entity
+     */
+    public ResponseEntity<Response<U>> responseCodeOk(List<U> data) {
+        HttpStatus status = HttpStatus.OK;
+        return responseEntity(status, status.name(), data, null);
+    }
+
+    /**
+     * Creates a response entity containing one page of data
+     *
+     * @param data A list of data to send in the response body
+     * @param nextCursor An opaque cursor pointing to the last item of the page,
+     *                   or null if there are no more pages
+     * @return A 200 OK response entity
+     */
+    public ResponseEntity<Response<U>> responseCodeOk(List<U> data, String nextCursor) {
+        HttpStatus status = HttpStatus.OK;
+        ResponseEntity<Response<U>> responseEntity = responseEntity(status, status.name(), data, null);
+        Objects.requireNonNull(responseEntity.getBody()).setNextCursor(nextCursor);
+        return responseEntity;
+    }
+
+    /**
+     * Returns the page size for the given requested limit
+     *
+     * @param limit A requested limit, or null for the default page size
+     * @return The page size
+     * @throws ValidationException If the limit is less than 1 or greater than {@link #MAX_LIMIT}
+     */
+    protected int validLimit(Integer limit) throws ValidationException {
+        if (limit == null)
+            return DEFAULT_LIMIT;
+
+        if (limit < 1 || limit > MAX_LIMIT)
+            throw new ValidationException("Limit must be between 1 and "+MAX_LIMIT+".");
+
+        return limit;
+    }
+
+    /**
+     * Creates a response entity indicating that the request was successful
+     *
+     * @param data A list of data to send in the response body
+     * @param oldPath The old URI path id of an updated resource
+     * @param newPath The new URI path id of an updated resource
+     * @return A 200 OK response entity with a location header
+     */
+    public ResponseEntity<Response<U>> responseCodeOk(List<U> data, String oldPath, String newPath) {
+        HttpStatus status = HttpStatus.OK;
+        return responseEntity(
+                status,
+                status.name(),
+                data,
+                ServletUriComponentsBuilder
+                        .fromCurrentRequest()
+                        .toUriString()
+                        .replace(oldPath, "")
+                        +newPath
+        );
+    }
+
+    /**
+     * Creates a response entity indicating that a new resource has been created
+     *
+     * @param data A list of data to send in the response body
+     * @param pathId The URI path id of a new resource
+     * @return A 201 Created response entity with a location header
+     */
+    public ResponseEntity<Response<U>> responseCodeCreated(List<U> data, String pathId) {
+        HttpStatus status = HttpStatus.CREATED;
+        return responseEntity(
+                status,
+                status.name(),
+                data,
+                ServletUriComponentsBuilder
+                        .fromCurrentRequest()
+                        .toUriString()
+                        +pathId
+        );
+    }
+
+    /**
+     * Creates a response entity indicating that there is no content to return
+     *
+     * @return A 204 No Content response entity
+     */
+    public ResponseEntity<Response<U>> responseCodeNoContent() {
+        HttpStatus status = HttpStatus.NO_CONTENT;
+        return responseEntity(status, status.name(), null, null);
+    }
+
+    /**
+     * Creates a response entity indicating a bad request
+     *
+     * @param message An error message
+     * @return A 400 Bad Request response entity
+     */
+    public ResponseEntity<Response<U>> responseCodeBadRequest(String message) {
+        return responseEntity(HttpStatus.BAD_REQUEST, message, null, null);
+    }
+
+    /**
+     * Creates a response entity indicating that the request is well-formed but cannot be processed
+     *
+     * @param message An error message
+     * @return A 422 Unprocessable Entity response entity
+     */
+    public ResponseEntity<Response<U>> responseCodeUnprocessableEntity(String message) {
+        return responseEntity(HttpStatus.UNPROCESSABLE_ENTITY, message, null, null);
+    }
+
+    /**
+     * Creates a response entity indicating that the request conflicts with the state of the resource
+     *
+     * @param message An error message
+     * @return A 409 Conflict response entity
+     */
+    public ResponseEntity<Response<U>> responseCodeConflict(String message) {
+        return responseEntity(HttpStatus.CONFLICT, message, null, null);
+    }
+
+    /**
+     * Creates a response entity indicating that the requested resource does not exist
+     *
+     * @param message An error message
+     * @return A 404 Not Found response entity
+     */
+    public ResponseEntity<Response<U>> responseCodeNotFound(String message) {
+        return responseEntity(HttpStatus.NOT_FOUND, message, null, null);
+    }
+
+    /**
+     * Creates a response entity
+     *
+     * @param status An HTTP status
+     * @param message A response message
+     * @param data A list of data to send in the response body
+     * @param pathId The URI path id of a new or updated resource
+     * @return A response entity
+     */
+    private ResponseEntity<Response<U>> responseEntity(HttpStatus status, String message,
+                                                       List<U> data, String pathId) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(status);
+
+        if (pathId != null)
+            builder.header("Location", pathId);
+
+        // the ledger versions of the tables a successful read came from
+        Object etag = RequestContextHolder.currentRequestAttributes()
+                                          .getAttribute(LedgerVersionInterceptor.ETAG, RequestAttributes.SCOPE_REQUEST);
+
+        if (status == HttpStatus.OK && etag != null)
+            builder.eTag((String) etag);
+
+        return builder.body(response(status, message, data));
+    }
+
+    /**
+     * Creates a response
+     *
+     * @param status An HTTP status
+     * @param message A response message
+     * @param data A list of data to send in the response body
+     * @return A response
+     */
+    private Response<U> response(HttpStatus status, String message, List<U> data) {
+        Response<U> response = new Response<>();
+        response.setStatus(status.value());
+        response.setMessage(message);
+        response.setData(data);
+        response.setPath(ServletUriComponentsBuilder.fromCurrentRequest().toUriString());
+
+        return response;
+    }
+}
@@ -0,0 +1,72 @@
+package com.b2.b2data.controller;
+
+import com.b2.b2data.domain.Transaction;
+import com.b2.b2data.dto.StatementImportDTO;
+import com.b2.b2data.dto.StatementTemplateDTO;
+import com.b2.b2data.service.StatementImport;
+import com.b2.b2data.service.StatementImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Controls requests for importing bank statements as {@link Transaction} resources
+ */
+@RestController
+@RequestMapping("/api/imports")
+public class StatementImportController extends ResponseController<StatementImportDTO> {
+
+    @Autowired
+    private StatementImportService svc;
+
+    /**
+     * Gets all imports that have not been forgotten
+     *
+     * @return A response entity containing a list of DTOs of the imports, sorted by id ascending
+     */
+    @GetMapping("")
+    public ResponseEntity<Response<StatementImportDTO>> getAll() {
+        List<StatementImportDTO> data = svc.findAll().stream().map(StatementImportDTO::new).toList();
+        return responseCodeOk(data);
+    }
+
+    /**
+     * Gets the progress of the import with the given id
+     *
+     * @param id An import id
+     * @return A response entity containing a DTO of the requested import, or an error message
+     *         if the import does not exist
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Response<StatementImportDTO>> getById(@PathVariable(name = "id") Integer id) {
+        return responseCodeOk(List.of(new StatementImportDTO(svc.findById(id))));
+    }
+
+    /**
+     * Starts importing the given bank statement. The statement is imported in the background,
+     * and its progress can be polled at the location of the new import.
+     *
+     * @param body A bank statement in CSV format
+     * @param template The layout of the statement, given as request parameters
+     * @return A response entity containing a DTO of the queued import, or an error message
+     *         if the template is invalid
+     * @throws IOException If the statement cannot be read or stored
+     */
+    @PostMapping(
+            value = "",
+            consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE}
+    )
+    public ResponseEntity<Response<StatementImportDTO>> createOne(InputStream body,
+                                                                  @Valid StatementTemplateDTO template)
+            throws IOException {
+
+        StatementImport statementImport = svc.submit(body, template);
+        return responseCodeCreated(List.of(new StatementImportDTO(statementImport)), "/"+statementImport.getId());
+    }
+}
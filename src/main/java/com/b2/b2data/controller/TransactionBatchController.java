@@ -0,0 +1,241 @@
+package com.b2.b2data.controller;
+
+import com.b2.b2data.configuration.IdempotencyInterceptor;
+import com.b2.b2data.domain.Account;
+import com.b2.b2data.domain.Player;
+import com.b2.b2data.domain.Transaction;
+import com.b2.b2data.domain.TransactionLine;
+import com.b2.b2data.dto.TransactionBatchResultDTO;
+import com.b2.b2data.dto.TransactionDTO;
+import com.b2.b2data.service.AccountService;
+import com.b2.b2data.service.PlayerService;
+import com.b2.b2data.service.TransactionService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ValidationException;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * Controls requests for creating many {@link Transaction} resources at once
+ */
+@RestController
+@RequestMapping("/api/transactions")
+public class TransactionBatchController extends ResponseController<TransactionBatchResultDTO> {
+
+    @Autowired
+    private TransactionService svc;
+
+    @Autowired
+    private AccountService aSvc;
+
+    @Autowired
+    private PlayerService pSvc;
+
+    @Autowired
+    private TransactionController tCon;
+
+    @Autowired
+    private TransactionLineController lCon;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Value("${b2.batch.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * Creates the given transactions in the database. A batch retried with the same idempotency key is answered
+     * with the results of the first batch, and creates no further transactions. A batch made with an idempotency
+     * key is committed as a whole along with its results, so a transaction that cannot be written fails the batch
+     * rather than being rejected on its own.
+     *
+     * @param idempotencyKey An idempotency key chosen by the client, or null
+     * @param body A JSON array or newline delimited stream of transaction DTOs with lines
+     * @return A response entity containing one result per transaction, in the order of the body
+     * @throws IOException If the body cannot be read
+     * @see #createAll(InputStream)
+     */
+    @PostMapping(
+            value = "/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE}
+    )
+    public ResponseEntity<Response<TransactionBatchResultDTO>> createAll(
+            @RequestHeader(name = IdempotencyInterceptor.IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            InputStream body) throws IOException {
+
+        return idempotent(idempotencyKey, TransactionBatchResultDTO.class, () -> createAll(body));
+    }
+
+    /**
+     * Creates the given transactions in the database. The body is either a JSON array of transaction DTOs
+     * or a stream of newline delimited transaction DTOs, and is read one transaction at a time. Each chunk
+     * of transactions is committed in its own database transaction; if a chunk cannot be committed, its
+     * transactions are committed one at a time, so that only the failing transactions are rejected.
+     *
+     * @param body A JSON array or newline delimited stream of transaction DTOs with lines
+     * @return A response entity containing one result per transaction, in the order of the body.
+     *         Each result contains either the id of the created transaction or the reason it was not created.
+     *         Reading stops at the first malformed transaction, whose result contains the parse error
+     * @throws IOException If the body cannot be read
+     */
+    public ResponseEntity<Response<TransactionBatchResultDTO>> createAll(InputStream body) throws IOException {
+        List<TransactionBatchResultDTO> results = new ArrayList<>();
+        List<TransactionDTO> chunk = new ArrayList<>(chunkSize);
+
+        // a root level array is unwrapped, so arrays and newline delimited values are read alike
+        try (MappingIterator<TransactionDTO> dtos = mapper.readerFor(TransactionDTO.class).readValues(body)) {
+            while (dtos.hasNextValue()) {
+                try {
+                    chunk.add(dtos.nextValue());
+
+                } catch (JsonProcessingException e) {
+                    results.addAll(createChunk(chunk, results.size()));
+                    results.add(new TransactionBatchResultDTO(results.size(), null, e.getOriginalMessage()));
+                    return responseCodeOk(results);
+                }
+                if (chunk.size() == chunkSize) {
+                    results.addAll(createChunk(chunk, results.size()));
+                    chunk.clear();
+                }
+            }
+        }
+        results.addAll(createChunk(chunk, results.size()));
+        return responseCodeOk(results);
+    }
+
+    /**
+     * Creates the given chunk of transactions in a single database transaction. Transactions that fail
+     * validation are rejected up front, and the accounts and players of all other transactions are resolved
+     * with one query each. If the chunk cannot be committed, each transaction is created on its own.
+     *
+     * @param chunk A list of transaction DTOs
+     * @param first The position of the first transaction of the chunk in the batch
+     * @return A list of results, one per transaction of the chunk
+     */
+    private List<TransactionBatchResultDTO> createChunk(List<TransactionDTO> chunk, int first) {
+        TransactionBatchResultDTO[] results = new TransactionBatchResultDTO[chunk.size()];
+        List<Integer> valid = new ArrayList<>(chunk.size());
+        Set<String> accountNumbers = new HashSet<>();
+        Set<String> playerNames = new HashSet<>();
+
+        for (int i = 0; i < chunk.size(); i++) {
+            try {
+                validate(chunk.get(i));
+                lCon.collectReferences(chunk.get(i).getLines(), accountNumbers, playerNames);
+                valid.add(i);
+
+            } catch (ValidationException e) {
+                results[i] = new TransactionBatchResultDTO(first+i, null, e.getMessage());
+            }
+        }
+        if (!createTogether(chunk, valid, accountNumbers, playerNames, first, results)) {
+            for (int i : valid)
+                results[i] = createOne(chunk.get(i), first+i);
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Creates the transactions at the given positions of the given chunk in a single database transaction
+     *
+     * @param chunk A list of transaction DTOs
+     * @param valid The positions of the valid transactions of the chunk
+     * @param accountNumbers The account numbers referenced by the valid transactions
+     * @param playerNames The player names referenced by the valid transactions
+     * @param first The position of the first transaction of the chunk in the batch
+     * @param results The results of the chunk, which are set for the created transactions
+     * @return True if all valid transactions were created, or false if none were
+     */
+    private boolean createTogether(List<TransactionDTO> chunk, List<Integer> valid, Set<String> accountNumbers,
+                                   Set<String> playerNames, int first, TransactionBatchResultDTO[] results) {
+        if (valid.isEmpty())
+            return true;
+
+        try {
+            Map<String, Account> accounts = aSvc.findAllByNumbers(accountNumbers);
+            Map<String, Player> players = playerNames.isEmpty() ? Map.of() : pSvc.findAllByNames(playerNames);
+
+            List<Transaction> transactions = new ArrayList<>(valid.size());
+            List<List<TransactionLine>> lines = new ArrayList<>(valid.size());
+
+            for (int i : valid) {
+                transactions.add(tCon.convertDtoToEntry(chunk.get(i), new Transaction()));
+                lines.add(lCon.convertDtosToEntries(chunk.get(i).getLines(), accounts, players));
+            }
+            List<Integer> ids = svc.saveAll(transactions, lines);
+
+            for (int j = 0; j < valid.size(); j++)
+                results[valid.get(j)] = new TransactionBatchResultDTO(first+valid.get(j), ids.get(j), null);
+
+            return true;
+
+        } catch (RuntimeException e) {
+            // a batch made with an idempotency key is written in one database transaction along with its
+            // response, which cannot be committed after a failed write, so only a missing reference is retried
+            boolean inRequestTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+
+            if (inRequestTransaction && !(e instanceof NoSuchElementException))
+                throw e;
+
+            // a missing reference or a failed commit is attributed to its transactions one at a time
+            return false;
+        }
+    }
+
+    /**
+     * Creates the given transaction in its own database transaction
+     *
+     * @param dto A valid transaction DTO
+     * @param index The position of the transaction in the batch
+     * @return The result of the transaction
+     */
+    private TransactionBatchResultDTO createOne(TransactionDTO dto, int index) {
+        try {
+            List<TransactionLine> lines = tCon.validLines(dto.getLines());
+            Transaction transaction = svc.save(tCon.convertDtoToEntry(dto, new Transaction()), lines);
+            return new TransactionBatchResultDTO(index, transaction.getId(), null);
+
+        } catch (RuntimeException e) {
+            // validLines wraps a missing account or player, whose own message is more useful to the client
+            String error = e.getCause() == null ? e.getMessage() : e.getCause().getMessage();
+            return new TransactionBatchResultDTO(index, null, error);
+        }
+    }
+
+    /**
+     * Checks the given transaction DTO against its constraints and the balanced lines rule
+     *
+     * @param dto A transaction DTO
+     * @throws ValidationException If the transaction DTO is invalid
+     */
+    private void validate(TransactionDTO dto) throws ValidationException {
+        if (dto == null)
+            throw new ValidationException("Transaction must not be null.");
+
+        Set<ConstraintViolation<TransactionDTO>> violations = validator.validate(dto);
+
+        if (!violations.isEmpty()) {
+            ConstraintViolation<TransactionDTO> violation = violations.iterator().next();
+            throw new ValidationException(violation.getPropertyPath()+" "+violation.getMessage());
+        }
+        tCon.checkBalanced(dto.getLines());
+    }
+}
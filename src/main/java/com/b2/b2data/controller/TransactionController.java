@@ -1,19 +1,22 @@
 package com.b2.b2data.controller;
 
+import com.b2.b2data.configuration.IdempotencyInterceptor;
 import com.b2.b2data.domain.Transaction;
 import com.b2.b2data.domain.TransactionLine;
 import com.b2.b2data.dto.TransactionDTO;
 import com.b2.b2data.dto.TransactionLineDTO;
+import com.b2.b2data.service.Cursor;
+import com.b2.b2data.service.GroupCommitService;
 import com.b2.b2data.service.TransactionLineService;
 import com.b2.b2data.service.TransactionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import javax.validation.ValidationException;
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -29,28 +32,69 @@ public class TransactionController extends Controller<Transaction, TransactionDT
     @Autowired
     private TransactionLineService lSvc;
 
+    @Autowired
+    private GroupCommitService gcSvc;
+
     @Autowired
     private TransactionLineController lCon;
 
+    @Value("${b2.delete.chunk-size:1000}")
+    private int deleteChunkSize;
+
     /**
-     * Gets all transactions from the database filtered by the given parameters
+     * Gets transactions from the database filtered by the given parameters. If a cursor or limit
+     * is given, one page of transactions is returned along with the cursor of the next page.
      *
      * @param from A minimum bounding date
      * @param to A maximum bounding date
      * @param memoPattern A memo pattern
+     * @param cursor The next cursor of the previous page, or null for the first page
+     * @param limit The maximum number of transactions per page
      * @return A response entity containing a list of transaction DTOs, sorted by date descending
+     *         and id descending, or 304 Not Modified if the client holds the current version
      */
     @GetMapping("")
+    @LedgerVersioned(Transaction.class)
+    public ResponseEntity<Response<TransactionDTO>> getAll(
+            @RequestParam(name = "from", required = false) LocalDate from,
+            @RequestParam(name = "to", required = false) LocalDate to,
+            @RequestParam(name = "memoPattern", required = false) String memoPattern,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", required = false) Integer limit) {
+
+        if (cursor == null && limit == null)
+            return getAll(from, to, memoPattern);
+
+        int size = validLimit(limit);
+
+        // one extra transaction is fetched to find out whether there is a next page
+        List<TransactionDTO> transactions =
+                svc.findAllDtos(from, to, memoPattern, cursor == null ? null : Cursor.decode(cursor), size+1);
+
+        String nextCursor = null;
+
+        if (transactions.size() > size) {
+            transactions = transactions.subList(0, size);
+            TransactionDTO last = transactions.get(size-1);
+            nextCursor = new Cursor(last.getDate(), last.getId(), null).encode();
+        }
+        return responseCodeOk(transactions, nextCursor);
+    }
+
+    /**
+     * Gets all transactions from the database filtered by the given parameters
+     *
+     * @param from A minimum bounding date
+     * @param to A maximum bounding date
+     * @param memoPattern A memo pattern
+     * @return A response entity containing a list of transaction DTOs, sorted by date descending
+     */
     public ResponseEntity<Response<TransactionDTO>> getAll(
             @RequestParam(name = "from", required = false) LocalDate from,
             @RequestParam(name = "to", required = false) LocalDate to,
             @RequestParam(name = "memoPattern", required = false) String memoPattern) {
 
-        List<TransactionDTO> data = svc.findAll(from, to, memoPattern)
-                                       .stream()
-                                       .map(TransactionDTO::new)
-                                       .toList();
-        return responseCodeOk(data);
+        return responseCodeOk(svc.findAllDtos(from, to, memoPattern));
     }
 
     /**
@@ -67,36 +111,58 @@ public class TransactionController extends Controller<Transaction, TransactionDT
     }
 
     /**
-     * Creates a new transaction in the database
+     * Creates a new transaction in the database. A request retried with the same idempotency key is answered
+     * with the response of the first request, and creates no further transaction.
      *
+     * @param idempotencyKey An idempotency key chosen by the client, or null
      * @param dto A transaction DTO
      * @return A response entity containing a DTO of the newly created transaction, or an error message
      *         if the creation was unsuccessful
      */
     @PostMapping("")
+    public ResponseEntity<Response<TransactionDTO>> createOne(
+            @RequestHeader(name = IdempotencyInterceptor.IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @Valid @RequestBody TransactionDTO dto) {
+
+        return idempotent(idempotencyKey, TransactionDTO.class, () -> createOne(dto));
+    }
+
+    /**
+     * Creates a new transaction in the database. With group commit enabled, the transaction is committed
+     * together with the transactions created concurrently.
+     *
+     * @param dto A transaction DTO
+     * @return A response entity containing a DTO of the newly created transaction, or an error message
+     *         if the creation was unsuccessful
+     */
     public ResponseEntity<Response<TransactionDTO>> createOne(@Valid @RequestBody TransactionDTO dto) {
         List<TransactionLine> lines = validLines(dto.getLines());
         Transaction transaction = convertDtoToEntry(dto, new Transaction());
-        transaction = svc.save(transaction, lines);
+        transaction = gcSvc.save(transaction, lines);
         return responseCodeCreated(
                 List.of(getDtoWithLines(transaction)),
                 "/"+transaction.getId()
         );
     }
 
-    // TODO: if just updating transaction fields (date and/or memo), need to ignore lines
     /**
-     * Updates an existing transaction in the database
+     * Updates an existing transaction in the database. If the DTO has no lines, only the date and memo
+     * of the transaction are updated and its lines are left untouched.
      *
      * @param id A transaction id
      * @param dto A transaction DTO
      * @return A response entity containing a DTO of the updated transaction, or an error message
-     *         if the update was unsuccessful
+     *         if the update was unsuccessful. The DTO contains the lines of the transaction only if
+     *         lines were given
      */
     @PatchMapping("/{id}")
     public ResponseEntity<Response<TransactionDTO>> updateOne(@PathVariable(name = "id") Integer id,
                                                               @Valid @RequestBody TransactionDTO dto) {
 
+        if (dto.getLines() == null) {
+            Transaction transaction = svc.updateHeader(id, dto.getDate(), dto.getMemo());
+            return responseCodeOk(List.of(new TransactionDTO(transaction)), "/"+id, "/"+id);
+        }
         Transaction transaction = svc.findById(id);
         transaction = convertDtoToEntry(dto, transaction);
         List<TransactionLine> lines = validLines(dto.getLines());
@@ -121,6 +187,38 @@ public class TransactionController extends Controller<Transaction, TransactionDT
         return responseCodeNoContent();
     }
 
+    /**
+     * Deletes all transactions matching the given parameters, along with their lines. The transactions are
+     * deleted in chunks, each in its own database transaction, so that deleting many transactions neither
+     * loads them nor holds locks on all of them at once. If a chunk fails, the chunks before it stay deleted.
+     *
+     * @param from A minimum bounding date
+     * @param to A maximum bounding date
+     * @param memoPattern A memo pattern
+     * @return A response entity containing the result of the deletion
+     * @throws ValidationException If no parameter is given
+     */
+    @DeleteMapping("")
+    public ResponseEntity<Response<TransactionDTO>> deleteAll(
+            @RequestParam(name = "from", required = false) LocalDate from,
+            @RequestParam(name = "to", required = false) LocalDate to,
+            @RequestParam(name = "memoPattern", required = false) String memoPattern)
+            throws ValidationException {
+
+        // guards against deleting the whole ledger by omitting the parameters
+        if (from == null && to == null && memoPattern == null)
+            throw new ValidationException("At least one of from, to or memoPattern is required.");
+
+        List<Integer> ids;
+
+        do {
+            ids = svc.findIds(from, to, memoPattern, deleteChunkSize);
+            svc.deleteAllById(ids);
+        } while (ids.size() == deleteChunkSize);
+
+        return responseCodeNoContent();
+    }
+
     /**
      * Returns a list of valid transaction lines from the given list of transaction line DTOs
      *
@@ -135,22 +233,33 @@ public class TransactionController extends Controller<Transaction, TransactionDT
      *     <li>the sum of all line amounts equals zero</li>
      * </ul>
      */
-    private List<TransactionLine> validLines(List<TransactionLineDTO> lineDTOs) throws ValidationException {
+    protected List<TransactionLine> validLines(List<TransactionLineDTO> lineDTOs) throws ValidationException {
+        checkBalanced(lineDTOs);
+        return lCon.convertDtosToEntries(lineDTOs);
+    }
 
+    /**
+     * Checks the given list of transaction line DTOs without resolving their accounts and players
+     *
+     * @param lineDTOs A list of transaction line DTOs
+     * @throws ValidationException If the list does not contain at least 2 lines, or if the sum
+     *                             of all line amounts does not equal zero
+     */
+    protected void checkBalanced(List<TransactionLineDTO> lineDTOs) throws ValidationException {
         if (lineDTOs == null || lineDTOs.size() < 2)
             throw new ValidationException("Lines must contain >= 2 transaction lines.");
 
-        List<TransactionLine> lines = new ArrayList<>(lineDTOs.size());
         double sum = 0;
 
         for (TransactionLineDTO dto : lineDTOs) {
-            lines.add(lCon.convertDtoToEntry(dto, new TransactionLine()));
+            if (dto.getAmount() == null)
+                throw new ValidationException("Line amounts must not be null.");
+
             sum += dto.getAmount();
         }
         if (sum != 0) {
             throw new ValidationException("Sum of line amounts must equal zero.");
         }
-        return lines;
     }
 
     /**
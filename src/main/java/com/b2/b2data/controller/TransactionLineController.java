@@ -1,23 +1,37 @@
 package com.b2.b2data.controller;
 
+import com.b2.b2data.domain.Account;
+import com.b2.b2data.domain.Player;
 import com.b2.b2data.domain.Transaction;
 import com.b2.b2data.domain.TransactionLine;
 import com.b2.b2data.domain.TransactionLineId;
+import com.b2.b2data.dto.ReconciliationDTO;
 import com.b2.b2data.dto.TransactionLineDTO;
 import com.b2.b2data.service.AccountService;
+import com.b2.b2data.service.Cursor;
 import com.b2.b2data.service.PlayerService;
 import com.b2.b2data.service.TransactionLineService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.ValidationException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
-import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.*;
 
 @RestController
 @RequestMapping("/api/lines")
@@ -32,6 +46,97 @@ public class TransactionLineController extends Controller<TransactionLine, Trans
     @Autowired
     private PlayerService pSvc;
 
+    @Autowired
+    private ObjectMapper mapper;
+
+    /**
+     * Gets transaction lines from the database filtered by the given parameters. If a cursor or limit
+     * is given, one page of lines is returned along with the cursor of the next page.
+     *
+     * @param transactionId A transaction id
+     * @param accountNumber An account number
+     * @param playerName A player name
+     * @param memoPattern A memo pattern
+     * @param isReconciled True if reconciled date is not null, or false otherwise
+     * @param from A minimum bounding date
+     * @param to A maximum bounding date
+     * @param cursor The next cursor of the previous page, or null for the first page
+     * @param limit The maximum number of lines per page
+     * @return A response entity containing a list of transaction line DTOs, sorted by transaction date
+     *         descending, transaction id descending and line id ascending, or 304 Not Modified if the client
+     *         holds the current version
+     */
+    @GetMapping("")
+    @LedgerVersioned({TransactionLine.class, Transaction.class, Account.class, Player.class})
+    public ResponseEntity<Response<TransactionLineDTO>> getAll(
+            @RequestParam(name = "transactionId", required = false) Integer transactionId,
+            @RequestParam(name = "accountNumber", required = false) String accountNumber,
+            @RequestParam(name = "playerName", required = false) String playerName,
+            @RequestParam(name = "memoPattern", required = false) String memoPattern,
+            @RequestParam(name = "isReconciled", required = false) Boolean isReconciled,
+            @RequestParam(name = "from", required = false) LocalDate from,
+            @RequestParam(name = "to", required = false) LocalDate to,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", required = false) Integer limit) {
+
+        if (cursor == null && limit == null)
+            return getAll(transactionId, accountNumber, playerName, memoPattern, isReconciled, from, to);
+
+        int size = validLimit(limit);
+
+        // one extra line is fetched to find out whether there is a next page
+        List<TransactionLineDTO> lines =
+                svc.findAllDtos(transactionId, accountNumber, playerName, memoPattern, isReconciled, from, to,
+                                cursor == null ? null : Cursor.decode(cursor), size+1);
+
+        String nextCursor = null;
+
+        if (lines.size() > size) {
+            lines = lines.subList(0, size);
+            TransactionLineDTO last = lines.get(size-1);
+            nextCursor = new Cursor(last.getTransactionDate(), last.getId().getTransactionId(),
+                                    last.getId().getLineId()).encode();
+        }
+        return responseCodeOk(lines, nextCursor);
+    }
+
+    /**
+     * Streams all transaction lines from the database filtered by the given parameters, as newline
+     * delimited JSON. Each line is written to the response as soon as it is read from the database.
+     *
+     * @param transactionId A transaction id
+     * @param accountNumber An account number
+     * @param playerName A player name
+     * @param memoPattern A memo pattern
+     * @param isReconciled True if reconciled date is not null, or false otherwise
+     * @param from A minimum bounding date
+     * @param to A maximum bounding date
+     * @return A response entity with a body that writes one transaction line DTO per line,
+     *         sorted by transaction date descending, transaction id descending and line id ascending
+     */
+    @GetMapping(value = "", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll(
+            @RequestParam(name = "transactionId", required = false) Integer transactionId,
+            @RequestParam(name = "accountNumber", required = false) String accountNumber,
+            @RequestParam(name = "playerName", required = false) String playerName,
+            @RequestParam(name = "memoPattern", required = false) String memoPattern,
+            @RequestParam(name = "isReconciled", required = false) Boolean isReconciled,
+            @RequestParam(name = "from", required = false) LocalDate from,
+            @RequestParam(name = "to", required = false) LocalDate to) {
+
+        StreamingResponseBody body = outputStream ->
+                svc.forEach(transactionId, accountNumber, playerName, memoPattern, isReconciled, from, to, line -> {
+                    try {
+                        outputStream.write(mapper.writeValueAsBytes(new TransactionLineDTO(line)));
+                        outputStream.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
     /**
      * Gets all transaction lines from the database filtered by the given parameters
      *
@@ -45,7 +150,6 @@ public class TransactionLineController extends Controller<TransactionLine, Trans
      * @return A response entity containing a list of transaction line DTOs,
      *         sorted by transaction date descending
      */
-    @GetMapping("")
     public ResponseEntity<Response<TransactionLineDTO>> getAll(
             @RequestParam(name = "transactionId", required = false) Integer transactionId,
             @RequestParam(name = "accountNumber", required = false) String accountNumber,
@@ -55,13 +159,95 @@ public class TransactionLineController extends Controller<TransactionLine, Trans
             @RequestParam(name = "from", required = false) LocalDate from,
             @RequestParam(name = "to", required = false) LocalDate to) {
 
-        List<TransactionLineDTO> data =
-                svc.findAll(transactionId, accountNumber, playerName, memoPattern, isReconciled, from, to)
-                   .stream()
-                   .map(TransactionLineDTO::new)
-                   .toList();
+        return responseCodeOk(
+                svc.findAllDtos(transactionId, accountNumber, playerName, memoPattern, isReconciled, from, to));
+    }
+
+    /**
+     * Updates the player, memo and reconciled date of an existing transaction line with a single statement,
+     * without rewriting its transaction. Only the fields present in the body are updated; a field present with
+     * a null value clears it. The account and amount of a line affect the balances, and can only be changed by
+     * updating its transaction.
+     *
+     * @param transactionId A transaction id
+     * @param lineId A line id
+     * @param body The fields of a transaction line DTO to update
+     * @return A response entity with no content
+     * @throws ValidationException If the body has an account number or amount, is not a valid transaction line
+     *                             DTO, or the player does not exist
+     * @throws NoSuchElementException If the transaction line does not exist
+     */
+    @PatchMapping("/{transactionId}/{lineId}")
+    public ResponseEntity<Response<TransactionLineDTO>> updateOne(
+            @PathVariable(name = "transactionId") Integer transactionId,
+            @PathVariable(name = "lineId") Integer lineId,
+            @RequestBody ObjectNode body) throws ValidationException, NoSuchElementException {
+
+        TransactionLineDTO dto;
+
+        try {
+            dto = mapper.treeToValue(body, TransactionLineDTO.class);
+
+        } catch (JsonProcessingException e) {
+            throw new ValidationException(e);
+        }
+        if (dto.getAccountNumber() != null || dto.getAmount() != null)
+            throw new ValidationException(
+                    "Account number and amount can only be changed by updating the transaction.");
+
+        Map<String, Object> details = new HashMap<>();
+
+        if (body.has("playerName")) {
+            try {
+                details.put(TransactionLine.PLAYER,
+                            dto.getPlayerName() == null ? null : pSvc.findByName(dto.getPlayerName()));
+
+            } catch (NoSuchElementException e) {
+                throw new ValidationException(e);
+            }
+        }
+        if (body.has("memo"))
+            details.put(TransactionLine.MEMO, dto.getMemo());
+
+        if (body.has("dateReconciled"))
+            details.put(TransactionLine.DATE_RECONCILED, dto.getDateReconciled());
 
-        return responseCodeOk(data);
+        svc.updateDetails(new TransactionLineId(transactionId, lineId), details);
+        return responseCodeNoContent();
+    }
+
+    /**
+     * Reconciles transaction lines in bulk, with a single update statement rather than a rewrite of each
+     * transaction. The lines are either given by id, or are the unreconciled lines of the given account,
+     * optionally within a range of transaction dates.
+     *
+     * @param dto A reconciliation DTO
+     * @return A response entity with no content
+     * @throws ValidationException If neither line ids nor an account number are given, the account does not exist,
+     *                             or a filter is given without a reconciliation date
+     * @throws NoSuchElementException If a line given by id does not exist; no line is reconciled
+     */
+    @PostMapping("/reconcile")
+    public ResponseEntity<Response<TransactionLineDTO>> reconcile(@RequestBody ReconciliationDTO dto)
+            throws ValidationException, NoSuchElementException {
+
+        if (dto.getLineIds() != null) {
+            svc.reconcile(dto.getLineIds(), dto.getDateReconciled());
+            return responseCodeNoContent();
+        }
+        if (dto.getAccountNumber() == null)
+            throw new ValidationException("Either line ids or an account number is required.");
+
+        Account account;
+
+        try {
+            account = aSvc.findByNumber(dto.getAccountNumber());
+
+        } catch (NoSuchElementException e) {
+            throw new ValidationException(e);
+        }
+        svc.reconcile(account, dto.getFrom(), dto.getTo(), dto.getDateReconciled());
+        return responseCodeNoContent();
     }
 
     /**
@@ -95,10 +281,108 @@ public class TransactionLineController extends Controller<TransactionLine, Trans
         } catch (NoSuchElementException e) {
             throw new ValidationException(e);
         }
+        setValues(dto, transactionLine);
+        return transactionLine;
+    }
+
+    /**
+     * Converts the given transaction line DTOs into new transaction lines. The accounts and players
+     * of all lines are resolved with one query each, rather than one query per line.
+     *
+     * @param dtos A list of transaction line DTOs; must not be null
+     * @return A list of new transaction lines with field values matching the transaction line DTOs,
+     *         in the same order
+     * @throws ValidationException If any transaction line DTO is invalid
+     */
+    protected List<TransactionLine> convertDtosToEntries(List<TransactionLineDTO> dtos)
+            throws ValidationException {
+
+        assert dtos != null;
+
+        Set<String> accountNumbers = new HashSet<>();
+        Set<String> playerNames = new HashSet<>();
+        collectReferences(dtos, accountNumbers, playerNames);
+
+        Map<String, Account> accounts;
+        Map<String, Player> players;
+
+        try {
+            accounts = aSvc.findAllByNumbers(accountNumbers);
+            players = playerNames.isEmpty() ? Map.of() : pSvc.findAllByNames(playerNames);
+
+        } catch (NoSuchElementException e) {
+            throw new ValidationException(e);
+        }
+        return convertDtosToEntries(dtos, accounts, players);
+    }
+
+    /**
+     * Converts the given transaction line DTOs into new transaction lines, taking their accounts
+     * and players from the given maps
+     *
+     * @param dtos A list of transaction line DTOs; must not be null
+     * @param accounts The accounts referenced by the DTOs, by number
+     * @param players The players referenced by the DTOs, by name
+     * @return A list of new transaction lines with field values matching the transaction line DTOs,
+     *         in the same order
+     * @throws ValidationException If an account or player referenced by a DTO is not in the maps
+     */
+    protected List<TransactionLine> convertDtosToEntries(List<TransactionLineDTO> dtos, Map<String, Account> accounts,
+                                                         Map<String, Player> players) throws ValidationException {
+        assert dtos != null;
+
+        List<TransactionLine> lines = new ArrayList<>(dtos.size());
+
+        for (TransactionLineDTO dto : dtos) {
+            TransactionLine line = new TransactionLine();
+            line.setAccount(accounts.get(dto.getAccountNumber()));
+
+            if (line.getAccount() == null)
+                throw new ValidationException("Account number='"+dto.getAccountNumber()+"' does not exist.");
+
+            if (dto.getPlayerName() != null) {
+                line.setPlayer(players.get(dto.getPlayerName()));
+
+                if (line.getPlayer() == null)
+                    throw new ValidationException("Player name='"+dto.getPlayerName()+"' does not exist.");
+            }
+            setValues(dto, line);
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    /**
+     * Adds the account numbers and player names referenced by the given transaction line DTOs
+     * to the given sets
+     *
+     * @param dtos A list of transaction line DTOs; must not be null
+     * @param accountNumbers A set of account numbers to add to
+     * @param playerNames A set of player names to add to
+     * @throws ValidationException If a DTO has no account number
+     */
+    protected void collectReferences(List<TransactionLineDTO> dtos, Set<String> accountNumbers,
+                                     Set<String> playerNames) throws ValidationException {
+        for (TransactionLineDTO dto : dtos) {
+            if (dto.getAccountNumber() == null)
+                throw new ValidationException("Account number must not be null.");
+
+            accountNumbers.add(dto.getAccountNumber());
+
+            if (dto.getPlayerName() != null)
+                playerNames.add(dto.getPlayerName());
+        }
+    }
+
+    /**
+     * Transfers the given transaction line DTO's amount, memo and reconciled date into the given transaction line
+     *
+     * @param dto A transaction line DTO
+     * @param transactionLine A transaction line
+     */
+    private void setValues(TransactionLineDTO dto, TransactionLine transactionLine) {
         transactionLine.setAmount(dto.getAmount());
         transactionLine.setMemo(dto.getMemo());
         transactionLine.setDateReconciled(dto.getDateReconciled());
-
-        return transactionLine;
     }
 }
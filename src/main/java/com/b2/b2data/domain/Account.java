@@ -1,5 +1,8 @@
 package com.b2.b2data.domain;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
@@ -10,6 +13,8 @@ import java.util.Objects;
  */
 @Entity
 @Table(name = "gl_account")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Account.CACHE_REGION)
 @NamedEntityGraphs({
         @NamedEntityGraph(
                 name = Account.WITH_ALL,
@@ -20,6 +25,10 @@ import java.util.Objects;
 })
 public class Account extends Entry {
 
+    // second-level cache regions
+    public static final String CACHE_REGION = "account";
+    public static final String QUERY_CACHE_REGION = "account.queries";
+
     // entity graphs
     public static final String WITH_ALL = "graph.account.all";
     public static final String WITH_ELEMENT = "graph.account.element";
@@ -33,7 +42,15 @@ public class Account extends Entry {
     public static final String PLAYER = "player";
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "gl_account.id")
+    @TableGenerator(
+            name = "gl_account.id",
+            table = ID_GENERATOR_TABLE,
+            pkColumnName = ID_GENERATOR_NAME_COLUMN,
+            valueColumnName = ID_GENERATOR_VALUE_COLUMN,
+            pkColumnValue = "gl_account",
+            allocationSize = ID_ALLOCATION_SIZE
+    )
     @Column(name = "id")
     private Integer id;
 
@@ -0,0 +1,195 @@
+package com.b2.b2data.domain;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.util.Objects;
+
+/**
+ * Represents the running debit and credit totals of a general ledger {@link Account}.
+ * Balances are maintained incrementally as transaction lines are written, so they never
+ * need to be summed from the transaction lines at read time.
+ */
+@Entity
+@Table(name = "gl_account_balance")
+@NamedEntityGraph(
+        name = AccountBalance.WITH_ACCOUNT,
+        attributeNodes = @NamedAttributeNode(AccountBalance.ACCOUNT)
+)
+public class AccountBalance extends Entry {
+
+    // entity graphs
+    public static final String WITH_ACCOUNT = "graph.accountBalance.account";
+
+    // field names
+    public static final String ACCOUNT_ID = "accountId";
+    public static final String ACCOUNT = "account";
+    public static final String DEBIT = "debit";
+    public static final String CREDIT = "credit";
+
+    @Id
+    @Column(name = "gl_account_id")
+    private Integer accountId;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(
+            name = "gl_account_id",
+            referencedColumnName = "id",
+            foreignKey = @ForeignKey(name = "fk__gl_account_balance__gl_account_id")
+    )
+    @NotNull
+    private Account account;
+
+    @Column(name = "debit", nullable = false)
+    @NotNull
+    private Double debit;
+
+    @Column(name = "credit", nullable = false)
+    @NotNull
+    private Double credit;
+
+    /**
+     * Constructs a new account balance
+     */
+    public AccountBalance() {
+    }
+
+    /**
+     * Constructs a new account balance
+     *
+     * @param account The account the balance belongs to
+     * @param debit The sum of all positive line amounts of the account
+     * @param credit The sum of all negative line amounts of the account, as a positive number
+     */
+    public AccountBalance(Account account, Double debit, Double credit) {
+        this.account = account;
+        this.debit = debit;
+        this.credit = credit;
+    }
+
+    /**
+     * Checks the equality of two account balances
+     *
+     * @param o The other account balance to compare with this account balance
+     * @return True if the other account balance is equal to this account balance, or false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (!(o instanceof AccountBalance that))
+            return false;
+
+        return Objects.equals(accountId, that.accountId)
+                && Objects.equals(debit, that.debit)
+                && Objects.equals(credit, that.credit);
+    }
+
+    /**
+     * Returns a hash code value for the account balance
+     *
+     * @return A hash code value for the account balance
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(accountId, debit, credit);
+    }
+
+    /**
+     * Returns a string representation of the account balance
+     *
+     * @return A string representation of the account balance in the following format:
+     * <br/><br/>AccountBalance{accountId=accountId, debit=debit, credit=credit}
+     */
+    @Override
+    public String toString() {
+        return "AccountBalance{" +
+                "accountId=" + accountId +
+                ", debit=" + debit +
+                ", credit=" + credit +
+                '}';
+    }
+
+    /**
+     * Gets the id of the account balance
+     *
+     * @return The id of the account the balance belongs to, or null if the balance has not been saved
+     */
+    @Override
+    public Integer getId() {
+        return accountId;
+    }
+
+    /**
+     * Gets the id of the account the balance belongs to
+     *
+     * @return The id of the account the balance belongs to
+     */
+    public Integer getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * Gets the account the balance belongs to
+     *
+     * @return The account the balance belongs to
+     */
+    public Account getAccount() {
+        return account;
+    }
+
+    /**
+     * Sets the account of the balance
+     *
+     * @param account An account
+     */
+    public void setAccount(Account account) {
+        this.account = account;
+    }
+
+    /**
+     * Gets the debit total of the account
+     *
+     * @return The sum of all positive line amounts of the account
+     */
+    public Double getDebit() {
+        return debit;
+    }
+
+    /**
+     * Sets the debit total of the account
+     *
+     * @param debit The sum of all positive line amounts of the account
+     */
+    public void setDebit(Double debit) {
+        this.debit = debit;
+    }
+
+    /**
+     * Gets the credit total of the account
+     *
+     * @return The sum of all negative line amounts of the account, as a positive number
+     */
+    public Double getCredit() {
+        return credit;
+    }
+
+    /**
+     * Sets the credit total of the account
+     *
+     * @param credit The sum of all negative line amounts of the account, as a positive number
+     */
+    public void setCredit(Double credit) {
+        this.credit = credit;
+    }
+
+    /**
+     * Gets the balance of the account
+     *
+     * @return The debit total minus the credit total
+     */
+    public Double getBalance() {
+        return debit - credit;
+    }
+}
@@ -0,0 +1,248 @@
+package com.b2.b2data.domain;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Represents the debit and credit totals of a general ledger {@link Account} for one fiscal month.
+ * Fiscal months follow calendar months; a period is identified by the first day of its month.
+ */
+@Entity
+@Table(name = "gl_account_period")
+@IdClass(AccountPeriodId.class)
+public class AccountPeriod extends Entry {
+
+    // field names
+    public static final String ACCOUNT = "account";
+    public static final String PERIOD = "period";
+    public static final String DEBIT = "debit";
+    public static final String CREDIT = "credit";
+
+    @Id
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(
+            name = "gl_account_id",
+            referencedColumnName = "id",
+            foreignKey = @ForeignKey(name = "fk__gl_account_period__gl_account_id"),
+            nullable = false
+    )
+    @NotNull
+    private Account account;
+
+    @Id
+    @Column(name = "period_start")
+    @NotNull
+    private LocalDate period;
+
+    @Column(name = "debit", nullable = false)
+    @NotNull
+    private Double debit;
+
+    @Column(name = "credit", nullable = false)
+    @NotNull
+    private Double credit;
+
+    @Transient
+    private boolean isNew = true;
+
+    /**
+     * Constructs a new account period
+     */
+    public AccountPeriod() {
+    }
+
+    /**
+     * Constructs a new account period
+     *
+     * @param account The account the period belongs to
+     * @param period The first day of the month of the period
+     * @param debit The sum of all positive line amounts of the account in the period
+     * @param credit The sum of all negative line amounts of the account in the period, as a positive number
+     */
+    public AccountPeriod(Account account, LocalDate period, Double debit, Double credit) {
+        this.account = account;
+        this.period = period;
+        this.debit = debit;
+        this.credit = credit;
+    }
+
+    /**
+     * Returns the period containing the given date
+     *
+     * @param date A date
+     * @return The first day of the month of the given date
+     */
+    public static LocalDate periodOf(LocalDate date) {
+        return date.withDayOfMonth(1);
+    }
+
+    /**
+     * Checks the equality of two account periods
+     *
+     * @param o The other account period to compare with this account period
+     * @return True if the other account period is equal to this account period, or false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (!(o instanceof AccountPeriod that))
+            return false;
+
+        return Objects.equals(account, that.account)
+                && Objects.equals(period, that.period)
+                && Objects.equals(debit, that.debit)
+                && Objects.equals(credit, that.credit);
+    }
+
+    /**
+     * Returns a hash code value for the account period
+     *
+     * @return A hash code value for the account period
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(account, period, debit, credit);
+    }
+
+    /**
+     * Returns a string representation of the account period
+     *
+     * @return A string representation of the account period in the following format:
+     * <br/><br/>AccountPeriod{accountNumber='accountNumber', period=period, debit=debit, credit=credit}
+     */
+    @Override
+    public String toString() {
+        return "AccountPeriod{" +
+                "accountNumber='" + account.getNumber() + '\'' +
+                ", period=" + period +
+                ", debit=" + debit +
+                ", credit=" + credit +
+                '}';
+    }
+
+    /**
+     * Gets the id of the account period
+     *
+     * @return The id of the account period, or null if it has not been assigned
+     */
+    @Override
+    public AccountPeriodId getId() {
+        return account == null || period == null
+                ? null
+                : new AccountPeriodId(account.getId(), period);
+    }
+
+    /**
+     * Checks whether the account period has not yet been saved to the database. The id of a account period
+     * is assigned rather than generated, so a account period is new until it is persisted or loaded.
+     *
+     * @return True if the account period is new, or false otherwise
+     */
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    /**
+     * Sets whether the account period has not yet been saved to the database
+     *
+     * @param isNew True if the account period is new, or false if it already exists in the database
+     */
+    public void setNew(boolean isNew) {
+        this.isNew = isNew;
+    }
+
+    /**
+     * Marks the account period as existing in the database once it has been persisted or loaded
+     */
+    @PostPersist
+    @PostLoad
+    private void markNotNew() {
+        isNew = false;
+    }
+
+    /**
+     * Gets the account the period belongs to
+     *
+     * @return The account the period belongs to
+     */
+    public Account getAccount() {
+        return account;
+    }
+
+    /**
+     * Sets the account of the period
+     *
+     * @param account An account
+     */
+    public void setAccount(Account account) {
+        this.account = account;
+    }
+
+    /**
+     * Gets the first day of the month of the period
+     *
+     * @return The first day of the month of the period
+     */
+    public LocalDate getPeriod() {
+        return period;
+    }
+
+    /**
+     * Sets the month of the period
+     *
+     * @param period The first day of a month
+     */
+    public void setPeriod(LocalDate period) {
+        this.period = period;
+    }
+
+    /**
+     * Gets the debit total of the period
+     *
+     * @return The sum of all positive line amounts of the account in the period
+     */
+    public Double getDebit() {
+        return debit;
+    }
+
+    /**
+     * Sets the debit total of the period
+     *
+     * @param debit The sum of all positive line amounts of the account in the period
+     */
+    public void setDebit(Double debit) {
+        this.debit = debit;
+    }
+
+    /**
+     * Gets the credit total of the period
+     *
+     * @return The sum of all negative line amounts of the account in the period, as a positive number
+     */
+    public Double getCredit() {
+        return credit;
+    }
+
+    /**
+     * Sets the credit total of the period
+     *
+     * @param credit The sum of all negative line amounts of the account in the period, as a positive number
+     */
+    public void setCredit(Double credit) {
+        this.credit = credit;
+    }
+
+    /**
+     * Gets the net movement of the period
+     *
+     * @return The debit total minus the credit total of the period
+     */
+    public Double getNet() {
+        return debit - credit;
+    }
+}
@@ -0,0 +1,110 @@
+package com.b2.b2data.domain;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Represents the primary key of an {@link AccountPeriod}
+ */
+public class AccountPeriodId implements Serializable {
+
+    // field names must match account period field names
+    private Integer account;
+    private LocalDate period;
+
+    /**
+     * Constructs a new account period id
+     */
+    public AccountPeriodId() {
+    }
+
+    /**
+     * Constructs a new account period id
+     *
+     * @param accountId An account id
+     * @param period The first day of a month
+     */
+    public AccountPeriodId(Integer accountId, LocalDate period) {
+        this.account = accountId;
+        this.period = period;
+    }
+
+    /**
+     * Checks the equality of two account period ids
+     *
+     * @param o The other account period id to compare with this account period id
+     * @return True if the other account period id is equal to this account period id,
+     *         or false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (!(o instanceof AccountPeriodId that))
+            return false;
+
+        return Objects.equals(account, that.account) && Objects.equals(period, that.period);
+    }
+
+    /**
+     * Returns a hash code value for the account period id
+     *
+     * @return A hash code value for the account period id
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(account, period);
+    }
+
+    /**
+     * Returns a string representation of the account period id
+     *
+     * @return A string representation of the account period id in the following format:
+     * <br/><br/>AccountPeriodId{accountId=accountId, period=period}
+     */
+    @Override
+    public String toString() {
+        return "AccountPeriodId{" +
+                "accountId=" + account +
+                ", period=" + period +
+                '}';
+    }
+
+    /**
+     * Gets the account id of the account period id
+     *
+     * @return The account id of the account period id
+     */
+    public Integer getAccountId() {
+        return account;
+    }
+
+    /**
+     * Sets the account id of the account period id
+     *
+     * @param accountId An account id
+     */
+    public void setAccountId(Integer accountId) {
+        this.account = accountId;
+    }
+
+    /**
+     * Gets the period of the account period id
+     *
+     * @return The first day of the month of the account period id
+     */
+    public LocalDate getPeriod() {
+        return period;
+    }
+
+    /**
+     * Sets the period of the account period id
+     *
+     * @param period The first day of a month
+     */
+    public void setPeriod(LocalDate period) {
+        this.period = period;
+    }
+}
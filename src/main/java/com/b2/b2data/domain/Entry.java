@@ -1,10 +1,39 @@
 package com.b2.b2data.domain;
 
+import org.springframework.data.domain.Persistable;
+
 import javax.persistence.MappedSuperclass;
+import java.io.Serializable;
 
 /**
- * A base class for all domain entities
+ * A base class for all domain entities. Entries report whether they are new, so that saving a new
+ * entry persists it directly rather than merging it, which would first select it by id.
  */
 @MappedSuperclass
-public abstract class Entry {
+public abstract class Entry implements Persistable<Serializable> {
+
+    // id generation: ids are allocated in blocks from a table, so that inserts can be batched
+    protected static final String ID_GENERATOR_TABLE = "id_generator";
+    protected static final String ID_GENERATOR_NAME_COLUMN = "name";
+    protected static final String ID_GENERATOR_VALUE_COLUMN = "next_val";
+    protected static final int ID_ALLOCATION_SIZE = 50;
+
+    /**
+     * Gets the id of the entry
+     *
+     * @return The id of the entry, or null if it has not been assigned
+     */
+    @Override
+    public abstract Serializable getId();
+
+    /**
+     * Checks whether the entry has not yet been saved to the database. Entries with a generated id
+     * are new until the id is assigned; entries with an assigned id must override this method.
+     *
+     * @return True if the entry is new, or false otherwise
+     */
+    @Override
+    public boolean isNew() {
+        return getId() == null;
+    }
 }
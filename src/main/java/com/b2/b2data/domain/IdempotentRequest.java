@@ -0,0 +1,282 @@
+package com.b2.b2data.domain;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Represents a request made with an idempotency key, along with the response it was answered with.
+ * A request without a status is still being handled.
+ */
+@Entity
+@Table(
+        name = "idempotent_request",
+        indexes = @Index(name = "ix__idempotent_request__created", columnList = "created")
+)
+public class IdempotentRequest extends Entry {
+
+    // field names
+    public static final String IDEMPOTENCY_KEY = "idempotencyKey";
+    public static final String REQUEST = "request";
+    public static final String STATUS = "status";
+    public static final String LOCATION = "location";
+    public static final String BODY = "body";
+    public static final String BODY_HASH = "bodyHash";
+    public static final String CREATED = "created";
+
+    @Id
+    @Column(name = "idempotency_key")
+    @NotNull
+    private String idempotencyKey;
+
+    @Column(name = "request", nullable = false)
+    @NotNull
+    private String request;
+
+    @Column(name = "status")
+    private Integer status;
+
+    @Column(name = "location", length = 2048)
+    private String location;
+
+    @Lob
+    @Column(name = "body")
+    private String body;
+
+    @Column(name = "body_hash", length = 64)
+    private String bodyHash;
+
+    @Column(name = "created", nullable = false)
+    @NotNull
+    private LocalDateTime created;
+
+    @Transient
+    private boolean isNew = true;
+
+    /**
+     * Constructs a new idempotent request
+     */
+    public IdempotentRequest() {
+    }
+
+    /**
+     * Constructs a new idempotent request that is being handled
+     *
+     * @param idempotencyKey An idempotency key
+     * @param request The method and path of the request
+     * @param created The date and time the request was first received
+     */
+    public IdempotentRequest(String idempotencyKey, String request, LocalDateTime created) {
+        this.idempotencyKey = idempotencyKey;
+        this.request = request;
+        this.created = created;
+    }
+
+    /**
+     * Checks the equality of two idempotent requests
+     *
+     * @param o The other idempotent request to compare with this idempotent request
+     * @return True if the other idempotent request is equal to this idempotent request, or false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (!(o instanceof IdempotentRequest that))
+            return false;
+
+        return Objects.equals(idempotencyKey, that.idempotencyKey)
+                && Objects.equals(request, that.request)
+                && Objects.equals(status, that.status)
+                && Objects.equals(location, that.location)
+                && Objects.equals(body, that.body)
+                && Objects.equals(bodyHash, that.bodyHash)
+                && Objects.equals(created, that.created);
+    }
+
+    /**
+     * Returns a hash code value for the idempotent request
+     *
+     * @return A hash code value for the idempotent request
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(idempotencyKey, request, status, location, body, bodyHash, created);
+    }
+
+    /**
+     * Returns a string representation of the idempotent request
+     *
+     * @return A string representation of the idempotent request in the following format:
+     * <br/><br/>IdempotentRequest{idempotencyKey='idempotencyKey', request='request', status=status,
+     * location='location', created=created}
+     */
+    @Override
+    public String toString() {
+        return "IdempotentRequest{" +
+                "idempotencyKey='" + idempotencyKey + '\'' +
+                ", request='" + request + '\'' +
+                ", status=" + status +
+                ", location='" + location + '\'' +
+                ", created=" + created +
+                '}';
+    }
+
+    /**
+     * Gets the id of the idempotent request
+     *
+     * @return The idempotency key of the request
+     */
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    /**
+     * Checks whether the idempotent request has not yet been saved to the database. The id of an idempotent
+     * request is assigned rather than generated, so an idempotent request is new until it is persisted or loaded.
+     *
+     * @return True if the idempotent request is new, or false otherwise
+     */
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    /**
+     * Marks the idempotent request as existing in the database once it has been persisted or loaded
+     */
+    @PostPersist
+    @PostLoad
+    private void markNotNew() {
+        isNew = false;
+    }
+
+    /**
+     * Checks whether the request has been answered
+     *
+     * @return True if the response of the request is stored, or false if the request is still being handled
+     */
+    public boolean isCompleted() {
+        return status != null;
+    }
+
+    /**
+     * Gets the idempotency key of the request
+     *
+     * @return The idempotency key of the request
+     */
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    /**
+     * Gets the method and path of the request
+     *
+     * @return The method and path of the request, such as "POST /api/transactions"
+     */
+    public String getRequest() {
+        return request;
+    }
+
+    /**
+     * Sets the method and path of the request
+     *
+     * @param request The method and path of a request
+     */
+    public void setRequest(String request) {
+        this.request = request;
+    }
+
+    /**
+     * Gets the HTTP status code of the response
+     *
+     * @return The HTTP status code of the response, or null if the request is still being handled
+     */
+    public Integer getStatus() {
+        return status;
+    }
+
+    /**
+     * Sets the HTTP status code of the response
+     *
+     * @param status An HTTP status code, or null if the request is still being handled
+     */
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    /**
+     * Gets the location header of the response
+     *
+     * @return The location header of the response, or null if it has none
+     */
+    public String getLocation() {
+        return location;
+    }
+
+    /**
+     * Sets the location header of the response
+     *
+     * @param location A location header, or null
+     */
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    /**
+     * Gets the body of the response
+     *
+     * @return The JSON body of the response
+     */
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * Sets the body of the response
+     *
+     * @param body A JSON response body
+     */
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    /**
+     * Gets the hash of the body of the request
+     *
+     * @return The hex encoded SHA-256 hash of the request body, or null if the request is still being handled
+     */
+    public String getBodyHash() {
+        return bodyHash;
+    }
+
+    /**
+     * Sets the hash of the body of the request
+     *
+     * @param bodyHash A hex encoded SHA-256 hash of a request body, or null
+     */
+    public void setBodyHash(String bodyHash) {
+        this.bodyHash = bodyHash;
+    }
+
+    /**
+     * Gets the date and time the request was first received
+     *
+     * @return The date and time the request was first received
+     */
+    public LocalDateTime getCreated() {
+        return created;
+    }
+
+    /**
+     * Sets the date and time the request was first received
+     *
+     * @param created A date and time
+     */
+    public void setCreated(LocalDateTime created) {
+        this.created = created;
+    }
+}
@@ -1,5 +1,8 @@
 package com.b2.b2data.domain;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
@@ -10,15 +13,29 @@ import java.util.Objects;
  */
 @Entity
 @Table(name = "player")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Player.CACHE_REGION)
 public class Player extends Entry {
 
+    // second-level cache regions
+    public static final String CACHE_REGION = "player";
+    public static final String QUERY_CACHE_REGION = "player.queries";
+
     // field names
     public static final String ID = "id";
     public static final String NAME = "name";
     public static final String IS_BANK = "isBank";
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "player.id")
+    @TableGenerator(
+            name = "player.id",
+            table = ID_GENERATOR_TABLE,
+            pkColumnName = ID_GENERATOR_NAME_COLUMN,
+            valueColumnName = ID_GENERATOR_VALUE_COLUMN,
+            pkColumnValue = "player",
+            allocationSize = ID_ALLOCATION_SIZE
+    )
     @Column(name = "id")
     private Integer id;
 
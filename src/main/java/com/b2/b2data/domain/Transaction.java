@@ -9,7 +9,10 @@ import java.util.Objects;
  * Represents a monetary transaction on the general ledger
  */
 @Entity
-@Table(name = "gl_transaction")
+@Table(
+        name = "gl_transaction",
+        indexes = @Index(name = "ix__gl_transaction__date_entered__id", columnList = "date_entered DESC, id DESC")
+)
 public class Transaction extends Entry {
 
     // field names
@@ -18,7 +21,15 @@ public class Transaction extends Entry {
     public static final String MEMO = "memo";
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "gl_transaction.id")
+    @TableGenerator(
+            name = "gl_transaction.id",
+            table = ID_GENERATOR_TABLE,
+            pkColumnName = ID_GENERATOR_NAME_COLUMN,
+            valueColumnName = ID_GENERATOR_VALUE_COLUMN,
+            pkColumnValue = "gl_transaction",
+            allocationSize = ID_ALLOCATION_SIZE
+    )
     @Column(name = "id")
     private Integer id;
 
@@ -1,5 +1,7 @@
 package com.b2.b2data.domain;
 
+import org.hibernate.annotations.DynamicUpdate;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import java.time.LocalDate;
@@ -9,7 +11,14 @@ import java.util.Objects;
  * Represents a single line of a parent {@link Transaction}
  */
 @Entity
-@Table(name = "gl_transaction_line")
+@Table(
+        name = "gl_transaction_line",
+        indexes = @Index(
+                name = "ix__gl_transaction_line__gl_account_id__date_reconciled",
+                columnList = "gl_account_id, date_reconciled"
+        )
+)
+@DynamicUpdate
 @IdClass(TransactionLineId.class)
 @NamedEntityGraphs({
         @NamedEntityGraph(
@@ -127,6 +136,9 @@ public class TransactionLine extends Entry {
     @Column(name = "date_reconciled")
     private LocalDate dateReconciled;
 
+    @Transient
+    private boolean isNew = true;
+
     /**
      * Constructs a new transaction line
      */
@@ -201,6 +213,47 @@ public class TransactionLine extends Entry {
                 '}';
     }
 
+    /**
+     * Gets the id of the transaction line
+     *
+     * @return The id of the transaction line, or null if it has not been assigned
+     */
+    @Override
+    public TransactionLineId getId() {
+        return transaction == null || lineId == null
+                ? null
+                : new TransactionLineId(transaction.getId(), lineId);
+    }
+
+    /**
+     * Checks whether the transaction line has not yet been saved to the database. The id of a transaction line
+     * is assigned rather than generated, so a transaction line is new until it is persisted or loaded.
+     *
+     * @return True if the transaction line is new, or false otherwise
+     */
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    /**
+     * Sets whether the transaction line has not yet been saved to the database
+     *
+     * @param isNew True if the transaction line is new, or false if it already exists in the database
+     */
+    public void setNew(boolean isNew) {
+        this.isNew = isNew;
+    }
+
+    /**
+     * Marks the transaction line as existing in the database once it has been persisted or loaded
+     */
+    @PostPersist
+    @PostLoad
+    private void markNotNew() {
+        isNew = false;
+    }
+
     /**
      * Gets the parent transaction of the transaction line
      *
@@ -0,0 +1,193 @@
+package com.b2.b2data.dto;
+
+import com.b2.b2data.domain.AccountBalance;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * A data transfer object for transmitting {@link AccountBalance} entities to the client
+ */
+public class AccountBalanceDTO extends DTO {
+
+    private String accountNumber;
+    private Double debit;
+    private Double credit;
+    private Double balance;
+    private LocalDate asOf;
+
+    /**
+     * Constructs a new account balance DTO
+     */
+    public AccountBalanceDTO() {
+    }
+
+    /**
+     * Constructs a new account balance DTO
+     *
+     * @param accountBalance An account balance; must not be null
+     * @throws IllegalArgumentException If the account balance is null
+     */
+    public AccountBalanceDTO(AccountBalance accountBalance) throws IllegalArgumentException {
+        if (accountBalance == null)
+            throw new IllegalArgumentException("account balance must not be null.");
+
+        if (accountBalance.getAccount() != null)
+            accountNumber = accountBalance.getAccount().getNumber();
+
+        debit = accountBalance.getDebit();
+        credit = accountBalance.getCredit();
+        balance = accountBalance.getBalance();
+    }
+
+    /**
+     * Constructs a new account balance DTO for a balance as of a given date
+     *
+     * @param accountBalance An account balance; must not be null
+     * @param asOf The date the balance was computed as of, or null for the current balance
+     * @throws IllegalArgumentException If the account balance is null
+     */
+    public AccountBalanceDTO(AccountBalance accountBalance, LocalDate asOf) throws IllegalArgumentException {
+        this(accountBalance);
+        this.asOf = asOf;
+    }
+
+    /**
+     * Checks the equality of two account balance DTOs
+     *
+     * @param o The other account balance DTO to compare with this account balance DTO
+     * @return True if the other account balance DTO is equal to this account balance DTO, or false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (!(o instanceof AccountBalanceDTO that))
+            return false;
+
+        return Objects.equals(accountNumber, that.accountNumber)
+                && Objects.equals(debit, that.debit)
+                && Objects.equals(credit, that.credit)
+                && Objects.equals(balance, that.balance)
+                && Objects.equals(asOf, that.asOf);
+    }
+
+    /**
+     * Returns a hash code value for the account balance DTO
+     *
+     * @return A hash code value for the account balance DTO
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(accountNumber, debit, credit, balance, asOf);
+    }
+
+    /**
+     * Returns a string representation of the account balance DTO
+     *
+     * @return A string representation of the account balance DTO in the following format:
+     * <br/><br/>AccountBalanceDTO{accountNumber='accountNumber', debit=debit, credit=credit, balance=balance,
+     * asOf=asOf}
+     */
+    @Override
+    public String toString() {
+        return "AccountBalanceDTO{" +
+                "accountNumber='" + accountNumber + '\'' +
+                ", debit=" + debit +
+                ", credit=" + credit +
+                ", balance=" + balance +
+                ", asOf=" + asOf +
+                '}';
+    }
+
+    /**
+     * Gets the number of the account associated with the account balance DTO
+     *
+     * @return The number of the account associated with the account balance DTO
+     */
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    /**
+     * Sets the account number of the account balance DTO
+     *
+     * @param accountNumber An account number
+     */
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    /**
+     * Gets the debit total of the account balance DTO
+     *
+     * @return The sum of all positive line amounts of the account
+     */
+    public Double getDebit() {
+        return debit;
+    }
+
+    /**
+     * Sets the debit total of the account balance DTO
+     *
+     * @param debit The sum of all positive line amounts of the account
+     */
+    public void setDebit(Double debit) {
+        this.debit = debit;
+    }
+
+    /**
+     * Gets the credit total of the account balance DTO
+     *
+     * @return The sum of all negative line amounts of the account, as a positive number
+     */
+    public Double getCredit() {
+        return credit;
+    }
+
+    /**
+     * Sets the credit total of the account balance DTO
+     *
+     * @param credit The sum of all negative line amounts of the account, as a positive number
+     */
+    public void setCredit(Double credit) {
+        this.credit = credit;
+    }
+
+    /**
+     * Gets the balance of the account balance DTO
+     *
+     * @return The debit total minus the credit total
+     */
+    public Double getBalance() {
+        return balance;
+    }
+
+    /**
+     * Sets the balance of the account balance DTO
+     *
+     * @param balance The debit total minus the credit total
+     */
+    public void setBalance(Double balance) {
+        this.balance = balance;
+    }
+
+    /**
+     * Gets the date the balance of the account balance DTO was computed as of
+     *
+     * @return A date, or null for the current balance
+     */
+    public LocalDate getAsOf() {
+        return asOf;
+    }
+
+    /**
+     * Sets the date the balance of the account balance DTO was computed as of
+     *
+     * @param asOf A date, or null for the current balance
+     */
+    public void setAsOf(LocalDate asOf) {
+        this.asOf = asOf;
+    }
+}
@@ -47,6 +47,21 @@ public class AccountDTO extends DTO {
             playerName = account.getPlayer().getName();
     }
 
+    /**
+     * Constructs a new account DTO from the column values of a projection query
+     *
+     * @param number The account number
+     * @param name The account name
+     * @param elementNumber The number of the element of the account
+     * @param playerName The name of the player of the account, or null
+     */
+    public AccountDTO(String number, String name, Integer elementNumber, String playerName) {
+        this.number = number;
+        this.name = name;
+        this.elementNumber = elementNumber;
+        this.playerName = playerName;
+    }
+
     /**
      * Checks the equality of two account DTOs
      *
@@ -0,0 +1,201 @@
+package com.b2.b2data.dto;
+
+import com.b2.b2data.service.ReferenceCache;
+
+import java.util.Objects;
+
+/**
+ * A data transfer object for transmitting the statistics of one cache region to the client
+ */
+public class CacheStatsDTO extends DTO {
+
+    private String region;
+    private Integer size;
+    private Long hits;
+    private Long misses;
+    private Long evictions;
+    private Long invalidations;
+
+    /**
+     * Constructs a new cache stats DTO
+     */
+    public CacheStatsDTO() {
+    }
+
+    /**
+     * Constructs a new cache stats DTO
+     *
+     * @param stats The statistics of a reference cache region; must not be null
+     * @throws IllegalArgumentException If the statistics are null
+     */
+    public CacheStatsDTO(ReferenceCache.Stats stats) throws IllegalArgumentException {
+        if (stats == null)
+            throw new IllegalArgumentException("stats must not be null.");
+
+        region = stats.region();
+        size = stats.size();
+        hits = stats.hits();
+        misses = stats.misses();
+        evictions = stats.evictions();
+        invalidations = stats.invalidations();
+    }
+
+    /**
+     * Checks the equality of two cache stats DTOs
+     *
+     * @param o The other cache stats DTO to compare with this cache stats DTO
+     * @return True if the other cache stats DTO is equal to this cache stats DTO, or false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (!(o instanceof CacheStatsDTO that))
+            return false;
+
+        return Objects.equals(region, that.region)
+                && Objects.equals(size, that.size)
+                && Objects.equals(hits, that.hits)
+                && Objects.equals(misses, that.misses)
+                && Objects.equals(evictions, that.evictions)
+                && Objects.equals(invalidations, that.invalidations);
+    }
+
+    /**
+     * Returns a hash code value for the cache stats DTO
+     *
+     * @return A hash code value for the cache stats DTO
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(region, size, hits, misses, evictions, invalidations);
+    }
+
+    /**
+     * Returns a string representation of the cache stats DTO
+     *
+     * @return A string representation of the cache stats DTO in the following format:
+     * <br/><br/>CacheStatsDTO{region='region', size=size, hits=hits, misses=misses, evictions=evictions,
+     *           invalidations=invalidations}
+     */
+    @Override
+    public String toString() {
+        return "CacheStatsDTO{" +
+                "region='" + region + '\'' +
+                ", size=" + size +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", invalidations=" + invalidations +
+                '}';
+    }
+
+    /**
+     * Gets the name of the cache region
+     *
+     * @return The name of the cache region
+     */
+    public String getRegion() {
+        return region;
+    }
+
+    /**
+     * Sets the name of the cache region
+     *
+     * @param region A region name
+     */
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    /**
+     * Gets the number of entries in the cache region
+     *
+     * @return The number of entries in the cache region
+     */
+    public Integer getSize() {
+        return size;
+    }
+
+    /**
+     * Sets the number of entries in the cache region
+     *
+     * @param size A number of entries
+     */
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache region
+     *
+     * @return The number of cache hits
+     */
+    public Long getHits() {
+        return hits;
+    }
+
+    /**
+     * Sets the number of lookups answered from the cache region
+     *
+     * @param hits A number of cache hits
+     */
+    public void setHits(Long hits) {
+        this.hits = hits;
+    }
+
+    /**
+     * Gets the number of lookups that went to the database
+     *
+     * @return The number of cache misses
+     */
+    public Long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Sets the number of lookups that went to the database
+     *
+     * @param misses A number of cache misses
+     */
+    public void setMisses(Long misses) {
+        this.misses = misses;
+    }
+
+    /**
+     * Gets the number of entries evicted because the cache region was full
+     *
+     * @return The number of evictions
+     */
+    public Long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Sets the number of entries evicted because the cache region was full
+     *
+     * @param evictions A number of evictions
+     */
+    public void setEvictions(Long evictions) {
+        this.evictions = evictions;
+    }
+
+    /**
+     * Gets the number of times the cache region was cleared by a write
+     *
+     * @return The number of invalidations
+     */
+    public Long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * Sets the number of times the cache region was cleared by a write
+     *
+     * @param invalidations A number of invalidations
+     */
+    public void setInvalidations(Long invalidations) {
+        this.invalidations = invalidations;
+    }
+}
@@ -0,0 +1,166 @@
+package com.b2.b2data.dto;
+
+import com.b2.b2data.domain.TransactionLineId;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A data transfer object for receiving a bulk reconciliation from the client. The lines to reconcile are
+ * either given by id, or selected by a filter: the unreconciled lines of an account, optionally within
+ * a range of transaction dates.
+ */
+public class ReconciliationDTO extends DTO {
+
+    private List<TransactionLineId> lineIds;
+    private String accountNumber;
+    private LocalDate from;
+    private LocalDate to;
+    private LocalDate dateReconciled;
+
+    /**
+     * Constructs a new reconciliation DTO
+     */
+    public ReconciliationDTO() {
+    }
+
+    /**
+     * Checks the equality of two reconciliation DTOs
+     *
+     * @param o The other reconciliation DTO to compare with this reconciliation DTO
+     * @return True if the other reconciliation DTO is equal to this reconciliation DTO, or false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (!(o instanceof ReconciliationDTO that))
+            return false;
+
+        return Objects.equals(lineIds, that.lineIds)
+                && Objects.equals(accountNumber, that.accountNumber)
+                && Objects.equals(from, that.from)
+                && Objects.equals(to, that.to)
+                && Objects.equals(dateReconciled, that.dateReconciled);
+    }
+
+    /**
+     * Returns a hash code value for the reconciliation DTO
+     *
+     * @return A hash code value for the reconciliation DTO
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(lineIds, accountNumber, from, to, dateReconciled);
+    }
+
+    /**
+     * Returns a string representation of the reconciliation DTO
+     *
+     * @return A string representation of the reconciliation DTO in the following format:
+     * <br/><br/>ReconciliationDTO{lineIds=lineIds, accountNumber='accountNumber', from=from, to=to,
+     *           dateReconciled=dateReconciled}
+     */
+    @Override
+    public String toString() {
+        return "ReconciliationDTO{" +
+                "lineIds=" + lineIds +
+                ", accountNumber='" + accountNumber + '\'' +
+                ", from=" + from +
+                ", to=" + to +
+                ", dateReconciled=" + dateReconciled +
+                '}';
+    }
+
+    /**
+     * Gets the ids of the lines to reconcile
+     *
+     * @return A list of transaction line ids, or null if the lines are selected by the filter
+     */
+    public List<TransactionLineId> getLineIds() {
+        return lineIds;
+    }
+
+    /**
+     * Sets the ids of the lines to reconcile
+     *
+     * @param lineIds A list of transaction line ids
+     */
+    public void setLineIds(List<TransactionLineId> lineIds) {
+        this.lineIds = lineIds;
+    }
+
+    /**
+     * Gets the number of the account whose unreconciled lines are reconciled
+     *
+     * @return An account number, or null if the lines are given by id
+     */
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    /**
+     * Sets the number of the account whose unreconciled lines are reconciled
+     *
+     * @param accountNumber An account number
+     */
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    /**
+     * Gets the minimum transaction date of the lines to reconcile
+     *
+     * @return A minimum bounding date, or null if there is none
+     */
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    /**
+     * Sets the minimum transaction date of the lines to reconcile
+     *
+     * @param from A minimum bounding date
+     */
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    /**
+     * Gets the maximum transaction date of the lines to reconcile
+     *
+     * @return A maximum bounding date, or null if there is none
+     */
+    public LocalDate getTo() {
+        return to;
+    }
+
+    /**
+     * Sets the maximum transaction date of the lines to reconcile
+     *
+     * @param to A maximum bounding date
+     */
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    /**
+     * Gets the reconciliation date given to the lines
+     *
+     * @return A reconciliation date, or null to mark lines given by id as unreconciled
+     */
+    public LocalDate getDateReconciled() {
+        return dateReconciled;
+    }
+
+    /**
+     * Sets the reconciliation date given to the lines
+     *
+     * @param dateReconciled A reconciliation date
+     */
+    public void setDateReconciled(LocalDate dateReconciled) {
+        this.dateReconciled = dateReconciled;
+    }
+}
@@ -0,0 +1,233 @@
+package com.b2.b2data.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A data transfer object for transmitting the reconciliation of an account against a bank statement to the client.
+ * Cleared lines were reconciled on or before the statement date; uncleared lines are dated on or before it,
+ * but were not reconciled by then.
+ */
+public class ReconciliationSummaryDTO extends DTO {
+
+    private String accountNumber;
+    private LocalDate statementDate;
+    private Double statementBalance;
+    private Double clearedBalance;
+    private Double unclearedTotal;
+    private Double difference;
+    private List<TransactionLineDTO> unclearedLines;
+
+    /**
+     * Constructs a new reconciliation summary DTO
+     */
+    public ReconciliationSummaryDTO() {
+    }
+
+    /**
+     * Constructs a new reconciliation summary DTO
+     *
+     * @param accountNumber An account number
+     * @param statementDate The closing date of the statement
+     * @param statementBalance The closing balance of the statement, or null if it was not given
+     * @param clearedBalance The sum of the amounts of the cleared lines
+     * @param unclearedTotal The sum of the amounts of the uncleared lines
+     * @param unclearedLines A list of DTOs of the uncleared lines
+     */
+    public ReconciliationSummaryDTO(String accountNumber, LocalDate statementDate, Double statementBalance,
+                                    Double clearedBalance, Double unclearedTotal,
+                                    List<TransactionLineDTO> unclearedLines) {
+        this.accountNumber = accountNumber;
+        this.statementDate = statementDate;
+        this.statementBalance = statementBalance;
+        this.clearedBalance = clearedBalance;
+        this.unclearedTotal = unclearedTotal;
+        this.unclearedLines = unclearedLines;
+
+        if (statementBalance != null)
+            difference = statementBalance-clearedBalance;
+    }
+
+    /**
+     * Checks the equality of two reconciliation summary DTOs
+     *
+     * @param o The other reconciliation summary DTO to compare with this reconciliation summary DTO
+     * @return True if the other reconciliation summary DTO is equal to this reconciliation summary DTO,
+     *         or false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (!(o instanceof ReconciliationSummaryDTO that))
+            return false;
+
+        return Objects.equals(accountNumber, that.accountNumber)
+                && Objects.equals(statementDate, that.statementDate)
+                && Objects.equals(statementBalance, that.statementBalance)
+                && Objects.equals(clearedBalance, that.clearedBalance)
+                && Objects.equals(unclearedTotal, that.unclearedTotal)
+                && Objects.equals(difference, that.difference)
+                && Objects.equals(unclearedLines, that.unclearedLines);
+    }
+
+    /**
+     * Returns a hash code value for the reconciliation summary DTO
+     *
+     * @return A hash code value for the reconciliation summary DTO
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(accountNumber, statementDate, statementBalance, clearedBalance, unclearedTotal,
+                difference, unclearedLines);
+    }
+
+    /**
+     * Returns a string representation of the reconciliation summary DTO
+     *
+     * @return A string representation of the reconciliation summary DTO in the following format:
+     * <br/><br/>ReconciliationSummaryDTO{accountNumber='accountNumber', statementDate=statementDate,
+     *           statementBalance=statementBalance, clearedBalance=clearedBalance, unclearedTotal=unclearedTotal,
+     *           difference=difference, unclearedLines=unclearedLines}
+     */
+    @Override
+    public String toString() {
+        return "ReconciliationSummaryDTO{" +
+                "accountNumber='" + accountNumber + '\'' +
+                ", statementDate=" + statementDate +
+                ", statementBalance=" + statementBalance +
+                ", clearedBalance=" + clearedBalance +
+                ", unclearedTotal=" + unclearedTotal +
+                ", difference=" + difference +
+                ", unclearedLines=" + unclearedLines +
+                '}';
+    }
+
+    /**
+     * Gets the number of the reconciled account
+     *
+     * @return An account number
+     */
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    /**
+     * Sets the number of the reconciled account
+     *
+     * @param accountNumber An account number
+     */
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    /**
+     * Gets the closing date of the statement
+     *
+     * @return The closing date of the statement
+     */
+    public LocalDate getStatementDate() {
+        return statementDate;
+    }
+
+    /**
+     * Sets the closing date of the statement
+     *
+     * @param statementDate A date
+     */
+    public void setStatementDate(LocalDate statementDate) {
+        this.statementDate = statementDate;
+    }
+
+    /**
+     * Gets the closing balance of the statement
+     *
+     * @return The closing balance of the statement, or null if it was not given
+     */
+    public Double getStatementBalance() {
+        return statementBalance;
+    }
+
+    /**
+     * Sets the closing balance of the statement
+     *
+     * @param statementBalance A balance
+     */
+    public void setStatementBalance(Double statementBalance) {
+        this.statementBalance = statementBalance;
+    }
+
+    /**
+     * Gets the cleared balance of the account
+     *
+     * @return The sum of the amounts of the lines reconciled on or before the statement date
+     */
+    public Double getClearedBalance() {
+        return clearedBalance;
+    }
+
+    /**
+     * Sets the cleared balance of the account
+     *
+     * @param clearedBalance The sum of the amounts of the lines reconciled on or before the statement date
+     */
+    public void setClearedBalance(Double clearedBalance) {
+        this.clearedBalance = clearedBalance;
+    }
+
+    /**
+     * Gets the uncleared total of the account
+     *
+     * @return The sum of the amounts of the uncleared lines
+     */
+    public Double getUnclearedTotal() {
+        return unclearedTotal;
+    }
+
+    /**
+     * Sets the uncleared total of the account
+     *
+     * @param unclearedTotal The sum of the amounts of the uncleared lines
+     */
+    public void setUnclearedTotal(Double unclearedTotal) {
+        this.unclearedTotal = unclearedTotal;
+    }
+
+    /**
+     * Gets the difference between the statement and the cleared balance
+     *
+     * @return The statement balance minus the cleared balance, or null if no statement balance was given
+     */
+    public Double getDifference() {
+        return difference;
+    }
+
+    /**
+     * Sets the difference between the statement and the cleared balance
+     *
+     * @param difference The statement balance minus the cleared balance
+     */
+    public void setDifference(Double difference) {
+        this.difference = difference;
+    }
+
+    /**
+     * Gets the uncleared lines of the account
+     *
+     * @return A list of DTOs of the uncleared lines
+     */
+    public List<TransactionLineDTO> getUnclearedLines() {
+        return unclearedLines;
+    }
+
+    /**
+     * Sets the uncleared lines of the account
+     *
+     * @param unclearedLines A list of DTOs of the uncleared lines
+     */
+    public void setUnclearedLines(List<TransactionLineDTO> unclearedLines) {
+        this.unclearedLines = unclearedLines;
+    }
+}
@@ -0,0 +1,378 @@
+package com.b2.b2data.dto;
+
+import com.b2.b2data.service.StatementImport;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A data transfer object for transmitting the progress of a {@link StatementImport} to the client
+ */
+public class StatementImportDTO extends DTO {
+
+    private Integer id;
+    private String status;
+    private Long bytesRead;
+    private Long bytesTotal;
+    private Long rowsRead;
+    private Long transactionsCreated;
+    private Long rowsFailed;
+    private Long rowsDuplicate;
+    private Double rowsPerSecond;
+    private LocalDateTime started;
+    private LocalDateTime finished;
+    private String message;
+    private List<String> errors;
+    private List<String> duplicates;
+
+    /**
+     * Constructs a new statement import DTO
+     */
+    public StatementImportDTO() {
+    }
+
+    /**
+     * Constructs a new statement import DTO
+     *
+     * @param statementImport A statement import
+     */
+    public StatementImportDTO(StatementImport statementImport) {
+        id = statementImport.getId();
+        status = statementImport.getStatus().name();
+        bytesRead = statementImport.getBytesRead();
+        bytesTotal = statementImport.getBytesTotal();
+        rowsRead = statementImport.getRowsRead();
+        transactionsCreated = statementImport.getTransactionsCreated();
+        rowsFailed = statementImport.getRowsFailed();
+        rowsDuplicate = statementImport.getRowsDuplicate();
+        rowsPerSecond = statementImport.getRowsPerSecond();
+        started = statementImport.getStarted();
+        finished = statementImport.getFinished();
+        message = statementImport.getMessage();
+        errors = statementImport.getErrors();
+        duplicates = statementImport.getDuplicates();
+    }
+
+    /**
+     * Checks the equality of two statement import DTOs
+     *
+     * @param o The other statement import DTO to compare with this statement import DTO
+     * @return True if the other statement import DTO is equal to this statement import DTO, or false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (!(o instanceof StatementImportDTO that))
+            return false;
+
+        return Objects.equals(id, that.id)
+                && Objects.equals(status, that.status)
+                && Objects.equals(bytesRead, that.bytesRead)
+                && Objects.equals(bytesTotal, that.bytesTotal)
+                && Objects.equals(rowsRead, that.rowsRead)
+                && Objects.equals(transactionsCreated, that.transactionsCreated)
+                && Objects.equals(rowsFailed, that.rowsFailed)
+                && Objects.equals(rowsDuplicate, that.rowsDuplicate)
+                && Objects.equals(rowsPerSecond, that.rowsPerSecond)
+                && Objects.equals(started, that.started)
+                && Objects.equals(finished, that.finished)
+                && Objects.equals(message, that.message)
+                && Objects.equals(errors, that.errors)
+                && Objects.equals(duplicates, that.duplicates);
+    }
+
+    /**
+     * Returns a hash code value for the statement import DTO
+     *
+     * @return A hash code value for the statement import DTO
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, status, bytesRead, bytesTotal, rowsRead, transactionsCreated, rowsFailed,
+                rowsDuplicate, rowsPerSecond, started, finished, message, errors, duplicates);
+    }
+
+    /**
+     * Returns a string representation of the statement import DTO
+     *
+     * @return A string representation of the statement import DTO in the following format:
+     * <br/><br/>StatementImportDTO{id=id, status='status', bytesRead=bytesRead, bytesTotal=bytesTotal,
+     *           rowsRead=rowsRead, transactionsCreated=transactionsCreated, rowsFailed=rowsFailed,
+     *           rowsDuplicate=rowsDuplicate, rowsPerSecond=rowsPerSecond, started=started, finished=finished,
+     *           message='message', errors=errors, duplicates=duplicates}
+     */
+    @Override
+    public String toString() {
+        return "StatementImportDTO{" +
+                "id=" + id +
+                ", status='" + status + '\'' +
+                ", bytesRead=" + bytesRead +
+                ", bytesTotal=" + bytesTotal +
+                ", rowsRead=" + rowsRead +
+                ", transactionsCreated=" + transactionsCreated +
+                ", rowsFailed=" + rowsFailed +
+                ", rowsDuplicate=" + rowsDuplicate +
+                ", rowsPerSecond=" + rowsPerSecond +
+                ", started=" + started +
+                ", finished=" + finished +
+                ", message='" + message + '\'' +
+                ", errors=" + errors +
+                ", duplicates=" + duplicates +
+                '}';
+    }
+
+    /**
+     * Gets the id of the import
+     *
+     * @return The id of the import
+     */
+    public Integer getId() {
+        return id;
+    }
+
+    /**
+     * Sets the id of the import
+     *
+     * @param id An import id
+     */
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the status of the import
+     *
+     * @return One of QUEUED, RUNNING, COMPLETED or FAILED
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * Sets the status of the import
+     *
+     * @param status One of QUEUED, RUNNING, COMPLETED or FAILED
+     */
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    /**
+     * Gets the number of bytes of the statement read
+     *
+     * @return The number of bytes of the statement read
+     */
+    public Long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Sets the number of bytes of the statement read
+     *
+     * @param bytesRead A number of bytes
+     */
+    public void setBytesRead(Long bytesRead) {
+        this.bytesRead = bytesRead;
+    }
+
+    /**
+     * Gets the size of the statement
+     *
+     * @return The size of the statement in bytes
+     */
+    public Long getBytesTotal() {
+        return bytesTotal;
+    }
+
+    /**
+     * Sets the size of the statement
+     *
+     * @param bytesTotal A number of bytes
+     */
+    public void setBytesTotal(Long bytesTotal) {
+        this.bytesTotal = bytesTotal;
+    }
+
+    /**
+     * Gets the number of rows read
+     *
+     * @return The number of rows read, excluding the header and blank rows
+     */
+    public Long getRowsRead() {
+        return rowsRead;
+    }
+
+    /**
+     * Sets the number of rows read
+     *
+     * @param rowsRead A number of rows
+     */
+    public void setRowsRead(Long rowsRead) {
+        this.rowsRead = rowsRead;
+    }
+
+    /**
+     * Gets the number of transactions created
+     *
+     * @return The number of transactions created
+     */
+    public Long getTransactionsCreated() {
+        return transactionsCreated;
+    }
+
+    /**
+     * Sets the number of transactions created
+     *
+     * @param transactionsCreated A number of transactions
+     */
+    public void setTransactionsCreated(Long transactionsCreated) {
+        this.transactionsCreated = transactionsCreated;
+    }
+
+    /**
+     * Gets the number of rows that could not be imported
+     *
+     * @return The number of rows that could not be imported
+     */
+    public Long getRowsFailed() {
+        return rowsFailed;
+    }
+
+    /**
+     * Sets the number of rows that could not be imported
+     *
+     * @param rowsFailed A number of rows
+     */
+    public void setRowsFailed(Long rowsFailed) {
+        this.rowsFailed = rowsFailed;
+    }
+
+    /**
+     * Gets the number of rows found to duplicate stored lines
+     *
+     * @return The number of rows found to duplicate stored lines
+     */
+    public Long getRowsDuplicate() {
+        return rowsDuplicate;
+    }
+
+    /**
+     * Sets the number of rows found to duplicate stored lines
+     *
+     * @param rowsDuplicate A number of rows
+     */
+    public void setRowsDuplicate(Long rowsDuplicate) {
+        this.rowsDuplicate = rowsDuplicate;
+    }
+
+    /**
+     * Gets the average number of rows read per second
+     *
+     * @return The average number of rows read per second, or null if the import has not started
+     */
+    public Double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    /**
+     * Sets the average number of rows read per second
+     *
+     * @param rowsPerSecond A number of rows per second
+     */
+    public void setRowsPerSecond(Double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    /**
+     * Gets the date and time the import started
+     *
+     * @return The date and time the import started, or null if it is queued
+     */
+    public LocalDateTime getStarted() {
+        return started;
+    }
+
+    /**
+     * Sets the date and time the import started
+     *
+     * @param started A date and time
+     */
+    public void setStarted(LocalDateTime started) {
+        this.started = started;
+    }
+
+    /**
+     * Gets the date and time the import finished
+     *
+     * @return The date and time the import finished, or null if it has not finished
+     */
+    public LocalDateTime getFinished() {
+        return finished;
+    }
+
+    /**
+     * Sets the date and time the import finished
+     *
+     * @param finished A date and time
+     */
+    public void setFinished(LocalDateTime finished) {
+        this.finished = finished;
+    }
+
+    /**
+     * Gets the reason the import stopped
+     *
+     * @return The reason the import stopped, or null if it has not failed
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Sets the reason the import stopped
+     *
+     * @param message The reason the import stopped
+     */
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    /**
+     * Gets the errors of the first rows that could not be imported
+     *
+     * @return A list of row errors, in the order they were found
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Sets the errors of the first rows that could not be imported
+     *
+     * @param errors A list of row errors
+     */
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * Gets the first rows found to duplicate stored lines
+     *
+     * @return A list of the line numbers of duplicate rows, in the order they were found
+     */
+    public List<String> getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Sets the first rows found to duplicate stored lines
+     *
+     * @param duplicates A list of the line numbers of duplicate rows
+     */
+    public void setDuplicates(List<String> duplicates) {
+        this.duplicates = duplicates;
+    }
+}
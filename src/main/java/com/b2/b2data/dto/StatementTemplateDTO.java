@@ -0,0 +1,332 @@
+package com.b2.b2data.dto;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.util.Objects;
+
+/**
+ * A data transfer object for receiving the layout of a bank statement from the client. Each row of the
+ * statement becomes a transaction with two lines: one on the bank account, and one offsetting it on either
+ * a fixed account or an account read from a column of the row.
+ */
+public class StatementTemplateDTO extends DTO {
+
+    @NotNull
+    private String bankAccountNumber;
+    private String offsetAccountNumber;
+
+    @NotNull
+    @Min(0)
+    private Integer dateColumn;
+
+    @NotNull
+    @Min(0)
+    private Integer amountColumn;
+
+    @Min(0)
+    private Integer memoColumn;
+
+    @Min(0)
+    private Integer playerNameColumn;
+
+    @Min(0)
+    private Integer accountNumberColumn;
+
+    private String dateFormat = "yyyy-MM-dd";
+    private String delimiter = ",";
+    private Boolean header = true;
+    private Boolean negate = false;
+    private Boolean skipDuplicates = true;
+
+    /**
+     * Constructs a new statement template DTO
+     */
+    public StatementTemplateDTO() {
+    }
+
+    /**
+     * Checks the equality of two statement template DTOs
+     *
+     * @param o The other statement template DTO to compare with this statement template DTO
+     * @return True if the other statement template DTO is equal to this statement template DTO,
+     *         or false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (!(o instanceof StatementTemplateDTO that))
+            return false;
+
+        return Objects.equals(bankAccountNumber, that.bankAccountNumber)
+                && Objects.equals(offsetAccountNumber, that.offsetAccountNumber)
+                && Objects.equals(dateColumn, that.dateColumn)
+                && Objects.equals(amountColumn, that.amountColumn)
+                && Objects.equals(memoColumn, that.memoColumn)
+                && Objects.equals(playerNameColumn, that.playerNameColumn)
+                && Objects.equals(accountNumberColumn, that.accountNumberColumn)
+                && Objects.equals(dateFormat, that.dateFormat)
+                && Objects.equals(delimiter, that.delimiter)
+                && Objects.equals(header, that.header)
+                && Objects.equals(negate, that.negate)
+                && Objects.equals(skipDuplicates, that.skipDuplicates);
+    }
+
+    /**
+     * Returns a hash code value for the statement template DTO
+     *
+     * @return A hash code value for the statement template DTO
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(bankAccountNumber, offsetAccountNumber, dateColumn, amountColumn, memoColumn,
+                playerNameColumn, accountNumberColumn, dateFormat, delimiter, header, negate, skipDuplicates);
+    }
+
+    /**
+     * Returns a string representation of the statement template DTO
+     *
+     * @return A string representation of the statement template DTO in the following format:
+     * <br/><br/>StatementTemplateDTO{bankAccountNumber='bankAccountNumber', offsetAccountNumber='offsetAccountNumber',
+     *           dateColumn=dateColumn, amountColumn=amountColumn, memoColumn=memoColumn,
+     *           playerNameColumn=playerNameColumn, accountNumberColumn=accountNumberColumn,
+     *           dateFormat='dateFormat', delimiter='delimiter', header=header, negate=negate,
+     *           skipDuplicates=skipDuplicates}
+     */
+    @Override
+    public String toString() {
+        return "StatementTemplateDTO{" +
+                "bankAccountNumber='" + bankAccountNumber + '\'' +
+                ", offsetAccountNumber='" + offsetAccountNumber + '\'' +
+                ", dateColumn=" + dateColumn +
+                ", amountColumn=" + amountColumn +
+                ", memoColumn=" + memoColumn +
+                ", playerNameColumn=" + playerNameColumn +
+                ", accountNumberColumn=" + accountNumberColumn +
+                ", dateFormat='" + dateFormat + '\'' +
+                ", delimiter='" + delimiter + '\'' +
+                ", header=" + header +
+                ", negate=" + negate +
+                ", skipDuplicates=" + skipDuplicates +
+                '}';
+    }
+
+    /**
+     * Gets the number of the bank account the statement belongs to
+     *
+     * @return The number of the bank account the statement belongs to
+     */
+    public String getBankAccountNumber() {
+        return bankAccountNumber;
+    }
+
+    /**
+     * Sets the number of the bank account the statement belongs to
+     *
+     * @param bankAccountNumber An account number
+     */
+    public void setBankAccountNumber(String bankAccountNumber) {
+        this.bankAccountNumber = bankAccountNumber;
+    }
+
+    /**
+     * Gets the number of the account that offsets each bank line
+     *
+     * @return The number of the account that offsets each bank line, or null if it is read from a column
+     */
+    public String getOffsetAccountNumber() {
+        return offsetAccountNumber;
+    }
+
+    /**
+     * Sets the number of the account that offsets each bank line
+     *
+     * @param offsetAccountNumber An account number
+     */
+    public void setOffsetAccountNumber(String offsetAccountNumber) {
+        this.offsetAccountNumber = offsetAccountNumber;
+    }
+
+    /**
+     * Gets the column of the transaction date
+     *
+     * @return The position of the column of the transaction date, starting at 0
+     */
+    public Integer getDateColumn() {
+        return dateColumn;
+    }
+
+    /**
+     * Sets the column of the transaction date
+     *
+     * @param dateColumn A column position, starting at 0
+     */
+    public void setDateColumn(Integer dateColumn) {
+        this.dateColumn = dateColumn;
+    }
+
+    /**
+     * Gets the column of the line amount
+     *
+     * @return The position of the column of the amount of the bank line, starting at 0
+     */
+    public Integer getAmountColumn() {
+        return amountColumn;
+    }
+
+    /**
+     * Sets the column of the line amount
+     *
+     * @param amountColumn A column position, starting at 0
+     */
+    public void setAmountColumn(Integer amountColumn) {
+        this.amountColumn = amountColumn;
+    }
+
+    /**
+     * Gets the column of the memo
+     *
+     * @return The position of the column of the memo, or null if the statement has no memos
+     */
+    public Integer getMemoColumn() {
+        return memoColumn;
+    }
+
+    /**
+     * Sets the column of the memo
+     *
+     * @param memoColumn A column position, starting at 0
+     */
+    public void setMemoColumn(Integer memoColumn) {
+        this.memoColumn = memoColumn;
+    }
+
+    /**
+     * Gets the column of the player name
+     *
+     * @return The position of the column of the player name, or null if the statement has no player names
+     */
+    public Integer getPlayerNameColumn() {
+        return playerNameColumn;
+    }
+
+    /**
+     * Sets the column of the player name
+     *
+     * @param playerNameColumn A column position, starting at 0
+     */
+    public void setPlayerNameColumn(Integer playerNameColumn) {
+        this.playerNameColumn = playerNameColumn;
+    }
+
+    /**
+     * Gets the column of the offset account number
+     *
+     * @return The position of the column of the offset account number, or null if the offset account number is fixed
+     */
+    public Integer getAccountNumberColumn() {
+        return accountNumberColumn;
+    }
+
+    /**
+     * Sets the column of the offset account number
+     *
+     * @param accountNumberColumn A column position, starting at 0
+     */
+    public void setAccountNumberColumn(Integer accountNumberColumn) {
+        this.accountNumberColumn = accountNumberColumn;
+    }
+
+    /**
+     * Gets the format of the transaction dates
+     *
+     * @return A date pattern, such as yyyy-MM-dd
+     */
+    public String getDateFormat() {
+        return dateFormat;
+    }
+
+    /**
+     * Sets the format of the transaction dates
+     *
+     * @param dateFormat A date pattern, such as yyyy-MM-dd
+     */
+    public void setDateFormat(String dateFormat) {
+        this.dateFormat = dateFormat;
+    }
+
+    /**
+     * Gets the column delimiter
+     *
+     * @return A single character column delimiter
+     */
+    public String getDelimiter() {
+        return delimiter;
+    }
+
+    /**
+     * Sets the column delimiter
+     *
+     * @param delimiter A single character column delimiter
+     */
+    public void setDelimiter(String delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Gets whether the statement starts with a header row
+     *
+     * @return True if the first row is a header and is skipped, or false otherwise
+     */
+    public Boolean getHeader() {
+        return header;
+    }
+
+    /**
+     * Sets whether the statement starts with a header row
+     *
+     * @param header True if the first row is a header and is skipped, or false otherwise
+     */
+    public void setHeader(Boolean header) {
+        this.header = header;
+    }
+
+    /**
+     * Gets whether the signs of the amounts are reversed
+     *
+     * @return True if the amounts are negated before they are written to the bank account, or false otherwise
+     */
+    public Boolean getNegate() {
+        return negate;
+    }
+
+    /**
+     * Sets whether the signs of the amounts are reversed
+     *
+     * @param negate True if the amounts are negated before they are written to the bank account, or false otherwise
+     */
+    public void setNegate(Boolean negate) {
+        this.negate = negate;
+    }
+
+    /**
+     * Gets whether rows duplicating stored lines are skipped
+     *
+     * @return True if rows whose bank line duplicates a stored line are skipped, or false if they are
+     *         imported and only reported
+     */
+    public Boolean getSkipDuplicates() {
+        return skipDuplicates;
+    }
+
+    /**
+     * Sets whether rows duplicating stored lines are skipped
+     *
+     * @param skipDuplicates True if rows whose bank line duplicates a stored line are skipped, or false if they
+     *                       are imported and only reported
+     */
+    public void setSkipDuplicates(Boolean skipDuplicates) {
+        this.skipDuplicates = skipDuplicates;
+    }
+}
@@ -0,0 +1,131 @@
+package com.b2.b2data.dto;
+
+import java.util.Objects;
+
+/**
+ * A data transfer object for transmitting the result of one transaction of a batch to the client
+ */
+public class TransactionBatchResultDTO extends DTO {
+
+    private Integer index;
+    private Integer id;
+    private String error;
+
+    /**
+     * Constructs a new transaction batch result DTO
+     */
+    public TransactionBatchResultDTO() {
+    }
+
+    /**
+     * Constructs a new transaction batch result DTO
+     *
+     * @param index The position of the transaction in the batch, starting at 0
+     * @param id The id of the created transaction, or null if it was not created
+     * @param error The reason the transaction was not created, or null if it was created
+     */
+    public TransactionBatchResultDTO(Integer index, Integer id, String error) {
+        this.index = index;
+        this.id = id;
+        this.error = error;
+    }
+
+    /**
+     * Checks the equality of two transaction batch result DTOs
+     *
+     * @param o The other transaction batch result DTO to compare with this transaction batch result DTO
+     * @return True if the other transaction batch result DTO is equal to this transaction batch result DTO,
+     *         or false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (!(o instanceof TransactionBatchResultDTO that))
+            return false;
+
+        return Objects.equals(index, that.index)
+                && Objects.equals(id, that.id)
+                && Objects.equals(error, that.error);
+    }
+
+    /**
+     * Returns a hash code value for the transaction batch result DTO
+     *
+     * @return A hash code value for the transaction batch result DTO
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(index, id, error);
+    }
+
+    /**
+     * Returns a string representation of the transaction batch result DTO
+     *
+     * @return A string representation of the transaction batch result DTO in the following format:
+     * <br/><br/>TransactionBatchResultDTO{index=index, id=id, error='error'}
+     */
+    @Override
+    public String toString() {
+        return "TransactionBatchResultDTO{" +
+                "index=" + index +
+                ", id=" + id +
+                ", error='" + error + '\'' +
+                '}';
+    }
+
+    /**
+     * Gets the position of the transaction in the batch
+     *
+     * @return The position of the transaction in the batch, starting at 0
+     */
+    public Integer getIndex() {
+        return index;
+    }
+
+    /**
+     * Sets the position of the transaction in the batch
+     *
+     * @param index The position of the transaction in the batch, starting at 0
+     */
+    public void setIndex(Integer index) {
+        this.index = index;
+    }
+
+    /**
+     * Gets the id of the created transaction
+     *
+     * @return The id of the created transaction, or null if it was not created
+     */
+    public Integer getId() {
+        return id;
+    }
+
+    /**
+     * Sets the id of the created transaction
+     *
+     * @param id The id of the created transaction
+     */
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the reason the transaction was not created
+     *
+     * @return The reason the transaction was not created, or null if it was created
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Sets the reason the transaction was not created
+     *
+     * @param error The reason the transaction was not created
+     */
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -40,6 +40,19 @@ public class TransactionDTO extends DTO {
         memo = transaction.getMemo();
     }
 
+    /**
+     * Constructs a new transaction DTO without lines from the column values of a projection query
+     *
+     * @param id The transaction id
+     * @param date The transaction date
+     * @param memo The transaction memo
+     */
+    public TransactionDTO(Integer id, LocalDate date, String memo) {
+        this.id = id;
+        this.date = date;
+        this.memo = memo;
+    }
+
     /**
      * Checks the equality of two transaction DTOs
      *
@@ -2,6 +2,7 @@ package com.b2.b2data.dto;
 
 import com.b2.b2data.domain.TransactionLine;
 import com.b2.b2data.domain.TransactionLineId;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
@@ -25,6 +26,9 @@ public class TransactionLineDTO extends DTO {
     private String memo;
     private LocalDate dateReconciled;
 
+    // the date of the transaction of the line, which is read only to page by it and is not sent to the client
+    private LocalDate transactionDate;
+
     /**
      * Constructs a new transaction line DTO
      */
@@ -59,6 +63,48 @@ public class TransactionLineDTO extends DTO {
         dateReconciled = transactionLine.getDateReconciled();
     }
 
+    /**
+     * Constructs a new transaction line DTO from the column values of a projection query
+     *
+     * @param transactionId The id of the transaction of the line
+     * @param lineId The line id
+     * @param accountNumber The number of the account of the line
+     * @param playerName The name of the player of the line, or null
+     * @param amount The amount of the line
+     * @param memo The memo of the line
+     * @param dateReconciled The reconciled date of the line, or null
+     */
+    public TransactionLineDTO(Integer transactionId, Integer lineId, String accountNumber, String playerName,
+                              Double amount, String memo, LocalDate dateReconciled) {
+
+        id = new TransactionLineId(transactionId, lineId);
+        this.accountNumber = accountNumber;
+        this.playerName = playerName;
+        this.amount = amount;
+        this.memo = memo;
+        this.dateReconciled = dateReconciled;
+    }
+
+    /**
+     * Constructs a new transaction line DTO from the column values of a projection query that also selects
+     * the date of the transaction of the line
+     *
+     * @param transactionId The id of the transaction of the line
+     * @param transactionDate The date of the transaction of the line
+     * @param lineId The line id
+     * @param accountNumber The number of the account of the line
+     * @param playerName The name of the player of the line, or null
+     * @param amount The amount of the line
+     * @param memo The memo of the line
+     * @param dateReconciled The reconciled date of the line, or null
+     */
+    public TransactionLineDTO(Integer transactionId, LocalDate transactionDate, Integer lineId, String accountNumber,
+                              String playerName, Double amount, String memo, LocalDate dateReconciled) {
+
+        this(transactionId, lineId, accountNumber, playerName, amount, memo, dateReconciled);
+        this.transactionDate = transactionDate;
+    }
+
     /**
      * Checks the equality of two transaction line DTOs
      *
@@ -217,4 +263,14 @@ public class TransactionLineDTO extends DTO {
     public void setDateReconciled(LocalDate dateReconciled) {
         this.dateReconciled = dateReconciled;
     }
+
+    /**
+     * Gets the date of the transaction of the transaction line DTO, if it was read
+     *
+     * @return The date of the transaction of the transaction line DTO, or null
+     */
+    @JsonIgnore
+    public LocalDate getTransactionDate() {
+        return transactionDate;
+    }
 }
@@ -0,0 +1,180 @@
+package com.b2.b2data.dto;
+
+import com.b2.b2data.repository.TrialBalanceRow;
+
+import java.util.Objects;
+
+/**
+ * A data transfer object for transmitting the trial balance totals of one account to the client
+ */
+public class TrialBalanceAccountDTO extends DTO {
+
+    private String accountNumber;
+    private String accountName;
+    private Double debit;
+    private Double credit;
+    private Double balance;
+
+    /**
+     * Constructs a new trial balance account DTO
+     */
+    public TrialBalanceAccountDTO() {
+    }
+
+    /**
+     * Constructs a new trial balance account DTO
+     *
+     * @param row A trial balance row; must not be null
+     * @throws IllegalArgumentException If the trial balance row is null
+     */
+    public TrialBalanceAccountDTO(TrialBalanceRow row) throws IllegalArgumentException {
+        if (row == null)
+            throw new IllegalArgumentException("trial balance row must not be null.");
+
+        accountNumber = row.getAccountNumber();
+        accountName = row.getAccountName();
+        debit = row.getDebit();
+        credit = row.getCredit();
+        balance = debit - credit;
+    }
+
+    /**
+     * Checks the equality of two trial balance account DTOs
+     *
+     * @param o The other trial balance account DTO to compare with this trial balance account DTO
+     * @return True if the other trial balance account DTO is equal to this trial balance account DTO,
+     *         or false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (!(o instanceof TrialBalanceAccountDTO that))
+            return false;
+
+        return Objects.equals(accountNumber, that.accountNumber)
+                && Objects.equals(accountName, that.accountName)
+                && Objects.equals(debit, that.debit)
+                && Objects.equals(credit, that.credit)
+                && Objects.equals(balance, that.balance);
+    }
+
+    /**
+     * Returns a hash code value for the trial balance account DTO
+     *
+     * @return A hash code value for the trial balance account DTO
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(accountNumber, accountName, debit, credit, balance);
+    }
+
+    /**
+     * Returns a string representation of the trial balance account DTO
+     *
+     * @return A string representation of the trial balance account DTO in the following format:
+     * <br/><br/>TrialBalanceAccountDTO{accountNumber='accountNumber', accountName='accountName', debit=debit,
+     * credit=credit, balance=balance}
+     */
+    @Override
+    public String toString() {
+        return "TrialBalanceAccountDTO{" +
+                "accountNumber='" + accountNumber + '\'' +
+                ", accountName='" + accountName + '\'' +
+                ", debit=" + debit +
+                ", credit=" + credit +
+                ", balance=" + balance +
+                '}';
+    }
+
+    /**
+     * Gets the account number of the trial balance account DTO
+     *
+     * @return An account number
+     */
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    /**
+     * Sets the account number of the trial balance account DTO
+     *
+     * @param accountNumber An account number
+     */
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    /**
+     * Gets the account name of the trial balance account DTO
+     *
+     * @return An account name
+     */
+    public String getAccountName() {
+        return accountName;
+    }
+
+    /**
+     * Sets the account name of the trial balance account DTO
+     *
+     * @param accountName An account name
+     */
+    public void setAccountName(String accountName) {
+        this.accountName = accountName;
+    }
+
+    /**
+     * Gets the debit total of the trial balance account DTO
+     *
+     * @return The sum of all positive line amounts of the account
+     */
+    public Double getDebit() {
+        return debit;
+    }
+
+    /**
+     * Sets the debit total of the trial balance account DTO
+     *
+     * @param debit The sum of all positive line amounts of the account
+     */
+    public void setDebit(Double debit) {
+        this.debit = debit;
+    }
+
+    /**
+     * Gets the credit total of the trial balance account DTO
+     *
+     * @return The sum of all negative line amounts of the account, as a positive number
+     */
+    public Double getCredit() {
+        return credit;
+    }
+
+    /**
+     * Sets the credit total of the trial balance account DTO
+     *
+     * @param credit The sum of all negative line amounts of the account, as a positive number
+     */
+    public void setCredit(Double credit) {
+        this.credit = credit;
+    }
+
+    /**
+     * Gets the balance of the trial balance account DTO
+     *
+     * @return The debit total minus the credit total
+     */
+    public Double getBalance() {
+        return balance;
+    }
+
+    /**
+     * Sets the balance of the trial balance account DTO
+     *
+     * @param balance The debit total minus the credit total
+     */
+    public void setBalance(Double balance) {
+        this.balance = balance;
+    }
+}
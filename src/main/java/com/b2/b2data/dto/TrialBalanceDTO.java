@@ -0,0 +1,193 @@
+package com.b2.b2data.dto;
+
+import com.b2.b2data.repository.TrialBalanceRow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A data transfer object for transmitting the trial balance totals of one element,
+ * and of each of its accounts, to the client
+ */
+public class TrialBalanceDTO extends DTO {
+
+    private Integer elementNumber;
+    private String elementName;
+    private Double debit;
+    private Double credit;
+    private List<TrialBalanceAccountDTO> accounts;
+
+    /**
+     * Constructs a new trial balance DTO
+     */
+    public TrialBalanceDTO() {
+    }
+
+    /**
+     * Constructs a new trial balance DTO with no accounts
+     *
+     * @param row A trial balance row of an account of the element; must not be null
+     * @throws IllegalArgumentException If the trial balance row is null
+     */
+    public TrialBalanceDTO(TrialBalanceRow row) throws IllegalArgumentException {
+        if (row == null)
+            throw new IllegalArgumentException("trial balance row must not be null.");
+
+        elementNumber = row.getElementNumber();
+        elementName = row.getElementName();
+        debit = 0.0;
+        credit = 0.0;
+        accounts = new ArrayList<>();
+    }
+
+    /**
+     * Adds the totals of an account of the element to the trial balance DTO
+     *
+     * @param account A trial balance account DTO
+     */
+    public void addAccount(TrialBalanceAccountDTO account) {
+        debit += account.getDebit();
+        credit += account.getCredit();
+        accounts.add(account);
+    }
+
+    /**
+     * Checks the equality of two trial balance DTOs
+     *
+     * @param o The other trial balance DTO to compare with this trial balance DTO
+     * @return True if the other trial balance DTO is equal to this trial balance DTO, or false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (!(o instanceof TrialBalanceDTO that))
+            return false;
+
+        return Objects.equals(elementNumber, that.elementNumber)
+                && Objects.equals(elementName, that.elementName)
+                && Objects.equals(debit, that.debit)
+                && Objects.equals(credit, that.credit)
+                && Objects.equals(accounts, that.accounts);
+    }
+
+    /**
+     * Returns a hash code value for the trial balance DTO
+     *
+     * @return A hash code value for the trial balance DTO
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(elementNumber, elementName, debit, credit, accounts);
+    }
+
+    /**
+     * Returns a string representation of the trial balance DTO
+     *
+     * @return A string representation of the trial balance DTO in the following format:
+     * <br/><br/>TrialBalanceDTO{elementNumber=elementNumber, elementName='elementName', debit=debit,
+     * credit=credit, accounts=accounts}
+     */
+    @Override
+    public String toString() {
+        return "TrialBalanceDTO{" +
+                "elementNumber=" + elementNumber +
+                ", elementName='" + elementName + '\'' +
+                ", debit=" + debit +
+                ", credit=" + credit +
+                ", accounts=" + accounts +
+                '}';
+    }
+
+    /**
+     * Gets the element number of the trial balance DTO
+     *
+     * @return An element number
+     */
+    public Integer getElementNumber() {
+        return elementNumber;
+    }
+
+    /**
+     * Sets the element number of the trial balance DTO
+     *
+     * @param elementNumber An element number
+     */
+    public void setElementNumber(Integer elementNumber) {
+        this.elementNumber = elementNumber;
+    }
+
+    /**
+     * Gets the element name of the trial balance DTO
+     *
+     * @return An element name
+     */
+    public String getElementName() {
+        return elementName;
+    }
+
+    /**
+     * Sets the element name of the trial balance DTO
+     *
+     * @param elementName An element name
+     */
+    public void setElementName(String elementName) {
+        this.elementName = elementName;
+    }
+
+    /**
+     * Gets the debit total of the trial balance DTO
+     *
+     * @return The sum of the debit totals of the accounts of the element
+     */
+    public Double getDebit() {
+        return debit;
+    }
+
+    /**
+     * Sets the debit total of the trial balance DTO
+     *
+     * @param debit The sum of the debit totals of the accounts of the element
+     */
+    public void setDebit(Double debit) {
+        this.debit = debit;
+    }
+
+    /**
+     * Gets the credit total of the trial balance DTO
+     *
+     * @return The sum of the credit totals of the accounts of the element
+     */
+    public Double getCredit() {
+        return credit;
+    }
+
+    /**
+     * Sets the credit total of the trial balance DTO
+     *
+     * @param credit The sum of the credit totals of the accounts of the element
+     */
+    public void setCredit(Double credit) {
+        this.credit = credit;
+    }
+
+    /**
+     * Gets the accounts of the trial balance DTO
+     *
+     * @return A list of trial balance account DTOs, sorted by account number ascending
+     */
+    public List<TrialBalanceAccountDTO> getAccounts() {
+        return accounts;
+    }
+
+    /**
+     * Sets the accounts of the trial balance DTO
+     *
+     * @param accounts A list of trial balance account DTOs
+     */
+    public void setAccounts(List<TrialBalanceAccountDTO> accounts) {
+        this.accounts = accounts;
+    }
+}
@@ -0,0 +1,69 @@
+package com.b2.b2data.repository;
+
+import com.b2.b2data.domain.AccountBalance;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+
+import java.util.Optional;
+
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
+
+/**
+ * Provides CRUD operations for {@link AccountBalance} objects in the database
+ */
+@Repository
+public interface AccountBalanceRepository extends CrudRepository<AccountBalance,Integer> {
+
+    /**
+     * Finds the balance of the account with the given number
+     *
+     * @param accountNumber An account number
+     * @return An optional containing the balance of the account with the given number, if it exists
+     */
+    @EntityGraph(value = AccountBalance.WITH_ACCOUNT, type = EntityGraph.EntityGraphType.LOAD)
+    Optional<AccountBalance> findByAccountNumber(String accountNumber);
+
+    /**
+     * Finds all account balances
+     *
+     * @return An iterable of all stored account balances
+     */
+    @EntityGraph(value = AccountBalance.WITH_ACCOUNT, type = EntityGraph.EntityGraphType.LOAD)
+    @Override
+    Iterable<AccountBalance> findAll();
+
+    /**
+     * Adds the given amounts to the stored totals of the account with the given id, storing them as its totals
+     * if the account has no stored balance yet. This is a single statement, so concurrent first writes to the
+     * same account cannot both insert a balance.
+     *
+     * @param accountId An account id
+     * @param debit An amount to add to the debit total
+     * @param credit An amount to add to the credit total
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "gl_account_balance"))
+    @Query(value = "INSERT INTO gl_account_balance (gl_account_id, debit, credit) " +
+                   "VALUES (:accountId, :debit, :credit) " +
+                   "ON DUPLICATE KEY UPDATE debit = debit + :debit, credit = credit + :credit",
+           nativeQuery = true)
+    void increment(@Param("accountId") Integer accountId,
+                   @Param("debit") Double debit,
+                   @Param("credit") Double credit);
+
+    /**
+     * Deletes the balance of the account with the given id
+     *
+     * @param accountId An account id
+     */
+    @Modifying
+    @Query("DELETE FROM AccountBalance b WHERE b.accountId = :accountId")
+    void deleteByAccountId(@Param("accountId") Integer accountId);
+}
@@ -0,0 +1,67 @@
+package com.b2.b2data.repository;
+
+import com.b2.b2data.domain.AccountPeriod;
+import com.b2.b2data.domain.AccountPeriodId;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.hibernate.annotations.QueryHints.NATIVE_SPACES;
+
+/**
+ * Provides CRUD operations for {@link AccountPeriod} objects in the database
+ */
+@Repository
+public interface AccountPeriodRepository extends CrudRepository<AccountPeriod, AccountPeriodId> {
+
+    /**
+     * Sums the debit and credit totals of all periods of the given account before the given period
+     *
+     * @param accountId An account id
+     * @param period The first day of a month
+     * @return An optional containing the totals of the closed periods, if any exist
+     */
+    @Query("SELECT p.account.id AS accountId, SUM(p.debit) AS debit, SUM(p.credit) AS credit " +
+           "FROM AccountPeriod p " +
+           "WHERE p.account.id = :accountId AND p.period < :period " +
+           "GROUP BY p.account.id")
+    Optional<AccountTotal> sumAmountsBefore(@Param("accountId") Integer accountId,
+                                            @Param("period") LocalDate period);
+
+    /**
+     * Adds the given amounts to the stored totals of the given account and period, storing them as its totals
+     * if the period is not stored yet. This is a single statement, so concurrent first writes to the same
+     * period cannot both insert it.
+     *
+     * @param accountId An account id
+     * @param period The first day of a month
+     * @param debit An amount to add to the debit total
+     * @param credit An amount to add to the credit total
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = NATIVE_SPACES, value = "gl_account_period"))
+    @Query(value = "INSERT INTO gl_account_period (gl_account_id, period_start, debit, credit) " +
+                   "VALUES (:accountId, :period, :debit, :credit) " +
+                   "ON DUPLICATE KEY UPDATE debit = debit + :debit, credit = credit + :credit",
+           nativeQuery = true)
+    void increment(@Param("accountId") Integer accountId,
+                   @Param("period") LocalDate period,
+                   @Param("debit") Double debit,
+                   @Param("credit") Double credit);
+
+    /**
+     * Deletes all periods of the account with the given id
+     *
+     * @param accountId An account id
+     */
+    @Modifying
+    @Query("DELETE FROM AccountPeriod p WHERE p.account.id = :accountId")
+    void deleteByAccountId(@Param("accountId") Integer accountId);
+}
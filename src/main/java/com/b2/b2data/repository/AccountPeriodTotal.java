@@ -0,0 +1,21 @@
+package com.b2.b2data.repository;
+
+/**
+ * A projection of the debit and credit totals of the transaction lines of one account in one month
+ */
+public interface AccountPeriodTotal extends AccountTotal {
+
+    /**
+     * Gets the year of the period
+     *
+     * @return A year
+     */
+    Integer getPeriodYear();
+
+    /**
+     * Gets the month of the period
+     *
+     * @return A month of the year, from 1 to 12
+     */
+    Integer getPeriodMonth();
+}
@@ -1,22 +1,40 @@
 package com.b2.b2data.repository;
 
 import com.b2.b2data.domain.Account;
+import com.b2.b2data.domain.Element;
+import com.b2.b2data.domain.Player;
+import com.b2.b2data.dto.AccountDTO;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.EntityGraph;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
-import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
+import static org.hibernate.annotations.QueryHints.CACHE_REGION;
+
 /**
  * Provides CRUD operations for {@link Account} objects in the database
  */
 @Repository
 public interface AccountRepository
-        extends PagingAndSortingRepository<Account,Integer>, JpaSpecificationExecutor<Account> {
+        extends BaseRepository<Account, Integer> {
+
+    /**
+     * Finds the account with the given id, along with its element and player, so that it can be used
+     * after the session that loaded it has closed
+     *
+     * @param id must not be {@literal null}.
+     * @return An optional containing the account with the given id, if it exists
+     */
+    @EntityGraph(value = Account.WITH_ALL, type = EntityGraph.EntityGraphType.LOAD)
+    @Override
+    Optional<Account> findById(Integer id);
 
     /**
      * Finds the account with the given number
@@ -36,6 +54,15 @@ public interface AccountRepository
     @EntityGraph(value = Account.WITH_ALL, type = EntityGraph.EntityGraphType.LOAD)
     Optional<Account> findByName(String name);
 
+    /**
+     * Finds all accounts with the given numbers
+     *
+     * @param numbers A collection of account numbers
+     * @return A list of the accounts with the given numbers
+     */
+    @EntityGraph(value = Account.WITH_ALL, type = EntityGraph.EntityGraphType.LOAD)
+    List<Account> findAllByNumberIn(Collection<String> numbers);
+
     /**
      * Finds all accounts with the given element number
      *
@@ -57,9 +84,13 @@ public interface AccountRepository
     /**
      * Finds all accounts
      *
-     * @return A list of accounts sorted by number ascending
+     * @return A list of accounts sorted by number ascending. The result is kept in the query cache
      */
     @EntityGraph(value = Account.WITH_ALL, type = EntityGraph.EntityGraphType.LOAD)
+    @QueryHints({
+            @QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = Account.QUERY_CACHE_REGION)
+    })
     List<Account> findAllByOrderByNumberAsc();
 
     /**
@@ -72,4 +103,23 @@ public interface AccountRepository
     @EntityGraph(value = Account.WITH_ALL, type = EntityGraph.EntityGraphType.LOAD)
     @Override
     List<Account> findAll(Specification<Account> specification, Sort sort);
+
+    /**
+     * Finds all accounts matching the given specification, as DTOs
+     *
+     * @param specification can be {@literal null}.
+     * @param sort must not be {@literal null}.
+     * @return A list of DTOs of the accounts matching the given specification, sorted by the given sort
+     */
+    default List<AccountDTO> findAllDtos(Specification<Account> specification, Sort sort) {
+        return findAll(
+                specification,
+                sort,
+                AccountDTO.class,
+                Account.NUMBER,
+                Account.NAME,
+                Account.ELEMENT+"."+Element.NUMBER,
+                Account.PLAYER+"."+Player.NAME
+        );
+    }
 }
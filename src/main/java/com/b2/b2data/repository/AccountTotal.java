@@ -0,0 +1,28 @@
+package com.b2.b2data.repository;
+
+/**
+ * A projection of the debit and credit totals of the transaction lines of one account
+ */
+public interface AccountTotal {
+
+    /**
+     * Gets the id of the account
+     *
+     * @return An account id
+     */
+    Integer getAccountId();
+
+    /**
+     * Gets the debit total of the account
+     *
+     * @return The sum of all positive line amounts of the account
+     */
+    Double getDebit();
+
+    /**
+     * Gets the credit total of the account
+     *
+     * @return The sum of all negative line amounts of the account, as a positive number
+     */
+    Double getCredit();
+}
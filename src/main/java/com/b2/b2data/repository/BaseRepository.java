@@ -0,0 +1,84 @@
+package com.b2.b2data.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.PagingAndSortingRepository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A base interface for repositories that support specification queries with a row limit
+ *
+ * @param <T> An entity type
+ * @param <ID> The id type of the entity
+ */
+@NoRepositoryBean
+public interface BaseRepository<T, ID> extends PagingAndSortingRepository<T, ID>, JpaSpecificationExecutor<T> {
+
+    /**
+     * Finds the first entities matching the given specification. The limit is applied by the
+     * database, and unlike paged queries no count query is executed.
+     *
+     * @param specification can be {@literal null}.
+     * @param sort must not be {@literal null}.
+     * @param limit The maximum number of entities to return
+     * @return A list of at most limit entities matching the given specification, sorted by the given sort
+     */
+    List<T> findAll(Specification<T> specification, Sort sort, int limit);
+
+    /**
+     * Finds the ids of the first entities matching the given specification. Only the id column is read,
+     * and no entities are loaded into the persistence context.
+     *
+     * @param specification can be {@literal null}.
+     * @param sort must not be {@literal null}.
+     * @param limit The maximum number of ids to return
+     * @return A list of the ids of at most limit entities matching the given specification,
+     *         sorted by the given sort
+     */
+    List<ID> findIds(Specification<T> specification, Sort sort, int limit);
+
+    /**
+     * Streams the entities matching the given specification. Rows are fetched from the database in
+     * batches of the given fetch size as the stream is consumed, and the entities are loaded read-only.
+     * The stream must be consumed and closed within a transaction.
+     *
+     * @param specification can be {@literal null}.
+     * @param sort must not be {@literal null}.
+     * @param fetchSize The number of rows to fetch from the database at a time
+     * @return A stream of entities matching the given specification, sorted by the given sort
+     */
+    Stream<T> stream(Specification<T> specification, Sort sort, int fetchSize);
+
+    /**
+     * Finds the entities matching the given specification, and constructs a projection from the given
+     * attribute paths of each one. Only the selected columns are read, and no entities are loaded into
+     * the persistence context.
+     *
+     * @param specification can be {@literal null}.
+     * @param sort must not be {@literal null}.
+     * @param projection A class with a constructor taking the values of the given paths, in order
+     * @param paths Attribute paths, such as "account.number"
+     * @param <P> The projection type
+     * @return A list of projections of the entities matching the given specification, sorted by the given sort
+     */
+    <P> List<P> findAll(Specification<T> specification, Sort sort, Class<P> projection, String... paths);
+
+    /**
+     * Finds the first entities matching the given specification, and constructs a projection from the
+     * given attribute paths of each one
+     *
+     * @param specification can be {@literal null}.
+     * @param sort must not be {@literal null}.
+     * @param limit The maximum number of projections to return
+     * @param projection A class with a constructor taking the values of the given paths, in order
+     * @param paths Attribute paths, such as "account.number"
+     * @param <P> The projection type
+     * @return A list of at most limit projections of the entities matching the given specification,
+     *         sorted by the given sort
+     */
+    <P> List<P> findAll(Specification<T> specification, Sort sort, int limit, Class<P> projection, String... paths);
+}
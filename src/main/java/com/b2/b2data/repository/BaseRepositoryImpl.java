@@ -0,0 +1,163 @@
+package com.b2.b2data.repository;
+
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.*;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * The default implementation of {@link BaseRepository}, used as the base class of all repositories
+ *
+ * @param <T> An entity type
+ * @param <ID> The id type of the entity
+ */
+public class BaseRepositoryImpl<T, ID extends Serializable>
+        extends SimpleJpaRepository<T, ID> implements BaseRepository<T, ID> {
+
+    private final JpaEntityInformation<T, ?> ENTITY_INFORMATION;
+    private final EntityManager ENTITY_MANAGER;
+
+    /**
+     * Constructs a new base repository
+     *
+     * @param entityInformation Information about the entity type
+     * @param entityManager An entity manager
+     */
+    public BaseRepositoryImpl(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+        ENTITY_INFORMATION = entityInformation;
+        ENTITY_MANAGER = entityManager;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<T> findAll(Specification<T> specification, Sort sort, int limit) {
+        return getQuery(specification, sort).setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<ID> findIds(Specification<T> specification, Sort sort, int limit) {
+        CriteriaBuilder criteriaBuilder = ENTITY_MANAGER.getCriteriaBuilder();
+        CriteriaQuery<ID> query = criteriaBuilder.createQuery((Class<ID>) ENTITY_INFORMATION.getIdType());
+        Root<T> root = query.from(getDomainClass());
+        query.select(root.get(ENTITY_INFORMATION.getRequiredIdAttribute().getName()));
+
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+
+            if (predicate != null)
+                query.where(predicate);
+        }
+        if (sort.isSorted())
+            query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+
+        return ENTITY_MANAGER.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<T> stream(Specification<T> specification, Sort sort, int fetchSize) {
+        return getQuery(specification, sort)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <P> List<P> findAll(Specification<T> specification, Sort sort, Class<P> projection, String... paths) {
+        return getProjectionQuery(specification, sort, projection, paths).getResultList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <P> List<P> findAll(Specification<T> specification, Sort sort, int limit,
+                               Class<P> projection, String... paths) {
+
+        return getProjectionQuery(specification, sort, projection, paths).setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * Creates a query that constructs a projection from the given attribute paths of each entity
+     * matching the given specification
+     *
+     * @param specification can be {@literal null}.
+     * @param sort must not be {@literal null}.
+     * @param projection A class with a constructor taking the values of the given paths, in order
+     * @param paths Attribute paths, such as "account.number"
+     * @param <P> The projection type
+     * @return A typed query of projections
+     */
+    private <P> TypedQuery<P> getProjectionQuery(Specification<T> specification, Sort sort,
+                                                 Class<P> projection, String... paths) {
+
+        CriteriaBuilder criteriaBuilder = ENTITY_MANAGER.getCriteriaBuilder();
+        CriteriaQuery<P> query = criteriaBuilder.createQuery(projection);
+        Root<T> root = query.from(getDomainClass());
+        Map<String, From<?, ?>> joins = new HashMap<>();
+
+        Selection<?>[] selections = new Selection<?>[paths.length];
+
+        for (int i = 0; i < paths.length; i++)
+            selections[i] = toPath(root, paths[i], joins);
+
+        query.select(criteriaBuilder.construct(projection, selections));
+
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+
+            if (predicate != null)
+                query.where(predicate);
+        }
+        if (sort.isSorted())
+            query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+
+        return ENTITY_MANAGER.createQuery(query);
+    }
+
+    /**
+     * Resolves the given attribute path from the given root. Associations are left joined, so that
+     * entities without an associated entity still produce a projection with a null value.
+     *
+     * @param root A query root
+     * @param path An attribute path, such as "account.number"
+     * @param joins The joins already created for the query, by path prefix
+     * @return The resolved path
+     */
+    private Path<?> toPath(Root<T> root, String path, Map<String, From<?, ?>> joins) {
+        String[] names = path.split("\\.");
+        From<?, ?> from = root;
+        String prefix = "";
+
+        for (int i = 0; i < names.length-1; i++) {
+            From<?, ?> parent = from;
+            String name = names[i];
+            prefix += "."+name;
+            from = joins.computeIfAbsent(prefix, key -> parent.join(name, JoinType.LEFT));
+        }
+        return from.get(names[names.length-1]);
+    }
+}
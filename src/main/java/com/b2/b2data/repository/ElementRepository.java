@@ -1,12 +1,17 @@
 package com.b2.b2data.repository;
 
 import com.b2.b2data.domain.Element;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
+import static org.hibernate.annotations.QueryHints.CACHE_REGION;
+
 /**
  * Provides CRUD operations for {@link Element} objects in the database
  */
@@ -32,7 +37,11 @@ public interface ElementRepository extends PagingAndSortingRepository<Element,In
     /**
      * Finds all elements
      *
-     * @return A list of elements sorted by number ascending
+     * @return A list of elements sorted by number ascending. The result is kept in the query cache
      */
+    @QueryHints({
+            @QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = Element.QUERY_CACHE_REGION)
+    })
     List<Element> findAllByOrderByNumberAsc();
 }
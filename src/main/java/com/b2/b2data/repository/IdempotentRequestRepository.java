@@ -0,0 +1,37 @@
+package com.b2.b2data.repository;
+
+import com.b2.b2data.domain.IdempotentRequest;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Provides CRUD operations for {@link IdempotentRequest} objects in the database
+ */
+@Repository
+public interface IdempotentRequestRepository extends CrudRepository<IdempotentRequest,String> {
+
+    /**
+     * Deletes the requests first received before the given date and time
+     *
+     * @param before A date and time
+     * @return The number of requests deleted
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotentRequest r WHERE r.created < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+
+    /**
+     * Deletes the request with the given key if it is still being handled
+     *
+     * @param key An idempotency key
+     * @return The number of requests deleted
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotentRequest r WHERE r.idempotencyKey = :key AND r.status IS NULL")
+    int deleteUncompleted(@Param("key") String key);
+}
@@ -0,0 +1,37 @@
+package com.b2.b2data.repository;
+
+import java.time.LocalDate;
+
+/**
+ * A projection of the values identifying a transaction line when looking for duplicates
+ */
+public interface LineFingerprint {
+
+    /**
+     * Gets the date of the transaction of the line
+     *
+     * @return A transaction date
+     */
+    LocalDate getDate();
+
+    /**
+     * Gets the number of the account of the line
+     *
+     * @return An account number
+     */
+    String getAccountNumber();
+
+    /**
+     * Gets the amount of the line
+     *
+     * @return A line amount
+     */
+    Double getAmount();
+
+    /**
+     * Gets the memo of the line, or of its transaction if the line has none
+     *
+     * @return A memo, or null if neither the line nor its transaction has one
+     */
+    String getMemo();
+}
@@ -1,12 +1,18 @@
 package com.b2.b2data.repository;
 
 import com.b2.b2data.domain.Player;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
+import static org.hibernate.annotations.QueryHints.CACHE_REGION;
+
 /**
  * Provides CRUD operations for {@link Player} objects in the database
  */
@@ -21,18 +27,35 @@ public interface PlayerRepository extends PagingAndSortingRepository<Player,Inte
      */
     Optional<Player> findByName(String name);
 
+    /**
+     * Finds all players with the given names
+     *
+     * @param names A collection of player names
+     * @return A list of the players with the given names
+     */
+    List<Player> findAllByNameIn(Collection<String> names);
+
     /**
      * Finds all players
      *
-     * @return A list of players sorted by name ascending
+     * @return A list of players sorted by name ascending. The result is kept in the query cache
      */
+    @QueryHints({
+            @QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = Player.QUERY_CACHE_REGION)
+    })
     List<Player> findAllByOrderByNameAsc();
 
     /**
      * Finds all players with the given isBank status
      *
      * @param isBank True if the player is a bank
-     * @return A list of players matching the given isBank status, sorted by name ascending
+     * @return A list of players matching the given isBank status, sorted by name ascending.
+     *         The result is kept in the query cache
      */
+    @QueryHints({
+            @QueryHint(name = CACHEABLE, value = "true"),
+            @QueryHint(name = CACHE_REGION, value = Player.QUERY_CACHE_REGION)
+    })
     List<Player> findAllByIsBankOrderByNameAsc(Boolean isBank);
 }
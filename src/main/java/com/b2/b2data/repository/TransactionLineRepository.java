@@ -1,30 +1,38 @@
 package com.b2.b2data.repository;
 
 import com.b2.b2data.domain.*;
+import com.b2.b2data.dto.TransactionLineDTO;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.EntityGraph;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
-import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Provides CRUD operations for {@link TransactionLine} objects in the database
  */
 @Repository
 public interface TransactionLineRepository
-        extends PagingAndSortingRepository<TransactionLine, TransactionLineId>,
-        JpaSpecificationExecutor<TransactionLine> {
+        extends BaseRepository<TransactionLine, TransactionLineId> {
 
     /**
      * Finds all transaction lines
      *
-     * @return A list of transaction lines sorted by transaction date descending
+     * @return A list of transaction lines sorted by transaction date
+     *         descending, transaction id descending and line id ascending
      */
     @EntityGraph(value = TransactionLine.WITH_ALL, type = EntityGraph.EntityGraphType.LOAD)
-    List<TransactionLine> findAllByOrderByTransactionDateDesc();
+    List<TransactionLine> findAllByOrderByTransactionDateDescTransactionIdDescLineIdAsc();
 
     /**
      * Finds all transaction lines with the given transaction id
@@ -39,19 +47,21 @@ public interface TransactionLineRepository
      * Finds all transaction lines with the given account number
      *
      * @param accountNumber An account number
-     * @return A list of transaction lines with the given account number, sorted by transaction date descending
+     * @return A list of transaction lines with the given account number, sorted by transaction date
+     *         descending, transaction id descending and line id ascending
      */
     @EntityGraph(value = TransactionLine.WITHOUT_ACCOUNT, type = EntityGraph.EntityGraphType.LOAD)
-    List<TransactionLine> findAllByAccountNumberOrderByTransactionDateDesc(String accountNumber);
+    List<TransactionLine> findAllByAccountNumberOrderByTransactionDateDescTransactionIdDescLineIdAsc(String accountNumber);
 
     /**
      * Finds all transaction lines with the given player name
      *
      * @param playerName A player name
-     * @return A list of transaction lines with the given player name, sorted by transaction date descending
+     * @return A list of transaction lines with the given player name, sorted by transaction date
+     *         descending, transaction id descending and line id ascending
      */
     @EntityGraph(value = TransactionLine.WITHOUT_PLAYER, type = EntityGraph.EntityGraphType.LOAD)
-    List<TransactionLine> findAllByPlayerNameOrderByTransactionDateDesc(String playerName);
+    List<TransactionLine> findAllByPlayerNameOrderByTransactionDateDescTransactionIdDescLineIdAsc(String playerName);
 
     /**
      * Finds all transaction lines matching the given specification
@@ -63,4 +73,304 @@ public interface TransactionLineRepository
     @EntityGraph(value = TransactionLine.WITH_ALL, type = EntityGraph.EntityGraphType.LOAD)
     @Override
     List<TransactionLine> findAll(Specification<TransactionLine> specification, Sort sort);
+
+    /**
+     * Finds the first transaction lines matching the given specification
+     *
+     * @param specification can be {@literal null}.
+     * @param sort must not be {@literal null}.
+     * @param limit The maximum number of transaction lines to return
+     * @return A list of at most limit transaction lines matching the given specification,
+     *         sorted by the given sort
+     */
+    @EntityGraph(value = TransactionLine.WITH_ALL, type = EntityGraph.EntityGraphType.LOAD)
+    @Override
+    List<TransactionLine> findAll(Specification<TransactionLine> specification, Sort sort, int limit);
+
+    /**
+     * Streams the transaction lines matching the given specification
+     *
+     * @param specification can be {@literal null}.
+     * @param sort must not be {@literal null}.
+     * @param fetchSize The number of rows to fetch from the database at a time
+     * @return A stream of transaction lines matching the given specification, sorted by the given sort
+     */
+    @EntityGraph(value = TransactionLine.WITH_ALL, type = EntityGraph.EntityGraphType.LOAD)
+    @Override
+    Stream<TransactionLine> stream(Specification<TransactionLine> specification, Sort sort, int fetchSize);
+
+    /**
+     * Sums the debit and credit amounts of all transaction lines, grouped by account
+     *
+     * @return A list of account totals, one for each account with at least one transaction line
+     */
+    @Query("SELECT l.account.id AS accountId, " +
+           "SUM(CASE WHEN l.amount > 0 THEN l.amount ELSE 0.0 END) AS debit, " +
+           "SUM(CASE WHEN l.amount < 0 THEN -l.amount ELSE 0.0 END) AS credit " +
+           "FROM TransactionLine l " +
+           "GROUP BY l.account.id")
+    List<AccountTotal> sumAmountsByAccount();
+
+    /**
+     * Sums the debit and credit amounts of all transaction lines, grouped by account and transaction month
+     *
+     * @return A list of account period totals, one for each account and month with at least one transaction line
+     */
+    @Query("SELECT l.account.id AS accountId, " +
+           "YEAR(l.transaction.date) AS periodYear, " +
+           "MONTH(l.transaction.date) AS periodMonth, " +
+           "SUM(CASE WHEN l.amount > 0 THEN l.amount ELSE 0.0 END) AS debit, " +
+           "SUM(CASE WHEN l.amount < 0 THEN -l.amount ELSE 0.0 END) AS credit " +
+           "FROM TransactionLine l " +
+           "GROUP BY l.account.id, YEAR(l.transaction.date), MONTH(l.transaction.date)")
+    List<AccountPeriodTotal> sumAmountsByAccountAndMonth();
+
+    /**
+     * Sums the debit and credit amounts of the lines of the transactions with the given ids, grouped by account
+     * and transaction month
+     *
+     * @param transactionIds A collection of transaction ids
+     * @return A list of account period totals, one for each account and month with at least one such line
+     */
+    @Query("SELECT l.account.id AS accountId, " +
+           "YEAR(l.transaction.date) AS periodYear, " +
+           "MONTH(l.transaction.date) AS periodMonth, " +
+           "SUM(CASE WHEN l.amount > 0 THEN l.amount ELSE 0.0 END) AS debit, " +
+           "SUM(CASE WHEN l.amount < 0 THEN -l.amount ELSE 0.0 END) AS credit " +
+           "FROM TransactionLine l " +
+           "WHERE l.transaction.id IN :transactionIds " +
+           "GROUP BY l.account.id, YEAR(l.transaction.date), MONTH(l.transaction.date)")
+    List<AccountPeriodTotal> sumAmountsByAccountAndMonth(
+            @Param("transactionIds") Collection<Integer> transactionIds);
+
+    /**
+     * Finds the debit and credit amount of the transaction line with the given id, with its account and
+     * transaction month, as currently stored in the database. Pending changes are not flushed, so a modified
+     * amount or account on a managed line is not returned.
+     *
+     * @param transactionId A transaction id
+     * @param lineId A line id
+     * @return An optional containing the account period total of the stored line, if it exists
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.flushMode", value = "COMMIT"))
+    @Query("SELECT l.account.id AS accountId, " +
+           "YEAR(l.transaction.date) AS periodYear, " +
+           "MONTH(l.transaction.date) AS periodMonth, " +
+           "CASE WHEN l.amount > 0 THEN l.amount ELSE 0.0 END AS debit, " +
+           "CASE WHEN l.amount < 0 THEN -l.amount ELSE 0.0 END AS credit " +
+           "FROM TransactionLine l " +
+           "WHERE l.transaction.id = :transactionId AND l.lineId = :lineId")
+    Optional<AccountPeriodTotal> findStoredAmountById(@Param("transactionId") Integer transactionId,
+                                                      @Param("lineId") Integer lineId);
+
+    /**
+     * Sums the debit and credit amounts of the transaction lines of the given account,
+     * with a transaction date between the given dates (inclusive)
+     *
+     * @param accountId An account id
+     * @param from A minimum bounding date
+     * @param to A maximum bounding date
+     * @return An optional containing the totals of the matching lines, if any exist
+     */
+    @Query("SELECT l.account.id AS accountId, " +
+           "SUM(CASE WHEN l.amount > 0 THEN l.amount ELSE 0.0 END) AS debit, " +
+           "SUM(CASE WHEN l.amount < 0 THEN -l.amount ELSE 0.0 END) AS credit " +
+           "FROM TransactionLine l " +
+           "WHERE l.account.id = :accountId AND l.transaction.date BETWEEN :from AND :to " +
+           "GROUP BY l.account.id")
+    Optional<AccountTotal> sumAmountsBetween(@Param("accountId") Integer accountId,
+                                             @Param("from") LocalDate from,
+                                             @Param("to") LocalDate to);
+
+    /**
+     * Sums the amounts of the transaction lines of the given account reconciled on or before the given date
+     *
+     * @param accountId An account id
+     * @param asOf A maximum bounding reconciliation date
+     * @return The sum of the amounts of the cleared lines, or zero if there are none
+     */
+    @Query("SELECT COALESCE(SUM(l.amount), 0.0) " +
+           "FROM TransactionLine l " +
+           "WHERE l.account.id = :accountId AND l.dateReconciled <= :asOf")
+    double sumCleared(@Param("accountId") Integer accountId, @Param("asOf") LocalDate asOf);
+
+    /**
+     * Sums the amounts of the transaction lines of the given account with a transaction date on or before
+     * the given date, that were not reconciled by that date
+     *
+     * @param accountId An account id
+     * @param asOf A maximum bounding date
+     * @return The sum of the amounts of the uncleared lines, or zero if there are none
+     */
+    @Query("SELECT COALESCE(SUM(l.amount), 0.0) " +
+           "FROM TransactionLine l JOIN l.transaction t " +
+           "WHERE l.account.id = :accountId AND (l.dateReconciled IS NULL OR l.dateReconciled > :asOf) " +
+           "AND t.date <= :asOf")
+    double sumUncleared(@Param("accountId") Integer accountId, @Param("asOf") LocalDate asOf);
+
+    /**
+     * Sums the debit and credit amounts of all transaction lines with a transaction date on or before
+     * the given date, grouped by account. Only accounts with at least one such line are included.
+     *
+     * @param asOf A maximum bounding date
+     * @return A list of trial balance rows, sorted by element number and then account number ascending
+     */
+    @Query("SELECT e.number AS elementNumber, e.name AS elementName, " +
+           "a.number AS accountNumber, a.name AS accountName, " +
+           "SUM(CASE WHEN l.amount > 0 THEN l.amount ELSE 0.0 END) AS debit, " +
+           "SUM(CASE WHEN l.amount < 0 THEN -l.amount ELSE 0.0 END) AS credit " +
+           "FROM TransactionLine l JOIN l.account a JOIN a.element e JOIN l.transaction t " +
+           "WHERE t.date <= :asOf " +
+           "GROUP BY e.number, e.name, a.number, a.name " +
+           "ORDER BY e.number ASC, a.number ASC")
+    List<TrialBalanceRow> sumAmountsByElementAndAccount(@Param("asOf") LocalDate asOf);
+
+    /**
+     * Deletes the lines of the transaction with the given id that come after the given line id,
+     * in a single statement
+     *
+     * @param transactionId A transaction id
+     * @param lineId The id of the last line to keep
+     * @return The number of deleted transaction lines
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM TransactionLine l WHERE l.transaction.id = :transactionId AND l.lineId > :lineId")
+    int deleteByTransactionIdAndLineIdGreaterThan(@Param("transactionId") Integer transactionId,
+                                                  @Param("lineId") Integer lineId);
+
+    /**
+     * Deletes all lines of the transactions with the given ids, in a single statement
+     *
+     * @param transactionIds A collection of transaction ids
+     * @return The number of deleted transaction lines
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM TransactionLine l WHERE l.transaction.id IN :transactionIds")
+    int deleteByTransactionIds(@Param("transactionIds") Collection<Integer> transactionIds);
+
+    /**
+     * Sets the reconciliation date of the unreconciled lines of the given account, with a transaction date
+     * between the given dates (inclusive), in a single statement
+     *
+     * @param accountId An account id
+     * @param from A minimum bounding date, or null for no minimum
+     * @param to A maximum bounding date, or null for no maximum
+     * @param dateReconciled A reconciliation date
+     * @return The number of updated transaction lines
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE TransactionLine l SET l.dateReconciled = :dateReconciled " +
+           "WHERE l.account.id = :accountId AND l.dateReconciled IS NULL " +
+           "AND l.transaction.id IN (SELECT t.id FROM Transaction t " +
+           "WHERE (:from IS NULL OR t.date >= :from) AND (:to IS NULL OR t.date <= :to))")
+    int reconcileUnreconciled(@Param("accountId") Integer accountId,
+                              @Param("from") LocalDate from,
+                              @Param("to") LocalDate to,
+                              @Param("dateReconciled") LocalDate dateReconciled);
+
+    /**
+     * Finds the fingerprints of the lines of the transactions with ids in the given range
+     *
+     * @param from The id before the first transaction id of the range
+     * @param to The last transaction id of the range
+     * @return A list of line fingerprints
+     */
+    @Query("SELECT t.date AS date, a.number AS accountNumber, l.amount AS amount, " +
+           "COALESCE(l.memo, t.memo) AS memo " +
+           "FROM TransactionLine l JOIN l.transaction t JOIN l.account a " +
+           "WHERE t.id > :from AND t.id <= :to")
+    List<LineFingerprint> findFingerprints(@Param("from") Integer from, @Param("to") Integer to);
+
+    /**
+     * Finds the fingerprints of the lines of the transactions with the given ids
+     *
+     * @param transactionIds A collection of transaction ids
+     * @return A list of line fingerprints
+     */
+    @Query("SELECT t.date AS date, a.number AS accountNumber, l.amount AS amount, " +
+           "COALESCE(l.memo, t.memo) AS memo " +
+           "FROM TransactionLine l JOIN l.transaction t JOIN l.account a " +
+           "WHERE t.id IN :transactionIds")
+    List<LineFingerprint> findFingerprints(@Param("transactionIds") Collection<Integer> transactionIds);
+
+    /**
+     * Finds the fingerprints of the lines on the account with the given id
+     *
+     * @param accountId An account id
+     * @return A list of line fingerprints
+     */
+    @Query("SELECT t.date AS date, a.number AS accountNumber, l.amount AS amount, " +
+           "COALESCE(l.memo, t.memo) AS memo " +
+           "FROM TransactionLine l JOIN l.transaction t JOIN l.account a " +
+           "WHERE a.id = :accountId")
+    List<LineFingerprint> findFingerprintsByAccountId(@Param("accountId") Integer accountId);
+
+    /**
+     * Counts the lines with the given fingerprint, among the transactions with ids up to the given id
+     *
+     * @param date A transaction date
+     * @param accountNumber An account number
+     * @param amount A line amount
+     * @param memo The memo of the line, or of its transaction if the line has none; empty if neither has one
+     * @param maxTransactionId The last transaction id to count the lines of
+     * @return The number of matching lines
+     */
+    @Query("SELECT COUNT(l) " +
+           "FROM TransactionLine l JOIN l.transaction t JOIN l.account a " +
+           "WHERE t.date = :date AND a.number = :accountNumber AND l.amount = :amount " +
+           "AND COALESCE(l.memo, t.memo, '') = :memo AND t.id <= :maxTransactionId")
+    long countFingerprints(@Param("date") LocalDate date,
+                           @Param("accountNumber") String accountNumber,
+                           @Param("amount") Double amount,
+                           @Param("memo") String memo,
+                           @Param("maxTransactionId") Integer maxTransactionId);
+
+    /**
+     * Finds all transaction lines matching the given specification, as DTOs
+     *
+     * @param specification can be {@literal null}.
+     * @param sort must not be {@literal null}.
+     * @return A list of DTOs of the transaction lines matching the given specification, sorted by the given sort
+     */
+    default List<TransactionLineDTO> findAllDtos(Specification<TransactionLine> specification, Sort sort) {
+        return findAll(
+                specification,
+                sort,
+                TransactionLineDTO.class,
+                TransactionLine.TRANSACTION+"."+Transaction.ID,
+                TransactionLine.LINE_ID,
+                TransactionLine.ACCOUNT+"."+Account.NUMBER,
+                TransactionLine.PLAYER+"."+Player.NAME,
+                TransactionLine.AMOUNT,
+                TransactionLine.MEMO,
+                TransactionLine.DATE_RECONCILED
+        );
+    }
+
+    /**
+     * Finds the first transaction lines matching the given specification, as DTOs that also carry the date
+     * of their transaction
+     *
+     * @param specification can be {@literal null}.
+     * @param sort must not be {@literal null}.
+     * @param limit The maximum number of transaction lines to return
+     * @return A list of DTOs of at most limit transaction lines matching the given specification,
+     *         sorted by the given sort
+     */
+    default List<TransactionLineDTO> findAllDtos(Specification<TransactionLine> specification, Sort sort, int limit) {
+        return findAll(
+                specification,
+                sort,
+                limit,
+                TransactionLineDTO.class,
+                TransactionLine.TRANSACTION+"."+Transaction.ID,
+                TransactionLine.TRANSACTION+"."+Transaction.DATE,
+                TransactionLine.LINE_ID,
+                TransactionLine.ACCOUNT+"."+Account.NUMBER,
+                TransactionLine.PLAYER+"."+Player.NAME,
+                TransactionLine.AMOUNT,
+                TransactionLine.MEMO,
+                TransactionLine.DATE_RECONCILED
+        );
+    }
 }
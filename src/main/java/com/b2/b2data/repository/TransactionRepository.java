@@ -1,20 +1,27 @@
 package com.b2.b2data.repository;
 
 import com.b2.b2data.domain.Transaction;
+import com.b2.b2data.dto.TransactionDTO;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
-import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Provides CRUD operations for {@link Transaction} objects in the database
  */
 @Repository
 public interface TransactionRepository
-        extends PagingAndSortingRepository<Transaction,Integer>, JpaSpecificationExecutor<Transaction> {
+        extends BaseRepository<Transaction, Integer> {
 
     /**
      * Finds all transactions matching the given specification
@@ -25,4 +32,72 @@ public interface TransactionRepository
      */
     @Override
     List<Transaction> findAll(Specification<Transaction> specification, Sort sort);
+
+    /**
+     * Finds the date of the transaction with the given id, as currently stored in the database.
+     * Pending changes are not flushed, so a modified date on a managed transaction is not returned.
+     *
+     * @param id A transaction id
+     * @return An optional containing the stored date of the transaction, if it exists
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.flushMode", value = "COMMIT"))
+    @Query("SELECT t.date FROM Transaction t WHERE t.id = :id")
+    Optional<LocalDate> findStoredDateById(@Param("id") Integer id);
+
+    /**
+     * Finds the greatest transaction id
+     *
+     * @return The greatest transaction id, or 0 if there are no transactions
+     */
+    @Query("SELECT COALESCE(MAX(t.id), 0) FROM Transaction t")
+    int findMaxId();
+
+    /**
+     * Sets the date and memo of the transaction with the given id in a single statement, without
+     * loading the transaction
+     *
+     * @param id A transaction id
+     * @param date A transaction date
+     * @param memo A transaction memo
+     * @return The number of updated transactions
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Transaction t SET t.date = :date, t.memo = :memo WHERE t.id = :id")
+    int updateHeader(@Param("id") Integer id, @Param("date") LocalDate date, @Param("memo") String memo);
+
+    /**
+     * Deletes the transactions with the given ids in a single statement, without loading them.
+     * Their lines must be deleted first.
+     *
+     * @param ids A collection of transaction ids
+     * @return The number of deleted transactions
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Transaction t WHERE t.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Finds all transactions matching the given specification, as DTOs without lines
+     *
+     * @param specification can be {@literal null}.
+     * @param sort must not be {@literal null}.
+     * @return A list of DTOs of the transactions matching the given specification, sorted by the given sort
+     */
+    default List<TransactionDTO> findAllDtos(Specification<Transaction> specification, Sort sort) {
+        return findAll(specification, sort, TransactionDTO.class, Transaction.ID, Transaction.DATE, Transaction.MEMO);
+    }
+
+    /**
+     * Finds the first transactions matching the given specification, as DTOs without lines
+     *
+     * @param specification can be {@literal null}.
+     * @param sort must not be {@literal null}.
+     * @param limit The maximum number of transactions to return
+     * @return A list of DTOs of at most limit transactions matching the given specification,
+     *         sorted by the given sort
+     */
+    default List<TransactionDTO> findAllDtos(Specification<Transaction> specification, Sort sort, int limit) {
+        return findAll(
+                specification, sort, limit, TransactionDTO.class, Transaction.ID, Transaction.DATE, Transaction.MEMO);
+    }
 }
@@ -0,0 +1,50 @@
+package com.b2.b2data.repository;
+
+/**
+ * A projection of the debit and credit totals of the transaction lines of one account,
+ * together with the account's element, for building a trial balance
+ */
+public interface TrialBalanceRow {
+
+    /**
+     * Gets the number of the element of the account
+     *
+     * @return An element number
+     */
+    Integer getElementNumber();
+
+    /**
+     * Gets the name of the element of the account
+     *
+     * @return An element name
+     */
+    String getElementName();
+
+    /**
+     * Gets the number of the account
+     *
+     * @return An account number
+     */
+    String getAccountNumber();
+
+    /**
+     * Gets the name of the account
+     *
+     * @return An account name
+     */
+    String getAccountName();
+
+    /**
+     * Gets the debit total of the account
+     *
+     * @return The sum of all positive line amounts of the account
+     */
+    Double getDebit();
+
+    /**
+     * Gets the credit total of the account
+     *
+     * @return The sum of all negative line amounts of the account, as a positive number
+     */
+    Double getCredit();
+}
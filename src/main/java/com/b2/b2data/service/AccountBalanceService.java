@@ -0,0 +1,245 @@
+package com.b2.b2data.service;
+
+import com.b2.b2data.domain.Account;
+import com.b2.b2data.domain.AccountBalance;
+import com.b2.b2data.domain.AccountPeriod;
+import com.b2.b2data.domain.AccountPeriodId;
+import com.b2.b2data.repository.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Provides services for handling {@link AccountBalance} objects
+ */
+@Service
+public class AccountBalanceService {
+
+    // the largest difference between a stored and a recomputed total that is treated as rounding noise
+    private static final double TOLERANCE = 0.000001;
+
+    private final AccountBalanceRepository REPO;
+    private final AccountPeriodRepository PERIOD_REPO;
+    private final AccountRepository ACCOUNT_REPO;
+    private final TransactionLineRepository LINE_REPO;
+
+    /**
+     * Constructs a new account balance service
+     *
+     * @param repo An account balance repository
+     * @param periodRepo An account period repository
+     * @param accountRepo An account repository
+     * @param lineRepo A transaction line repository
+     */
+    @Autowired
+    public AccountBalanceService(AccountBalanceRepository repo, AccountPeriodRepository periodRepo,
+                                 AccountRepository accountRepo, TransactionLineRepository lineRepo) {
+        REPO = repo;
+        PERIOD_REPO = periodRepo;
+        ACCOUNT_REPO = accountRepo;
+        LINE_REPO = lineRepo;
+    }
+
+    /**
+     * Finds the balance of the account with the given number
+     *
+     * @param accountNumber An account number
+     * @return The balance of the account with the given number. An account without any
+     *         stored balance has a balance of zero
+     * @throws NoSuchElementException If the account does not exist
+     */
+    public AccountBalance findByAccountNumber(String accountNumber) throws NoSuchElementException {
+        return REPO.findByAccountNumber(accountNumber)
+                   .orElseGet(() -> new AccountBalance(
+                           ACCOUNT_REPO.findByNumber(accountNumber)
+                                       .orElseThrow(() -> new NoSuchElementException(
+                                               "Account number='"+accountNumber+"' does not exist.")),
+                           0.0,
+                           0.0
+                   ));
+    }
+
+    /**
+     * Finds the balance of the account with the given number as of the end of the given date.
+     * Closed months are summed from the stored account periods, and only the lines of the
+     * month containing the given date are summed from the transaction lines.
+     *
+     * @param accountNumber An account number
+     * @param asOf A date
+     * @return The balance of the account with the given number, including all transactions
+     *         dated on or before the given date
+     * @throws NoSuchElementException If the account does not exist
+     */
+    public AccountBalance balanceAsOf(String accountNumber, LocalDate asOf)
+            throws NoSuchElementException {
+
+        Account account = ACCOUNT_REPO.findByNumber(accountNumber)
+                                      .orElseThrow(() -> new NoSuchElementException(
+                                              "Account number='"+accountNumber+"' does not exist."));
+
+        LocalDate period = AccountPeriod.periodOf(asOf);
+        AccountBalance balance = new AccountBalance(account, 0.0, 0.0);
+
+        PERIOD_REPO.sumAmountsBefore(account.getId(), period).ifPresent(total -> add(balance, total));
+        LINE_REPO.sumAmountsBetween(account.getId(), period, asOf).ifPresent(total -> add(balance, total));
+
+        return balance;
+    }
+
+    /**
+     * Applies the given balance delta to the stored account balances and account periods, inserting any balance
+     * or period not stored yet. Must be called in the same database transaction as the writes that produced the
+     * delta.
+     *
+     * @param delta A balance delta
+     */
+    @Transactional
+    @Modifying
+    public void apply(BalanceDelta delta) {
+        // rows are always locked in the same order, so that concurrent deltas cannot deadlock each other
+        for (Integer accountId : new TreeSet<>(delta.getAccountIds())) {
+            double debit = delta.getDebit(accountId);
+            double credit = delta.getCredit(accountId);
+
+            if (debit != 0 || credit != 0)
+                REPO.increment(accountId, debit, credit);
+        }
+        List<AccountPeriodId> periodIds = new ArrayList<>(delta.getPeriodIds());
+        periodIds.sort(Comparator.comparing(AccountPeriodId::getAccountId).thenComparing(AccountPeriodId::getPeriod));
+
+        for (AccountPeriodId periodId : periodIds) {
+            double debit = delta.getDebit(periodId);
+            double credit = delta.getCredit(periodId);
+
+            if (debit != 0 || credit != 0)
+                PERIOD_REPO.increment(periodId.getAccountId(), periodId.getPeriod(), debit, credit);
+        }
+    }
+
+    /**
+     * Recomputes every account balance and account period from the transaction lines and corrects
+     * any stored balance or period that does not match the recomputation. Also initializes the
+     * store for existing ledgers.
+     *
+     * @return A list of the balances of the accounts with a corrected balance or period, sorted by
+     *         account number ascending. An empty list means that the store matched the recomputation
+     */
+    @Transactional
+    @Modifying
+    public List<AccountBalance> rebuild() {
+        Map<Integer, AccountBalance> stored = new HashMap<>();
+        REPO.findAll().forEach(balance -> stored.put(balance.getAccountId(), balance));
+
+        List<AccountBalance> corrected = new ArrayList<>();
+
+        for (AccountTotal total : LINE_REPO.sumAmountsByAccount()) {
+            AccountBalance balance = stored.remove(total.getAccountId());
+
+            if (balance == null) {
+                Account account = ACCOUNT_REPO.findById(total.getAccountId()).orElseThrow();
+                balance = new AccountBalance(account, 0.0, 0.0);
+            }
+            if (correct(balance, total.getDebit(), total.getCredit()))
+                corrected.add(REPO.save(balance));
+        }
+        // remaining balances belong to accounts without any transaction lines
+        for (AccountBalance balance : stored.values()) {
+            if (correct(balance, 0.0, 0.0))
+                corrected.add(balance);
+        }
+        Set<Integer> correctedIds = new HashSet<>();
+        corrected.forEach(balance -> correctedIds.add(balance.getAccountId()));
+
+        for (Integer accountId : rebuildPeriods()) {
+            if (correctedIds.add(accountId))
+                corrected.add(findByAccountNumber(ACCOUNT_REPO.findById(accountId).orElseThrow().getNumber()));
+        }
+        corrected.sort(Comparator.comparing(balance -> balance.getAccount().getNumber()));
+        return corrected;
+    }
+
+    /**
+     * Recomputes every account period from the transaction lines and corrects any stored period
+     * that does not match the recomputation
+     *
+     * @return The ids of the accounts with at least one corrected period
+     */
+    private Set<Integer> rebuildPeriods() {
+        Map<AccountPeriodId, AccountPeriod> stored = new HashMap<>();
+        PERIOD_REPO.findAll().forEach(period ->
+                stored.put(new AccountPeriodId(period.getAccount().getId(), period.getPeriod()), period));
+
+        Set<Integer> corrected = new HashSet<>();
+
+        for (AccountPeriodTotal total : LINE_REPO.sumAmountsByAccountAndMonth()) {
+            LocalDate start = LocalDate.of(total.getPeriodYear(), total.getPeriodMonth(), 1);
+            AccountPeriod period = stored.remove(new AccountPeriodId(total.getAccountId(), start));
+
+            if (period == null) {
+                Account account = ACCOUNT_REPO.findById(total.getAccountId()).orElseThrow();
+                period = new AccountPeriod(account, start, 0.0, 0.0);
+            }
+            if (correct(period, total.getDebit(), total.getCredit())) {
+                PERIOD_REPO.save(period);
+                corrected.add(total.getAccountId());
+            }
+        }
+        // remaining periods are months without any transaction lines
+        for (AccountPeriod period : stored.values()) {
+            if (correct(period, 0.0, 0.0))
+                corrected.add(period.getAccount().getId());
+        }
+        return corrected;
+    }
+
+    /**
+     * Adds the given totals to the given balance
+     *
+     * @param balance An account balance
+     * @param total The debit and credit totals to add
+     */
+    private void add(AccountBalance balance, AccountTotal total) {
+        balance.setDebit(balance.getDebit() + total.getDebit());
+        balance.setCredit(balance.getCredit() + total.getCredit());
+    }
+
+    /**
+     * Sets the totals of the given period if they differ from the given totals
+     *
+     * @param period An account period
+     * @param debit The recomputed debit total
+     * @param credit The recomputed credit total
+     * @return True if the period was corrected, or false otherwise
+     */
+    private boolean correct(AccountPeriod period, double debit, double credit) {
+        if (Math.abs(period.getDebit() - debit) <= TOLERANCE
+                && Math.abs(period.getCredit() - credit) <= TOLERANCE)
+            return false;
+
+        period.setDebit(debit);
+        period.setCredit(credit);
+        return true;
+    }
+
+    /**
+     * Sets the totals of the given balance if they differ from the given totals
+     *
+     * @param balance An account balance
+     * @param debit The recomputed debit total
+     * @param credit The recomputed credit total
+     * @return True if the balance was corrected, or false otherwise
+     */
+    private boolean correct(AccountBalance balance, double debit, double credit) {
+        if (Math.abs(balance.getDebit() - debit) <= TOLERANCE
+                && Math.abs(balance.getCredit() - credit) <= TOLERANCE)
+            return false;
+
+        balance.setDebit(debit);
+        balance.setCredit(credit);
+        return true;
+    }
+}
@@ -1,8 +1,13 @@
 package com.b2.b2data.service;
 
 import com.b2.b2data.domain.Account;
+import com.b2.b2data.domain.Element;
 import com.b2.b2data.domain.Player;
+import com.b2.b2data.dto.AccountDTO;
+import com.b2.b2data.repository.AccountBalanceRepository;
+import com.b2.b2data.repository.AccountPeriodRepository;
 import com.b2.b2data.repository.AccountRepository;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
@@ -12,8 +17,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.JoinType;
-import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.*;
 
 /**
  * Provides services for handling {@link Account} objects
@@ -22,15 +26,32 @@ import java.util.NoSuchElementException;
 public class AccountService {
 
     private final AccountRepository REPO;
+    private final AccountBalanceRepository BALANCE_REPO;
+    private final AccountPeriodRepository PERIOD_REPO;
+    private final ReferenceCache CACHE;
+    private final LedgerVersionService VERSIONS;
+    private final LineFingerprintService FINGERPRINTS;
 
     /**
      * Constructs a new account service
      *
      * @param repo An account repository
+     * @param balanceRepo An account balance repository
+     * @param periodRepo An account period repository
+     * @param cache A reference cache
+     * @param versions A ledger version service
+     * @param fingerprints A line fingerprint service
      */
     @Autowired
-    public AccountService(AccountRepository repo) {
+    public AccountService(AccountRepository repo, AccountBalanceRepository balanceRepo,
+                          AccountPeriodRepository periodRepo, ReferenceCache cache, LedgerVersionService versions,
+                          LineFingerprintService fingerprints) {
         REPO = repo;
+        BALANCE_REPO = balanceRepo;
+        PERIOD_REPO = periodRepo;
+        CACHE = cache;
+        VERSIONS = versions;
+        FINGERPRINTS = fingerprints;
     }
 
     /**
@@ -40,8 +61,9 @@ public class AccountService {
      * @return The account with the given id
      * @throws NoSuchElementException If the account does not exist
      */
+    @Transactional(readOnly = true)
     public Account findById(Integer id) throws NoSuchElementException {
-        return REPO.findById(id)
+        return CACHE.get(Account.class, Account.ID, id, () -> REPO.findById(id).map(AccountService::unproxy))
                     .orElseThrow(() -> new NoSuchElementException("Account id="+id+" does not exist."));
     }
 
@@ -53,7 +75,7 @@ public class AccountService {
      * @throws NoSuchElementException If the account does not exist
      */
     public Account findByNumber(String number) throws NoSuchElementException {
-        return REPO.findByNumber(number)
+        return CACHE.get(Account.class, Account.NUMBER, number, () -> REPO.findByNumber(number))
                     .orElseThrow(() -> new NoSuchElementException("Account number='"+number+"' does not exist."));
     }
 
@@ -65,10 +87,28 @@ public class AccountService {
      * @throws NoSuchElementException If the account does not exist
      */
     public Account findByName(String name) throws NoSuchElementException {
-        return REPO.findByName(name)
+        return CACHE.get(Account.class, Account.NAME, name, () -> REPO.findByName(name))
                     .orElseThrow(() -> new NoSuchElementException("Account name='"+name+"' does not exist."));
     }
 
+    /**
+     * Finds the accounts with the given numbers, with a single query for the ones that are not cached
+     *
+     * @param numbers A collection of account numbers
+     * @return A map of the accounts with the given numbers, by number
+     * @throws NoSuchElementException If any of the accounts does not exist
+     */
+    public Map<String, Account> findAllByNumbers(Collection<String> numbers) throws NoSuchElementException {
+        Map<String, Account> accounts =
+                CACHE.getAll(Account.class, Account.NUMBER, numbers, REPO::findAllByNumberIn, Account::getNumber);
+
+        for (String number : numbers) {
+            if (!accounts.containsKey(number))
+                throw new NoSuchElementException("Account number='"+number+"' does not exist.");
+        }
+        return accounts;
+    }
+
     /**
      * Finds all accounts with the given element number
      *
@@ -90,12 +130,15 @@ public class AccountService {
     }
 
     /**
-     * Finds all accounts
+     * Finds all accounts, along with their elements and players
      *
      * @return A list of accounts sorted by number ascending
      */
+    @Transactional(readOnly = true)
     public List<Account> findAll() {
-        return REPO.findAllByOrderByNumberAsc();
+        List<Account> accounts = REPO.findAllByOrderByNumberAsc();
+        accounts.forEach(AccountService::unproxy);
+        return accounts;
     }
 
     /**
@@ -117,7 +160,27 @@ public class AccountService {
     }
 
     /**
-     * Saves the given account to the database
+     * Finds all accounts matching the given parameters, as DTOs read directly from the selected
+     * columns without loading the accounts into the persistence context
+     *
+     * @param elementNumber An element number
+     * @param playerName A player name
+     * @param isBank True if the account is associated with a bank
+     * @return A list of DTOs of the accounts matching the given parameters, sorted by number ascending
+     */
+    public List<AccountDTO> findAllDtos(Integer elementNumber, String playerName, Boolean isBank) {
+        return REPO.findAllDtos(
+                Specification
+                        .where(elementNumberEquals(elementNumber))
+                        .and(playerNameEquals(playerName))
+                        .and(isBankEquals(isBank)),
+                Sort.by(Account.NUMBER).ascending()
+        );
+    }
+
+    /**
+     * Saves the given account to the database. If the account is renumbered, the fingerprints of its lines
+     * are added under the new number.
      *
      * @param account An account to save
      * @return The account saved in the database
@@ -125,18 +188,33 @@ public class AccountService {
     @Transactional
     @Modifying
     public Account save(Account account) {
-        return REPO.save(account);
+        String storedNumber = account.getId() == null
+                ? null
+                : REPO.findById(account.getId()).map(Account::getNumber).orElse(null);
+
+        CACHE.invalidate(Account.class);
+        VERSIONS.bump(Account.class);
+        Account accountToSave = REPO.save(account);
+
+        if (storedNumber != null && !storedNumber.equals(accountToSave.getNumber()))
+            FINGERPRINTS.addAccount(accountToSave.getId());
+
+        return accountToSave;
     }
 
     /**
-     * Deletes the given account from the database
+     * Deletes the given account and its stored balance and periods from the database
      *
      * @param account An account to delete
      */
     @Transactional
     @Modifying
     public void delete(Account account) {
+        BALANCE_REPO.deleteByAccountId(account.getId());
+        PERIOD_REPO.deleteByAccountId(account.getId());
         REPO.delete(account);
+        CACHE.invalidate(Account.class);
+        VERSIONS.bump(Account.class);
     }
 
     //region SPECIFICATIONS
@@ -194,4 +272,19 @@ public class AccountService {
         });
     }
     //endregion
+
+    /**
+     * Loads the element and player of the given account. An account answered from the second-level cache,
+     * or from the query cache, comes with proxies of its element and player in place of the entities fetched
+     * by its entity graph, so they are loaded here from their own cache regions and the proxies are replaced,
+     * letting the account be used, and compared with accounts loaded by a query, after its session has closed.
+     *
+     * @param account An account in the current persistence context
+     * @return The given account
+     */
+    private static Account unproxy(Account account) {
+        account.setElement((Element) Hibernate.unproxy(account.getElement()));
+        account.setPlayer((Player) Hibernate.unproxy(account.getPlayer()));
+        return account;
+    }
 }
@@ -0,0 +1,150 @@
+package com.b2.b2data.service;
+
+import com.b2.b2data.domain.AccountPeriod;
+import com.b2.b2data.domain.AccountPeriodId;
+import com.b2.b2data.domain.TransactionLine;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Accumulates the changes to account balances and monthly account periods caused by replacing
+ * or removing transaction lines. Lines being replaced or removed are subtracted, lines being
+ * written are added, and the net change is applied by {@link AccountBalanceService#apply(BalanceDelta)}.
+ */
+public class BalanceDelta {
+
+    // account id -> {debit, credit}
+    private final Map<Integer, double[]> TOTALS = new LinkedHashMap<>();
+
+    // account period -> {debit, credit}
+    private final Map<AccountPeriodId, double[]> PERIOD_TOTALS = new LinkedHashMap<>();
+
+    /**
+     * Adds the amounts of the given transaction lines to the delta
+     *
+     * @param date The date of the transaction the lines are written to
+     * @param lines A list of transaction lines being written
+     * @return This balance delta
+     */
+    public BalanceDelta add(LocalDate date, List<TransactionLine> lines) {
+        for (TransactionLine line : lines)
+            add(date, line, 1);
+
+        return this;
+    }
+
+    /**
+     * Subtracts the amounts of the given transaction lines from the delta
+     *
+     * @param date The stored date of the transaction the lines belong to
+     * @param lines A list of transaction lines being replaced or removed
+     * @return This balance delta
+     */
+    public BalanceDelta subtract(LocalDate date, List<TransactionLine> lines) {
+        for (TransactionLine line : lines)
+            add(date, line, -1);
+
+        return this;
+    }
+
+    /**
+     * Adds the given changes to the debit and credit totals of the account with the given id,
+     * in the period containing the given date
+     *
+     * @param accountId An account id
+     * @param date A transaction date
+     * @param debit A change to the debit total of the account
+     * @param credit A change to the credit total of the account
+     */
+    public void add(Integer accountId, LocalDate date, double debit, double credit) {
+        double[] totals = TOTALS.computeIfAbsent(accountId, id -> new double[2]);
+        totals[0] += debit;
+        totals[1] += credit;
+
+        double[] periodTotals = PERIOD_TOTALS.computeIfAbsent(
+                new AccountPeriodId(accountId, AccountPeriod.periodOf(date)),
+                id -> new double[2]
+        );
+        periodTotals[0] += debit;
+        periodTotals[1] += credit;
+    }
+
+    /**
+     * Adds the amount of the given transaction line to the debit total (positive amounts)
+     * or the credit total (negative amounts) of its account
+     *
+     * @param date A transaction date
+     * @param line A transaction line
+     * @param sign 1 if the line is being written, or -1 if it is being replaced or removed
+     */
+    private void add(LocalDate date, TransactionLine line, int sign) {
+        double amount = line.getAmount();
+
+        if (amount > 0)
+            add(line.getAccount().getId(), date, sign * amount, 0);
+        else
+            add(line.getAccount().getId(), date, 0, -sign * amount);
+    }
+
+    /**
+     * Gets the ids of the accounts affected by the delta
+     *
+     * @return A set of account ids
+     */
+    public Set<Integer> getAccountIds() {
+        return TOTALS.keySet();
+    }
+
+    /**
+     * Gets the account periods affected by the delta
+     *
+     * @return A set of account period ids
+     */
+    public Set<AccountPeriodId> getPeriodIds() {
+        return PERIOD_TOTALS.keySet();
+    }
+
+    /**
+     * Gets the change to the debit total of the account with the given id
+     *
+     * @param accountId An account id
+     * @return The change to the debit total of the account
+     */
+    public double getDebit(Integer accountId) {
+        return TOTALS.getOrDefault(accountId, new double[2])[0];
+    }
+
+    /**
+     * Gets the change to the credit total of the account with the given id
+     *
+     * @param accountId An account id
+     * @return The change to the credit total of the account
+     */
+    public double getCredit(Integer accountId) {
+        return TOTALS.getOrDefault(accountId, new double[2])[1];
+    }
+
+    /**
+     * Gets the change to the debit total of the given account period
+     *
+     * @param periodId An account period id
+     * @return The change to the debit total of the account period
+     */
+    public double getDebit(AccountPeriodId periodId) {
+        return PERIOD_TOTALS.getOrDefault(periodId, new double[2])[0];
+    }
+
+    /**
+     * Gets the change to the credit total of the given account period
+     *
+     * @param periodId An account period id
+     * @return The change to the credit total of the account period
+     */
+    public double getCredit(AccountPeriodId periodId) {
+        return PERIOD_TOTALS.getOrDefault(periodId, new double[2])[1];
+    }
+}
@@ -0,0 +1,160 @@
+package com.b2.b2data.service;
+
+import com.b2.b2data.domain.Transaction;
+import com.b2.b2data.domain.TransactionLine;
+
+import javax.validation.ValidationException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Represents a position in a list of transactions or transaction lines sorted by transaction date
+ * descending, transaction id descending and line id ascending. A cursor is sent to the client as an
+ * opaque string, and the next page starts immediately after the position it points to.
+ */
+public class Cursor {
+
+    private final LocalDate date;
+    private final Integer transactionId;
+    private final Integer lineId;
+
+    /**
+     * Constructs a new cursor
+     *
+     * @param date A transaction date
+     * @param transactionId A transaction id
+     * @param lineId A line id, or null for a cursor over transactions
+     */
+    public Cursor(LocalDate date, Integer transactionId, Integer lineId) {
+        this.date = date;
+        this.transactionId = transactionId;
+        this.lineId = lineId;
+    }
+
+    /**
+     * Creates a cursor pointing to the given transaction
+     *
+     * @param transaction A transaction
+     * @return A cursor pointing to the given transaction
+     */
+    public static Cursor of(Transaction transaction) {
+        return new Cursor(transaction.getDate(), transaction.getId(), null);
+    }
+
+    /**
+     * Creates a cursor pointing to the given transaction line
+     *
+     * @param line A transaction line
+     * @return A cursor pointing to the given transaction line
+     */
+    public static Cursor of(TransactionLine line) {
+        return new Cursor(line.getTransaction().getDate(), line.getTransaction().getId(), line.getLineId());
+    }
+
+    /**
+     * Decodes the given cursor string
+     *
+     * @param cursor A cursor string previously returned by {@link #encode()}
+     * @return The decoded cursor
+     * @throws ValidationException If the cursor string is invalid
+     */
+    public static Cursor decode(String cursor) throws ValidationException {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+
+            if (parts.length < 2 || parts.length > 3)
+                throw new IllegalArgumentException();
+
+            return new Cursor(
+                    LocalDate.parse(parts[0]),
+                    Integer.valueOf(parts[1]),
+                    parts.length == 3 ? Integer.valueOf(parts[2]) : null
+            );
+        } catch (RuntimeException e) {
+            throw new ValidationException("Cursor '"+cursor+"' is invalid.");
+        }
+    }
+
+    /**
+     * Encodes the cursor as an opaque string
+     *
+     * @return A URL-safe string representation of the cursor
+     */
+    public String encode() {
+        String value = date+":"+transactionId+(lineId == null ? "" : ":"+lineId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Checks the equality of two cursors
+     *
+     * @param o The other cursor to compare with this cursor
+     * @return True if the other cursor is equal to this cursor, or false otherwise
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (!(o instanceof Cursor cursor))
+            return false;
+
+        return Objects.equals(date, cursor.date)
+                && Objects.equals(transactionId, cursor.transactionId)
+                && Objects.equals(lineId, cursor.lineId);
+    }
+
+    /**
+     * Returns a hash code value for the cursor
+     *
+     * @return A hash code value for the cursor
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(date, transactionId, lineId);
+    }
+
+    /**
+     * Returns a string representation of the cursor
+     *
+     * @return A string representation of the cursor in the following format:
+     * <br/><br/>Cursor{date=date, transactionId=transactionId, lineId=lineId}
+     */
+    @Override
+    public String toString() {
+        return "Cursor{" +
+                "date=" + date +
+                ", transactionId=" + transactionId +
+                ", lineId=" + lineId +
+                '}';
+    }
+
+    /**
+     * Gets the transaction date of the cursor
+     *
+     * @return A transaction date
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * Gets the transaction id of the cursor
+     *
+     * @return A transaction id
+     */
+    public Integer getTransactionId() {
+        return transactionId;
+    }
+
+    /**
+     * Gets the line id of the cursor
+     *
+     * @return A line id, or null for a cursor over transactions
+     */
+    public Integer getLineId() {
+        return lineId;
+    }
+}
@@ -17,15 +17,21 @@ import java.util.NoSuchElementException;
 public class ElementService {
 
     private final ElementRepository REPO;
+    private final ReferenceCache CACHE;
+    private final LedgerVersionService VERSIONS;
 
     /**
      * Constructs a new element service
      *
      * @param repo An element repository
+     * @param cache A reference cache
+     * @param versions A ledger version service
      */
     @Autowired
-    public ElementService(ElementRepository repo) {
+    public ElementService(ElementRepository repo, ReferenceCache cache, LedgerVersionService versions) {
         REPO = repo;
+        CACHE = cache;
+        VERSIONS = versions;
     }
 
     /**
@@ -36,7 +42,7 @@ public class ElementService {
      * @throws NoSuchElementException If the element does not exist
      */
     public Element findById(Integer id) throws NoSuchElementException {
-        return REPO.findById(id)
+        return CACHE.get(Element.class, Element.ID, id, () -> REPO.findById(id))
                     .orElseThrow(() -> new NoSuchElementException("Element id="+id+" does not exist."));
     }
 
@@ -48,7 +54,7 @@ public class ElementService {
      * @throws NoSuchElementException If the element does not exist
      */
     public Element findByNumber(Integer number) throws NoSuchElementException {
-        return REPO.findByNumber(number)
+        return CACHE.get(Element.class, Element.NUMBER, number, () -> REPO.findByNumber(number))
                     .orElseThrow(() -> new NoSuchElementException("Element number="+number+" does not exist."));
     }
 
@@ -60,7 +66,7 @@ public class ElementService {
      * @throws NoSuchElementException If the element does not exist
      */
     public Element findByName(String name) throws NoSuchElementException {
-        return REPO.findByName(name)
+        return CACHE.get(Element.class, Element.NAME, name, () -> REPO.findByName(name))
                     .orElseThrow(() -> new NoSuchElementException("Element name='"+name+"' does not exist."));
     }
 
@@ -82,6 +88,8 @@ public class ElementService {
     @Transactional
     @Modifying
     public Element save(Element element) {
+        CACHE.invalidate(Element.class);
+        VERSIONS.bump(Element.class);
         return REPO.save(element);
     }
 
@@ -94,5 +102,7 @@ public class ElementService {
     @Modifying
     public void delete(Element element) {
         REPO.delete(element);
+        CACHE.invalidate(Element.class);
+        VERSIONS.bump(Element.class);
     }
 }
@@ -0,0 +1,205 @@
+package com.b2.b2data.service;
+
+import com.b2.b2data.domain.Transaction;
+import com.b2.b2data.domain.TransactionLine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Provides group commits of new {@link Transaction} objects. When enabled, new transactions saved concurrently
+ * are queued, and a single writer saves each group of queued transactions in one database transaction with
+ * {@link TransactionService#saveAll(List, List)}, so that many callers share one commit. Each caller waits for
+ * its own transaction and gets its own result or error: if a group cannot be committed, its transactions are
+ * saved one at a time. When disabled, transactions are saved directly by {@link TransactionService}.
+ * A caller that is already in a database transaction has its transaction saved directly in it, so that it
+ * commits along with the rest of the caller's writes.
+ */
+@Service
+public class GroupCommitService {
+
+    private final TransactionService TRAN_SVC;
+    private final boolean ENABLED;
+    private final long MAX_DELAY_NANOS;
+    private final int MAX_GROUP_SIZE;
+    private final BlockingQueue<Pending> QUEUE = new LinkedBlockingQueue<>();
+    private final ExecutorService WRITER = Executors.newSingleThreadExecutor();
+
+    /**
+     * Constructs a new group commit service
+     *
+     * @param tranSvc A transaction service
+     * @param enabled True to group concurrent saves of new transactions, or false to save each one directly
+     * @param maxDelayMillis The longest time the writer waits for more transactions before committing a group
+     * @param maxGroupSize The largest number of transactions committed together
+     */
+    @Autowired
+    public GroupCommitService(TransactionService tranSvc,
+                              @Value("${b2.group-commit.enabled:false}") boolean enabled,
+                              @Value("${b2.group-commit.max-delay-ms:2}") long maxDelayMillis,
+                              @Value("${b2.group-commit.max-group-size:500}") int maxGroupSize) {
+        TRAN_SVC = tranSvc;
+        ENABLED = enabled;
+        MAX_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        MAX_GROUP_SIZE = maxGroupSize;
+
+        if (ENABLED)
+            WRITER.execute(this::write);
+    }
+
+    /**
+     * Saves the given transaction with transaction lines to the database. A new transaction is committed
+     * together with the other new transactions queued at the same time; any other transaction, or one saved
+     * in a database transaction of the caller, is saved directly.
+     *
+     * @param transaction A transaction to save
+     * @param lines A list of transaction lines
+     * @return The transaction saved in the database
+     * @throws IllegalStateException If the service shut down before the transaction was saved
+     */
+    public Transaction save(Transaction transaction, List<TransactionLine> lines) throws IllegalStateException {
+        if (!ENABLED || !transaction.isNew() || WRITER.isShutdown()
+                || TransactionSynchronizationManager.isActualTransactionActive())
+            return TRAN_SVC.save(transaction, lines);
+
+        Pending pending = new Pending(transaction, lines);
+        QUEUE.add(pending);
+
+        // the writer may have stopped after the check above, and will not see the transaction
+        if (WRITER.isShutdown() && QUEUE.remove(pending))
+            return TRAN_SVC.save(transaction, lines);
+
+        try {
+            return pending.RESULT.get();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while saving the transaction.", e);
+
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Stops the writer when the application shuts down, failing the transactions still queued
+     */
+    @PreDestroy
+    public void shutdown() {
+        WRITER.shutdownNow();
+    }
+
+    /**
+     * Commits the queued transactions in groups until the writer is stopped. The first queued transaction
+     * starts a group, which is committed once it is full or the maximum delay has passed.
+     */
+    private void write() {
+        List<Pending> group = new ArrayList<>(MAX_GROUP_SIZE);
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                group.add(QUEUE.take());
+                QUEUE.drainTo(group, MAX_GROUP_SIZE-group.size());
+                long deadline = System.nanoTime()+MAX_DELAY_NANOS;
+
+                while (group.size() < MAX_GROUP_SIZE) {
+                    Pending next = QUEUE.poll(deadline-System.nanoTime(), TimeUnit.NANOSECONDS);
+
+                    if (next == null)
+                        break;
+
+                    group.add(next);
+                    QUEUE.drainTo(group, MAX_GROUP_SIZE-group.size());
+                }
+                commit(group);
+                group.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+        } finally {
+            QUEUE.drainTo(group);
+
+            for (Pending pending : group)
+                pending.RESULT.completeExceptionally(new IllegalStateException("Group commit has shut down."));
+        }
+    }
+
+    /**
+     * Saves the given group of transactions in one database transaction. If the group cannot be committed,
+     * each transaction is saved in its own database transaction, so that only the failing ones are rejected.
+     *
+     * @param group A list of queued transactions
+     */
+    private void commit(List<Pending> group) {
+        // saveAll assigns ids to the entities it is given, even if it rolls back, so it is given copies
+        // and the originals are left new for the fallback
+        List<Transaction> transactions = new ArrayList<>(group.size());
+        List<List<TransactionLine>> lines = new ArrayList<>(group.size());
+
+        for (Pending pending : group) {
+            transactions.add(new Transaction(pending.TRANSACTION.getDate(), pending.TRANSACTION.getMemo()));
+            lines.add(pending.LINES.stream().map(GroupCommitService::copy).toList());
+        }
+        try {
+            TRAN_SVC.saveAll(transactions, lines);
+
+            for (int i = 0; i < group.size(); i++)
+                group.get(i).RESULT.complete(transactions.get(i));
+
+        } catch (RuntimeException e) {
+            for (Pending pending : group) {
+                try {
+                    pending.RESULT.complete(TRAN_SVC.save(pending.TRANSACTION, pending.LINES));
+
+                } catch (RuntimeException ex) {
+                    pending.RESULT.completeExceptionally(ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the values of the given transaction line into a new transaction line without a transaction
+     *
+     * @param line A transaction line
+     * @return A new transaction line with the same values
+     */
+    private static TransactionLine copy(TransactionLine line) {
+        TransactionLine copy = new TransactionLine(null, null, line.getAccount(), line.getAmount());
+        copy.setPlayer(line.getPlayer());
+        copy.setMemo(line.getMemo());
+        copy.setDateReconciled(line.getDateReconciled());
+        return copy;
+    }
+
+    /**
+     * A new transaction waiting to be committed, along with the result its caller is waiting for
+     */
+    private static class Pending {
+
+        private final Transaction TRANSACTION;
+        private final List<TransactionLine> LINES;
+        private final CompletableFuture<Transaction> RESULT = new CompletableFuture<>();
+
+        /**
+         * Constructs a new pending transaction
+         *
+         * @param transaction A new transaction
+         * @param lines The lines of the transaction
+         */
+        private Pending(Transaction transaction, List<TransactionLine> lines) {
+            TRANSACTION = transaction;
+            LINES = lines;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.b2.b2data.service;
+
+/**
+ * Thrown when a request is made with an idempotency key while another request with the same key is still being
+ * handled. The client may retry the request once the first one has completed.
+ */
+public class IdempotencyConflictException extends RuntimeException {
+
+    /**
+     * Constructs a new idempotency conflict exception
+     *
+     * @param message A detail message
+     */
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,20 @@
+package com.b2.b2data.service;
+
+import javax.validation.ValidationException;
+
+/**
+ * Thrown when an idempotency key is used again for a request other than the one it was first used for, either
+ * to another endpoint or with a different body. Such a request is neither handled nor answered with the stored
+ * response.
+ */
+public class IdempotencyKeyReusedException extends ValidationException {
+
+    /**
+     * Constructs a new idempotency key reused exception
+     *
+     * @param message A detail message
+     */
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
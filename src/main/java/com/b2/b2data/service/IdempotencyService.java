@@ -0,0 +1,208 @@
+package com.b2.b2data.service;
+
+import com.b2.b2data.domain.IdempotentRequest;
+import com.b2.b2data.repository.IdempotentRequestRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Provides services for handling {@link IdempotentRequest} objects. The first request made with an idempotency
+ * key claims the key, and its response is stored along with a hash of its body when it completes, so that a
+ * retry of the request is answered with the stored response instead of being handled again, and a request with
+ * another body is rejected. Keys expire a fixed time after they are claimed.
+ * Completed requests are also kept in a bounded in-process cache, so that most retries need no query.
+ */
+@Service
+public class IdempotencyService {
+
+    private final IdempotentRequestRepository REPO;
+    private final Duration TTL;
+    private final Map<String, IdempotentRequest> CACHE;
+
+    /**
+     * Constructs a new idempotency service
+     *
+     * @param repo An idempotent request repository
+     * @param ttlHours The number of hours an idempotency key is kept after it is claimed
+     * @param cacheSize The number of completed requests kept in memory
+     */
+    @Autowired
+    public IdempotencyService(IdempotentRequestRepository repo,
+                              @Value("${b2.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${b2.idempotency.cache-size:10000}") int cacheSize) {
+        REPO = repo;
+        TTL = Duration.ofHours(ttlHours);
+
+        // evicts the least recently used request once the cache is full
+        CACHE = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IdempotentRequest> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Finds the completed request with the given key
+     *
+     * @param key An idempotency key
+     * @param request The method and path of the request
+     * @return An optional containing the completed request, if the key has been used for the same request
+     *         and has not expired
+     */
+    public Optional<IdempotentRequest> findCompleted(String key, String request) {
+        IdempotentRequest idempotentRequest = CACHE.get(key);
+
+        if (idempotentRequest == null) {
+            idempotentRequest = REPO.findById(key).filter(IdempotentRequest::isCompleted).orElse(null);
+
+            if (idempotentRequest == null)
+                return Optional.empty();
+
+            CACHE.put(key, idempotentRequest);
+        }
+        if (isExpired(idempotentRequest) || !idempotentRequest.getRequest().equals(request))
+            return Optional.empty();
+
+        return Optional.of(idempotentRequest);
+    }
+
+    /**
+     * Claims the given key for the given request, unless the key has already been used for it
+     *
+     * @param key An idempotency key
+     * @param request The method and path of the request
+     * @return An optional containing the completed request, if the key has already been used for the request,
+     *         or an empty optional if the key has been claimed and the request should be handled
+     * @throws IdempotencyKeyReusedException If the key has been used for another request
+     * @throws IdempotencyConflictException If a request with the key is still being handled
+     */
+    @Transactional
+    @Modifying
+    public Optional<IdempotentRequest> claim(String key, String request)
+            throws IdempotencyKeyReusedException, IdempotencyConflictException {
+
+        Optional<IdempotentRequest> completed = findCompleted(key, request);
+
+        if (completed.isPresent())
+            return completed;
+
+        LocalDateTime now = LocalDateTime.now();
+        IdempotentRequest idempotentRequest = REPO.findById(key).orElse(null);
+
+        if (idempotentRequest == null) {
+            REPO.save(new IdempotentRequest(key, request, now));
+            return Optional.empty();
+        }
+        if (!isExpired(idempotentRequest)) {
+            if (!idempotentRequest.getRequest().equals(request))
+                throw new IdempotencyKeyReusedException("Idempotency key='"+key+"' was used for another request.");
+
+            throw new IdempotencyConflictException(
+                    "A request with idempotency key='"+key+"' is still being handled.");
+        }
+        // an expired key that has not been evicted yet is claimed again
+        CACHE.remove(key);
+        idempotentRequest.setRequest(request);
+        idempotentRequest.setStatus(null);
+        idempotentRequest.setLocation(null);
+        idempotentRequest.setBody(null);
+        idempotentRequest.setBodyHash(null);
+        idempotentRequest.setCreated(now);
+        return Optional.empty();
+    }
+
+    /**
+     * Checks that a retry with the key of the given completed request has the same body as the first request
+     *
+     * @param completed A completed request
+     * @param bodyHash The hash of the body of the retry
+     * @throws IdempotencyKeyReusedException If the bodies differ
+     */
+    public void verify(IdempotentRequest completed, String bodyHash) throws IdempotencyKeyReusedException {
+        // requests completed before bodies were hashed are answered as before
+        if (completed.getBodyHash() != null && !completed.getBodyHash().equals(bodyHash))
+            throw new IdempotencyKeyReusedException(
+                    "Idempotency key='"+completed.getIdempotencyKey()+"' was used for a request with another body.");
+    }
+
+    /**
+     * Stores the response of the request with the given key. The response is cached once the current database
+     * transaction commits, so that a response rolled back with its request is never replayed.
+     *
+     * @param key A claimed idempotency key
+     * @param bodyHash The hash of the body of the request
+     * @param status The HTTP status code of the response
+     * @param location The location header of the response, or null
+     * @param body The JSON body of the response
+     * @return The completed request
+     * @throws NoSuchElementException If the key has not been claimed
+     */
+    @Transactional
+    @Modifying
+    public IdempotentRequest complete(String key, String bodyHash, int status, String location, String body)
+            throws NoSuchElementException {
+
+        IdempotentRequest idempotentRequest = REPO.findById(key)
+                .orElseThrow(() -> new NoSuchElementException("Idempotency key='"+key+"' does not exist."));
+
+        idempotentRequest.setBodyHash(bodyHash);
+        idempotentRequest.setStatus(status);
+        idempotentRequest.setLocation(location);
+        idempotentRequest.setBody(body);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                CACHE.put(key, idempotentRequest);
+            }
+        });
+        return idempotentRequest;
+    }
+
+    /**
+     * Releases the given key after its request failed, so that the request can be retried
+     *
+     * @param key A claimed idempotency key
+     */
+    @Transactional
+    @Modifying
+    public void release(String key) {
+        REPO.deleteUncompleted(key);
+    }
+
+    /**
+     * Deletes the expired keys from the database and the cache
+     *
+     * @return The number of keys deleted from the database
+     */
+    @Scheduled(fixedDelayString = "${b2.idempotency.eviction-interval-ms:600000}")
+    @Transactional
+    @Modifying
+    public int evictExpired() {
+        synchronized (CACHE) {
+            CACHE.values().removeIf(this::isExpired);
+        }
+        return REPO.deleteCreatedBefore(LocalDateTime.now().minus(TTL));
+    }
+
+    /**
+     * Checks whether the key of the given request has expired
+     *
+     * @param idempotentRequest An idempotent request
+     * @return True if the key was claimed longer ago than the time to live, or false otherwise
+     */
+    private boolean isExpired(IdempotentRequest idempotentRequest) {
+        return idempotentRequest.getCreated().plus(TTL).isBefore(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,81 @@
+package com.b2.b2data.service;
+
+import com.b2.b2data.domain.Entry;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps a version of each table of the ledger, which only ever increases and is bumped whenever the services
+ * write to the table. A combination of versions identifies the state of the tables it covers, so it is used
+ * as the entity tag of the responses read from them. A table is bumped when it is written, and again once the
+ * writing database transaction completes, so that a response read before the commit never carries the tag of
+ * the committed state. Versions are kept in memory, so tags also carry an epoch that changes on every start.
+ */
+@Service
+public class LedgerVersionService {
+
+    // distinguishes the versions of this process from those handed out before a restart
+    private final String EPOCH = UUID.randomUUID().toString().substring(0, 8);
+
+    private final Map<Class<? extends Entry>, AtomicLong> VERSIONS = new ConcurrentHashMap<>();
+
+    /**
+     * Bumps the versions of the given tables, both now and once the current database transaction completes
+     *
+     * @param types The entry types of the written tables
+     */
+    @SafeVarargs
+    public final void bump(Class<? extends Entry>... types) {
+        increment(types);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    increment(types);
+                }
+            });
+        }
+    }
+
+    /**
+     * Gets the version of the given table
+     *
+     * @param type The entry type of a table
+     * @return The number of times the table has been bumped since the application started
+     */
+    public long version(Class<? extends Entry> type) {
+        AtomicLong version = VERSIONS.get(type);
+        return version == null ? 0 : version.get();
+    }
+
+    /**
+     * Gets the strong entity tag of the current state of the given tables
+     *
+     * @param types The entry types of the tables a response is read from
+     * @return A quoted entity tag, which changes whenever one of the tables is written
+     */
+    public String etag(Collection<Class<? extends Entry>> types) {
+        return types.stream()
+                    .map(type -> String.valueOf(version(type)))
+                    .collect(Collectors.joining(".", "\""+EPOCH+"-", "\""));
+    }
+
+    /**
+     * Increments the versions of the given tables
+     *
+     * @param types The entry types of the written tables
+     */
+    private void increment(Class<? extends Entry>[] types) {
+        for (Class<? extends Entry> type : types)
+            VERSIONS.computeIfAbsent(type, t -> new AtomicLong()).incrementAndGet();
+    }
+}
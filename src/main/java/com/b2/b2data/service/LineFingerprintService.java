@@ -0,0 +1,351 @@
+package com.b2.b2data.service;
+
+import com.b2.b2data.domain.Transaction;
+import com.b2.b2data.domain.TransactionLine;
+import com.b2.b2data.repository.LineFingerprint;
+import com.b2.b2data.repository.TransactionLineRepository;
+import com.b2.b2data.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps an in-memory Bloom filter over the fingerprints of all stored transaction lines, so that a candidate
+ * line can be ruled out as a duplicate without a query. A fingerprint is the transaction date, account number,
+ * amount and memo of a line, where the memo of the transaction stands in for a line without one. The filter
+ * may report a line that does not exist, so a possible duplicate is confirmed with
+ * {@link #countExisting(LocalDate, String, double, String, int)}, but it never misses a stored line.
+ * Lines are never removed from the filter; deleted lines are only stale positives, and are ruled out by the
+ * exact count.
+ */
+@Service
+public class LineFingerprintService {
+
+    // the smallest number of fingerprints the filter is sized for
+    private static final int MIN_CAPACITY = 1024;
+
+    // the number of transactions whose lines are read per query when building the filter
+    private static final int BUILD_PAGE_SIZE = 10_000;
+
+    private final TransactionRepository REPO;
+    private final TransactionLineRepository LINE_REPO;
+    private final double FALSE_POSITIVE_RATE;
+
+    // transactions whose lines changed without their fingerprints being added
+    private final Set<Integer> PENDING = ConcurrentHashMap.newKeySet();
+
+    // keys added while the filter was being built, which must be added again to the new filter
+    private final Set<String> PENDING_KEYS = ConcurrentHashMap.newKeySet();
+
+    private volatile BloomFilter filter;
+    private volatile boolean building;
+
+    /**
+     * Constructs a new line fingerprint service
+     *
+     * @param repo A transaction repository
+     * @param lineRepo A transaction line repository
+     * @param falsePositiveRate The rate at which the filter may report a line that does not exist
+     */
+    @Autowired
+    public LineFingerprintService(TransactionRepository repo, TransactionLineRepository lineRepo,
+                                  @Value("${b2.fingerprint.false-positive-rate:0.01}") double falsePositiveRate) {
+        REPO = repo;
+        LINE_REPO = lineRepo;
+        FALSE_POSITIVE_RATE = falsePositiveRate;
+        filter = new BloomFilter(MIN_CAPACITY, falsePositiveRate);
+    }
+
+    /**
+     * Builds the filter from all stored transaction lines, sized for twice their number.
+     * Lines committed while the filter is being built are added when it is next read.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void build() {
+        building = true;
+
+        try {
+            int maxId = REPO.findMaxId();
+            BloomFilter newFilter = new BloomFilter(Math.max(MIN_CAPACITY, 2*LINE_REPO.count()), FALSE_POSITIVE_RATE);
+
+            for (int from = 0; from < maxId; from += BUILD_PAGE_SIZE)
+                addAll(newFilter, LINE_REPO.findFingerprints(from, Math.min(maxId, from+BUILD_PAGE_SIZE)));
+
+            filter = newFilter;
+
+        } finally {
+            building = false;
+        }
+    }
+
+    /**
+     * Adds the fingerprints of the given lines of the given transaction to the filter, both now and once the
+     * current database transaction commits
+     *
+     * @param transaction A saved transaction
+     * @param lines The saved lines of the transaction
+     */
+    public void add(Transaction transaction, List<TransactionLine> lines) {
+        List<String> keys = new ArrayList<>(lines.size());
+
+        for (TransactionLine line : lines) {
+            String memo = line.getMemo() == null ? transaction.getMemo() : line.getMemo();
+            keys.add(key(transaction.getDate(), line.getAccount().getNumber(), line.getAmount(), memo));
+        }
+        addKeys(keys);
+        afterCommit(() -> addKeys(keys));
+    }
+
+    /**
+     * Records that the lines of the transaction with the given id have changed. Their fingerprints are
+     * read and added when the filter is next read, so that writes which do not load the lines stay cheap.
+     * The change is recorded once the current database transaction commits, since a read before then
+     * would find the lines as they were.
+     *
+     * @param transactionId A transaction id
+     */
+    public void changed(Integer transactionId) {
+        afterCommit(() -> PENDING.add(transactionId));
+    }
+
+    /**
+     * Adds the fingerprints of the lines on the account with the given id to the filter, both now and once the
+     * current database transaction commits. An account number is part of every fingerprint, so the lines of a
+     * renumbered account must be added under the new number.
+     *
+     * @param accountId An account id
+     */
+    public void addAccount(Integer accountId) {
+        List<String> keys = LINE_REPO.findFingerprintsByAccountId(accountId).stream()
+                .map(f -> key(f.getDate(), f.getAccountNumber(), f.getAmount(), f.getMemo()))
+                .toList();
+
+        addKeys(keys);
+        afterCommit(() -> addKeys(keys));
+    }
+
+    /**
+     * Checks whether a line with the given fingerprint might be stored
+     *
+     * @param date A transaction date
+     * @param accountNumber An account number
+     * @param amount A line amount
+     * @param memo The memo of the line, or of its transaction if the line has none
+     * @return False if no such line is stored, or true if one might be
+     */
+    public boolean mightExist(LocalDate date, String accountNumber, double amount, String memo) {
+        if (filter.isFull())
+            build();
+
+        if (!PENDING.isEmpty() || !PENDING_KEYS.isEmpty())
+            addPending();
+
+        return filter.mightContain(key(date, accountNumber, amount, memo));
+    }
+
+    /**
+     * Counts the stored lines with the given fingerprint, among the transactions with ids up to the given id
+     *
+     * @param date A transaction date
+     * @param accountNumber An account number
+     * @param amount A line amount
+     * @param memo The memo of the line, or of its transaction if the line has none
+     * @param maxTransactionId The last transaction id to count the lines of
+     * @return The number of matching lines
+     */
+    public long countExisting(LocalDate date, String accountNumber, double amount, String memo,
+                              int maxTransactionId) {
+
+        return LINE_REPO.countFingerprints(date, accountNumber, amount, memo == null ? "" : memo, maxTransactionId);
+    }
+
+    /**
+     * Adds the fingerprints of the lines of all changed transactions, and the keys added while the filter
+     * was being built, to the filter
+     */
+    private void addPending() {
+        List<Integer> ids = new ArrayList<>(PENDING);
+        PENDING.removeAll(ids);
+        List<String> keys = new ArrayList<>(PENDING_KEYS);
+        PENDING_KEYS.removeAll(keys);
+        BloomFilter current = filter;
+
+        for (int i = 0; i < ids.size(); i += BUILD_PAGE_SIZE)
+            addAll(current, LINE_REPO.findFingerprints(ids.subList(i, Math.min(ids.size(), i+BUILD_PAGE_SIZE))));
+
+        keys.forEach(current::add);
+
+        // a filter being built may have read the lines before they changed, so they are added to it once swapped in
+        if (building || current != filter) {
+            PENDING.addAll(ids);
+            PENDING_KEYS.addAll(keys);
+        }
+    }
+
+    /**
+     * Adds the given keys to the filter
+     *
+     * @param keys A list of keys
+     */
+    private void addKeys(List<String> keys) {
+        BloomFilter current = filter;
+        keys.forEach(current::add);
+
+        // a filter being built may have read the lines before they were written, so they are added to it later
+        if (building || current != filter)
+            PENDING_KEYS.addAll(keys);
+    }
+
+    /**
+     * Runs the given action once the current database transaction commits, or now if there is none
+     *
+     * @param action An action
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Adds the given fingerprints to the given filter
+     *
+     * @param filter A Bloom filter
+     * @param fingerprints A list of line fingerprints
+     */
+    private static void addAll(BloomFilter filter, List<LineFingerprint> fingerprints) {
+        for (LineFingerprint f : fingerprints)
+            filter.add(key(f.getDate(), f.getAccountNumber(), f.getAmount(), f.getMemo()));
+    }
+
+    /**
+     * Creates the key of the given fingerprint
+     *
+     * @param date A transaction date
+     * @param accountNumber An account number
+     * @param amount A line amount
+     * @param memo A memo, or null
+     * @return The key of the fingerprint
+     */
+    private static String key(LocalDate date, String accountNumber, double amount, String memo) {
+        // adding 0.0 turns -0.0 into 0.0, which compare equal in the database
+        return date+"\u0000"+accountNumber+"\u0000"+(amount+0.0)+"\u0000"+(memo == null ? "" : memo);
+    }
+
+    /**
+     * A Bloom filter over strings, sized for a given number of insertions and false positive rate
+     */
+    private static class BloomFilter {
+
+        private final AtomicLongArray bits;
+        private final long size;
+        private final int hashes;
+        private final long capacity;
+        private final AtomicLong insertions = new AtomicLong();
+
+        /**
+         * Constructs a new Bloom filter
+         *
+         * @param capacity The number of insertions the filter is sized for
+         * @param falsePositiveRate The false positive rate at capacity
+         */
+        private BloomFilter(long capacity, double falsePositiveRate) {
+            long optimal = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bits = new AtomicLongArray((int) ((optimal+63) / 64));
+            this.size = bits.length() * 64L;
+            this.hashes = Math.max(1, (int) Math.round((double) size / capacity * Math.log(2)));
+            this.capacity = capacity;
+        }
+
+        /**
+         * Adds the given key to the filter
+         *
+         * @param key A key
+         */
+        private void add(String key) {
+            long hash = hash(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+
+            for (int i = 1; i <= hashes; i++) {
+                long index = Math.floorMod(h1 + (long) i*h2, size);
+                long mask = 1L << (index & 63);
+                int word = (int) (index >>> 6);
+                long current;
+
+                while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+            }
+            insertions.incrementAndGet();
+        }
+
+        /**
+         * Checks whether the given key might have been added to the filter
+         *
+         * @param key A key
+         * @return False if the key has not been added, or true if it might have been
+         */
+        private boolean mightContain(String key) {
+            long hash = hash(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+
+            for (int i = 1; i <= hashes; i++) {
+                long index = Math.floorMod(h1 + (long) i*h2, size);
+
+                if ((bits.get((int) (index >>> 6)) & (1L << (index & 63))) == 0)
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * Checks whether more keys have been added than the filter is sized for
+         *
+         * @return True if the filter exceeds its false positive rate, or false otherwise
+         */
+        private boolean isFull() {
+            return insertions.get() > capacity;
+        }
+
+        /**
+         * Hashes the given key with 64-bit FNV-1a followed by a MurmurHash3 finalizer
+         *
+         * @param key A key
+         * @return A 64-bit hash of the key
+         */
+        private static long hash(String key) {
+            long hash = 0xcbf29ce484222325L;
+
+            for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b;
+                hash *= 0x100000001b3L;
+            }
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
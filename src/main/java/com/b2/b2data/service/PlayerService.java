@@ -7,8 +7,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.*;
 
 /**
  * Provides services for handling {@link Player} objects
@@ -17,15 +16,21 @@ import java.util.NoSuchElementException;
 public class PlayerService {
 
     private final PlayerRepository REPO;
+    private final ReferenceCache CACHE;
+    private final LedgerVersionService VERSIONS;
 
     /**
      * Constructs a new player
      *
      * @param repo A player repository
+     * @param cache A reference cache
+     * @param versions A ledger version service
      */
     @Autowired
-    public PlayerService(PlayerRepository repo) {
+    public PlayerService(PlayerRepository repo, ReferenceCache cache, LedgerVersionService versions) {
         REPO = repo;
+        CACHE = cache;
+        VERSIONS = versions;
     }
 
     /**
@@ -36,7 +41,7 @@ public class PlayerService {
      * @throws NoSuchElementException If the player does not exist
      */
     public Player findById(Integer id) throws NoSuchElementException {
-        return REPO.findById(id)
+        return CACHE.get(Player.class, Player.ID, id, () -> REPO.findById(id))
                     .orElseThrow(() -> new NoSuchElementException("Player id="+id+" does not exist."));
     }
 
@@ -48,10 +53,28 @@ public class PlayerService {
      * @throws NoSuchElementException If the player does not exist
      */
     public Player findByName(String name) throws NoSuchElementException {
-        return REPO.findByName(name)
+        return CACHE.get(Player.class, Player.NAME, name, () -> REPO.findByName(name))
                     .orElseThrow(() -> new NoSuchElementException("Player name='"+name+"' does not exist."));
     }
 
+    /**
+     * Finds the players with the given names, with a single query for the ones that are not cached
+     *
+     * @param names A collection of player names
+     * @return A map of the players with the given names, by name
+     * @throws NoSuchElementException If any of the players does not exist
+     */
+    public Map<String, Player> findAllByNames(Collection<String> names) throws NoSuchElementException {
+        Map<String, Player> players =
+                CACHE.getAll(Player.class, Player.NAME, names, REPO::findAllByNameIn, Player::getName);
+
+        for (String name : names) {
+            if (!players.containsKey(name))
+                throw new NoSuchElementException("Player name='"+name+"' does not exist.");
+        }
+        return players;
+    }
+
     /**
      * Finds all players
      *
@@ -80,6 +103,8 @@ public class PlayerService {
     @Transactional
     @Modifying
     public Player save(Player player) {
+        CACHE.invalidate(Player.class);
+        VERSIONS.bump(Player.class);
         return REPO.save(player);
     }
 
@@ -92,5 +117,7 @@ public class PlayerService {
     @Modifying
     public void delete(Player player) {
         REPO.delete(player);
+        CACHE.invalidate(Player.class);
+        VERSIONS.bump(Player.class);
     }
 }
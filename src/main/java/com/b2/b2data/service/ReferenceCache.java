@@ -0,0 +1,264 @@
+package com.b2.b2data.service;
+
+import com.b2.b2data.domain.Account;
+import com.b2.b2data.domain.Element;
+import com.b2.b2data.domain.Entry;
+import com.b2.b2data.domain.Player;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Caches reference data in process: the {@link Element}, {@link Player} and {@link Account} entries found
+ * by id, number or name. Those tables are small and rarely written, so each type has its own bounded region,
+ * which evicts its least recently used entries once full. A region is cleared whenever an entry of its type
+ * is saved or deleted, and again once the writing database transaction completes, so that a value read
+ * before the commit does not outlive it. Accounts hold their element and player, so clearing either region
+ * also clears the account region.
+ */
+@Component
+public class ReferenceCache {
+
+    // the regions holding entries that refer to entries of another type
+    private static final Map<Class<?>, List<Class<?>>> DEPENDENTS = Map.of(
+            Element.class, List.of(Account.class),
+            Player.class, List.of(Account.class)
+    );
+
+    private final int MAX_ENTRIES;
+    private final Map<Class<?>, Region> REGIONS = new LinkedHashMap<>();
+
+    /**
+     * Constructs a new reference cache
+     *
+     * @param maxEntries The number of entries kept in each region
+     */
+    @Autowired
+    public ReferenceCache(@Value("${b2.reference-cache.max-entries:1000}") int maxEntries) {
+        MAX_ENTRIES = maxEntries;
+
+        for (Class<?> type : List.of(Element.class, Player.class, Account.class))
+            REGIONS.put(type, new Region(type.getSimpleName()));
+    }
+
+    /**
+     * Gets the entry of the given type with the given attribute value, loading it on a miss
+     *
+     * @param type An entry type
+     * @param attribute The name of a unique attribute, such as id, number or name
+     * @param value The value of the attribute
+     * @param loader Finds the entry in the database
+     * @return An optional containing the entry, if it exists. Entries that do not exist are not cached
+     * @param <T> The entry type
+     */
+    public <T extends Entry> Optional<T> get(Class<T> type, String attribute, Object value,
+                                             Supplier<Optional<T>> loader) {
+        Region region = region(type);
+        Key key = new Key(attribute, value);
+        long generation;
+
+        synchronized (region) {
+            Entry entry = region.ENTRIES.get(key);
+
+            if (entry != null) {
+                region.hits++;
+                return Optional.of(type.cast(entry));
+            }
+            region.misses++;
+            generation = region.generation;
+        }
+        Optional<T> loaded = loader.get();
+        loaded.ifPresent(entry -> region.put(key, entry, generation));
+        return loaded;
+    }
+
+    /**
+     * Gets the entries of the given type with the given attribute values, loading the missing ones together
+     *
+     * @param type An entry type
+     * @param attribute The name of a unique attribute, such as number or name
+     * @param values The values of the attribute
+     * @param loader Finds the entries with the given values in the database
+     * @param valueOf Gets the value of the attribute of an entry
+     * @return A map of the entries that exist, by attribute value
+     * @param <T> The entry type
+     * @param <K> The attribute type
+     */
+    public <T extends Entry, K> Map<K, T> getAll(Class<T> type, String attribute, Collection<K> values,
+                                                 Function<Collection<K>, Collection<T>> loader,
+                                                 Function<T, K> valueOf) {
+        Region region = region(type);
+        Map<K, T> entries = new HashMap<>();
+        Set<K> missing = new HashSet<>();
+        long generation;
+
+        synchronized (region) {
+            for (K value : values) {
+                Entry entry = region.ENTRIES.get(new Key(attribute, value));
+
+                if (entry == null) {
+                    region.misses++;
+                    missing.add(value);
+                } else {
+                    region.hits++;
+                    entries.put(value, type.cast(entry));
+                }
+            }
+            generation = region.generation;
+        }
+        if (missing.isEmpty())
+            return entries;
+
+        for (T entry : loader.apply(missing)) {
+            K value = valueOf.apply(entry);
+            entries.put(value, entry);
+            region.put(new Key(attribute, value), entry, generation);
+        }
+        return entries;
+    }
+
+    /**
+     * Clears the region of the given type, and the regions that depend on it, both now and once
+     * the current database transaction completes
+     *
+     * @param type An entry type
+     */
+    public void invalidate(Class<? extends Entry> type) {
+        clear(type);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    clear(type);
+                }
+            });
+        }
+    }
+
+    /**
+     * Gets the statistics of each region
+     *
+     * @return A list of region statistics, in order of element, player and account
+     */
+    public List<Stats> stats() {
+        List<Stats> stats = new ArrayList<>(REGIONS.size());
+
+        for (Region region : REGIONS.values()) {
+            synchronized (region) {
+                stats.add(new Stats(region.NAME, region.ENTRIES.size(), region.hits, region.misses,
+                                    region.evictions, region.invalidations));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Clears the region of the given type and the regions that depend on it
+     *
+     * @param type An entry type
+     */
+    private void clear(Class<?> type) {
+        region(type).clear();
+        DEPENDENTS.getOrDefault(type, List.of()).forEach(dependent -> region(dependent).clear());
+    }
+
+    /**
+     * Gets the region of the given type
+     *
+     * @param type An entry type
+     * @return The region caching entries of the given type
+     * @throws IllegalArgumentException If entries of the given type are not cached
+     */
+    private Region region(Class<?> type) throws IllegalArgumentException {
+        Region region = REGIONS.get(type);
+
+        if (region == null)
+            throw new IllegalArgumentException(type.getSimpleName()+" entries are not cached.");
+
+        return region;
+    }
+
+    /**
+     * The statistics of one region of the cache
+     *
+     * @param region The name of the region
+     * @param size The number of entries in the region
+     * @param hits The number of lookups answered from the region
+     * @param misses The number of lookups that went to the database
+     * @param evictions The number of entries evicted because the region was full
+     * @param invalidations The number of times the region was cleared by a write
+     */
+    public record Stats(String region, int size, long hits, long misses, long evictions, long invalidations) {
+    }
+
+    /**
+     * An attribute value identifying one entry of a region
+     *
+     * @param attribute The name of a unique attribute
+     * @param value The value of the attribute
+     */
+    private record Key(String attribute, Object value) {
+    }
+
+    /**
+     * The cached entries of one type, least recently used first, along with their statistics.
+     * All access is synchronized on the region.
+     */
+    private class Region {
+
+        private final String NAME;
+        private final LinkedHashMap<Key, Entry> ENTRIES;
+        private long generation;
+        private long hits;
+        private long misses;
+        private long evictions;
+        private long invalidations;
+
+        /**
+         * Constructs a new empty region
+         *
+         * @param name The name of the region
+         */
+        private Region(String name) {
+            NAME = name;
+            ENTRIES = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                    if (size() <= MAX_ENTRIES)
+                        return false;
+
+                    evictions++;
+                    return true;
+                }
+            };
+        }
+
+        /**
+         * Caches the given entry, unless the region was cleared since the entry was loaded
+         *
+         * @param key The key of the entry
+         * @param entry An entry
+         * @param generation The generation of the region when the entry was loaded
+         */
+        private synchronized void put(Key key, Entry entry, long generation) {
+            if (this.generation == generation)
+                ENTRIES.put(key, entry);
+        }
+
+        /**
+         * Removes all entries, and stops entries loaded before now from being cached
+         */
+        private synchronized void clear() {
+            ENTRIES.clear();
+            generation++;
+            invalidations++;
+        }
+    }
+}
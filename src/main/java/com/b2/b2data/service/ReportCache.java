@@ -0,0 +1,333 @@
+package com.b2.b2data.service;
+
+import com.b2.b2data.domain.Account;
+import com.b2.b2data.domain.Player;
+import com.b2.b2data.domain.TransactionLine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Caches the results of report queries in process: the transaction lines and the transactions matching a set
+ * of filter parameters, keyed by those parameters. Each kind of query has its own bounded region, which evicts
+ * its least recently used results once full; results with too many rows are not cached at all.
+ * <br/><br/>
+ * A write evicts only the results it may have changed. It describes each line or transaction it touched by
+ * transaction id, date range, account number and player name, leaving out what it does not know, and every
+ * result whose parameters overlap one of those touches is evicted, both at once and again once the writing
+ * database transaction completes. Line results also show account numbers and player names, so they are not
+ * answered once an account or player has been written since they were cached.
+ */
+@Component
+public class ReportCache {
+
+    private final int MAX_ENTRIES;
+    private final int MAX_ROWS;
+    private final LedgerVersionService VERSIONS;
+    private final Map<Class<? extends Query>, Region> REGIONS = new LinkedHashMap<>();
+
+    /**
+     * Constructs a new report cache
+     *
+     * @param maxEntries The number of results kept in each region
+     * @param maxRows The number of rows of the largest result that is cached
+     * @param versions A ledger version service
+     */
+    @Autowired
+    public ReportCache(@Value("${b2.report-cache.max-entries:200}") int maxEntries,
+                       @Value("${b2.report-cache.max-rows:10000}") int maxRows,
+                       LedgerVersionService versions) {
+        MAX_ENTRIES = maxEntries;
+        MAX_ROWS = maxRows;
+        VERSIONS = versions;
+
+        REGIONS.put(LineQuery.class, new Region("TransactionLineReport"));
+        REGIONS.put(TransactionQuery.class, new Region("TransactionReport"));
+    }
+
+    /**
+     * Gets the result of the given query, loading it on a miss
+     *
+     * @param query The filter parameters of a report query
+     * @param loader Runs the query against the database
+     * @return An unmodifiable list of the rows of the result, which are shared and must not be modified
+     * @param <T> The row type
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> get(Query query, Supplier<List<T>> loader) {
+        Region region = REGIONS.get(query.getClass());
+        long references = query instanceof LineQuery ? references() : 0;
+        long generation;
+
+        synchronized (region) {
+            Result result = region.RESULTS.get(query);
+
+            if (result != null && result.REFERENCES == references) {
+                region.hits++;
+                return (List<T>) result.ROWS;
+            }
+            region.misses++;
+            generation = region.generation;
+        }
+        List<T> rows = List.copyOf(loader.get());
+
+        if (rows.size() <= MAX_ROWS)
+            region.put(query, new Result(rows, references), generation);
+
+        return rows;
+    }
+
+    /**
+     * Evicts the results of the given kind of query that overlap any of the given touches, both now and once
+     * the current database transaction completes
+     *
+     * @param type A kind of query
+     * @param touches The lines or transactions written
+     */
+    public void invalidate(Class<? extends Query> type, Collection<Touch> touches) {
+        if (touches.isEmpty())
+            return;
+
+        Region region = REGIONS.get(type);
+        List<Touch> written = List.copyOf(touches);
+        region.evict(written);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    region.evict(written);
+                }
+            });
+        }
+    }
+
+    /**
+     * Gets the statistics of each region
+     *
+     * @return A list of region statistics, in order of transaction line and transaction reports
+     */
+    public List<ReferenceCache.Stats> stats() {
+        List<ReferenceCache.Stats> stats = new ArrayList<>(REGIONS.size());
+
+        for (Region region : REGIONS.values()) {
+            synchronized (region) {
+                stats.add(new ReferenceCache.Stats(region.NAME, region.RESULTS.size(), region.hits, region.misses,
+                                                   region.evictions, region.invalidations));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Gets a number that changes whenever an account or player is written
+     *
+     * @return The sum of the ledger versions of the account and player tables
+     */
+    private long references() {
+        return VERSIONS.version(Account.class)+VERSIONS.version(Player.class);
+    }
+
+    /**
+     * Checks whether two values may be equal
+     *
+     * @param a A filter parameter, or null if the query does not filter on it
+     * @param b A written value, or null if it is not known
+     * @return False only if both values are given and differ
+     */
+    private static boolean mayMatch(Object a, Object b) {
+        return a == null || b == null || a.equals(b);
+    }
+
+    /**
+     * Checks whether two date ranges may overlap
+     *
+     * @param from The minimum bounding date of the first range, or null for no minimum
+     * @param to The maximum bounding date of the first range, or null for no maximum
+     * @param otherFrom The minimum bounding date of the second range, or null for no minimum
+     * @param otherTo The maximum bounding date of the second range, or null for no maximum
+     * @return True if a date may lie in both ranges
+     */
+    private static boolean mayOverlap(LocalDate from, LocalDate to, LocalDate otherFrom, LocalDate otherTo) {
+        return (from == null || otherTo == null || !otherTo.isBefore(from))
+                && (to == null || otherFrom == null || !otherFrom.isAfter(to));
+    }
+
+    /**
+     * The filter parameters of a report query
+     */
+    public sealed interface Query permits LineQuery, TransactionQuery {
+
+        /**
+         * Checks whether the result of the query may have been changed by the given write
+         *
+         * @param touch A line or transaction written
+         * @return True if the write may have changed the result
+         */
+        boolean overlaps(Touch touch);
+    }
+
+    /**
+     * The filter parameters of a transaction line report
+     *
+     * @param transactionId A transaction id
+     * @param accountNumber An account number
+     * @param playerName A player name
+     * @param memoPattern A memo pattern
+     * @param isReconciled True if the reconciled date is not null
+     * @param from A minimum bounding date
+     * @param to A maximum bounding date
+     */
+    public record LineQuery(Integer transactionId, String accountNumber, String playerName, String memoPattern,
+                            Boolean isReconciled, LocalDate from, LocalDate to) implements Query {
+
+        @Override
+        public boolean overlaps(Touch touch) {
+            return mayMatch(transactionId, touch.transactionId())
+                    && mayMatch(accountNumber, touch.accountNumber())
+                    && mayMatch(playerName, touch.playerName())
+                    && mayOverlap(from, to, touch.from(), touch.to());
+        }
+    }
+
+    /**
+     * The filter parameters of a transaction report
+     *
+     * @param from A minimum bounding date
+     * @param to A maximum bounding date
+     * @param memoPattern A memo pattern
+     */
+    public record TransactionQuery(LocalDate from, LocalDate to, String memoPattern) implements Query {
+
+        @Override
+        public boolean overlaps(Touch touch) {
+            return mayOverlap(from, to, touch.from(), touch.to());
+        }
+    }
+
+    /**
+     * A line or transaction written, as far as it is known. Null values stand for any value.
+     *
+     * @param transactionId The id of the transaction
+     * @param from The earliest transaction date the write may have changed
+     * @param to The latest transaction date the write may have changed
+     * @param accountNumber The account number of the line
+     * @param playerName The player name of the line
+     */
+    public record Touch(Integer transactionId, LocalDate from, LocalDate to, String accountNumber,
+                        String playerName) {
+
+        /**
+         * Describes a transaction written on the given date, whose lines are not known
+         *
+         * @param transactionId A transaction id, or null if it is not known
+         * @param date A transaction date, or null if it is not known
+         * @return A touch of the transaction
+         */
+        public static Touch of(Integer transactionId, LocalDate date) {
+            return new Touch(transactionId, date, date, null, null);
+        }
+
+        /**
+         * Describes the given line of a transaction written on the given date
+         *
+         * @param transactionId A transaction id, or null if it is not known
+         * @param date A transaction date, or null if it is not known
+         * @param line A transaction line
+         * @return A touch of the line
+         */
+        public static Touch of(Integer transactionId, LocalDate date, TransactionLine line) {
+            return new Touch(
+                    transactionId,
+                    date,
+                    date,
+                    line.getAccount() == null ? null : line.getAccount().getNumber(),
+                    line.getPlayer() == null ? null : line.getPlayer().getName()
+            );
+        }
+    }
+
+    /**
+     * A cached result, along with the account and player versions it was read at
+     */
+    private static class Result {
+
+        private final List<?> ROWS;
+        private final long REFERENCES;
+
+        /**
+         * Constructs a new result
+         *
+         * @param rows The rows of the result
+         * @param references The account and player versions the rows were read at
+         */
+        private Result(List<?> rows, long references) {
+            ROWS = rows;
+            REFERENCES = references;
+        }
+    }
+
+    /**
+     * The cached results of one kind of query, least recently used first, along with their statistics.
+     * All access is synchronized on the region.
+     */
+    private class Region {
+
+        private final String NAME;
+        private final LinkedHashMap<Query, Result> RESULTS;
+        private long generation;
+        private long hits;
+        private long misses;
+        private long evictions;
+        private long invalidations;
+
+        /**
+         * Constructs a new empty region
+         *
+         * @param name The name of the region
+         */
+        private Region(String name) {
+            NAME = name;
+            RESULTS = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Query, Result> eldest) {
+                    if (size() <= MAX_ENTRIES)
+                        return false;
+
+                    evictions++;
+                    return true;
+                }
+            };
+        }
+
+        /**
+         * Caches the given result, unless the region was written since the result was loaded
+         *
+         * @param query The filter parameters of the result
+         * @param result A result
+         * @param generation The generation of the region when the result was loaded
+         */
+        private synchronized void put(Query query, Result result, long generation) {
+            if (this.generation == generation)
+                RESULTS.put(query, result);
+        }
+
+        /**
+         * Removes the results that overlap any of the given touches, and stops results loaded before now
+         * from being cached
+         *
+         * @param touches The lines or transactions written
+         */
+        private synchronized void evict(List<Touch> touches) {
+            RESULTS.keySet().removeIf(query -> touches.stream().anyMatch(query::overlaps));
+            generation++;
+            invalidations++;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.b2.b2data.service;
+
+import com.b2.b2data.repository.TransactionLineRepository;
+import com.b2.b2data.repository.TrialBalanceRow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Provides services for building financial reports from the general ledger
+ */
+@Service
+public class ReportService {
+
+    private final TransactionLineRepository LINE_REPO;
+
+    /**
+     * Constructs a new report service
+     *
+     * @param lineRepo A transaction line repository
+     */
+    @Autowired
+    public ReportService(TransactionLineRepository lineRepo) {
+        LINE_REPO = lineRepo;
+    }
+
+    /**
+     * Finds the debit and credit totals of every account with activity on or before the given date.
+     * The totals are aggregated by the database, so no transaction lines are loaded.
+     *
+     * @param asOf A date; if null, the current date is used
+     * @return A list of trial balance rows, sorted by element number and then account number ascending
+     */
+    public List<TrialBalanceRow> trialBalance(LocalDate asOf) {
+        return LINE_REPO.sumAmountsByElementAndAccount(asOf == null ? LocalDate.now() : asOf);
+    }
+}
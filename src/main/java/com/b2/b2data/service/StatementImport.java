@@ -0,0 +1,285 @@
+package com.b2.b2data.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the progress of one bank statement import. An import is written by the thread running it
+ * and read by the requests polling its progress.
+ */
+public class StatementImport {
+
+    /**
+     * The stages of an import
+     */
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    // the number of row errors and duplicates kept for the client; later ones are only counted
+    private static final int MAX_ERRORS = 100;
+
+    private final Integer id;
+    private final long bytesTotal;
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong transactionsCreated = new AtomicLong();
+    private final AtomicLong rowsFailed = new AtomicLong();
+    private final AtomicLong rowsDuplicate = new AtomicLong();
+    private final List<String> errors = new ArrayList<>();
+    private final List<String> duplicates = new ArrayList<>();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile LocalDateTime started;
+    private volatile LocalDateTime finished;
+    private volatile long startNanos;
+    private volatile long finishNanos;
+    private volatile String message;
+
+    /**
+     * Constructs a new queued import
+     *
+     * @param id An import id
+     * @param bytesTotal The size of the statement in bytes
+     */
+    public StatementImport(Integer id, long bytesTotal) {
+        this.id = id;
+        this.bytesTotal = bytesTotal;
+    }
+
+    /**
+     * Marks the import as running
+     */
+    public void start() {
+        started = LocalDateTime.now();
+        startNanos = System.nanoTime();
+        status = Status.RUNNING;
+    }
+
+    /**
+     * Marks the import as completed
+     */
+    public void complete() {
+        finish(Status.COMPLETED, null);
+    }
+
+    /**
+     * Marks the import as failed
+     *
+     * @param message The reason the import stopped
+     */
+    public void fail(String message) {
+        finish(Status.FAILED, message);
+    }
+
+    /**
+     * Marks the import as finished
+     *
+     * @param status The final status of the import
+     * @param message The reason the import stopped, or null if it completed
+     */
+    private void finish(Status status, String message) {
+        finished = LocalDateTime.now();
+        finishNanos = System.nanoTime();
+        this.message = message;
+        this.status = status;
+    }
+
+    /**
+     * Records that the statement has been read up to the given position
+     *
+     * @param position A position in the statement, in bytes
+     */
+    public void read(long position) {
+        bytesRead.set(position);
+    }
+
+    /**
+     * Records that a row has been read
+     */
+    public void rowRead() {
+        rowsRead.incrementAndGet();
+    }
+
+    /**
+     * Records that transactions have been created
+     *
+     * @param count The number of transactions created
+     */
+    public void created(int count) {
+        transactionsCreated.addAndGet(count);
+    }
+
+    /**
+     * Records that a row could not be imported
+     *
+     * @param line The line number of the row in the statement, starting at 1
+     * @param error The reason the row could not be imported
+     */
+    public void rowFailed(int line, String error) {
+        if (rowsFailed.incrementAndGet() <= MAX_ERRORS) {
+            synchronized (errors) {
+                errors.add("Line "+line+": "+error);
+            }
+        }
+    }
+
+    /**
+     * Records that a row duplicates a stored line
+     *
+     * @param line The line number of the row in the statement, starting at 1
+     */
+    public void rowDuplicate(int line) {
+        if (rowsDuplicate.incrementAndGet() <= MAX_ERRORS) {
+            synchronized (duplicates) {
+                duplicates.add("Line "+line);
+            }
+        }
+    }
+
+    /**
+     * Gets the id of the import
+     *
+     * @return The id of the import
+     */
+    public Integer getId() {
+        return id;
+    }
+
+    /**
+     * Gets the status of the import
+     *
+     * @return The status of the import
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Checks whether the import has finished
+     *
+     * @return True if the import has completed or failed, or false otherwise
+     */
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    /**
+     * Gets the size of the statement
+     *
+     * @return The size of the statement in bytes
+     */
+    public long getBytesTotal() {
+        return bytesTotal;
+    }
+
+    /**
+     * Gets the number of bytes of the statement read so far
+     *
+     * @return The number of bytes of the statement read so far
+     */
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    /**
+     * Gets the number of rows read so far, excluding the header and blank rows
+     *
+     * @return The number of rows read so far
+     */
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    /**
+     * Gets the number of transactions created so far
+     *
+     * @return The number of transactions created so far
+     */
+    public long getTransactionsCreated() {
+        return transactionsCreated.get();
+    }
+
+    /**
+     * Gets the number of rows that could not be imported so far
+     *
+     * @return The number of rows that could not be imported so far
+     */
+    public long getRowsFailed() {
+        return rowsFailed.get();
+    }
+
+    /**
+     * Gets the number of rows found to duplicate stored lines so far
+     *
+     * @return The number of rows found to duplicate stored lines so far
+     */
+    public long getRowsDuplicate() {
+        return rowsDuplicate.get();
+    }
+
+    /**
+     * Gets the average number of rows read per second since the import started
+     *
+     * @return The average number of rows read per second, or null if the import has not started
+     */
+    public Double getRowsPerSecond() {
+        if (started == null)
+            return null;
+
+        long end = isFinished() ? finishNanos : System.nanoTime();
+        double seconds = Math.max(end-startNanos, 1) / 1e9;
+        return rowsRead.get() / seconds;
+    }
+
+    /**
+     * Gets the date and time the import started
+     *
+     * @return The date and time the import started, or null if it is queued
+     */
+    public LocalDateTime getStarted() {
+        return started;
+    }
+
+    /**
+     * Gets the date and time the import finished
+     *
+     * @return The date and time the import finished, or null if it has not finished
+     */
+    public LocalDateTime getFinished() {
+        return finished;
+    }
+
+    /**
+     * Gets the reason the import stopped
+     *
+     * @return The reason the import stopped, or null if it has not failed
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Gets the errors of the first rows that could not be imported
+     *
+     * @return A list of row errors, in the order they were found
+     */
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return List.copyOf(errors);
+        }
+    }
+
+    /**
+     * Gets the first rows found to duplicate stored lines
+     *
+     * @return A list of the line numbers of duplicate rows, in the order they were found
+     */
+    public List<String> getDuplicates() {
+        synchronized (duplicates) {
+            return List.copyOf(duplicates);
+        }
+    }
+}
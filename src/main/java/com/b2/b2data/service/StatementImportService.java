@@ -0,0 +1,442 @@
+package com.b2.b2data.service;
+
+import com.b2.b2data.domain.Account;
+import com.b2.b2data.domain.Player;
+import com.b2.b2data.domain.Transaction;
+import com.b2.b2data.domain.TransactionLine;
+import com.b2.b2data.dto.StatementTemplateDTO;
+import com.b2.b2data.dto.TransactionDTO;
+import com.b2.b2data.dto.TransactionLineDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.validation.ValidationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Provides services for importing bank statements as {@link Transaction} objects. A statement is copied to
+ * a temporary file and imported in the background, one statement at a time. Its rows are parsed in parallel
+ * by a {@link StatementParser}, and the parsed transactions are saved in batches by
+ * {@link TransactionService#saveAll(List, List)}.
+ */
+@Service
+public class StatementImportService {
+
+    // the number of finished imports kept for polling; older ones are forgotten
+    private static final int MAX_FINISHED = 100;
+
+    // the number of segments parsed per worker before the parsed rows are saved,
+    // which bounds the memory used by an import regardless of the size of the statement
+    private static final int SEGMENTS_PER_WORKER = 4;
+
+    private final TransactionService TRAN_SVC;
+    private final AccountService ACCOUNT_SVC;
+    private final PlayerService PLAYER_SVC;
+    private final LineFingerprintService FINGERPRINTS;
+    private final int BATCH_SIZE;
+    private final int SEGMENT_SIZE;
+    private final ForkJoinPool PARSE_POOL;
+    private final ExecutorService IMPORT_EXECUTOR = Executors.newSingleThreadExecutor();
+    private final Map<Integer, StatementImport> IMPORTS = new ConcurrentHashMap<>();
+    private final AtomicInteger NEXT_ID = new AtomicInteger(1);
+
+    /**
+     * Constructs a new statement import service
+     *
+     * @param tranSvc A transaction service
+     * @param accountSvc An account service
+     * @param playerSvc A player service
+     * @param fingerprints A line fingerprint service
+     * @param batchSize The number of transactions saved in one database transaction
+     * @param segmentSize The number of bytes of a statement parsed by one fork-join task
+     * @param parallelism The number of threads parsing a statement, or 0 for one per processor
+     */
+    @Autowired
+    public StatementImportService(TransactionService tranSvc, AccountService accountSvc, PlayerService playerSvc,
+                                  LineFingerprintService fingerprints,
+                                  @Value("${b2.import.batch-size:500}") int batchSize,
+                                  @Value("${b2.import.segment-size:1048576}") int segmentSize,
+                                  @Value("${b2.import.parallelism:0}") int parallelism) {
+        TRAN_SVC = tranSvc;
+        ACCOUNT_SVC = accountSvc;
+        PLAYER_SVC = playerSvc;
+        FINGERPRINTS = fingerprints;
+        BATCH_SIZE = batchSize;
+        SEGMENT_SIZE = segmentSize;
+        PARSE_POOL = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Queues the given statement for import
+     *
+     * @param statement A bank statement in CSV format
+     * @param template The layout of the statement
+     * @return The queued import
+     * @throws ValidationException If the template is invalid
+     * @throws IOException If the statement cannot be read or stored
+     */
+    public StatementImport submit(InputStream statement, StatementTemplateDTO template)
+            throws ValidationException, IOException {
+
+        StatementParser parser = new StatementParser(template, SEGMENT_SIZE);
+        Path file = Files.createTempFile("b2-statement-", ".csv");
+
+        try {
+            Files.copy(statement, file, StandardCopyOption.REPLACE_EXISTING);
+
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        StatementImport statementImport = new StatementImport(NEXT_ID.getAndIncrement(), Files.size(file));
+        forgetFinished();
+        IMPORTS.put(statementImport.getId(), statementImport);
+
+        boolean header = !Boolean.FALSE.equals(template.getHeader());
+        boolean skipDuplicates = !Boolean.FALSE.equals(template.getSkipDuplicates());
+        IMPORT_EXECUTOR.execute(() -> run(statementImport, parser, header, skipDuplicates, file));
+        return statementImport;
+    }
+
+    /**
+     * Finds the import with the given id
+     *
+     * @param id An import id
+     * @return The import with the given id
+     * @throws NoSuchElementException If the import does not exist or has been forgotten
+     */
+    public StatementImport findById(Integer id) throws NoSuchElementException {
+        StatementImport statementImport = IMPORTS.get(id);
+
+        if (statementImport == null)
+            throw new NoSuchElementException("Import id="+id+" does not exist.");
+
+        return statementImport;
+    }
+
+    /**
+     * Finds all imports that have not been forgotten
+     *
+     * @return A list of imports sorted by id ascending
+     */
+    public List<StatementImport> findAll() {
+        return IMPORTS.values().stream().sorted(Comparator.comparing(StatementImport::getId)).toList();
+    }
+
+    /**
+     * Stops the running import and the parsing threads when the application shuts down
+     */
+    @PreDestroy
+    public void shutdown() {
+        IMPORT_EXECUTOR.shutdownNow();
+        PARSE_POOL.shutdownNow();
+    }
+
+    /**
+     * Forgets the oldest finished imports, keeping at most {@link #MAX_FINISHED} of them
+     */
+    private void forgetFinished() {
+        List<Integer> finished = IMPORTS.values().stream()
+                .filter(StatementImport::isFinished)
+                .map(StatementImport::getId)
+                .sorted()
+                .toList();
+
+        for (int i = 0; i < finished.size()-MAX_FINISHED; i++)
+            IMPORTS.remove(finished.get(i));
+    }
+
+    /**
+     * Imports the given statement, reading it one window of segments at a time
+     *
+     * @param statementImport The import to record progress in
+     * @param parser A parser of the statement
+     * @param header True if the first row of the statement is a header, or false otherwise
+     * @param skipDuplicates True if rows duplicating stored lines are skipped, or false if they are only reported
+     * @param file The statement, which is deleted afterwards
+     */
+    private void run(StatementImport statementImport, StatementParser parser, boolean header,
+                     boolean skipDuplicates, Path file) {
+        statementImport.start();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long window = (long) SEGMENT_SIZE * PARSE_POOL.getParallelism() * SEGMENTS_PER_WORKER;
+            References references = new References();
+            Duplicates duplicates = new Duplicates(TRAN_SVC.findMaxId());
+            List<TransactionDTO> batch = new ArrayList<>(BATCH_SIZE);
+            List<Integer> batchLines = new ArrayList<>(BATCH_SIZE);
+            int lines = 0;
+
+            for (long from = 0; from < size; from += window) {
+                if (Thread.currentThread().isInterrupted()) {
+                    statementImport.fail("Import was interrupted.");
+                    return;
+                }
+                long to = Math.min(size, from+window);
+
+                for (StatementParser.Segment segment : parser.parse(PARSE_POOL, channel, from, to)) {
+                    for (StatementParser.Row row : segment.getRows()) {
+                        int line = lines+row.getLine();
+
+                        if (header && line == 1)
+                            continue;
+
+                        statementImport.rowRead();
+
+                        if (row.getError() != null) {
+                            statementImport.rowFailed(line, row.getError());
+                            continue;
+                        }
+                        if (duplicates.isDuplicate(row.getTransaction())) {
+                            statementImport.rowDuplicate(line);
+
+                            if (skipDuplicates)
+                                continue;
+                        }
+                        batch.add(row.getTransaction());
+                        batchLines.add(line);
+
+                        if (batch.size() == BATCH_SIZE) {
+                            save(statementImport, batch, batchLines, references);
+                            batch.clear();
+                            batchLines.clear();
+                        }
+                    }
+                    lines += segment.getLines();
+                }
+                statementImport.read(to);
+            }
+            save(statementImport, batch, batchLines, references);
+            statementImport.complete();
+
+        } catch (IOException | RuntimeException e) {
+            statementImport.fail(e.getMessage());
+
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+
+            } catch (IOException e) {
+                file.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Saves the given batch of transactions in a single database transaction. Rows referring to accounts or
+     * players that do not exist are rejected up front. If the batch cannot be committed, its transactions are
+     * saved one at a time, so that only the failing rows are rejected.
+     *
+     * @param statementImport The import to record progress in
+     * @param dtos A list of parsed transaction DTOs
+     * @param lines The line numbers of the rows of the transaction DTOs, in the same order
+     * @param references The accounts and players resolved so far by the import
+     */
+    private void save(StatementImport statementImport, List<TransactionDTO> dtos, List<Integer> lines,
+                      References references) {
+        references.resolve(dtos);
+
+        List<TransactionDTO> valid = new ArrayList<>(dtos.size());
+        List<Integer> validLines = new ArrayList<>(dtos.size());
+        List<Transaction> transactions = new ArrayList<>(dtos.size());
+        List<List<TransactionLine>> transactionLines = new ArrayList<>(dtos.size());
+
+        for (int i = 0; i < dtos.size(); i++) {
+            try {
+                transactionLines.add(references.convert(dtos.get(i).getLines()));
+                transactions.add(new Transaction(dtos.get(i).getDate(), dtos.get(i).getMemo()));
+                valid.add(dtos.get(i));
+                validLines.add(lines.get(i));
+
+            } catch (NoSuchElementException e) {
+                statementImport.rowFailed(lines.get(i), e.getMessage());
+            }
+        }
+        if (transactions.isEmpty())
+            return;
+
+        try {
+            TRAN_SVC.saveAll(transactions, transactionLines);
+            statementImport.created(transactions.size());
+
+        } catch (RuntimeException e) {
+            for (int i = 0; i < valid.size(); i++) {
+                try {
+                    TransactionDTO dto = valid.get(i);
+                    TRAN_SVC.save(new Transaction(dto.getDate(), dto.getMemo()), references.convert(dto.getLines()));
+                    statementImport.created(1);
+
+                } catch (RuntimeException ex) {
+                    statementImport.rowFailed(validLines.get(i), ex.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the rows of one import that duplicate lines stored before the import started. Statements may
+     * legitimately contain identical rows, so the n-th row with a given bank line is a duplicate only if at
+     * least n such lines were stored. Most rows are ruled out by the fingerprint filter without a query; the
+     * stored lines are counted only for rows the filter cannot rule out.
+     */
+    private class Duplicates {
+
+        private final int MAX_TRANSACTION_ID;
+
+        // bank line -> {number of such lines stored before the import, number of such rows seen}
+        private final Map<List<Object>, long[]> COUNTS = new HashMap<>();
+
+        /**
+         * Constructs a new duplicate finder
+         *
+         * @param maxTransactionId The greatest transaction id stored before the import started
+         */
+        private Duplicates(int maxTransactionId) {
+            MAX_TRANSACTION_ID = maxTransactionId;
+        }
+
+        /**
+         * Checks whether the bank line of the given transaction DTO duplicates a stored line
+         *
+         * @param dto A parsed transaction DTO, whose first line is on the bank account
+         * @return True if the row is a duplicate, or false otherwise
+         */
+        private boolean isDuplicate(TransactionDTO dto) {
+            TransactionLineDTO line = dto.getLines().get(0);
+            String memo = line.getMemo() == null ? dto.getMemo() : line.getMemo();
+            List<Object> key = Arrays.asList(dto.getDate(), line.getAccountNumber(), line.getAmount(), memo);
+            long[] counts = COUNTS.get(key);
+
+            if (counts == null) {
+                if (!FINGERPRINTS.mightExist(dto.getDate(), line.getAccountNumber(), line.getAmount(), memo))
+                    return false;
+
+                long stored = FINGERPRINTS.countExisting(
+                        dto.getDate(), line.getAccountNumber(), line.getAmount(), memo, MAX_TRANSACTION_ID);
+
+                counts = new long[]{stored, 0};
+                COUNTS.put(key, counts);
+            }
+            return ++counts[1] <= counts[0];
+        }
+    }
+
+    /**
+     * The accounts and players referred to by the rows of one import. Each account number and player name
+     * is looked up at most once per import, and the lookups of a batch are made with one query each.
+     */
+    private class References {
+
+        private final Map<String, Account> ACCOUNTS = new HashMap<>();
+        private final Set<String> MISSING_ACCOUNTS = new HashSet<>();
+        private final Map<String, Player> PLAYERS = new HashMap<>();
+        private final Set<String> MISSING_PLAYERS = new HashSet<>();
+
+        /**
+         * Looks up the accounts and players of the given transaction DTOs that have not been looked up yet
+         *
+         * @param dtos A list of transaction DTOs
+         */
+        private void resolve(List<TransactionDTO> dtos) {
+            Set<String> accountNumbers = new HashSet<>();
+            Set<String> playerNames = new HashSet<>();
+
+            for (TransactionDTO dto : dtos) {
+                for (TransactionLineDTO line : dto.getLines()) {
+                    accountNumbers.add(line.getAccountNumber());
+
+                    if (line.getPlayerName() != null)
+                        playerNames.add(line.getPlayerName());
+                }
+            }
+            resolve(accountNumbers, ACCOUNTS, MISSING_ACCOUNTS,
+                    ACCOUNT_SVC::findAllByNumbers, ACCOUNT_SVC::findByNumber);
+
+            resolve(playerNames, PLAYERS, MISSING_PLAYERS,
+                    PLAYER_SVC::findAllByNames, PLAYER_SVC::findByName);
+        }
+
+        /**
+         * Looks up the given keys that have not been looked up yet. They are looked up together, and only
+         * if one of them does not exist are they looked up one at a time to tell which.
+         *
+         * @param keys A set of keys
+         * @param found The values found so far, by key
+         * @param missing The keys known not to exist
+         * @param findAll Finds the values of a collection of keys
+         * @param findOne Finds the value of one key
+         * @param <T> The type of the values
+         */
+        private <T> void resolve(Set<String> keys, Map<String, T> found, Set<String> missing,
+                                 Function<Collection<String>, Map<String, T>> findAll,
+                                 Function<String, T> findOne) {
+            keys.removeAll(found.keySet());
+            keys.removeAll(missing);
+
+            if (keys.isEmpty())
+                return;
+
+            try {
+                found.putAll(findAll.apply(keys));
+
+            } catch (NoSuchElementException e) {
+                for (String key : keys) {
+                    try {
+                        found.put(key, findOne.apply(key));
+
+                    } catch (NoSuchElementException ex) {
+                        missing.add(key);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Converts the given transaction line DTOs into new transaction lines
+         *
+         * @param dtos A list of transaction line DTOs whose accounts and players have been looked up
+         * @return A list of new transaction lines, in the same order
+         * @throws NoSuchElementException If an account or player does not exist
+         */
+        private List<TransactionLine> convert(List<TransactionLineDTO> dtos) throws NoSuchElementException {
+            List<TransactionLine> lines = new ArrayList<>(dtos.size());
+
+            for (TransactionLineDTO dto : dtos) {
+                Account account = ACCOUNTS.get(dto.getAccountNumber());
+
+                if (account == null)
+                    throw new NoSuchElementException("Account number='"+dto.getAccountNumber()+"' does not exist.");
+
+                Player player = null;
+
+                if (dto.getPlayerName() != null) {
+                    player = PLAYERS.get(dto.getPlayerName());
+
+                    if (player == null)
+                        throw new NoSuchElementException("Player name='"+dto.getPlayerName()+"' does not exist.");
+                }
+                TransactionLine line = new TransactionLine(null, null, account, dto.getAmount());
+                line.setPlayer(player);
+                line.setMemo(dto.getMemo());
+                lines.add(line);
+            }
+            return lines;
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package com.b2.b2data.service;
+
+import com.b2.b2data.dto.StatementTemplateDTO;
+import com.b2.b2data.dto.TransactionDTO;
+import com.b2.b2data.dto.TransactionLineDTO;
+
+import javax.validation.ValidationException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parses the rows of a bank statement into transaction DTOs according to a statement template.
+ * A range of the statement is split into segments that are memory-mapped and parsed in parallel on a
+ * fork-join pool. A row belongs to the segment containing its first byte, so a row may extend past the
+ * end of its segment but is never parsed twice. Quoted values must therefore not contain line breaks.
+ */
+public class StatementParser {
+
+    // the longest row that is parsed, and so the furthest a segment reads past its end to finish its last row
+    private static final int MAX_ROW_LENGTH = 64 * 1024;
+
+    private final StatementTemplateDTO TEMPLATE;
+    private final DateTimeFormatter DATE_FORMAT;
+    private final char DELIMITER;
+    private final int SEGMENT_SIZE;
+
+    /**
+     * Constructs a new statement parser
+     *
+     * @param template A statement template
+     * @param segmentSize The number of bytes parsed by one fork-join task
+     * @throws ValidationException If the template is incomplete or its date format or delimiter is invalid
+     */
+    public StatementParser(StatementTemplateDTO template, int segmentSize) throws ValidationException {
+        if (template.getBankAccountNumber() == null)
+            throw new ValidationException("Bank account number must not be null.");
+
+        if (template.getDateColumn() == null || template.getAmountColumn() == null)
+            throw new ValidationException("Date and amount columns must not be null.");
+
+        if (template.getOffsetAccountNumber() == null && template.getAccountNumberColumn() == null)
+            throw new ValidationException("An offset account number or an account number column is required.");
+
+        if (template.getDelimiter() == null || template.getDelimiter().length() != 1)
+            throw new ValidationException("Delimiter must be a single character.");
+
+        try {
+            DATE_FORMAT = DateTimeFormatter.ofPattern(template.getDateFormat());
+
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new ValidationException("Date format='"+template.getDateFormat()+"' is invalid.");
+        }
+        TEMPLATE = template;
+        DELIMITER = template.getDelimiter().charAt(0);
+        SEGMENT_SIZE = segmentSize;
+    }
+
+    /**
+     * Parses the rows starting in the given range of the given statement
+     *
+     * @param pool The fork-join pool to parse the segments of the range on
+     * @param channel A channel of a statement
+     * @param from The first position of the range, in bytes
+     * @param to The position after the last position of the range, in bytes
+     * @return A list of the segments of the range, in the order of the statement
+     * @throws IOException If the statement cannot be read
+     */
+    public List<Segment> parse(ForkJoinPool pool, FileChannel channel, long from, long to) throws IOException {
+        try {
+            return pool.invoke(new ParseTask(channel, from, to));
+
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Parses the rows starting in the given segment of the given statement
+     *
+     * @param channel A channel of a statement
+     * @param from The first position of the segment, in bytes
+     * @param to The position after the last position of the segment, in bytes
+     * @return The parsed segment
+     * @throws IOException If the statement cannot be read
+     */
+    private Segment parseSegment(FileChannel channel, long from, long to) throws IOException {
+        // the byte before the segment tells whether the segment starts on a new row
+        long base = from > 0 ? from-1 : 0;
+        long size = channel.size();
+        long end = Math.min(size, to+MAX_ROW_LENGTH);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, base, end-base);
+
+        int pos = (int) (from-base);
+        int limit = (int) (to-base);
+
+        if (from > 0 && buffer.get(pos-1) != '\n') {
+            while (pos < buffer.limit() && buffer.get(pos) != '\n')
+                pos++;
+
+            pos++;
+        }
+        Segment segment = new Segment();
+
+        while (pos < limit) {
+            int start = pos;
+
+            while (pos < buffer.limit() && buffer.get(pos) != '\n')
+                pos++;
+
+            segment.lines++;
+            int length = pos > start && buffer.get(pos-1) == '\r' ? pos-start-1 : pos-start;
+            pos++;
+
+            // a row that is too long is skipped to its line break, which may lie in a later segment
+            if (length > MAX_ROW_LENGTH || (pos > buffer.limit() && end < size)) {
+                segment.rows.add(new Row(segment.lines, null, "Row is longer than "+MAX_ROW_LENGTH+" bytes."));
+                continue;
+            }
+            if (length == 0)
+                continue;
+
+            byte[] bytes = new byte[length];
+            buffer.get(start, bytes);
+            segment.rows.add(parseRow(segment.lines, new String(bytes, StandardCharsets.UTF_8)));
+        }
+        return segment;
+    }
+
+    /**
+     * Parses the given row into a transaction DTO with one line on the bank account and one offsetting it
+     *
+     * @param line The line number of the row in its segment, starting at 1
+     * @param text The text of the row, without its line break
+     * @return The parsed row, containing either a transaction DTO or the reason it could not be parsed
+     */
+    private Row parseRow(int line, String text) {
+        try {
+            List<String> values = split(text);
+            LocalDate date = LocalDate.parse(required(values, TEMPLATE.getDateColumn()), DATE_FORMAT);
+            double amount = parseAmount(required(values, TEMPLATE.getAmountColumn()));
+
+            if (Boolean.TRUE.equals(TEMPLATE.getNegate()))
+                amount = -amount;
+
+            String memo = optional(values, TEMPLATE.getMemoColumn());
+            String playerName = optional(values, TEMPLATE.getPlayerNameColumn());
+            String offsetAccountNumber = TEMPLATE.getAccountNumberColumn() == null
+                    ? TEMPLATE.getOffsetAccountNumber()
+                    : required(values, TEMPLATE.getAccountNumberColumn());
+
+            TransactionDTO dto = new TransactionDTO();
+            dto.setDate(date);
+            dto.setMemo(memo);
+            dto.setLines(List.of(
+                    line(TEMPLATE.getBankAccountNumber(), playerName, amount, memo),
+                    line(offsetAccountNumber, playerName, -amount, null)
+            ));
+            return new Row(line, dto, null);
+
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return new Row(line, null, e.getMessage());
+        }
+    }
+
+    /**
+     * Creates a transaction line DTO
+     *
+     * @param accountNumber An account number
+     * @param playerName A player name, or null
+     * @param amount An amount
+     * @param memo A memo, or null
+     * @return A transaction line DTO
+     */
+    private static TransactionLineDTO line(String accountNumber, String playerName, double amount, String memo) {
+        TransactionLineDTO dto = new TransactionLineDTO();
+        dto.setAccountNumber(accountNumber);
+        dto.setPlayerName(playerName);
+        dto.setAmount(amount);
+        dto.setMemo(memo);
+        return dto;
+    }
+
+    /**
+     * Parses the given amount. Currency symbols, spaces and thousands separators are ignored,
+     * and an amount in parentheses is negative.
+     *
+     * @param value An amount
+     * @return The amount
+     * @throws NumberFormatException If the value is not an amount
+     */
+    private static double parseAmount(String value) throws NumberFormatException {
+        String amount = value.replaceAll("[\\s,$€£]", "");
+
+        if (amount.startsWith("(") && amount.endsWith(")"))
+            return -Double.parseDouble(amount.substring(1, amount.length()-1));
+
+        return Double.parseDouble(amount);
+    }
+
+    /**
+     * Gets the value of the given column
+     *
+     * @param values The values of a row
+     * @param column A column position, starting at 0
+     * @return The value of the column
+     * @throws IllegalArgumentException If the row has no such column, or the value is blank
+     */
+    private static String required(List<String> values, int column) throws IllegalArgumentException {
+        String value = optional(values, column);
+
+        if (value == null)
+            throw new IllegalArgumentException("Column "+column+" must not be empty.");
+
+        return value;
+    }
+
+    /**
+     * Gets the value of the given column
+     *
+     * @param values The values of a row
+     * @param column A column position starting at 0, or null
+     * @return The trimmed value of the column, or null if the column is null or the value is blank
+     * @throws IllegalArgumentException If the row has no such column
+     */
+    private static String optional(List<String> values, Integer column) throws IllegalArgumentException {
+        if (column == null)
+            return null;
+
+        if (column >= values.size())
+            throw new IllegalArgumentException("Row has no column "+column+".");
+
+        String value = values.get(column).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Splits the given row into values. Values may be enclosed in double quotes, in which case they may
+     * contain the delimiter, and a double quote is written as two double quotes.
+     *
+     * @param text The text of a row
+     * @return A list of the values of the row
+     */
+    private List<String> split(String text) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+
+            if (quoted) {
+                if (c == '"' && i+1 < text.length() && text.charAt(i+1) == '"') {
+                    value.append('"');
+                    i++;
+                }
+                else if (c == '"')
+                    quoted = false;
+                else
+                    value.append(c);
+            }
+            else if (c == '"')
+                quoted = true;
+            else if (c == DELIMITER) {
+                values.add(value.toString());
+                value.setLength(0);
+            }
+            else
+                value.append(c);
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    /**
+     * The rows starting in one segment of a statement
+     */
+    public static class Segment {
+
+        private final List<Row> rows = new ArrayList<>();
+        private int lines;
+
+        /**
+         * Gets the rows of the segment, excluding blank rows
+         *
+         * @return A list of rows, in the order of the statement
+         */
+        public List<Row> getRows() {
+            return rows;
+        }
+
+        /**
+         * Gets the number of lines starting in the segment, including blank lines
+         *
+         * @return The number of lines starting in the segment
+         */
+        public int getLines() {
+            return lines;
+        }
+    }
+
+    /**
+     * One parsed row of a statement
+     */
+    public static class Row {
+
+        private final int line;
+        private final TransactionDTO transaction;
+        private final String error;
+
+        /**
+         * Constructs a new row
+         *
+         * @param line The line number of the row in its segment, starting at 1
+         * @param transaction The parsed transaction, or null if the row could not be parsed
+         * @param error The reason the row could not be parsed, or null if it was parsed
+         */
+        private Row(int line, TransactionDTO transaction, String error) {
+            this.line = line;
+            this.transaction = transaction;
+            this.error = error;
+        }
+
+        /**
+         * Gets the line number of the row in its segment
+         *
+         * @return The line number of the row in its segment, starting at 1
+         */
+        public int getLine() {
+            return line;
+        }
+
+        /**
+         * Gets the parsed transaction
+         *
+         * @return The parsed transaction, or null if the row could not be parsed
+         */
+        public TransactionDTO getTransaction() {
+            return transaction;
+        }
+
+        /**
+         * Gets the reason the row could not be parsed
+         *
+         * @return The reason the row could not be parsed, or null if it was parsed
+         */
+        public String getError() {
+            return error;
+        }
+    }
+
+    /**
+     * Parses a range of a statement, splitting it in halves until each half fits in one segment
+     */
+    private class ParseTask extends RecursiveTask<List<Segment>> {
+
+        private final FileChannel channel;
+        private final long from;
+        private final long to;
+
+        /**
+         * Constructs a new parse task
+         *
+         * @param channel A channel of a statement
+         * @param from The first position of the range, in bytes
+         * @param to The position after the last position of the range, in bytes
+         */
+        private ParseTask(FileChannel channel, long from, long to) {
+            this.channel = channel;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Parses the range of the task
+         *
+         * @return A list of the segments of the range, in the order of the statement
+         */
+        @Override
+        protected List<Segment> compute() {
+            if (to-from <= SEGMENT_SIZE) {
+                try {
+                    return List.of(parseSegment(channel, from, to));
+
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            long mid = from+(to-from)/2;
+            ParseTask left = new ParseTask(channel, from, mid);
+            left.fork();
+
+            List<Segment> right = new ParseTask(channel, mid, to).compute();
+            List<Segment> segments = new ArrayList<>(left.join());
+            segments.addAll(right);
+            return segments;
+        }
+    }
+}
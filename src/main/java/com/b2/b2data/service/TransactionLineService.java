@@ -1,17 +1,29 @@
 package com.b2.b2data.service;
 
 import com.b2.b2data.domain.*;
+import com.b2.b2data.dto.TransactionLineDTO;
+import com.b2.b2data.repository.AccountPeriodTotal;
 import com.b2.b2data.repository.TransactionLineRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.validation.ValidationException;
 import java.time.LocalDate;
-import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Provides services for handling {@link TransactionLine} objects
@@ -19,16 +31,48 @@ import java.util.NoSuchElementException;
 @Service
 public class TransactionLineService {
 
+    // transaction date descending, with a unique tie-break so that the order and cursors are stable
+    private static final Sort KEYSET_SORT = Sort.by(
+            Sort.Order.desc(TransactionLine.TRANSACTION+"."+Transaction.DATE),
+            Sort.Order.desc(TransactionLine.TRANSACTION+"."+Transaction.ID),
+            Sort.Order.asc(TransactionLine.LINE_ID)
+    );
+
+    // the attributes of a line that can be updated without rewriting its transaction
+    private static final Set<String> DETAILS = Set.of(
+            TransactionLine.PLAYER, TransactionLine.MEMO, TransactionLine.DATE_RECONCILED);
+
     private final TransactionLineRepository REPO;
+    private final EntityManager ENTITY_MANAGER;
+    private final int FETCH_SIZE;
+    private final LineFingerprintService FINGERPRINTS;
+    private final LedgerVersionService VERSIONS;
+    private final ReportCache REPORTS;
+    private final AccountBalanceService BALANCE_SVC;
 
     /**
      * Constructs a new transaction line service
      *
      * @param repo A transaction line repository
+     * @param entityManager An entity manager
+     * @param fetchSize The number of rows to fetch from the database at a time when streaming lines
+     * @param fingerprints A line fingerprint service
+     * @param versions A ledger version service
+     * @param reports A report cache
+     * @param balanceSvc An account balance service
      */
     @Autowired
-    public TransactionLineService(TransactionLineRepository repo) {
+    public TransactionLineService(TransactionLineRepository repo, EntityManager entityManager,
+                                  @Value("${b2.stream.fetch-size:500}") int fetchSize,
+                                  LineFingerprintService fingerprints, LedgerVersionService versions,
+                                  ReportCache reports, AccountBalanceService balanceSvc) {
         REPO = repo;
+        ENTITY_MANAGER = entityManager;
+        FETCH_SIZE = fetchSize;
+        FINGERPRINTS = fingerprints;
+        VERSIONS = versions;
+        REPORTS = reports;
+        BALANCE_SVC = balanceSvc;
     }
 
     /**
@@ -58,32 +102,34 @@ public class TransactionLineService {
      * Finds all transaction lines with the given account number
      *
      * @param accountNumber An account number
-     * @return A list of transaction lines with the given account number, sorted by transaction date descending
+     * @return A list of transaction lines with the given account number, sorted by transaction date
+     *         descending, transaction id descending and line id ascending
      */
     public List<TransactionLine> findAllByAccountNumber(String accountNumber) {
-        return REPO.findAllByAccountNumberOrderByTransactionDateDesc(accountNumber);
+        return REPO.findAllByAccountNumberOrderByTransactionDateDescTransactionIdDescLineIdAsc(accountNumber);
     }
 
     /**
      * Finds all transaction lines with the given player name
      *
      * @param playerName A player name
-     * @return A list of transaction lines with the given player name, sorted by transaction date descending
+     * @return A list of transaction lines with the given player name, sorted by transaction date
+     *         descending, transaction id descending and line id ascending
      */
     public List<TransactionLine> findAllByPlayerName(String playerName) {
-        return REPO.findAllByPlayerNameOrderByTransactionDateDesc(playerName);
+        return REPO.findAllByPlayerNameOrderByTransactionDateDescTransactionIdDescLineIdAsc(playerName);
     }
 
     /**
      * Finds all transaction lines
      *
-     * @return A list of transaction lines sorted by transaction date descending
+     * @return A list of transaction lines sorted by transaction date
+     *         descending, transaction id descending and line id ascending
      */
     public List<TransactionLine> findAll() {
-        return REPO.findAllByOrderByTransactionDateDesc();
+        return REPO.findAllByOrderByTransactionDateDescTransactionIdDescLineIdAsc();
     }
 
-    // TODO: sort by transaction date descending
     /**
      * Finds all transaction lines matching the given parameters
      *
@@ -94,31 +140,191 @@ public class TransactionLineService {
      * @param isReconciled True if the reconciled date is not null
      * @param from A minimum bounding date
      * @param to A maximum bounding date
-     * @return A list of transaction lines matching the given parameters, sorted by transaction date descending
+     * @return A list of transaction lines matching the given parameters, sorted by transaction date
+     *         descending, transaction id descending and line id ascending
      */
     public List<TransactionLine> findAll(Integer transactionId, String accountNumber, String playerName,
                                          String memoPattern, Boolean isReconciled, LocalDate from, LocalDate to) {
 
-        List<TransactionLine> lines =
-                REPO.findAll(
-                        Specification
-                                .where(transactionIdEquals(transactionId))
-                                .and(accountNumberEquals(accountNumber))
-                                .and(playerNameEquals(playerName))
-                                .and(memoLike(memoPattern))
-                                .and(reconciledIs(isReconciled))
-                                .and(dateOnOrAfter(from))
-                                .and(dateOnOrBefore(to)),
-                        Sort.by(TransactionLine.TRANSACTION).descending()
+        return REPO.findAll(
+                matching(transactionId, accountNumber, playerName, memoPattern, isReconciled, from, to),
+                KEYSET_SORT
+        );
+    }
+
+    /**
+     * Finds all transaction lines matching the given parameters, as DTOs read directly from the
+     * selected columns without loading the lines into the persistence context. Results are kept in the
+     * report cache until a line matching their account, player and date range is written.
+     *
+     * @param transactionId A transaction id
+     * @param accountNumber An account number
+     * @param playerName A player name
+     * @param memoPattern A memo pattern
+     * @param isReconciled True if the reconciled date is not null
+     * @param from A minimum bounding date
+     * @param to A maximum bounding date
+     * @return An unmodifiable list of DTOs of the transaction lines matching the given parameters, sorted by
+     *         transaction date descending, transaction id descending and line id ascending
+     */
+    public List<TransactionLineDTO> findAllDtos(Integer transactionId, String accountNumber, String playerName,
+                                                String memoPattern, Boolean isReconciled,
+                                                LocalDate from, LocalDate to) {
+
+        ReportCache.LineQuery query = new ReportCache.LineQuery(
+                transactionId, accountNumber, playerName, memoPattern, isReconciled, from, to);
+
+        return REPORTS.get(query, () -> REPO.findAllDtos(
+                matching(transactionId, accountNumber, playerName, memoPattern, isReconciled, from, to),
+                KEYSET_SORT
+        ));
+    }
+
+    /**
+     * Finds the transaction lines of the given account with a transaction date on or before the given date,
+     * that were not reconciled by that date, as DTOs read directly from the selected columns
+     *
+     * @param accountNumber An account number
+     * @param asOf A statement date
+     * @return A list of DTOs of the uncleared transaction lines, sorted by transaction date descending,
+     *         transaction id descending and line id ascending
+     */
+    public List<TransactionLineDTO> findUnclearedDtos(String accountNumber, LocalDate asOf) {
+        return REPO.findAllDtos(
+                Specification
+                        .where(accountNumberEquals(accountNumber))
+                        .and(reconciledAfter(asOf))
+                        .and(dateOnOrBefore(asOf)),
+                KEYSET_SORT
         );
-        return lines
-                .stream()
-                .sorted((a,b) -> b.getTransaction().getDate().compareTo(a.getTransaction().getDate()))
-                .toList();
     }
 
     /**
-     * Saves the given transaction line to the database
+     * Sums the amounts of the transaction lines of the given account reconciled on or before the given date
+     *
+     * @param account An account
+     * @param asOf A statement date
+     * @return The cleared balance of the account as of the statement date
+     */
+    public double sumCleared(Account account, LocalDate asOf) {
+        return REPO.sumCleared(account.getId(), asOf);
+    }
+
+    /**
+     * Sums the amounts of the transaction lines of the given account with a transaction date on or before
+     * the given date, that were not reconciled by that date
+     *
+     * @param account An account
+     * @param asOf A statement date
+     * @return The uncleared total of the account as of the statement date
+     */
+    public double sumUncleared(Account account, LocalDate asOf) {
+        return REPO.sumUncleared(account.getId(), asOf);
+    }
+
+    /**
+     * Finds the first transaction lines matching the given parameters that come after the given cursor
+     *
+     * @param transactionId A transaction id
+     * @param accountNumber An account number
+     * @param playerName A player name
+     * @param memoPattern A memo pattern
+     * @param isReconciled True if the reconciled date is not null
+     * @param from A minimum bounding date
+     * @param to A maximum bounding date
+     * @param after A cursor pointing to the last transaction line of the previous page,
+     *              or null for the first page
+     * @param limit The maximum number of transaction lines to return
+     * @return A list of at most limit transaction lines matching the given parameters, sorted by
+     *         transaction date descending, transaction id descending and line id ascending
+     * @throws ValidationException If the cursor does not point to a transaction line
+     */
+    public List<TransactionLine> findAll(Integer transactionId, String accountNumber, String playerName,
+                                         String memoPattern, Boolean isReconciled, LocalDate from, LocalDate to,
+                                         Cursor after, int limit) throws ValidationException {
+
+        if (after != null && after.getLineId() == null)
+            throw new ValidationException("Cursor does not point to a transaction line.");
+
+        return REPO.findAll(
+                matching(transactionId, accountNumber, playerName, memoPattern, isReconciled, from, to)
+                        .and(after(after)),
+                KEYSET_SORT,
+                limit
+        );
+    }
+
+    /**
+     * Finds the first transaction lines matching the given parameters that come after the given cursor,
+     * as DTOs read directly from the selected columns. Each DTO carries the date of its transaction, so
+     * that the cursor of the next page can be made from the last one.
+     *
+     * @param transactionId A transaction id
+     * @param accountNumber An account number
+     * @param playerName A player name
+     * @param memoPattern A memo pattern
+     * @param isReconciled True if the reconciled date is not null
+     * @param from A minimum bounding date
+     * @param to A maximum bounding date
+     * @param after A cursor pointing to the last transaction line of the previous page,
+     *              or null for the first page
+     * @param limit The maximum number of transaction lines to return
+     * @return A list of DTOs of at most limit transaction lines matching the given parameters, sorted by
+     *         transaction date descending, transaction id descending and line id ascending
+     * @throws ValidationException If the cursor does not point to a transaction line
+     */
+    public List<TransactionLineDTO> findAllDtos(Integer transactionId, String accountNumber, String playerName,
+                                                String memoPattern, Boolean isReconciled, LocalDate from,
+                                                LocalDate to, Cursor after, int limit) throws ValidationException {
+
+        if (after != null && after.getLineId() == null)
+            throw new ValidationException("Cursor does not point to a transaction line.");
+
+        return REPO.findAllDtos(
+                matching(transactionId, accountNumber, playerName, memoPattern, isReconciled, from, to)
+                        .and(after(after)),
+                KEYSET_SORT,
+                limit
+        );
+    }
+
+    /**
+     * Passes each transaction line matching the given parameters to the given action, as the lines are
+     * read from the database. Only one fetch of lines is held in memory at a time.
+     *
+     * @param transactionId A transaction id
+     * @param accountNumber An account number
+     * @param playerName A player name
+     * @param memoPattern A memo pattern
+     * @param isReconciled True if the reconciled date is not null
+     * @param from A minimum bounding date
+     * @param to A maximum bounding date
+     * @param action An action to perform on each transaction line, in order of transaction date
+     *               descending, transaction id descending and line id ascending
+     */
+    @Transactional(readOnly = true)
+    public void forEach(Integer transactionId, String accountNumber, String playerName, String memoPattern,
+                        Boolean isReconciled, LocalDate from, LocalDate to, Consumer<TransactionLine> action) {
+
+        Specification<TransactionLine> specification =
+                matching(transactionId, accountNumber, playerName, memoPattern, isReconciled, from, to);
+
+        try (Stream<TransactionLine> lines = REPO.stream(specification, KEYSET_SORT, FETCH_SIZE)) {
+            int count = 0;
+
+            for (TransactionLine line : (Iterable<TransactionLine>) lines::iterator) {
+                action.accept(line);
+
+                // lines already written are not needed again, so they are released with each fetch
+                if (++count % FETCH_SIZE == 0)
+                    ENTITY_MANAGER.clear();
+            }
+        }
+    }
+
+    /**
+     * Saves the given transaction line to the database. The stored balances and monthly totals of the affected
+     * accounts are updated in the same database transaction.
      *
      * @param line A transaction line to save
      * @return The transaction line saved in the database
@@ -126,22 +332,307 @@ public class TransactionLineService {
     @Transactional
     @Modifying
     public TransactionLine save(TransactionLine line) {
-        return REPO.save(line);
+        // a new line is persisted rather than merged, which requires its transaction to be managed
+        if (line.isNew() && line.getTransaction() != null && !ENTITY_MANAGER.contains(line.getTransaction()))
+            line.setTransaction(ENTITY_MANAGER.getReference(Transaction.class, line.getTransaction().getId()));
+
+        // the stored amount is read without flushing, so it is the amount before this write
+        AccountPeriodTotal stored = findStoredAmount(line.getId());
+        TransactionLine lineToSave = REPO.save(line);
+        ENTITY_MANAGER.flush();
+
+        BalanceDelta delta = new BalanceDelta();
+        add(delta, stored, -1);
+        add(delta, findStoredAmount(lineToSave.getId()), 1);
+        BALANCE_SVC.apply(delta);
+
+        FINGERPRINTS.changed(lineToSave.getTransaction().getId());
+        VERSIONS.bump(TransactionLine.class);
+        invalidateReports(List.of(lineToSave.getTransaction().getId()));
+        return lineToSave;
     }
 
     /**
-     * Deletes the given transaction line from the database
+     * Deletes the given transaction line from the database. The stored balances and monthly totals of the
+     * affected account are updated in the same database transaction.
      *
      * @param line A transaction line to delete
      */
     @Transactional
     @Modifying
     public void delete(TransactionLine line) {
+        BalanceDelta delta = new BalanceDelta();
+        add(delta, findStoredAmount(line.getId()), -1);
+
+        invalidateReports(List.of(line.getTransaction().getId()));
         REPO.delete(line);
+        BALANCE_SVC.apply(delta);
+
+        // fingerprints are never removed from the filter; the fingerprint of a deleted line is only a stale
+        // positive, which the exact count of stored lines rules out, so there is nothing new to add
+        VERSIONS.bump(TransactionLine.class);
+    }
+
+    /**
+     * Updates the player, memo and reconciliation date of the transaction line with the given id with a single
+     * statement. These values do not affect any balance, so neither the line nor its transaction is loaded.
+     *
+     * @param id A transaction line id
+     * @param player A player, or null
+     * @param memo A memo, or null
+     * @param dateReconciled A reconciliation date, or null
+     * @throws NoSuchElementException If the transaction line does not exist
+     */
+    @Transactional
+    @Modifying
+    public void updateDetails(TransactionLineId id, Player player, String memo, LocalDate dateReconciled)
+            throws NoSuchElementException {
+
+        Map<String, Object> details = new HashMap<>();
+        details.put(TransactionLine.PLAYER, player);
+        details.put(TransactionLine.MEMO, memo);
+        details.put(TransactionLine.DATE_RECONCILED, dateReconciled);
+        updateDetails(id, details);
+    }
+
+    /**
+     * Updates only the given details of the transaction line with the given id with a single statement, leaving
+     * the others unchanged. These values do not affect any balance, so neither the line nor its transaction is
+     * loaded.
+     *
+     * @param id A transaction line id
+     * @param details The new values by attribute name, which may be {@link TransactionLine#PLAYER},
+     *                {@link TransactionLine#MEMO} or {@link TransactionLine#DATE_RECONCILED}; a null value clears
+     *                the attribute
+     * @throws ValidationException If another attribute is given
+     * @throws NoSuchElementException If the transaction line does not exist
+     */
+    @Transactional
+    @Modifying
+    public void updateDetails(TransactionLineId id, Map<String, ?> details)
+            throws ValidationException, NoSuchElementException {
+
+        for (String attribute : details.keySet()) {
+            if (!DETAILS.contains(attribute))
+                throw new ValidationException("Transaction line attribute='"+attribute+"' cannot be updated.");
+        }
+        if (details.isEmpty()) {
+            if (!REPO.existsById(id))
+                throw new NoSuchElementException(
+                        "Transaction line id="+id.getTransactionId()+"-"+id.getLineId()+" does not exist.");
+            return;
+        }
+        CriteriaBuilder criteriaBuilder = ENTITY_MANAGER.getCriteriaBuilder();
+        CriteriaUpdate<TransactionLine> update = criteriaBuilder.createCriteriaUpdate(TransactionLine.class);
+        Root<TransactionLine> root = update.from(TransactionLine.class);
+
+        details.forEach((attribute, value) -> update.set(root.get(attribute), value));
+        update.where(
+                criteriaBuilder.equal(root.get(TransactionLine.TRANSACTION).get(Transaction.ID), id.getTransactionId()),
+                criteriaBuilder.equal(root.get(TransactionLine.LINE_ID), id.getLineId()));
+
+        ENTITY_MANAGER.flush();
+        int updated = ENTITY_MANAGER.createQuery(update).executeUpdate();
+        ENTITY_MANAGER.clear();
+
+        if (updated == 0)
+            throw new NoSuchElementException(
+                    "Transaction line id="+id.getTransactionId()+"-"+id.getLineId()+" does not exist.");
+
+        // the memo is part of the fingerprints of the line
+        if (details.containsKey(TransactionLine.MEMO))
+            FINGERPRINTS.changed(id.getTransactionId());
+
+        VERSIONS.bump(TransactionLine.class);
+        invalidateReports(List.of(id.getTransactionId()));
+    }
+
+    /**
+     * Sets the reconciliation date of the transaction lines with the given ids, in a single statement
+     * without loading them. Either all the lines are updated, or none are.
+     *
+     * @param ids A collection of transaction line ids
+     * @param dateReconciled A reconciliation date, or null to mark the lines as unreconciled
+     * @return The number of updated transaction lines
+     * @throws ValidationException If no ids are given, or an id is incomplete
+     * @throws NoSuchElementException If a line does not exist
+     */
+    @Transactional
+    @Modifying
+    public int reconcile(Collection<TransactionLineId> ids, LocalDate dateReconciled)
+            throws ValidationException, NoSuchElementException {
+
+        if (ids == null || ids.isEmpty())
+            throw new ValidationException("At least one transaction line id is required.");
+
+        // line ids are grouped by transaction, so the statement tests each transaction id once
+        Map<Integer, Set<Integer>> lineIdsByTransactionId = new TreeMap<>();
+
+        for (TransactionLineId id : ids) {
+            if (id == null || id.getTransactionId() == null || id.getLineId() == null)
+                throw new ValidationException("Transaction line id='"+id+"' is incomplete.");
+
+            lineIdsByTransactionId.computeIfAbsent(id.getTransactionId(), key -> new TreeSet<>()).add(id.getLineId());
+        }
+        CriteriaBuilder criteriaBuilder = ENTITY_MANAGER.getCriteriaBuilder();
+        CriteriaUpdate<TransactionLine> update = criteriaBuilder.createCriteriaUpdate(TransactionLine.class);
+        Root<TransactionLine> root = update.from(TransactionLine.class);
+        Path<Integer> transactionId = root.get(TransactionLine.TRANSACTION).get(Transaction.ID);
+
+        update.set(root.get(TransactionLine.DATE_RECONCILED), dateReconciled);
+        update.where(criteriaBuilder.or(lineIdsByTransactionId.entrySet().stream()
+                .map(entry -> criteriaBuilder.and(
+                        criteriaBuilder.equal(transactionId, entry.getKey()),
+                        root.get(TransactionLine.LINE_ID).in(entry.getValue())))
+                .toArray(Predicate[]::new)));
+
+        VERSIONS.bump(TransactionLine.class);
+        invalidateReports(lineIdsByTransactionId.keySet());
+        ENTITY_MANAGER.flush();
+        int updated = ENTITY_MANAGER.createQuery(update).executeUpdate();
+        ENTITY_MANAGER.clear();
+
+        int expected = lineIdsByTransactionId.values().stream().mapToInt(Set::size).sum();
+
+        // rolls back the update
+        if (updated < expected)
+            throw new NoSuchElementException((expected-updated)+" of the transaction lines do not exist.");
+
+        return updated;
+    }
+
+    /**
+     * Sets the reconciliation date of the unreconciled transaction lines of the given account, with
+     * a transaction date between the given dates (inclusive), in a single statement without loading them
+     *
+     * @param account An account
+     * @param from A minimum bounding date, or null for no minimum
+     * @param to A maximum bounding date, or null for no maximum
+     * @param dateReconciled A reconciliation date
+     * @return The number of updated transaction lines
+     * @throws ValidationException If the reconciliation date is null
+     */
+    @Transactional
+    @Modifying
+    public int reconcile(Account account, LocalDate from, LocalDate to, LocalDate dateReconciled)
+            throws ValidationException {
+
+        if (dateReconciled == null)
+            throw new ValidationException("Date reconciled must not be null.");
+
+        VERSIONS.bump(TransactionLine.class);
+        REPORTS.invalidate(ReportCache.LineQuery.class,
+                           List.of(new ReportCache.Touch(null, from, to, account.getNumber(), null)));
+        return REPO.reconcileUnreconciled(account.getId(), from, to, dateReconciled);
+    }
+
+    /**
+     * Evicts the cached line reports that a write to lines of the given transactions may have changed.
+     * The accounts and players the lines had before the write are not known, so reports are evicted by
+     * transaction and date.
+     *
+     * @param transactionIds The ids of the transactions whose lines are written
+     */
+    private void invalidateReports(Collection<Integer> transactionIds) {
+        CriteriaBuilder criteriaBuilder = ENTITY_MANAGER.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = criteriaBuilder.createQuery(Object[].class);
+        Root<Transaction> root = query.from(Transaction.class);
+        query.multiselect(root.get(Transaction.ID), root.get(Transaction.DATE))
+             .where(root.get(Transaction.ID).in(transactionIds));
+
+        List<ReportCache.Touch> touches = new ArrayList<>(transactionIds.size());
+
+        for (Object[] row : ENTITY_MANAGER.createQuery(query).getResultList())
+            touches.add(ReportCache.Touch.of((Integer) row[0], (LocalDate) row[1]));
+
+        REPORTS.invalidate(ReportCache.LineQuery.class, touches);
+    }
+
+    /**
+     * Finds the amount of the transaction line with the given id as currently stored in the database
+     *
+     * @param id A transaction line id, or null
+     * @return The account period total of the stored line, or null if it is not stored
+     */
+    private AccountPeriodTotal findStoredAmount(TransactionLineId id) {
+        return id == null ? null : REPO.findStoredAmountById(id.getTransactionId(), id.getLineId()).orElse(null);
+    }
+
+    /**
+     * Adds the given stored amount of a transaction line to the given balance delta
+     *
+     * @param delta A balance delta
+     * @param amount The account period total of a stored line, or null if the line is not stored
+     * @param sign 1 if the line has been written, or -1 if it is being replaced or removed
+     */
+    private static void add(BalanceDelta delta, AccountPeriodTotal amount, int sign) {
+        if (amount == null)
+            return;
+
+        LocalDate period = LocalDate.of(amount.getPeriodYear(), amount.getPeriodMonth(), 1);
+        delta.add(amount.getAccountId(), period, sign * amount.getDebit(), sign * amount.getCredit());
     }
 
     //region SPECIFICATIONS
 
+    /**
+     * Creates a specification for a transaction line matching all the given parameters
+     *
+     * @param transactionId A transaction id
+     * @param accountNumber An account number
+     * @param playerName A player name
+     * @param memoPattern A memo pattern
+     * @param isReconciled True if the reconciled date is not null
+     * @param from A minimum bounding date
+     * @param to A maximum bounding date
+     * @return A specification for a transaction line matching all the given parameters.
+     *         Null parameters are ignored
+     */
+    private Specification<TransactionLine> matching(Integer transactionId, String accountNumber,
+                                                    String playerName, String memoPattern, Boolean isReconciled,
+                                                    LocalDate from, LocalDate to) {
+        return Specification
+                .where(transactionIdEquals(transactionId))
+                .and(accountNumberEquals(accountNumber))
+                .and(playerNameEquals(playerName))
+                .and(memoLike(memoPattern))
+                .and(reconciledIs(isReconciled))
+                .and(dateOnOrAfter(from))
+                .and(dateOnOrBefore(to));
+    }
+
+    /**
+     * Creates a specification for a transaction line that comes after the given cursor, in order of
+     * transaction date descending, transaction id descending and line id ascending
+     *
+     * @param cursor A cursor pointing to a transaction line
+     * @return A specification for a transaction line that comes after the given cursor,
+     *         or an always true specification if the cursor is null
+     */
+    private Specification<TransactionLine> after(Cursor cursor) {
+        return ((root, query, criteriaBuilder) -> {
+
+            if (cursor == null)
+                return criteriaBuilder.conjunction();
+
+            Path<LocalDate> date = root.get(TransactionLine.TRANSACTION).get(Transaction.DATE);
+            Path<Integer> transactionId = root.get(TransactionLine.TRANSACTION).get(Transaction.ID);
+
+            return criteriaBuilder.or(
+                    criteriaBuilder.lessThan(date, cursor.getDate()),
+                    criteriaBuilder.and(
+                            criteriaBuilder.equal(date, cursor.getDate()),
+                            criteriaBuilder.lessThan(transactionId, cursor.getTransactionId())
+                    ),
+                    criteriaBuilder.and(
+                            criteriaBuilder.equal(date, cursor.getDate()),
+                            criteriaBuilder.equal(transactionId, cursor.getTransactionId()),
+                            criteriaBuilder.greaterThan(root.get(TransactionLine.LINE_ID), cursor.getLineId())
+                    )
+            );
+        });
+    }
+
     /**
      * Creates a specification for a transaction line with the given transaction id
      *
@@ -222,6 +713,26 @@ public class TransactionLineService {
         });
     }
 
+    /**
+     * Creates a specification for a transaction line that was not reconciled by the given date
+     *
+     * @param date A reconciliation date
+     * @return A specification for a transaction line that is not reconciled or was reconciled after
+     *         the given date, or for a transaction line that is not reconciled if the date is null
+     */
+    private Specification<TransactionLine> reconciledAfter(LocalDate date) {
+        return ((root, query, criteriaBuilder) -> {
+
+            if (date == null)
+                return reconciledIs(false).toPredicate(root, query, criteriaBuilder);
+
+            return criteriaBuilder.or(
+                    criteriaBuilder.isNull(root.get(TransactionLine.DATE_RECONCILED)),
+                    criteriaBuilder.greaterThan(root.get(TransactionLine.DATE_RECONCILED), date)
+            );
+        });
+    }
+
     /**
      * Creates a specification for a transaction line with a transaction date >= the given from date
      *
@@ -1,7 +1,10 @@
 package com.b2.b2data.service;
 
+import com.b2.b2data.domain.AccountPeriod;
 import com.b2.b2data.domain.Transaction;
 import com.b2.b2data.domain.TransactionLine;
+import com.b2.b2data.dto.TransactionDTO;
+import com.b2.b2data.repository.AccountPeriodTotal;
 import com.b2.b2data.repository.TransactionLineRepository;
 import com.b2.b2data.repository.TransactionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,10 +14,9 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.*;
 
 /**
  * Provides services for handling {@link Transaction} objects
@@ -22,19 +24,43 @@ import java.util.NoSuchElementException;
 @Service
 public class TransactionService {
 
+    // date descending, with a unique tie-break so that the order and cursors are stable
+    private static final Sort KEYSET_SORT = Sort.by(
+            Sort.Order.desc(Transaction.DATE),
+            Sort.Order.desc(Transaction.ID)
+    );
+
     private final TransactionRepository REPO;
     private final TransactionLineRepository LINE_REPO;
+    private final AccountBalanceService BALANCE_SVC;
+    private final EntityManager ENTITY_MANAGER;
+    private final LineFingerprintService FINGERPRINTS;
+    private final LedgerVersionService VERSIONS;
+    private final ReportCache REPORTS;
 
     /**
      * Constructs a new transaction service
      *
      * @param repo A transaction repository
      * @param lineRepo A transaction line repository
+     * @param balanceSvc An account balance service
+     * @param entityManager The entity manager of the current persistence context
+     * @param fingerprints A line fingerprint service
+     * @param versions A ledger version service
+     * @param reports A report cache
      */
     @Autowired
-    public TransactionService(TransactionRepository repo, TransactionLineRepository lineRepo) {
+    public TransactionService(TransactionRepository repo, TransactionLineRepository lineRepo,
+                              AccountBalanceService balanceSvc, EntityManager entityManager,
+                              LineFingerprintService fingerprints, LedgerVersionService versions,
+                              ReportCache reports) {
         REPO = repo;
         LINE_REPO = lineRepo;
+        BALANCE_SVC = balanceSvc;
+        ENTITY_MANAGER = entityManager;
+        FINGERPRINTS = fingerprints;
+        VERSIONS = versions;
+        REPORTS = reports;
     }
 
     /**
@@ -52,10 +78,10 @@ public class TransactionService {
     /**
      * Finds all transactions
      *
-     * @return A list of transactions sorted by date descending
+     * @return A list of transactions sorted by date descending and id descending
      */
     public List<Transaction> findAll() {
-        return REPO.findAll(null, Sort.by(Transaction.DATE).descending());
+        return REPO.findAll(null, KEYSET_SORT);
     }
 
     /**
@@ -64,7 +90,7 @@ public class TransactionService {
      * @param from A minimum bounding date
      * @param to A maximum bounding date
      * @param memoPattern A memo pattern
-     * @return A list of transactions matching the given parameters, sorted by transaction date descending
+     * @return A list of transactions matching the given parameters, sorted by date descending and id descending
      */
     public List<Transaction> findAll(LocalDate from, LocalDate to, String memoPattern) {
         return REPO.findAll(
@@ -72,12 +98,112 @@ public class TransactionService {
                         .where(dateOnOrAfter(from))
                         .and(dateOnOrBefore(to))
                         .and(memoLike(memoPattern)),
-                Sort.by(Transaction.DATE).descending()
+                KEYSET_SORT
         );
     }
 
     /**
-     * Saves the given transaction to the database
+     * Finds the first transactions matching the given parameters that come after the given cursor
+     *
+     * @param from A minimum bounding date
+     * @param to A maximum bounding date
+     * @param memoPattern A memo pattern
+     * @param after A cursor pointing to the last transaction of the previous page, or null for the first page
+     * @param limit The maximum number of transactions to return
+     * @return A list of at most limit transactions matching the given parameters,
+     *         sorted by date descending and id descending
+     */
+    public List<Transaction> findAll(LocalDate from, LocalDate to, String memoPattern, Cursor after, int limit) {
+        return REPO.findAll(
+                Specification
+                        .where(dateOnOrAfter(from))
+                        .and(dateOnOrBefore(to))
+                        .and(memoLike(memoPattern))
+                        .and(after(after)),
+                KEYSET_SORT,
+                limit
+        );
+    }
+
+    /**
+     * Finds all transactions matching the given parameters, as DTOs without lines read directly
+     * from the selected columns without loading the transactions into the persistence context.
+     * Results are kept in the report cache until a transaction in their date range is written.
+     *
+     * @param from A minimum bounding date
+     * @param to A maximum bounding date
+     * @param memoPattern A memo pattern
+     * @return An unmodifiable list of DTOs of the transactions matching the given parameters,
+     *         sorted by date descending and id descending
+     */
+    public List<TransactionDTO> findAllDtos(LocalDate from, LocalDate to, String memoPattern) {
+        return REPORTS.get(new ReportCache.TransactionQuery(from, to, memoPattern), () -> REPO.findAllDtos(
+                Specification
+                        .where(dateOnOrAfter(from))
+                        .and(dateOnOrBefore(to))
+                        .and(memoLike(memoPattern)),
+                KEYSET_SORT
+        ));
+    }
+
+    /**
+     * Finds the ids of the first transactions matching the given parameters, reading only the id column
+     *
+     * @param from A minimum bounding date
+     * @param to A maximum bounding date
+     * @param memoPattern A memo pattern
+     * @param limit The maximum number of ids to return
+     * @return A list of the ids of at most limit transactions matching the given parameters,
+     *         sorted by id ascending
+     */
+    public List<Integer> findIds(LocalDate from, LocalDate to, String memoPattern, int limit) {
+        return REPO.findIds(
+                Specification
+                        .where(dateOnOrAfter(from))
+                        .and(dateOnOrBefore(to))
+                        .and(memoLike(memoPattern)),
+                Sort.by(Transaction.ID),
+                limit
+        );
+    }
+
+    /**
+     * Finds the greatest transaction id
+     *
+     * @return The greatest transaction id, or 0 if there are no transactions
+     */
+    public int findMaxId() {
+        return REPO.findMaxId();
+    }
+
+    /**
+     * Finds the first transactions matching the given parameters that come after the given cursor,
+     * as DTOs without lines read directly from the selected columns
+     *
+     * @param from A minimum bounding date
+     * @param to A maximum bounding date
+     * @param memoPattern A memo pattern
+     * @param after A cursor pointing to the last transaction of the previous page, or null for the first page
+     * @param limit The maximum number of transactions to return
+     * @return A list of DTOs of at most limit transactions matching the given parameters,
+     *         sorted by date descending and id descending
+     */
+    public List<TransactionDTO> findAllDtos(LocalDate from, LocalDate to, String memoPattern,
+                                            Cursor after, int limit) {
+        return REPO.findAllDtos(
+                Specification
+                        .where(dateOnOrAfter(from))
+                        .and(dateOnOrBefore(to))
+                        .and(memoLike(memoPattern))
+                        .and(after(after)),
+                KEYSET_SORT,
+                limit
+        );
+    }
+
+    /**
+     * Saves the given transaction to the database. If the transaction moves to a different month,
+     * the monthly totals of its lines are moved to the new month in the same database transaction.
      *
      * @param transaction A transaction to save
      * @return The transaction saved in the database
@@ -85,11 +211,115 @@ public class TransactionService {
     @Transactional
     @Modifying
     public Transaction save(Transaction transaction) {
-        return REPO.save(transaction);
+        LocalDate storedDate = findStoredDate(transaction);
+        Transaction tranToSave = REPO.save(transaction);
+        movePeriods(tranToSave.getId(), storedDate, tranToSave.getDate());
+
+        if (storedDate != null)
+            FINGERPRINTS.changed(tranToSave.getId());
+
+        VERSIONS.bump(Transaction.class);
+
+        // the lines of the transaction are not known, so line reports are evicted by date alone
+        List<ReportCache.Touch> touches = touches(tranToSave.getId(), storedDate, tranToSave.getDate());
+        invalidateReports(touches, touches);
+        return tranToSave;
     }
 
     /**
-     * Saves the given transaction with transaction lines to the database
+     * Saves the given new transactions with their transaction lines to the database in a single database
+     * transaction. The lines of all transactions are inserted together, so they are sent in JDBC batches,
+     * and the stored balances and monthly totals are updated once for all transactions. The persistence
+     * context is cleared afterwards, so that saving many batches does not accumulate managed entities.
+     *
+     * @param transactions A list of new transactions to save
+     * @param lines A list of the transaction lines of each transaction, in the same order
+     * @return The ids of the saved transactions, in the same order
+     * @throws IllegalArgumentException If a transaction is not new, or the lists differ in size
+     */
+    @Transactional
+    @Modifying
+    public List<Integer> saveAll(List<Transaction> transactions, List<List<TransactionLine>> lines)
+            throws IllegalArgumentException {
+
+        if (transactions.size() != lines.size())
+            throw new IllegalArgumentException("Each transaction must have a list of lines.");
+
+        List<Integer> ids = new ArrayList<>(transactions.size());
+        List<TransactionLine> linesToInsert = new ArrayList<>();
+        List<ReportCache.Touch> touches = new ArrayList<>(transactions.size());
+        List<ReportCache.Touch> lineTouches = new ArrayList<>();
+        BalanceDelta delta = new BalanceDelta();
+
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+
+            if (!transaction.isNew())
+                throw new IllegalArgumentException("Transaction id="+transaction.getId()+" is not new.");
+
+            Transaction tranToSave = REPO.save(transaction);
+            List<TransactionLine> tranLines = lines.get(i);
+
+            for (int j = 0; j < tranLines.size(); j++) {
+                TransactionLine line = tranLines.get(j);
+                line.setTransaction(tranToSave);
+                line.setLineId(j+1);
+                line.setNew(true);
+                linesToInsert.add(line);
+                lineTouches.add(ReportCache.Touch.of(tranToSave.getId(), tranToSave.getDate(), line));
+            }
+            touches.add(ReportCache.Touch.of(tranToSave.getId(), tranToSave.getDate()));
+            delta.add(tranToSave.getDate(), tranLines);
+            FINGERPRINTS.add(tranToSave, tranLines);
+            ids.add(tranToSave.getId());
+        }
+        LINE_REPO.saveAll(linesToInsert);
+        BALANCE_SVC.apply(delta);
+        VERSIONS.bump(Transaction.class, TransactionLine.class);
+        invalidateReports(touches, lineTouches);
+
+        ENTITY_MANAGER.flush();
+        ENTITY_MANAGER.clear();
+        return ids;
+    }
+
+    /**
+     * Updates the date and memo of the transaction with the given id with a single statement. Its lines
+     * are neither read nor written, unless the transaction moves to a different month, in which case
+     * the monthly totals of its lines are moved to the new month in the same database transaction.
+     *
+     * @param id A transaction id
+     * @param date A transaction date
+     * @param memo A transaction memo
+     * @return The updated transaction, without lines
+     * @throws NoSuchElementException If the transaction does not exist
+     */
+    @Transactional
+    @Modifying
+    public Transaction updateHeader(Integer id, LocalDate date, String memo) throws NoSuchElementException {
+        LocalDate storedDate = REPO.findStoredDateById(id)
+                                   .orElseThrow(() -> new NoSuchElementException(
+                                           "Transaction id="+id+" does not exist."));
+
+        REPO.updateHeader(id, date, memo);
+        movePeriods(id, storedDate, date);
+        FINGERPRINTS.changed(id);
+        VERSIONS.bump(Transaction.class);
+
+        List<ReportCache.Touch> touches = touches(id, storedDate, date);
+        invalidateReports(touches, touches);
+
+        Transaction transaction = new Transaction(date, memo);
+        transaction.setId(id);
+        return transaction;
+    }
+
+    /**
+     * Saves the given transaction with transaction lines to the database. The given lines are numbered
+     * in order and compared with the stored lines by line id: stored lines are updated only if a value
+     * changed, lines without a stored line of the same id are inserted, and stored lines past the given
+     * ones are deleted in a single statement. The stored balances and monthly totals of the affected accounts are
+     * updated in the same database transaction.
      *
      * @param transaction A transaction to save
      * @param lines A list of transaction lines
@@ -98,41 +328,209 @@ public class TransactionService {
     @Transactional
     @Modifying
     public Transaction save(Transaction transaction, List<TransactionLine> lines) {
+        LocalDate storedDate = findStoredDate(transaction);
+        boolean isNew = transaction.isNew();
         Transaction tranToSave = REPO.save(transaction);
-        List<TransactionLine> linesToSave = new ArrayList<>(lines.size());
+
+        // a new transaction cannot have any lines yet
+        List<TransactionLine> existingLines = isNew
+                ? List.of()
+                : LINE_REPO.findAllByTransactionIdOrderByLineIdAsc(tranToSave.getId());
+
+        // existing lines are managed entities that may be overwritten by the new lines,
+        // so their amounts must be captured before they change
+        BalanceDelta delta = new BalanceDelta().subtract(storedDate, existingLines);
+        List<ReportCache.Touch> lineTouches = new ArrayList<>();
+
+        for (TransactionLine existingLine : existingLines)
+            lineTouches.add(ReportCache.Touch.of(tranToSave.getId(), storedDate, existingLine));
+
+        List<TransactionLine> savedLines = new ArrayList<>(lines.size());
+        List<TransactionLine> linesToInsert = new ArrayList<>();
+
+        // stored line ids may have gaps where single lines were deleted
+        Map<Integer, TransactionLine> existingById = new HashMap<>();
+
+        for (TransactionLine existingLine : existingLines)
+            existingById.put(existingLine.getLineId(), existingLine);
 
         for (int i = 0; i < lines.size(); i++) {
             TransactionLine line = lines.get(i);
-            line.setTransaction(tranToSave);
-            line.setLineId(i+1);
-            linesToSave.add(line);
+            TransactionLine existingLine = existingById.get(i+1);
+
+            if (existingLine != null) {
+                // the managed line is updated on flush, only if one of its values changed
+                copyValues(line, existingLine);
+                savedLines.add(existingLine);
+            } else {
+                line.setTransaction(tranToSave);
+                line.setLineId(i+1);
+                line.setNew(true);
+                linesToInsert.add(line);
+                savedLines.add(line);
+            }
         }
-        List<TransactionLine> existingLines = LINE_REPO.findAllByTransactionIdOrderByLineIdAsc(tranToSave.getId());
+        if (!existingLines.isEmpty() && existingLines.get(existingLines.size()-1).getLineId() > lines.size())
+            LINE_REPO.deleteByTransactionIdAndLineIdGreaterThan(tranToSave.getId(), lines.size());
+
+        LINE_REPO.saveAll(linesToInsert);
+        BALANCE_SVC.apply(delta.add(tranToSave.getDate(), savedLines));
+        FINGERPRINTS.add(tranToSave, savedLines);
+        VERSIONS.bump(Transaction.class, TransactionLine.class);
 
-        // new lines will overwrite existing ones, so if there are more existing lines than new lines,
-        // the excess existing lines will not get overwritten, so they must be deleted
-        if (existingLines.size() > linesToSave.size())
-            LINE_REPO.deleteAll(existingLines);
+        for (TransactionLine savedLine : savedLines)
+            lineTouches.add(ReportCache.Touch.of(tranToSave.getId(), tranToSave.getDate(), savedLine));
 
-        LINE_REPO.saveAll(linesToSave);
+        invalidateReports(touches(tranToSave.getId(), storedDate, tranToSave.getDate()), lineTouches);
 
         return tranToSave;
     }
 
     /**
-     * Deletes the given transaction and all associated transaction lines from the database
+     * Deletes the given transaction and all associated transaction lines from the database.
+     * The stored balances and monthly totals of the affected accounts are updated in the same
+     * database transaction.
      *
      * @param transaction A transaction to delete
      */
     @Transactional
     @Modifying
     public void delete(Transaction transaction) {
-        LINE_REPO.deleteAll(LINE_REPO.findAllByTransactionIdOrderByLineIdAsc(transaction.getId()));
-        REPO.delete(transaction);
+        deleteAllById(List.of(transaction.getId()));
+    }
+
+    /**
+     * Deletes the transactions with the given ids and all associated transaction lines from the database,
+     * without loading them. The lines are summed by account and month and then deleted with one statement,
+     * and the stored balances and monthly totals of the affected accounts are reduced by the sums in the
+     * same database transaction.
+     *
+     * @param ids A collection of transaction ids
+     * @return The number of deleted transactions. Ids of transactions that do not exist are ignored
+     */
+    @Transactional
+    @Modifying
+    public int deleteAllById(Collection<Integer> ids) {
+        if (ids.isEmpty())
+            return 0;
+
+        BalanceDelta delta = new BalanceDelta();
+
+        // the months of the deleted lines bound the reports they may have changed
+        Set<ReportCache.Touch> touches = new HashSet<>();
+
+        for (AccountPeriodTotal total : LINE_REPO.sumAmountsByAccountAndMonth(ids)) {
+            LocalDate period = LocalDate.of(total.getPeriodYear(), total.getPeriodMonth(), 1);
+            delta.add(total.getAccountId(), period, -total.getDebit(), -total.getCredit());
+            touches.add(new ReportCache.Touch(null, period, period.plusMonths(1).minusDays(1), null, null));
+        }
+        LINE_REPO.deleteByTransactionIds(ids);
+        int deleted = REPO.deleteByIds(ids);
+        BALANCE_SVC.apply(delta);
+        VERSIONS.bump(Transaction.class, TransactionLine.class);
+
+        // transactions without lines could be dated anywhere
+        if (deleted > 0 && touches.isEmpty())
+            touches.add(ReportCache.Touch.of(null, null));
+
+        invalidateReports(touches, touches);
+        return deleted;
+    }
+
+    /**
+     * Describes a transaction written on the given dates, for the report cache
+     *
+     * @param id A transaction id
+     * @param storedDate The date the transaction was stored with, or null if it is new
+     * @param date The date the transaction is saved with
+     * @return A list of touches of the transaction, one for each date
+     */
+    private List<ReportCache.Touch> touches(Integer id, LocalDate storedDate, LocalDate date) {
+        return storedDate == null || storedDate.equals(date)
+                ? List.of(ReportCache.Touch.of(id, date))
+                : List.of(ReportCache.Touch.of(id, storedDate), ReportCache.Touch.of(id, date));
+    }
+
+    /**
+     * Evicts the cached reports that the written transactions and lines may have changed
+     *
+     * @param touches The transactions written
+     * @param lineTouches The lines written
+     */
+    private void invalidateReports(Collection<ReportCache.Touch> touches, Collection<ReportCache.Touch> lineTouches) {
+        REPORTS.invalidate(ReportCache.TransactionQuery.class, touches);
+        REPORTS.invalidate(ReportCache.LineQuery.class, lineTouches);
+    }
+
+    /**
+     * Copies the account, player, amount, memo and reconciled date of the given line into the given
+     * existing line. Values that are already equal do not make the existing line dirty.
+     *
+     * @param line A transaction line
+     * @param existingLine A managed transaction line
+     */
+    private void copyValues(TransactionLine line, TransactionLine existingLine) {
+        existingLine.setAccount(line.getAccount());
+        existingLine.setPlayer(line.getPlayer());
+        existingLine.setAmount(line.getAmount());
+        existingLine.setMemo(line.getMemo());
+        existingLine.setDateReconciled(line.getDateReconciled());
+    }
+
+    /**
+     * Moves the monthly totals of the lines of the transaction with the given id from the month of
+     * the stored date to the month of the new date, if the months differ
+     *
+     * @param id A transaction id
+     * @param storedDate The stored date of the transaction, or null if it was not stored
+     * @param date The new date of the transaction
+     */
+    private void movePeriods(Integer id, LocalDate storedDate, LocalDate date) {
+        if (storedDate == null || AccountPeriod.periodOf(storedDate).equals(AccountPeriod.periodOf(date)))
+            return;
+
+        List<TransactionLine> lines = LINE_REPO.findAllByTransactionIdOrderByLineIdAsc(id);
+        BALANCE_SVC.apply(new BalanceDelta().subtract(storedDate, lines).add(date, lines));
+    }
+
+    /**
+     * Finds the date of the given transaction as currently stored in the database. The given
+     * transaction may be a managed entity whose date has already been changed, so its own date
+     * cannot be used to find the month its lines are currently counted in.
+     *
+     * @param transaction A transaction
+     * @return The stored date of the transaction, or null if the transaction is not stored yet
+     */
+    private LocalDate findStoredDate(Transaction transaction) {
+        return transaction.getId() == null
+                ? null
+                : REPO.findStoredDateById(transaction.getId()).orElse(null);
     }
 
     //region SPECIFICATIONS
 
+    /**
+     * Creates a specification for a transaction that comes after the given cursor,
+     * in order of date descending and id descending
+     *
+     * @param cursor A cursor pointing to a transaction
+     * @return A specification for a transaction that comes after the given cursor,
+     *         or an always true specification if the cursor is null
+     */
+    private Specification<Transaction> after(Cursor cursor) {
+        return ((root, query, criteriaBuilder) ->
+                cursor == null
+                        ? criteriaBuilder.conjunction()
+                        : criteriaBuilder.or(
+                                criteriaBuilder.lessThan(root.get(Transaction.DATE), cursor.getDate()),
+                                criteriaBuilder.and(
+                                        criteriaBuilder.equal(root.get(Transaction.DATE), cursor.getDate()),
+                                        criteriaBuilder.lessThan(root.get(Transaction.ID), cursor.getTransactionId())
+                                )
+                        )
+        );
+    }
+
     /**
      * Creates a specification for a transaction with a date >= the given from date
      *
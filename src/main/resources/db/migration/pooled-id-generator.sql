@@ -0,0 +1,20 @@
+-- Moves an existing database from AUTO_INCREMENT ids to ids allocated from the id_generator table.
+-- Run once, with the application stopped, before starting the version that allocates ids from the table.
+-- If that version has already started, it created the table with rows starting at 1, which the script raises.
+-- Each row holds the first id of the next block to allocate (pooled-lo), so it is seeded with MAX(id) + 1.
+
+CREATE TABLE IF NOT EXISTS id_generator (
+    name VARCHAR(255) NOT NULL,
+    next_val BIGINT,
+    PRIMARY KEY (name)
+);
+
+INSERT INTO id_generator (name, next_val)
+SELECT 'element', COALESCE(MAX(id), 0) + 1 FROM element
+UNION ALL
+SELECT 'player', COALESCE(MAX(id), 0) + 1 FROM player
+UNION ALL
+SELECT 'gl_account', COALESCE(MAX(id), 0) + 1 FROM gl_account
+UNION ALL
+SELECT 'gl_transaction', COALESCE(MAX(id), 0) + 1 FROM gl_transaction
+ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val));
@@ -0,0 +1,127 @@
+package com.b2.b2data.configuration;
+
+import com.b2.b2data.service.IdempotencyKeyReusedException;
+import com.b2.b2data.service.IdempotencyService;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class IdempotencyInterceptorTest {
+
+    private static final String URI = "/api/transactions";
+
+    @Autowired
+    private IdempotencyInterceptor interceptor;
+
+    @Autowired
+    private RequestBodyDigestFilter filter;
+
+    @Autowired
+    private IdempotencyService svc;
+
+    /**
+     * Creates a POST request with the given idempotency key and body
+     *
+     * @param key An idempotency key
+     * @param body A request body
+     * @return A request
+     */
+    private static MockHttpServletRequest post(String key, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", URI);
+        request.addHeader(IdempotencyInterceptor.IDEMPOTENCY_KEY, key);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    /**
+     * Passes the given request through the filter
+     *
+     * @param request A request
+     * @return The request as passed on by the filter
+     * @throws ServletException If the filter fails
+     * @throws IOException If the filter fails
+     */
+    private HttpServletRequest filter(MockHttpServletRequest request) throws ServletException, IOException {
+        AtomicReference<HttpServletRequest> filtered = new AtomicReference<>();
+        filter.doFilter(request, new MockHttpServletResponse(),
+                        (req, res) -> filtered.set((HttpServletRequest) req));
+        return filtered.get();
+    }
+
+    /**
+     * Claims and completes the given key for a request with the given body
+     *
+     * @param key An idempotency key
+     * @param body A request body
+     * @throws IOException If the body cannot be hashed
+     */
+    private void complete(String key, String body) throws IOException {
+        svc.claim(key, "POST "+URI);
+        svc.complete(key, RequestBodyDigestFilter.bodyHashOf(post(key, body)), 201, URI+"/1", "{\"status\":201}");
+    }
+
+    @Nested
+    @DisplayName("PreHandle")
+    public class PreHandle {
+
+        @DisplayName("retry with the same body is answered with the stored response")
+        @Test
+        public void preHandle_test1() throws Exception {
+            complete("-preHandle-test1-", "{\"memo\":\"a\"}");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            boolean handle = interceptor.preHandle(filter(post("-preHandle-test1-", "{\"memo\":\"a\"}")),
+                                                   response, new Object());
+
+            assertFalse(handle);
+            assertEquals(HttpStatus.CREATED.value(), response.getStatus());
+            assertEquals("true", response.getHeader(IdempotencyInterceptor.REPLAYED));
+            assertEquals("{\"status\":201}", response.getContentAsString());
+        }
+
+        @DisplayName("retry with another body throws IdempotencyKeyReusedException")
+        @Test
+        public void preHandle_test2() throws Exception {
+            complete("-preHandle-test2-", "{\"memo\":\"a\"}");
+            HttpServletRequest request = filter(post("-preHandle-test2-", "{\"memo\":\"b\"}"));
+
+            assertThrows(IdempotencyKeyReusedException.class,
+                    () -> interceptor.preHandle(request, new MockHttpServletResponse(), new Object()));
+        }
+
+        @DisplayName("request with an unused key is passed on with its body unread")
+        @Test
+        public void preHandle_test3() throws Exception {
+            HttpServletRequest request = filter(post("-preHandle-test3-", "{\"memo\":\"a\"}"));
+
+            assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), new Object()));
+            String body = new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            assertEquals("{\"memo\":\"a\"}", body);
+        }
+
+        @DisplayName("body is hashed the same whether it was read by the handler or not")
+        @Test
+        public void preHandle_test4() throws Exception {
+            HttpServletRequest request = filter(post("-preHandle-test4-", "{\"memo\":\"a\"}"));
+            request.getInputStream().readNBytes(4);
+
+            assertEquals(RequestBodyDigestFilter.bodyHashOf(post("-preHandle-test4-", "{\"memo\":\"a\"}")),
+                         RequestBodyDigestFilter.bodyHashOf(request));
+        }
+    }
+}
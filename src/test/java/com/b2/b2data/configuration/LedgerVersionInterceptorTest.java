@@ -0,0 +1,155 @@
+package com.b2.b2data.configuration;
+
+import com.b2.b2data.controller.AccountController;
+import com.b2.b2data.controller.Response;
+import com.b2.b2data.controller.TransactionController;
+import com.b2.b2data.controller.TransactionLineController;
+import com.b2.b2data.dto.AccountDTO;
+import com.b2.b2data.service.AccountService;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.method.HandlerMethod;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class LedgerVersionInterceptorTest {
+
+    @Autowired
+    private LedgerVersionInterceptor interceptor;
+
+    @Autowired
+    private AccountController aCon;
+
+    @Autowired
+    private TransactionController tCon;
+
+    @Autowired
+    private TransactionLineController lCon;
+
+    @Autowired
+    private AccountService aSvc;
+
+    private HandlerMethod accounts;
+    private HandlerMethod account;
+    private HandlerMethod transactions;
+    private HandlerMethod lines;
+
+    @BeforeAll
+    public void setUp() throws NoSuchMethodException {
+        accounts = new HandlerMethod(aCon, "getAll", Integer.class, String.class, Boolean.class);
+        account = new HandlerMethod(aCon, "getByNumber", String.class);
+        transactions = new HandlerMethod(tCon, "getAll", LocalDate.class, LocalDate.class, String.class,
+                                         String.class, Integer.class);
+        lines = new HandlerMethod(lCon, "getAll", Integer.class, String.class, String.class, String.class,
+                                  Boolean.class, LocalDate.class, LocalDate.class, String.class, Integer.class);
+    }
+
+    /**
+     * Passes a GET request to the given handler through the interceptor
+     *
+     * @param handler A handler method
+     * @param ifNoneMatch The If-None-Match header of the request, or null to leave it out
+     * @return The response of the request, which is empty unless the interceptor answered it
+     */
+    private MockHttpServletResponse get(HandlerMethod handler, String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        if (ifNoneMatch != null)
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+
+        boolean handle = interceptor.preHandle(request, response, handler);
+        assertEquals(handle, response.getStatus() != HttpStatus.NOT_MODIFIED.value());
+        assertEquals(handle, request.getAttribute(LedgerVersionInterceptor.ETAG) != null);
+        return response;
+    }
+
+    /**
+     * Gets the entity tag of the given handler's responses, as handed out in a 304 Not Modified response
+     *
+     * @param handler A handler method
+     * @return The current entity tag of the handler
+     */
+    private String etag(HandlerMethod handler) {
+        return get(handler, "*").getHeader(HttpHeaders.ETAG);
+    }
+
+    @Nested
+    @DisplayName("PreHandle")
+    public class PreHandle {
+
+        @DisplayName("request with the current tag is answered with 304 Not Modified")
+        @Test
+        public void preHandle_test1() {
+            for (HandlerMethod handler : new HandlerMethod[] {accounts, transactions, lines}) {
+                MockHttpServletResponse response = get(handler, etag(handler));
+                assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+                assertEquals(0, response.getContentLength());
+            }
+        }
+
+        @DisplayName("request with another tag is passed on")
+        @Test
+        public void preHandle_test2() {
+            assertEquals(HttpStatus.OK.value(), get(accounts, "\"other\"").getStatus());
+            assertEquals(HttpStatus.OK.value(), get(accounts, null).getStatus());
+        }
+
+        @DisplayName("tag of accounts and lines changes after an account is saved, but not that of transactions")
+        @Test
+        public void preHandle_test3() {
+            String accountsTag = etag(accounts);
+            String transactionsTag = etag(transactions);
+            String linesTag = etag(lines);
+
+            aSvc.save(aSvc.findByNumber("1000"));
+
+            assertEquals(HttpStatus.OK.value(), get(accounts, accountsTag).getStatus());
+            assertEquals(HttpStatus.OK.value(), get(lines, linesTag).getStatus());
+            assertEquals(HttpStatus.NOT_MODIFIED.value(), get(transactions, transactionsTag).getStatus());
+        }
+
+        @DisplayName("endpoints that are not versioned are passed on without a tag")
+        @Test
+        public void preHandle_test4() {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/accounts/1000");
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, "*");
+            assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), account));
+            assertNull(request.getAttribute(LedgerVersionInterceptor.ETAG));
+        }
+
+        @DisplayName("controller returns the tag of the request as a strong ETag")
+        @Test
+        public void preHandle_test5() {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/accounts");
+            assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), accounts));
+
+            RequestAttributes previous = RequestContextHolder.getRequestAttributes();
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+            try {
+                ResponseEntity<Response<AccountDTO>> response = aCon.getAll(null, null, null);
+                assertEquals(HttpStatus.OK, response.getStatusCode());
+                assertEquals(request.getAttribute(LedgerVersionInterceptor.ETAG), response.getHeaders().getETag());
+                assertFalse(response.getHeaders().getETag().startsWith("W/"));
+            } finally {
+                RequestContextHolder.setRequestAttributes(previous);
+            }
+        }
+    }
+}
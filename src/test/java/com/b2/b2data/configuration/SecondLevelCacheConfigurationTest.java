@@ -0,0 +1,182 @@
+package com.b2.b2data.configuration;
+
+import com.b2.b2data.domain.Account;
+import com.b2.b2data.domain.Element;
+import com.b2.b2data.domain.Player;
+import com.b2.b2data.service.AccountService;
+import com.b2.b2data.service.ElementService;
+import com.b2.b2data.service.PlayerService;
+import com.b2.b2data.service.ReferenceCache;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class SecondLevelCacheConfigurationTest {
+
+    @Autowired
+    private EntityManagerFactory emf;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Autowired
+    private PlatformTransactionManager txm;
+
+    @Autowired
+    private ElementService eSvc;
+
+    @Autowired
+    private PlayerService pSvc;
+
+    @Autowired
+    private AccountService aSvc;
+
+    @Autowired
+    private ReferenceCache cache;
+
+    private Statistics statistics;
+
+    @BeforeAll
+    public void setUp() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterAll
+    public void tearDown() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @BeforeEach
+    public void clear() {
+        emf.getCache().evictAll();
+        statistics.clear();
+    }
+
+    /**
+     * Loads the account with the given id in its own database transaction, along with the names of its
+     * element and player
+     *
+     * @param id An account id
+     * @return A list of the element name and player name of the account
+     */
+    private List<String> loadAccount(int id) {
+        return new TransactionTemplate(txm).execute(status -> {
+            Account account = em.find(Account.class, id);
+            assertFalse(Hibernate.isInitialized(account.getElement()));
+            assertFalse(Hibernate.isInitialized(account.getPlayer()));
+            return List.of(account.getElement().getName(), account.getPlayer().getName());
+        });
+    }
+
+    @Nested
+    @DisplayName("Entity regions")
+    public class EntityRegions {
+
+        @DisplayName("lazy element and player of an account are loaded from the cache")
+        @Test
+        public void entityRegions_test1() {
+            List<String> loaded = loadAccount(1);
+            assertEquals(3, statistics.getPrepareStatementCount());
+
+            statistics.clear();
+            assertEquals(loaded, loadAccount(1));
+            assertEquals(0, statistics.getPrepareStatementCount());
+            assertEquals(1, statistics.getDomainDataRegionStatistics(Account.CACHE_REGION).getHitCount());
+            assertEquals(1, statistics.getDomainDataRegionStatistics(Element.CACHE_REGION).getHitCount());
+            assertEquals(1, statistics.getDomainDataRegionStatistics(Player.CACHE_REGION).getHitCount());
+        }
+
+        @DisplayName("lazy player of an account is reloaded after the player is saved")
+        @Test
+        public void entityRegions_test2() {
+            Player player = pSvc.findById(1);
+            String name = player.getName();
+            loadAccount(1);
+
+            try {
+                player.setName("-entityRegions-test2-");
+                pSvc.save(player);
+
+                statistics.clear();
+                assertEquals(List.of("Asset", "-entityRegions-test2-"), loadAccount(1));
+            } finally {
+                player.setName(name);
+                pSvc.save(player);
+            }
+        }
+
+        @DisplayName("account found by id from the cache comes with its element and player")
+        @Test
+        public void entityRegions_test3() {
+            List<String> loaded = loadAccount(1);
+            cache.invalidate(Account.class);
+
+            statistics.clear();
+            Account account = aSvc.findById(1);
+            assertEquals(1, statistics.getDomainDataRegionStatistics(Account.CACHE_REGION).getHitCount());
+            assertEquals(loaded, List.of(account.getElement().getName(), account.getPlayer().getName()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Query regions")
+    public class QueryRegions {
+
+        @DisplayName("repeated finder is answered from the cache")
+        @Test
+        public void queryRegions_test1() {
+            List<Element> elements = eSvc.findAll();
+
+            statistics.clear();
+            assertEquals(elements, eSvc.findAll());
+            assertEquals(0, statistics.getPrepareStatementCount());
+            assertEquals(1, statistics.getQueryRegionStatistics(Element.QUERY_CACHE_REGION).getHitCount());
+        }
+
+        @DisplayName("cached accounts come with their element and player")
+        @Test
+        public void queryRegions_test2() {
+            List<Account> accounts = aSvc.findAll();
+
+            statistics.clear();
+            List<Account> cached = aSvc.findAll();
+            assertEquals(accounts, cached);
+            assertEquals(1, statistics.getQueryRegionStatistics(Account.QUERY_CACHE_REGION).getHitCount());
+            assertEquals(accounts.get(0).getElement().getName(), cached.get(0).getElement().getName());
+            assertEquals(accounts.get(0).getPlayer().getName(), cached.get(0).getPlayer().getName());
+        }
+
+        @DisplayName("finder result is invalidated when an entry of its type is saved")
+        @Test
+        public void queryRegions_test3() {
+            int banks = pSvc.findAllByBankStatus(true).size();
+            Player player = pSvc.save(new Player("-queryRegions-test3-", true));
+
+            try {
+                statistics.clear();
+                assertEquals(banks+1, pSvc.findAllByBankStatus(true).size());
+                assertEquals(0, statistics.getQueryRegionStatistics(Player.QUERY_CACHE_REGION).getHitCount());
+            } finally {
+                pSvc.delete(player);
+            }
+            assertEquals(banks, pSvc.findAllByBankStatus(true).size());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.b2.b2data.controller;
+
+import com.b2.b2data.dto.AccountBalanceDTO;
+import com.b2.b2data.service.AccountBalanceService;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class AccountBalanceControllerTest {
+
+    @Autowired
+    private AccountBalanceController con;
+
+    @Autowired
+    private AccountBalanceService svc;
+
+    @BeforeAll
+    private void setup() {
+        svc.rebuild();
+    }
+
+    @Nested
+    @DisplayName("GetByNumber")
+    public class GetByNumber {
+
+        @DisplayName("can get balance by account number")
+        @ParameterizedTest
+        @MethodSource("getByNumber_test1_generator")
+        public void getByNumber_test1(String number, double balance) {
+            AccountBalanceDTO dto = Objects.requireNonNull(con.getByNumber(number, null).getBody()).getData().get(0);
+            assertEquals(number, dto.getAccountNumber());
+            assertEquals(balance, dto.getBalance());
+        }
+
+        private static Stream<Arguments> getByNumber_test1_generator() {
+            return Stream.of(
+                    Arguments.of("1000", -5475.0),
+                    Arguments.of("5000", 5775.0),
+                    Arguments.of("99", 0.0)
+            );
+        }
+
+        @DisplayName("response from successful get by number is OK")
+        @Test
+        public void getByNumber_test2() {
+            HttpStatus status = con.getByNumber("1000", null).getStatusCode();
+            assertEquals(HttpStatus.OK, status);
+        }
+
+        @DisplayName("get by non-existent account number throws NoSuchElementException")
+        @Test
+        public void getByNumber_test3() {
+            assertThrows(NoSuchElementException.class, () -> con.getByNumber("-1", null));
+        }
+
+        @DisplayName("can get balance by account number as of a date")
+        @Test
+        public void getByNumber_test4() {
+            LocalDate asOf = LocalDate.parse("2022-03-31");
+            AccountBalanceDTO dto = Objects.requireNonNull(con.getByNumber("1000", asOf).getBody()).getData().get(0);
+            assertEquals(125.0, dto.getBalance());
+            assertEquals(asOf, dto.getAsOf());
+        }
+    }
+
+    @Nested
+    @DisplayName("Rebuild")
+    public class Rebuild {
+
+        @DisplayName("response from rebuild is OK with no corrections")
+        @Test
+        public void rebuild_test1() {
+            var responseEntity = con.rebuild();
+            assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+            assertTrue(Objects.requireNonNull(responseEntity.getBody()).getData().isEmpty());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.b2.b2data.controller;
+
+import com.b2.b2data.dto.CacheStatsDTO;
+import com.b2.b2data.service.AccountService;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class CacheControllerTest {
+
+    @Autowired
+    private CacheController con;
+
+    @Autowired
+    private AccountService aSvc;
+
+    @Nested
+    @DisplayName("GetStats")
+    public class GetStats {
+
+        @DisplayName("can get the statistics of each reference cache region")
+        @Test
+        public void getStats_test1() {
+            List<CacheStatsDTO> stats = Objects.requireNonNull(con.getStats().getBody()).getData();
+            assertEquals(List.of("Element", "Player", "Account"),
+                    stats.stream().map(CacheStatsDTO::getRegion).toList());
+        }
+
+        @DisplayName("repeated lookups are counted as hits")
+        @Test
+        public void getStats_test2() {
+            aSvc.findByNumber("5000");
+            long hits = account(con.getStats().getBody()).getHits();
+            aSvc.findByNumber("5000");
+            assertEquals(hits+1, account(con.getStats().getBody()).getHits());
+        }
+
+        @DisplayName("response from successful get stats is OK")
+        @Test
+        public void getStats_test3() {
+            assertEquals(HttpStatus.OK, con.getStats().getStatusCode());
+        }
+
+        /**
+         * Finds the statistics of the account region in the given response
+         *
+         * @param response A response
+         * @return The statistics of the account region
+         */
+        private CacheStatsDTO account(Response<CacheStatsDTO> response) {
+            return Objects.requireNonNull(response).getData().stream()
+                          .filter(stats -> stats.getRegion().equals("Account"))
+                          .findFirst()
+                          .orElseThrow();
+        }
+    }
+}
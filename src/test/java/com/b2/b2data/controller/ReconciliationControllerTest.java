@@ -0,0 +1,92 @@
+package com.b2.b2data.controller;
+
+import com.b2.b2data.dto.ReconciliationSummaryDTO;
+import com.b2.b2data.dto.TransactionLineDTO;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ReconciliationControllerTest {
+
+    @Autowired
+    private ReconciliationController con;
+
+    @Nested
+    @DisplayName("GetByNumber")
+    public class GetByNumber {
+
+        @DisplayName("can get cleared balance and uncleared total as of a statement date")
+        @ParameterizedTest
+        @MethodSource("getByNumber_test1_generator")
+        public void getByNumber_test1(String statementDate, double cleared, double uncleared, int unclearedLines) {
+            ReconciliationSummaryDTO dto = Objects.requireNonNull(
+                    con.getByNumber("1000", LocalDate.parse(statementDate), null).getBody()).getData().get(0);
+
+            assertEquals("1000", dto.getAccountNumber());
+            assertEquals(cleared, dto.getClearedBalance());
+            assertEquals(uncleared, dto.getUnclearedTotal());
+            assertEquals(unclearedLines, dto.getUnclearedLines().size());
+            assertNull(dto.getDifference());
+        }
+
+        private static Stream<Arguments> getByNumber_test1_generator() {
+            return Stream.of(
+                    Arguments.of("2021-12-31", 0.0, 0.0, 0),
+                    Arguments.of("2022-03-31", -175.0, 300.0, 1),
+                    Arguments.of("2022-06-30", 125.0, -1100.0, 2),
+                    Arguments.of("2022-12-31", 125.0, -5600.0, 7)
+            );
+        }
+
+        @DisplayName("uncleared lines include lines reconciled after the statement date")
+        @Test
+        public void getByNumber_test2() {
+            List<TransactionLineDTO> lines = Objects.requireNonNull(
+                    con.getByNumber("1000", LocalDate.parse("2022-03-31"), null).getBody())
+                    .getData().get(0).getUnclearedLines();
+
+            assertEquals(3, lines.get(0).getId().getTransactionId());
+            assertEquals(LocalDate.parse("2022-04-01"), lines.get(0).getDateReconciled());
+        }
+
+        @DisplayName("difference is the statement balance minus the cleared balance")
+        @Test
+        public void getByNumber_test3() {
+            ReconciliationSummaryDTO dto = Objects.requireNonNull(
+                    con.getByNumber("1000", LocalDate.parse("2022-06-30"), 200.0).getBody()).getData().get(0);
+
+            assertEquals(200.0, dto.getStatementBalance());
+            assertEquals(75.0, dto.getDifference());
+        }
+
+        @DisplayName("response from successful get by number is OK")
+        @Test
+        public void getByNumber_test4() {
+            HttpStatus status = con.getByNumber("99", LocalDate.parse("2022-06-30"), null).getStatusCode();
+            assertEquals(HttpStatus.OK, status);
+        }
+
+        @DisplayName("get by non-existent account number throws NoSuchElementException")
+        @Test
+        public void getByNumber_test5() {
+            assertThrows(NoSuchElementException.class,
+                    () -> con.getByNumber("-1", LocalDate.parse("2022-06-30"), null));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.b2.b2data.controller;
+
+import com.b2.b2data.dto.TrialBalanceAccountDTO;
+import com.b2.b2data.dto.TrialBalanceDTO;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ReportControllerTest {
+
+    @Autowired
+    private ReportController con;
+
+    @Nested
+    @DisplayName("GetTrialBalance")
+    public class GetTrialBalance {
+
+        @DisplayName("trial balance groups accounts by element")
+        @ParameterizedTest
+        @MethodSource("getTrialBalance_test1_generator")
+        public void getTrialBalance_test1(LocalDate asOf, List<Integer> elementNumbers) {
+            List<Integer> actual = Objects.requireNonNull(con.getTrialBalance(asOf).getBody())
+                                          .getData()
+                                          .stream()
+                                          .map(TrialBalanceDTO::getElementNumber)
+                                          .toList();
+            assertEquals(elementNumbers, actual);
+        }
+
+        private static Stream<Arguments> getTrialBalance_test1_generator() {
+            return Stream.of(
+                    Arguments.of(LocalDate.parse("2021-12-31"), List.of()),
+                    Arguments.of(LocalDate.parse("2022-02-28"), List.of(1, 5)),
+                    Arguments.of(null, List.of(1, 4, 5))
+            );
+        }
+
+        @DisplayName("element totals are the sums of their account totals")
+        @Test
+        public void getTrialBalance_test2() {
+            TrialBalanceDTO asset = Objects.requireNonNull(con.getTrialBalance(null).getBody()).getData().get(0);
+            assertEquals(List.of("1000", "1001"),
+                    asset.getAccounts().stream().map(TrialBalanceAccountDTO::getAccountNumber).toList());
+            assertEquals(700.0, asset.getDebit());
+            assertEquals(6375.0, asset.getCredit());
+            assertEquals(-5475.0, asset.getAccounts().get(0).getBalance());
+        }
+
+        @DisplayName("response from successful get trial balance is OK")
+        @Test
+        public void getTrialBalance_test3() {
+            HttpStatus status = con.getTrialBalance(null).getStatusCode();
+            assertEquals(HttpStatus.OK, status);
+        }
+    }
+}
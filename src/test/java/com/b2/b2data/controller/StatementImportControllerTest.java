@@ -0,0 +1,137 @@
+package com.b2.b2data.controller;
+
+import com.b2.b2data.domain.Transaction;
+import com.b2.b2data.dto.StatementImportDTO;
+import com.b2.b2data.dto.StatementTemplateDTO;
+import com.b2.b2data.service.StatementImportService;
+import com.b2.b2data.service.TransactionService;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class StatementImportControllerTest {
+
+    @Autowired
+    private StatementImportController con;
+
+    @Autowired
+    private StatementImportService svc;
+
+    @Autowired
+    private TransactionService tSvc;
+
+    private List<Transaction> initialState;
+
+    @BeforeAll
+    private void setup() {
+        initialState = tSvc.findAll();
+        assert initialState.size() == 12;
+    }
+
+    @BeforeEach
+    private void verifyDataReset() {
+        assert tSvc.findAll().equals(initialState);
+    }
+
+    /**
+     * Imports a statement with one row and waits for the import to finish
+     *
+     * @param memo The memo of the row
+     * @return The response of the import request
+     */
+    private ResponseEntity<Response<StatementImportDTO>> importOne(String memo)
+            throws IOException, InterruptedException {
+
+        StatementTemplateDTO template = new StatementTemplateDTO();
+        template.setBankAccountNumber("99");
+        template.setOffsetAccountNumber("5000");
+        template.setDateColumn(0);
+        template.setMemoColumn(1);
+        template.setAmountColumn(2);
+        template.setHeader(false);
+
+        InputStream body = new ByteArrayInputStream(("1999-03-01,"+memo+",10\n").getBytes(StandardCharsets.UTF_8));
+        var responseEntity = con.createOne(body, template);
+        int id = Objects.requireNonNull(responseEntity.getBody()).getData().get(0).getId();
+
+        for (int i = 0; i < 600 && !svc.findById(id).isFinished(); i++)
+            Thread.sleep(50);
+
+        tSvc.findAll(LocalDate.of(1999,1,1), LocalDate.of(1999,12,31), null).forEach(tSvc::delete);
+        return responseEntity;
+    }
+
+    @Nested
+    @DisplayName("CreateOne")
+    public class CreateOne {
+
+        @DisplayName("response from createOne is CREATED")
+        @Test
+        public void createOne_test1() throws IOException, InterruptedException {
+            assertEquals(HttpStatus.CREATED, importOne("-createOne-test1-").getStatusCode());
+        }
+
+        @DisplayName("location header URI contains new import id")
+        @Test
+        public void createOne_test2() throws IOException, InterruptedException {
+            var responseEntity = importOne("-createOne-test2-");
+            int id = Objects.requireNonNull(responseEntity.getBody()).getData().get(0).getId();
+            String location = Objects.requireNonNull(responseEntity.getHeaders().getLocation()).toString();
+            String expectedLocation = ServletUriComponentsBuilder.fromCurrentRequest().toUriString()+"/"+id;
+            assertEquals(expectedLocation, location);
+        }
+    }
+
+    @Nested
+    @DisplayName("GetById")
+    public class GetById {
+
+        @DisplayName("can get the progress of a finished import")
+        @Test
+        public void getById_test1() throws IOException, InterruptedException {
+            int id = Objects.requireNonNull(importOne("-getById-test1-").getBody()).getData().get(0).getId();
+            StatementImportDTO dto = Objects.requireNonNull(con.getById(id).getBody()).getData().get(0);
+
+            assertEquals("COMPLETED", dto.getStatus());
+            assertEquals(1, dto.getTransactionsCreated());
+            assertNotNull(dto.getRowsPerSecond());
+        }
+
+        @DisplayName("non-existent id throws NoSuchElementException")
+        @Test
+        public void getById_test2() {
+            assertThrows(NoSuchElementException.class, () -> con.getById(-1));
+        }
+    }
+
+    @Nested
+    @DisplayName("GetAll")
+    public class GetAll {
+
+        @DisplayName("submitted imports are listed")
+        @Test
+        public void getAll_test1() throws IOException, InterruptedException {
+            int id = Objects.requireNonNull(importOne("-getAll-test1-").getBody()).getData().get(0).getId();
+            List<StatementImportDTO> data = Objects.requireNonNull(con.getAll().getBody()).getData();
+            assertTrue(data.stream().anyMatch(dto -> dto.getId() == id));
+        }
+    }
+}
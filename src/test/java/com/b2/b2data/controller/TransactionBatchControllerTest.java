@@ -0,0 +1,239 @@
+package com.b2.b2data.controller;
+
+import com.b2.b2data.configuration.IdempotencyInterceptor;
+import com.b2.b2data.domain.Transaction;
+import com.b2.b2data.dto.TransactionBatchResultDTO;
+import com.b2.b2data.service.TransactionService;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TransactionBatchControllerTest {
+
+    @Autowired
+    private TransactionBatchController con;
+
+    @Autowired
+    private TransactionController tCon;
+
+    @Autowired
+    private TransactionService svc;
+
+    private List<Transaction> initialState;
+
+    @BeforeAll
+    private void setup() {
+        initialState = svc.findAll();
+        assert initialState.size() == 12;
+    }
+
+    @BeforeEach
+    private void verifyDataReset() {
+        assert svc.findAll().equals(initialState);
+    }
+
+    @AfterEach
+    private void resetChunkSize() {
+        ReflectionTestUtils.setField(con, "chunkSize", 500);
+    }
+
+    /**
+     * Creates a JSON transaction with two balanced lines on the given account
+     *
+     * @param memo A memo
+     * @param accountNumber An account number
+     * @return A JSON transaction
+     */
+    private static String transaction(String memo, String accountNumber) {
+        return "{\"date\":\"2022-12-31\",\"memo\":\""+memo+"\",\"lines\":["
+                +"{\"accountNumber\":\""+accountNumber+"\",\"amount\":100.0},"
+                +"{\"accountNumber\":\""+accountNumber+"\",\"amount\":-100.0}]}";
+    }
+
+    /**
+     * Creates a request body from the given text
+     *
+     * @param text A request body
+     * @return An input stream over the request body
+     */
+    private static InputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Deletes the transactions created by the given results
+     *
+     * @param results A list of batch results
+     */
+    private void deleteCreated(List<TransactionBatchResultDTO> results) {
+        results.stream()
+                .map(TransactionBatchResultDTO::getId)
+                .filter(Objects::nonNull)
+                .forEach(id -> tCon.deleteOne(id));
+    }
+
+    @Nested
+    @DisplayName("CreateAll")
+    public class CreateAll {
+
+        @DisplayName("can create all transactions of a JSON array")
+        @Test
+        public void createAll_test1() throws IOException {
+            String text = "["+transaction("-createAll-test1-a-", "99")+","+transaction("-createAll-test1-b-", "99")+"]";
+            List<TransactionBatchResultDTO> results =
+                    Objects.requireNonNull(con.createAll(body(text)).getBody()).getData();
+
+            List<String> memos = results.stream().map(r -> svc.findById(r.getId()).getMemo()).toList();
+
+            deleteCreated(results);
+            assertEquals(List.of("-createAll-test1-a-", "-createAll-test1-b-"), memos);
+        }
+
+        @DisplayName("can create all transactions of a newline delimited stream")
+        @Test
+        public void createAll_test2() throws IOException {
+            String text = transaction("-createAll-test2-a-", "99")+"\n"+transaction("-createAll-test2-b-", "99")+"\n";
+            List<TransactionBatchResultDTO> results =
+                    Objects.requireNonNull(con.createAll(body(text)).getBody()).getData();
+
+            List<String> memos = results.stream().map(r -> svc.findById(r.getId()).getMemo()).toList();
+
+            deleteCreated(results);
+            assertEquals(List.of("-createAll-test2-a-", "-createAll-test2-b-"), memos);
+        }
+
+        @DisplayName("response from createAll is OK")
+        @Test
+        public void createAll_test3() throws IOException {
+            var responseEntity = con.createAll(body("["+transaction("-createAll-test3-", "99")+"]"));
+            HttpStatus status = responseEntity.getStatusCode();
+
+            deleteCreated(Objects.requireNonNull(responseEntity.getBody()).getData());
+            assertEquals(HttpStatus.OK, status);
+        }
+
+        @DisplayName("invalid transactions are rejected without rejecting the rest of their chunk")
+        @Test
+        public void createAll_test4() throws IOException {
+            String unbalanced = "{\"date\":\"2022-12-31\",\"memo\":\"-createAll-test4-c-\",\"lines\":["
+                    +"{\"accountNumber\":\"99\",\"amount\":100.0},"
+                    +"{\"accountNumber\":\"99\",\"amount\":-50.0}]}";
+
+            String text = String.join("\n",
+                    transaction("-createAll-test4-a-", "99"),
+                    transaction("-createAll-test4-b-", "doesn't exist"),
+                    unbalanced,
+                    transaction("-createAll-test4-d-", "99"));
+
+            List<TransactionBatchResultDTO> results =
+                    Objects.requireNonNull(con.createAll(body(text)).getBody()).getData();
+
+            deleteCreated(results);
+            assertEquals(List.of(0, 1, 2, 3), results.stream().map(TransactionBatchResultDTO::getIndex).toList());
+            assertNotNull(results.get(0).getId());
+            assertNull(results.get(1).getId());
+            assertEquals("Account number='doesn't exist' does not exist.", results.get(1).getError());
+            assertNull(results.get(2).getId());
+            assertNotNull(results.get(2).getError());
+            assertNotNull(results.get(3).getId());
+        }
+
+        @DisplayName("transactions are created across chunks in the order of the body")
+        @Test
+        public void createAll_test5() throws IOException {
+            ReflectionTestUtils.setField(con, "chunkSize", 2);
+
+            String text = String.join("\n",
+                    transaction("-createAll-test5-a-", "99"),
+                    transaction("-createAll-test5-b-", "99"),
+                    transaction("-createAll-test5-c-", "99"),
+                    transaction("-createAll-test5-d-", "99"),
+                    transaction("-createAll-test5-e-", "99"));
+
+            List<TransactionBatchResultDTO> results =
+                    Objects.requireNonNull(con.createAll(body(text)).getBody()).getData();
+
+            List<String> memos = results.stream().map(r -> svc.findById(r.getId()).getMemo()).toList();
+
+            deleteCreated(results);
+            assertEquals(
+                    List.of("-createAll-test5-a-", "-createAll-test5-b-", "-createAll-test5-c-",
+                            "-createAll-test5-d-", "-createAll-test5-e-"),
+                    memos);
+        }
+
+        @DisplayName("reading stops at a malformed transaction, keeping the transactions before it")
+        @Test
+        public void createAll_test6() throws IOException {
+            String text = transaction("-createAll-test6-a-", "99")+"\n{\"date\":\"not a date\"}\n"
+                    +transaction("-createAll-test6-c-", "99");
+
+            List<TransactionBatchResultDTO> results =
+                    Objects.requireNonNull(con.createAll(body(text)).getBody()).getData();
+
+            deleteCreated(results);
+            assertEquals(2, results.size());
+            assertNotNull(results.get(0).getId());
+            assertNull(results.get(1).getId());
+            assertNotNull(results.get(1).getError());
+        }
+
+        @DisplayName("an empty body creates nothing")
+        @Test
+        public void createAll_test7() throws IOException {
+            List<TransactionBatchResultDTO> results =
+                    Objects.requireNonNull(con.createAll(body("[]")).getBody()).getData();
+
+            assertTrue(results.isEmpty());
+        }
+
+        @DisplayName("a batch retried with the same idempotency key is answered with the first results")
+        @Test
+        public void createAll_test8() throws IOException {
+            String key = "-createAll-test8-";
+            String text = transaction("-createAll-test8-a-", "99")+"\n"+transaction("-createAll-test8-b-", "99");
+
+            var first = con.createAll(key, body(text));
+            var retry = con.createAll(key, body(text));
+            List<Transaction> transactions = svc.findAll();
+
+            deleteCreated(Objects.requireNonNull(first.getBody()).getData());
+            assertEquals(initialState.size()+2, transactions.size());
+            assertEquals(first.getBody().getData(), Objects.requireNonNull(retry.getBody()).getData());
+            assertEquals("true", retry.getHeaders().getFirst(IdempotencyInterceptor.REPLAYED));
+        }
+
+        @DisplayName("a batch made with an idempotency key still rejects only the transactions with a missing account")
+        @Test
+        public void createAll_test9() throws IOException {
+            String text = transaction("-createAll-test9-a-", "99")+"\n"
+                    +transaction("-createAll-test9-b-", "-createAll-test9-")+"\n"
+                    +transaction("-createAll-test9-c-", "99");
+
+            List<TransactionBatchResultDTO> results =
+                    Objects.requireNonNull(con.createAll("-createAll-test9-", body(text)).getBody()).getData();
+
+            deleteCreated(results);
+            assertEquals(3, results.size());
+            assertNotNull(results.get(0).getId());
+            assertNull(results.get(1).getId());
+            assertNotNull(results.get(1).getError());
+            assertNotNull(results.get(2).getId());
+        }
+    }
+}
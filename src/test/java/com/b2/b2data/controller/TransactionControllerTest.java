@@ -1,8 +1,11 @@
 package com.b2.b2data.controller;
 
+import com.b2.b2data.configuration.IdempotencyInterceptor;
 import com.b2.b2data.domain.Transaction;
 import com.b2.b2data.dto.TransactionDTO;
 import com.b2.b2data.dto.TransactionLineDTO;
+import com.b2.b2data.service.IdempotencyConflictException;
+import com.b2.b2data.service.IdempotencyService;
 import com.b2.b2data.service.TransactionLineService;
 import com.b2.b2data.service.TransactionService;
 import org.junit.jupiter.api.*;
@@ -14,9 +17,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.ValidationException;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -39,6 +47,9 @@ public class TransactionControllerTest {
     @Autowired
     private TransactionLineService lSvc;
 
+    @Autowired
+    private IdempotencyService iSvc;
+
     private List<Transaction> initialState;
 
     @BeforeAll
@@ -153,6 +164,36 @@ public class TransactionControllerTest {
                     Arguments.of(LocalDate.of(2021,12,31), LocalDate.of(2022,12,31), "_-%", 1)
             );
         }
+
+        @DisplayName("following next cursors gets every transaction once")
+        @ParameterizedTest
+        @ValueSource(ints = {1, 5, 11, 12})
+        public void getAll_test8(int limit) {
+            int count = 0;
+            String cursor = null;
+
+            do {
+                Response<TransactionDTO> response =
+                        Objects.requireNonNull(con.getAll(null, null, null, cursor, limit).getBody());
+
+                assertTrue(response.getData().size() <= limit);
+                count += response.getData().size();
+                cursor = response.getNextCursor();
+
+            } while (cursor != null);
+
+            assertEquals(initialState.size(), count);
+        }
+
+        @DisplayName("last page has no next cursor")
+        @Test
+        public void getAll_test9() {
+            Response<TransactionDTO> response =
+                    Objects.requireNonNull(con.getAll(null, null, null, null, 100).getBody());
+
+            assertEquals(initialState.size(), response.getData().size());
+            assertNull(response.getNextCursor());
+        }
     }
 
     @Nested
@@ -268,6 +309,162 @@ public class TransactionControllerTest {
             assertEquals(expectedLocation, location);
         }
 
+        @DisplayName("lines sharing accounts and players are created with their own values")
+        @Test
+        public void createOne_test4() {
+            TransactionDTO dto = new TransactionDTO();
+            dto.setDate(LocalDate.now());
+            dto.setMemo("-createOne-test4-");
+
+            TransactionLineDTO l1 = new TransactionLineDTO();
+            l1.setAccountNumber("99");
+            l1.setPlayerName("Walmart");
+            l1.setAmount(100.0);
+
+            TransactionLineDTO l2 = new TransactionLineDTO();
+            l2.setAccountNumber("99");
+            l2.setPlayerName("Walmart");
+            l2.setAmount(-60.0);
+
+            TransactionLineDTO l3 = new TransactionLineDTO();
+            l3.setAccountNumber("99");
+            l3.setAmount(-40.0);
+
+            dto.setLines(List.of(l1, l2, l3));
+
+            dto = Objects.requireNonNull(con.createOne(dto).getBody()).getData().get(0);
+            List<TransactionLineDTO> lines = dto.getLines();
+
+            assert con.deleteOne(dto.getId()).getStatusCode().equals(HttpStatus.NO_CONTENT);
+            assertEquals("Walmart", lines.get(0).getPlayerName());
+            assertEquals("Walmart", lines.get(1).getPlayerName());
+            assertNull(lines.get(2).getPlayerName());
+            assertEquals(List.of(100.0, -60.0, -40.0), lines.stream().map(TransactionLineDTO::getAmount).toList());
+        }
+
+        @DisplayName("a line with a non-existent account throws ValidationException and creates nothing")
+        @Test
+        public void createOne_test5() {
+            TransactionDTO dto = new TransactionDTO();
+            dto.setDate(LocalDate.now());
+            dto.setMemo("-createOne-test5-");
+
+            TransactionLineDTO l1 = new TransactionLineDTO();
+            l1.setAccountNumber("99");
+            l1.setAmount(100.0);
+
+            TransactionLineDTO l2 = new TransactionLineDTO();
+            l2.setAccountNumber("-createOne-test5-");
+            l2.setAmount(-100.0);
+
+            dto.setLines(List.of(l1, l2));
+
+            TransactionDTO finalDto = dto;
+            assertThrows(ValidationException.class, () -> con.createOne(finalDto));
+            assertEquals(initialState, svc.findAll());
+        }
+
+        @DisplayName("a request retried with the same idempotency key is answered with the first response")
+        @Test
+        public void createOne_test6() {
+            TransactionDTO dto = new TransactionDTO();
+            dto.setDate(LocalDate.now());
+            dto.setMemo("-createOne-test6-");
+
+            TransactionLineDTO l1 = new TransactionLineDTO();
+            l1.setAccountNumber("99");
+            l1.setAmount(100.0);
+
+            TransactionLineDTO l2 = new TransactionLineDTO();
+            l2.setAccountNumber("99");
+            l2.setAmount(-100.0);
+
+            dto.setLines(List.of(l1, l2));
+
+            var first = con.createOne("-createOne-test6-", dto);
+            var retry = con.createOne("-createOne-test6-", dto);
+            int id = Objects.requireNonNull(first.getBody()).getData().get(0).getId();
+            List<Transaction> transactions = svc.findAll();
+
+            assert con.deleteOne(id).getStatusCode().equals(HttpStatus.NO_CONTENT);
+            assertEquals(initialState.size()+1, transactions.size());
+            assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+            assertEquals(first.getHeaders().getLocation(), retry.getHeaders().getLocation());
+            assertEquals(first.getBody(), retry.getBody());
+            assertEquals("true", retry.getHeaders().getFirst(IdempotencyInterceptor.REPLAYED));
+        }
+
+        @DisplayName("a request that failed can be retried with the same idempotency key")
+        @Test
+        public void createOne_test7() {
+            TransactionDTO dto = new TransactionDTO();
+            dto.setDate(LocalDate.now());
+            dto.setMemo("-createOne-test7-");
+
+            TransactionLineDTO l1 = new TransactionLineDTO();
+            l1.setAccountNumber("99");
+            l1.setAmount(100.0);
+
+            TransactionLineDTO l2 = new TransactionLineDTO();
+            l2.setAccountNumber("-createOne-test7-");
+            l2.setAmount(-100.0);
+
+            dto.setLines(List.of(l1, l2));
+            assertThrows(ValidationException.class, () -> con.createOne("-createOne-test7-", dto));
+
+            l2.setAccountNumber("99");
+            var retry = con.createOne("-createOne-test7-", dto);
+            int id = Objects.requireNonNull(retry.getBody()).getData().get(0).getId();
+
+            assert con.deleteOne(id).getStatusCode().equals(HttpStatus.NO_CONTENT);
+            assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+            assertNull(retry.getHeaders().getFirst(IdempotencyInterceptor.REPLAYED));
+        }
+
+        @DisplayName("a request made while another with the same idempotency key is handled throws " +
+                     "IdempotencyConflictException")
+        @Test
+        public void createOne_test8() {
+            TransactionDTO dto = new TransactionDTO();
+            dto.setDate(LocalDate.now());
+            dto.setMemo("-createOne-test8-");
+
+            HttpServletRequest request =
+                    ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+            iSvc.claim("-createOne-test8-", IdempotencyInterceptor.requestOf(request));
+
+            assertThrows(IdempotencyConflictException.class, () -> con.createOne("-createOne-test8-", dto));
+            assertEquals(initialState, svc.findAll());
+        }
+
+        @DisplayName("a transaction whose response cannot be stored is rolled back, and its key released")
+        @Test
+        public void createOne_test9() {
+            TransactionDTO dto = new TransactionDTO();
+            dto.setDate(LocalDate.now());
+            dto.setMemo("-createOne-test9-");
+
+            TransactionLineDTO l1 = new TransactionLineDTO();
+            l1.setAccountNumber("99");
+            l1.setAmount(100.0);
+
+            TransactionLineDTO l2 = new TransactionLineDTO();
+            l2.setAccountNumber("99");
+            l2.setAmount(-100.0);
+
+            dto.setLines(List.of(l1, l2));
+
+            // releasing the key while the request is handled leaves no claim to store the response in
+            assertThrows(NoSuchElementException.class, () -> con.idempotent("-createOne-test9-", TransactionDTO.class,
+                    () -> {
+                        var response = con.createOne(dto);
+                        iSvc.release("-createOne-test9-");
+                        return response;
+                    }));
+            assertEquals(initialState, svc.findAll());
+            assertTrue(iSvc.findCompleted("-createOne-test9-", "POST /api/transactions").isEmpty());
+        }
+
 //        @DisplayName("response from bad creation (non-zero sum) is BAD REQUEST")
 //        @Test
 //        public void createOne_test4() {
@@ -482,6 +679,30 @@ public class TransactionControllerTest {
 //
 //            assertEquals(HttpStatus.BAD_REQUEST, status);
 //        }
+
+        @DisplayName("update without lines updates the header and leaves the lines untouched")
+        @Test
+        public void updateOne_test8() {
+            int id = 11;
+            Transaction transaction = svc.findById(id);
+            List<TransactionLineDTO> originalLines =
+                    lSvc.findAllByTransactionId(id).stream().map(TransactionLineDTO::new).toList();
+
+            TransactionDTO dto = new TransactionDTO();
+            dto.setDate(transaction.getDate());
+            dto.setMemo("-updateOne-test8-");
+
+            TransactionDTO updated = Objects.requireNonNull(con.updateOne(id, dto).getBody()).getData().get(0);
+            List<TransactionLineDTO> lines =
+                    lSvc.findAllByTransactionId(id).stream().map(TransactionLineDTO::new).toList();
+
+            dto.setMemo(transaction.getMemo());
+            assert con.updateOne(id, dto).getStatusCode().equals(HttpStatus.OK);
+
+            assertEquals("-updateOne-test8-", updated.getMemo());
+            assertNull(updated.getLines());
+            assertEquals(originalLines, lines);
+        }
     }
 
     @Nested
@@ -525,4 +746,56 @@ public class TransactionControllerTest {
 //            assertEquals(HttpStatus.NOT_FOUND, status);
 //        }
     }
+
+    @Nested
+    @DisplayName("DeleteAll")
+    public class DeleteAll {
+
+        @AfterEach
+        private void resetChunkSize() {
+            ReflectionTestUtils.setField(con, "deleteChunkSize", 1000);
+        }
+
+        @DisplayName("deletes all transactions matching the parameters, across many chunks")
+        @Test
+        public void deleteAll_test1() {
+            ReflectionTestUtils.setField(con, "deleteChunkSize", 2);
+
+            for (int i = 1; i <= 5; i++) {
+                TransactionDTO dto = new TransactionDTO();
+                dto.setDate(LocalDate.of(1999,8,i));
+                dto.setMemo("-deleteAll-test1-");
+
+                TransactionLineDTO l1 = new TransactionLineDTO();
+                l1.setAccountNumber("99");
+                l1.setAmount(10.0);
+
+                TransactionLineDTO l2 = new TransactionLineDTO();
+                l2.setAccountNumber("5000");
+                l2.setAmount(-10.0);
+
+                dto.setLines(List.of(l1, l2));
+                con.createOne(dto);
+            }
+            var responseEntity = con.deleteAll(LocalDate.of(1999,1,1), LocalDate.of(1999,12,31), "-deleteAll-test1-");
+
+            assertEquals(HttpStatus.NO_CONTENT, responseEntity.getStatusCode());
+            assertEquals(initialState, svc.findAll());
+        }
+
+        @DisplayName("transactions not matching the parameters are kept")
+        @Test
+        public void deleteAll_test2() {
+            var responseEntity = con.deleteAll(LocalDate.of(1999,1,1), LocalDate.of(1999,12,31), null);
+
+            assertEquals(HttpStatus.NO_CONTENT, responseEntity.getStatusCode());
+            assertEquals(initialState, svc.findAll());
+        }
+
+        @DisplayName("passing no parameters throws ValidationException")
+        @Test
+        public void deleteAll_test3() {
+            assertThrows(ValidationException.class, () -> con.deleteAll(null, null, null));
+        }
+    }
 }
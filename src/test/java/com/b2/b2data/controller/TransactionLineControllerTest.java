@@ -1,18 +1,31 @@
 package com.b2.b2data.controller;
 
 import com.b2.b2data.domain.TransactionLine;
+import com.b2.b2data.domain.TransactionLineId;
+import com.b2.b2data.dto.ReconciliationDTO;
+import com.b2.b2data.dto.TransactionLineDTO;
 import com.b2.b2data.service.TransactionLineService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 
+import javax.validation.ValidationException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.stream.Stream;
 
@@ -29,6 +42,9 @@ public class TransactionLineControllerTest {
     @Autowired
     private TransactionLineService svc;
 
+    @Autowired
+    private ObjectMapper mapper;
+
     private List<TransactionLine> initialState;
 
     @BeforeAll
@@ -238,5 +254,232 @@ public class TransactionLineControllerTest {
             HttpStatus status = con.getAll(null, null, null, null, null, null, null).getStatusCode();
             assertEquals(HttpStatus.OK, status);
         }
+
+        @DisplayName("following next cursors gets every transaction line once")
+        @ParameterizedTest
+        @ValueSource(ints = {1, 4, 25, 26})
+        public void getAll_test11(int limit) {
+            int count = 0;
+            String cursor = null;
+
+            do {
+                Response<TransactionLineDTO> response = Objects.requireNonNull(
+                        con.getAll(null, null, null, null, null, null, null, cursor, limit).getBody());
+
+                assertTrue(response.getData().size() <= limit);
+                count += response.getData().size();
+                cursor = response.getNextCursor();
+
+            } while (cursor != null);
+
+            assertEquals(initialState.size(), count);
+        }
+
+        @DisplayName("invalid cursor or limit throws ValidationException")
+        @ParameterizedTest
+        @MethodSource("getAll_test12_generator")
+        public void getAll_test12(String cursor, Integer limit) {
+            assertThrows(ValidationException.class,
+                    () -> con.getAll(null, null, null, null, null, null, null, cursor, limit));
+        }
+
+        private static Stream<Arguments> getAll_test12_generator() {
+            return Stream.of(
+                    Arguments.of("not-a-cursor", 5),
+                    Arguments.of(null, 0),
+                    Arguments.of(null, 1001)
+            );
+        }
+
+        @DisplayName("lines of a page are sent without the date of their transaction")
+        @Test
+        public void getAll_test13() throws JsonProcessingException {
+            Response<TransactionLineDTO> response = Objects.requireNonNull(
+                    con.getAll(null, null, null, null, null, null, null, null, 1).getBody());
+
+            assertNotNull(response.getData().get(0).getTransactionDate());
+            assertFalse(mapper.writeValueAsString(response).contains("transactionDate"));
+        }
+    }
+
+    @Nested
+    @DisplayName("StreamAll")
+    public class StreamAll {
+
+        @DisplayName("streams one JSON transaction line per line")
+        @Test
+        public void streamAll_test1() throws IOException {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            Objects.requireNonNull(con.streamAll(null, null, null, null, null, null, null).getBody())
+                   .writeTo(outputStream);
+
+            String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+            assertEquals(initialState.size(), lines.length);
+
+            TransactionLineDTO first = mapper.readValue(lines[0], TransactionLineDTO.class);
+            assertEquals(11, first.getId().getTransactionId());
+            assertEquals(1, first.getId().getLineId());
+        }
+
+        @DisplayName("can stream transaction lines by account number")
+        @ParameterizedTest
+        @MethodSource("streamAll_test2_generator")
+        public void streamAll_test2(String accountNumber, int expectedCount) throws IOException {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            Objects.requireNonNull(con.streamAll(null, accountNumber, null, null, null, null, null).getBody())
+                   .writeTo(outputStream);
+
+            long count = outputStream.toString(StandardCharsets.UTF_8).lines().count();
+            assertEquals(expectedCount, count);
+        }
+
+        private static Stream<Arguments> streamAll_test2_generator() {
+            return Stream.of(
+                    Arguments.of("1000", 9),
+                    Arguments.of("5000", 10),
+                    Arguments.of("4000", 1),
+                    Arguments.of("6000", 0)
+            );
+        }
+
+        @DisplayName("response content type is NDJSON")
+        @Test
+        public void streamAll_test3() {
+            MediaType contentType = con.streamAll(null, null, null, null, null, null, null).getHeaders().getContentType();
+            assertEquals(MediaType.APPLICATION_NDJSON, contentType);
+        }
+    }
+
+    @Nested
+    @DisplayName("UpdateOne")
+    public class UpdateOne {
+
+        /**
+         * Finds a transaction line with its account and player loaded
+         *
+         * @param id A transaction line id
+         * @return The transaction line with the given id
+         */
+        private TransactionLine find(TransactionLineId id) {
+            return svc.findAllByTransactionId(id.getTransactionId()).stream()
+                      .filter(line -> line.getLineId().equals(id.getLineId()))
+                      .findFirst()
+                      .orElseThrow();
+        }
+
+        @DisplayName("can update the memo of one line")
+        @Test
+        public void updateOne_test1() {
+            TransactionLineId id = new TransactionLineId(4, 2);
+            TransactionLine original = find(id);
+            ObjectNode body = mapper.createObjectNode().put("memo", "-update-one-test1-");
+
+            HttpStatus status = con.updateOne(4, 2, body).getStatusCode();
+            String memo = find(id).getMemo();
+            svc.updateDetails(id, original.getPlayer(), original.getMemo(), original.getDateReconciled());
+
+            assertEquals(HttpStatus.NO_CONTENT, status);
+            assertEquals("-update-one-test1-", memo);
+        }
+
+        @DisplayName("account number, amount or a non-existent player throws ValidationException")
+        @ParameterizedTest
+        @ValueSource(strings = {"accountNumber", "amount", "playerName"})
+        public void updateOne_test2(String field) {
+            ObjectNode body = mapper.createObjectNode();
+
+            switch (field) {
+                case "accountNumber" -> body.put(field, "1000");
+                case "amount" -> body.put(field, 1.0);
+                default -> body.put(field, "doesn't exist");
+            }
+            assertThrows(ValidationException.class, () -> con.updateOne(4, 2, body));
+        }
+
+        @DisplayName("non-existent line throws NoSuchElementException")
+        @Test
+        public void updateOne_test3() {
+            assertThrows(NoSuchElementException.class, () -> con.updateOne(4, 99, mapper.createObjectNode()));
+        }
+
+        @DisplayName("fields missing from the body are kept")
+        @Test
+        public void updateOne_test4() {
+            TransactionLineId id = new TransactionLineId(1, 3);
+            TransactionLine original = find(id);
+            ObjectNode body = mapper.createObjectNode().put("memo", "-update-one-test4-");
+
+            con.updateOne(1, 3, body);
+            TransactionLine updated = find(id);
+            svc.updateDetails(id, original.getPlayer(), original.getMemo(), original.getDateReconciled());
+
+            assertEquals("-update-one-test4-", updated.getMemo());
+            assertEquals(original.getPlayer(), updated.getPlayer());
+            assertEquals(original.getDateReconciled(), updated.getDateReconciled());
+        }
+
+        @DisplayName("fields present with a null value are cleared")
+        @Test
+        public void updateOne_test5() {
+            TransactionLineId id = new TransactionLineId(1, 3);
+            TransactionLine original = find(id);
+            ObjectNode body = mapper.createObjectNode().putNull("dateReconciled");
+
+            con.updateOne(1, 3, body);
+            TransactionLine updated = find(id);
+            svc.updateDetails(id, original.getPlayer(), original.getMemo(), original.getDateReconciled());
+
+            assertNull(updated.getDateReconciled());
+            assertEquals(original.getMemo(), updated.getMemo());
+            assertEquals(original.getPlayer(), updated.getPlayer());
+        }
+    }
+
+    @Nested
+    @DisplayName("Reconcile")
+    public class Reconcile {
+
+        @DisplayName("can reconcile lines by id")
+        @Test
+        public void reconcile_test1() {
+            TransactionLineId id = new TransactionLineId(7, 2);
+            ReconciliationDTO dto = new ReconciliationDTO();
+            dto.setLineIds(List.of(id));
+            dto.setDateReconciled(LocalDate.of(2023,1,15));
+
+            HttpStatus status = con.reconcile(dto).getStatusCode();
+            LocalDate dateReconciled = svc.findById(id).getDateReconciled();
+            svc.reconcile(List.of(id), null);
+
+            assertEquals(HttpStatus.NO_CONTENT, status);
+            assertEquals(LocalDate.of(2023,1,15), dateReconciled);
+        }
+
+        @DisplayName("can reconcile the unreconciled lines of an account")
+        @Test
+        public void reconcile_test2() {
+            ReconciliationDTO dto = new ReconciliationDTO();
+            dto.setAccountNumber("1000");
+            dto.setFrom(LocalDate.of(2022,11,1));
+            dto.setDateReconciled(LocalDate.of(2023,1,15));
+
+            HttpStatus status = con.reconcile(dto).getStatusCode();
+            TransactionLineId id = new TransactionLineId(11, 2);
+            LocalDate dateReconciled = svc.findById(id).getDateReconciled();
+            svc.reconcile(List.of(id), null);
+
+            assertEquals(HttpStatus.NO_CONTENT, status);
+            assertEquals(LocalDate.of(2023,1,15), dateReconciled);
+        }
+
+        @DisplayName("no line ids and no account, or a non-existent account throws ValidationException")
+        @ParameterizedTest
+        @ValueSource(strings = {"", "doesn't exist"})
+        public void reconcile_test3(String accountNumber) {
+            ReconciliationDTO dto = new ReconciliationDTO();
+            dto.setAccountNumber(accountNumber.isEmpty() ? null : accountNumber);
+            dto.setDateReconciled(LocalDate.of(2023,1,15));
+            assertThrows(ValidationException.class, () -> con.reconcile(dto));
+        }
     }
 }
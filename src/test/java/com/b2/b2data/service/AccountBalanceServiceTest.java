@@ -0,0 +1,305 @@
+package com.b2.b2data.service;
+
+import com.b2.b2data.domain.AccountBalance;
+import com.b2.b2data.domain.Transaction;
+import com.b2.b2data.domain.TransactionLine;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class AccountBalanceServiceTest {
+
+    @Autowired
+    private AccountBalanceService svc;
+
+    @Autowired
+    private TransactionService tSvc;
+
+    @Autowired
+    private AccountService aSvc;
+
+    @Autowired
+    private TransactionLineService lSvc;
+
+    @Autowired
+    private PlatformTransactionManager txm;
+
+    @BeforeAll
+    private void setup() {
+        // initializes the store from the transaction lines loaded by data.sql
+        svc.rebuild();
+    }
+
+    @BeforeEach
+    private void verifyDataReset() {
+        assert svc.rebuild().isEmpty();
+    }
+
+    @Nested
+    @DisplayName("FindByAccountNumber")
+    public class FindByAccountNumber {
+
+        @DisplayName("can find balance by account number")
+        @ParameterizedTest
+        @MethodSource("findByAccountNumber_test1_generator")
+        public void findByAccountNumber_test1(String number, double debit, double credit) {
+            AccountBalance balance = svc.findByAccountNumber(number);
+            assertEquals(debit, balance.getDebit());
+            assertEquals(credit, balance.getCredit());
+            assertEquals(debit - credit, balance.getBalance());
+        }
+
+        private static Stream<Arguments> findByAccountNumber_test1_generator() {
+            return Stream.of(
+                    Arguments.of("1000", 300.0, 5775.0),
+                    Arguments.of("1001", 400.0, 600.0),
+                    Arguments.of("5000", 5775.0, 0.0),
+                    Arguments.of("5001", 600.0, 0.0),
+                    Arguments.of("99", 0.0, 0.0)
+            );
+        }
+
+        @DisplayName("search for non-existent account number throws NoSuchElementException")
+        @Test
+        public void findByAccountNumber_test2() {
+            assertThrows(NoSuchElementException.class, () -> svc.findByAccountNumber("-1"));
+        }
+    }
+
+    @Nested
+    @DisplayName("BalanceAsOf")
+    public class BalanceAsOf {
+
+        @DisplayName("can find balance by account number as of a date")
+        @ParameterizedTest
+        @MethodSource("balanceAsOf_test1_generator")
+        public void balanceAsOf_test1(String number, LocalDate asOf, double debit, double credit) {
+            AccountBalance balance = svc.balanceAsOf(number, asOf);
+            assertEquals(debit, balance.getDebit());
+            assertEquals(credit, balance.getCredit());
+        }
+
+        private static Stream<Arguments> balanceAsOf_test1_generator() {
+            return Stream.of(
+                    Arguments.of("1000", LocalDate.parse("2021-12-31"), 0.0, 0.0),
+                    Arguments.of("1000", LocalDate.parse("2022-01-30"), 0.0, 0.0),
+                    Arguments.of("1000", LocalDate.parse("2022-01-31"), 0.0, 175.0),
+                    Arguments.of("1000", LocalDate.parse("2022-03-31"), 300.0, 175.0),
+                    Arguments.of("1000", LocalDate.parse("2022-06-15"), 300.0, 675.0),
+                    Arguments.of("5000", LocalDate.parse("2022-08-31"), 2775.0, 0.0),
+                    Arguments.of("99", LocalDate.parse("2022-08-31"), 0.0, 0.0)
+            );
+        }
+
+        @DisplayName("balance as of a date after the last transaction equals the current balance")
+        @ParameterizedTest
+        @ValueSource(strings = {"1000", "1001", "5000", "5001"})
+        public void balanceAsOf_test2(String number) {
+            AccountBalance current = svc.findByAccountNumber(number);
+            AccountBalance asOf = svc.balanceAsOf(number, LocalDate.parse("2099-12-31"));
+            assertEquals(current.getDebit(), asOf.getDebit());
+            assertEquals(current.getCredit(), asOf.getCredit());
+        }
+
+        @DisplayName("moving a transaction to another month moves its amounts to that month")
+        @Test
+        public void balanceAsOf_test3() {
+            LocalDate february = LocalDate.parse("2022-02-28");
+            LocalDate july = LocalDate.parse("2022-07-31");
+            double februaryBefore = svc.balanceAsOf("5001", february).getBalance();
+            double julyBefore = svc.balanceAsOf("5001", july).getBalance();
+
+            Transaction transaction = tSvc.save(
+                    new Transaction(LocalDate.parse("2022-02-15"), "-as-of-test3-"),
+                    List.of(
+                            new TransactionLine(null, null, aSvc.findByNumber("5001"), 250.0),
+                            new TransactionLine(null, null, aSvc.findByNumber("1000"), -250.0)
+                    )
+            );
+            double februaryAfterSave = svc.balanceAsOf("5001", february).getBalance();
+
+            transaction.setDate(LocalDate.parse("2022-07-15"));
+            tSvc.save(transaction);
+            double februaryAfterMove = svc.balanceAsOf("5001", february).getBalance();
+            double julyAfterMove = svc.balanceAsOf("5001", july).getBalance();
+
+            tSvc.delete(transaction);
+
+            assertEquals(februaryBefore + 250.0, februaryAfterSave);
+            assertEquals(februaryBefore, februaryAfterMove);
+            assertEquals(julyBefore + 250.0, julyAfterMove);
+        }
+
+        @DisplayName("search for non-existent account number throws NoSuchElementException")
+        @Test
+        public void balanceAsOf_test4() {
+            assertThrows(NoSuchElementException.class,
+                    () -> svc.balanceAsOf("-1", LocalDate.parse("2022-01-31")));
+        }
+    }
+
+    @Nested
+    @DisplayName("Apply")
+    public class Apply {
+
+        @DisplayName("saving a transaction updates the balances of its accounts")
+        @Test
+        public void apply_test1() {
+            double before = svc.findByAccountNumber("5001").getBalance();
+            Transaction transaction = tSvc.save(
+                    new Transaction(LocalDate.now(), "-apply-test1-"),
+                    List.of(
+                            new TransactionLine(null, null, aSvc.findByNumber("5001"), 250.0),
+                            new TransactionLine(null, null, aSvc.findByNumber("1000"), -250.0)
+                    )
+            );
+            double after = svc.findByAccountNumber("5001").getBalance();
+            tSvc.delete(transaction);
+            assertEquals(before + 250.0, after);
+        }
+
+        @DisplayName("updating a transaction applies only the difference between old and new lines")
+        @Test
+        public void apply_test2() {
+            Transaction transaction = tSvc.save(
+                    new Transaction(LocalDate.now(), "-apply-test2-"),
+                    List.of(
+                            new TransactionLine(null, null, aSvc.findByNumber("5001"), 250.0),
+                            new TransactionLine(null, null, aSvc.findByNumber("1000"), -250.0)
+                    )
+            );
+            double before = svc.findByAccountNumber("5001").getBalance();
+            tSvc.save(
+                    transaction,
+                    List.of(
+                            new TransactionLine(null, null, aSvc.findByNumber("5001"), 100.0),
+                            new TransactionLine(null, null, aSvc.findByNumber("1000"), -100.0)
+                    )
+            );
+            double after = svc.findByAccountNumber("5001").getBalance();
+            tSvc.delete(transaction);
+            assertEquals(before - 150.0, after);
+        }
+
+        @DisplayName("deleting a transaction restores the balances of its accounts")
+        @Test
+        public void apply_test3() {
+            double before = svc.findByAccountNumber("1000").getBalance();
+            Transaction transaction = tSvc.save(
+                    new Transaction(LocalDate.now(), "-apply-test3-"),
+                    List.of(
+                            new TransactionLine(null, null, aSvc.findByNumber("5001"), 250.0),
+                            new TransactionLine(null, null, aSvc.findByNumber("1000"), -250.0)
+                    )
+            );
+            tSvc.delete(transaction);
+            double after = svc.findByAccountNumber("1000").getBalance();
+            assertEquals(before, after);
+        }
+
+        @DisplayName("saving, updating and deleting a single line updates the balance of its account")
+        @Test
+        public void apply_test5() {
+            double before = svc.findByAccountNumber("1000").getBalance();
+            TransactionLine line = lSvc.save(new TransactionLine(tSvc.findById(12), 1, aSvc.findById(1), 100.0));
+            double saved = svc.findByAccountNumber("1000").getBalance();
+            boolean savedMatches = svc.rebuild().isEmpty();
+
+            line.setAmount(-40.0);
+            line = lSvc.save(line);
+            double updated = svc.findByAccountNumber("1000").getBalance();
+            boolean updatedMatches = svc.rebuild().isEmpty();
+
+            lSvc.delete(line);
+            double deleted = svc.findByAccountNumber("1000").getBalance();
+
+            assertEquals(before + 100.0, saved);
+            assertEquals(before - 40.0, updated);
+            assertEquals(before, deleted);
+            assertTrue(savedMatches);
+            assertTrue(updatedMatches);
+        }
+
+        @DisplayName("concurrent first writes to the same period both apply")
+        @Test
+        public void apply_test4() throws Exception {
+            LocalDate date = LocalDate.of(2099, 1, 15);
+            Integer accountId = aSvc.findByNumber("5001").getId();
+            BalanceDelta delta = new BalanceDelta();
+            delta.add(accountId, date, 250.0, 0.0);
+
+            double before = svc.balanceAsOf("5001", date.plusMonths(1)).getBalance();
+            TransactionTemplate template = new TransactionTemplate(txm);
+            CountDownLatch applied = new CountDownLatch(1);
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+
+            try {
+                // the first write inserts the period and holds its transaction open while the second one runs
+                Future<?> first = executor.submit(() -> template.executeWithoutResult(status -> {
+                    svc.apply(delta);
+                    applied.countDown();
+                    try {
+                        Thread.sleep(500);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+                applied.await();
+                template.executeWithoutResult(status -> svc.apply(delta));
+                first.get();
+
+                assertEquals(before + 500.0, svc.balanceAsOf("5001", date.plusMonths(1)).getBalance());
+            } finally {
+                executor.shutdown();
+                BalanceDelta restore = new BalanceDelta();
+                restore.add(accountId, date, -500.0, 0.0);
+                svc.apply(restore);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Rebuild")
+    public class Rebuild {
+
+        @DisplayName("rebuild finds nothing to correct when the store matches the transaction lines")
+        @Test
+        public void rebuild_test1() {
+            assertTrue(svc.rebuild().isEmpty());
+        }
+
+        @DisplayName("rebuild corrects a balance that does not match the transaction lines")
+        @Test
+        public void rebuild_test2() {
+            BalanceDelta drift = new BalanceDelta();
+            drift.add(aSvc.findByNumber("5000").getId(), LocalDate.now(), 1.0, 0.0);
+            svc.apply(drift);
+
+            List<AccountBalance> corrected = svc.rebuild();
+
+            assertEquals(1, corrected.size());
+            assertEquals(5775.0, corrected.get(0).getDebit());
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.b2.b2data.service;
 
 import com.b2.b2data.domain.Account;
+import com.b2.b2data.dto.AccountDTO;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -11,7 +12,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -86,6 +89,33 @@ public class AccountServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("FindAllByNumbers")
+    public class FindAllByNumbers {
+
+        @DisplayName("can find many by number, keyed by number")
+        @Test
+        public void findAllByNumbers_test1() {
+            Map<String, Account> accounts = svc.findAllByNumbers(Set.of("1000", "5000", "99"));
+
+            assertEquals(Set.of("1000", "5000", "99"), accounts.keySet());
+            accounts.forEach((number, account) -> assertEquals(svc.findByNumber(number), account));
+        }
+
+        @DisplayName("search including a non-existent number throws NoSuchElementException")
+        @Test
+        public void findAllByNumbers_test2() {
+            assertThrows(NoSuchElementException.class,
+                    () -> svc.findAllByNumbers(Set.of("1000", "-find-all-by-numbers-test-2-")));
+        }
+
+        @DisplayName("search for no numbers finds none")
+        @Test
+        public void findAllByNumbers_test3() {
+            assertTrue(svc.findAllByNumbers(Set.of()).isEmpty());
+        }
+    }
+
     @Nested
     @DisplayName("FindByName")
     public class FindByName {
@@ -294,6 +324,38 @@ public class AccountServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("FindAllDtos")
+    public class FindAllDtos {
+
+        @DisplayName("projected DTOs match the DTOs of the found accounts")
+        @ParameterizedTest
+        @MethodSource("findAllDtos_test1_generator")
+        public void findAllDtos_test1(Integer element, String player, Boolean isBank) {
+            List<AccountDTO> expected = svc.findAll(element, player, isBank).stream().map(AccountDTO::new).toList();
+            assertEquals(expected, svc.findAllDtos(element, player, isBank));
+        }
+
+        private static Stream<Arguments> findAllDtos_test1_generator() {
+            return Stream.of(
+                    Arguments.of(null, null, null),
+                    Arguments.of(1, null, null),
+                    Arguments.of(null, "Chase Bank", null),
+                    Arguments.of(null, null, false),
+                    Arguments.of(99, null, null)
+            );
+        }
+
+        @DisplayName("accounts without a player have a null player name")
+        @Test
+        public void findAllDtos_test2() {
+            List<AccountDTO> dtos = svc.findAllDtos(null, null, null);
+
+            assertEquals(initialState.size(), dtos.size());
+            assertTrue(dtos.stream().anyMatch(dto -> dto.getPlayerName() == null));
+        }
+    }
+
     @Nested
     @DisplayName("Save")
     public class Save {
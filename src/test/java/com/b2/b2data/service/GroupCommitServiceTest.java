@@ -0,0 +1,177 @@
+package com.b2.b2data.service;
+
+import com.b2.b2data.domain.Account;
+import com.b2.b2data.domain.Transaction;
+import com.b2.b2data.domain.TransactionLine;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class GroupCommitServiceTest {
+
+    @Autowired
+    private GroupCommitService svc;
+
+    @Autowired
+    private TransactionService tSvc;
+
+    @Autowired
+    private TransactionLineService lSvc;
+
+    @Autowired
+    private AccountService aSvc;
+
+    private List<Transaction> initialState;
+
+    @BeforeAll
+    private void setup() {
+        initialState = tSvc.findAll();
+        assert initialState.size() == 12;
+    }
+
+    @BeforeEach
+    private void verifyDataReset() {
+        assert tSvc.findAll().equals(initialState);
+    }
+
+    /**
+     * Creates the balanced lines of a new transaction on the given account
+     *
+     * @param account An account
+     * @param amount The amount of the first line
+     * @return A list of two transaction lines
+     */
+    private static List<TransactionLine> lines(Account account, double amount) {
+        return List.of(
+                new TransactionLine(null, null, account, amount),
+                new TransactionLine(null, null, account, -amount)
+        );
+    }
+
+    /**
+     * Saves the given transactions concurrently with the given service
+     *
+     * @param groupSvc A group commit service
+     * @param transactions A list of new transactions
+     * @param lines A list of the transaction lines of each transaction, in the same order
+     * @return A list of futures of the saved transactions, in the same order
+     */
+    private static List<Future<Transaction>> saveConcurrently(GroupCommitService groupSvc,
+                                                              List<Transaction> transactions,
+                                                              List<List<TransactionLine>> lines)
+            throws InterruptedException {
+
+        ExecutorService callers = Executors.newFixedThreadPool(transactions.size());
+        List<Callable<Transaction>> saves = new ArrayList<>();
+
+        for (int i = 0; i < transactions.size(); i++) {
+            int j = i;
+            saves.add(() -> groupSvc.save(transactions.get(j), lines.get(j)));
+        }
+        List<Future<Transaction>> results = callers.invokeAll(saves);
+        callers.shutdown();
+        return results;
+    }
+
+    @Nested
+    @DisplayName("Save")
+    public class Save {
+
+        @DisplayName("concurrent transactions are each saved with their own lines")
+        @Test
+        public void save_test1() throws InterruptedException, ExecutionException {
+            GroupCommitService groupSvc = new GroupCommitService(tSvc, true, 50, 500);
+            Account account = aSvc.findById(10);
+            List<Transaction> transactions = new ArrayList<>();
+            List<List<TransactionLine>> lines = new ArrayList<>();
+
+            for (int i = 0; i < 8; i++) {
+                transactions.add(new Transaction(LocalDate.of(1999,6,1), "-save-test1-"+i+"-"));
+                lines.add(lines(account, 10.0+i));
+            }
+            List<Future<Transaction>> results = saveConcurrently(groupSvc, transactions, lines);
+            groupSvc.shutdown();
+
+            List<Transaction> saved = new ArrayList<>();
+            List<Double> amounts = new ArrayList<>();
+
+            for (Future<Transaction> result : results) {
+                saved.add(result.get());
+                amounts.add(lSvc.findAllByTransactionId(result.get().getId()).get(0).getAmount());
+            }
+            saved.forEach(tSvc::delete);
+
+            for (int i = 0; i < saved.size(); i++) {
+                assertEquals("-save-test1-"+i+"-", saved.get(i).getMemo());
+                assertEquals(10.0+i, amounts.get(i));
+            }
+            assertEquals(8, saved.stream().map(Transaction::getId).distinct().count());
+        }
+
+        @DisplayName("a failing transaction is rejected without rejecting the rest of its group")
+        @Test
+        public void save_test2() throws InterruptedException, ExecutionException {
+            GroupCommitService groupSvc = new GroupCommitService(tSvc, true, 50, 500);
+            Account account = aSvc.findById(10);
+            Account unsaved = new Account("-save-test2-", "-save-test2-", null);
+
+            List<Transaction> transactions = List.of(
+                    new Transaction(LocalDate.of(1999,6,2), "-save-test2-a-"),
+                    new Transaction(LocalDate.of(1999,6,2), "-save-test2-b-"),
+                    new Transaction(LocalDate.of(1999,6,2), "-save-test2-c-")
+            );
+            List<List<TransactionLine>> lines = List.of(lines(account, 1.0), lines(unsaved, 2.0), lines(account, 3.0));
+
+            List<Future<Transaction>> results = saveConcurrently(groupSvc, transactions, lines);
+            groupSvc.shutdown();
+
+            Transaction a = results.get(0).get();
+            Transaction c = results.get(2).get();
+            tSvc.delete(a);
+            tSvc.delete(c);
+
+            assertNotNull(a.getId());
+            assertNotNull(c.getId());
+            assertThrows(ExecutionException.class, () -> results.get(1).get());
+        }
+
+        @DisplayName("with group commit disabled, a transaction is saved directly")
+        @Test
+        public void save_test3() {
+            Transaction transaction = svc.save(
+                    new Transaction(LocalDate.of(1999,6,3), "-save-test3-"),
+                    lines(aSvc.findById(10), 5.0)
+            );
+            Transaction saved = tSvc.findById(transaction.getId());
+            tSvc.delete(saved);
+
+            assertEquals("-save-test3-", saved.getMemo());
+        }
+
+        @DisplayName("a transaction saved after shutdown is saved directly")
+        @Test
+        public void save_test4() {
+            GroupCommitService groupSvc = new GroupCommitService(tSvc, true, 50, 500);
+            groupSvc.shutdown();
+
+            Transaction transaction = groupSvc.save(
+                    new Transaction(LocalDate.of(1999,6,4), "-save-test4-"),
+                    lines(aSvc.findById(10), 5.0)
+            );
+            tSvc.delete(transaction);
+
+            assertNotNull(transaction.getId());
+        }
+    }
+}
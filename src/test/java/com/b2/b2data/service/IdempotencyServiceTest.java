@@ -0,0 +1,154 @@
+package com.b2.b2data.service;
+
+import com.b2.b2data.domain.IdempotentRequest;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class IdempotencyServiceTest {
+
+    private static final String REQUEST = "POST /api/transactions";
+    private static final String BODY_HASH = "-body-hash-";
+
+    @Autowired
+    private IdempotencyService svc;
+
+    @AfterEach
+    private void resetTtl() {
+        ReflectionTestUtils.setField(svc, "TTL", Duration.ofHours(24));
+    }
+
+    @Nested
+    @DisplayName("Claim")
+    public class Claim {
+
+        @DisplayName("an unused key is claimed")
+        @Test
+        public void claim_test1() {
+            assertTrue(svc.claim("-claim-test1-", REQUEST).isEmpty());
+        }
+
+        @DisplayName("a completed key returns the stored response")
+        @Test
+        public void claim_test2() {
+            svc.claim("-claim-test2-", REQUEST);
+            svc.complete("-claim-test2-", BODY_HASH, 201, "/api/transactions/1", "{}");
+            Optional<IdempotentRequest> completed = svc.claim("-claim-test2-", REQUEST);
+
+            assertTrue(completed.isPresent());
+            assertEquals(201, completed.get().getStatus());
+            assertEquals("/api/transactions/1", completed.get().getLocation());
+            assertEquals("{}", completed.get().getBody());
+        }
+
+        @DisplayName("a key still being handled throws IdempotencyConflictException")
+        @Test
+        public void claim_test3() {
+            svc.claim("-claim-test3-", REQUEST);
+            assertThrows(IdempotencyConflictException.class, () -> svc.claim("-claim-test3-", REQUEST));
+        }
+
+        @DisplayName("a key used for another request throws IdempotencyKeyReusedException")
+        @Test
+        public void claim_test4() {
+            svc.claim("-claim-test4-", REQUEST);
+            svc.complete("-claim-test4-", BODY_HASH, 200, null, "{}");
+            assertThrows(IdempotencyKeyReusedException.class,
+                    () -> svc.claim("-claim-test4-", "POST /api/transactions/batch"));
+        }
+
+        @DisplayName("a released key can be claimed again")
+        @Test
+        public void claim_test5() {
+            svc.claim("-claim-test5-", REQUEST);
+            svc.release("-claim-test5-");
+            assertTrue(svc.claim("-claim-test5-", REQUEST).isEmpty());
+        }
+
+        @DisplayName("an expired key can be claimed again")
+        @Test
+        public void claim_test6() {
+            svc.claim("-claim-test6-", REQUEST);
+            svc.complete("-claim-test6-", BODY_HASH, 201, null, "{}");
+            ReflectionTestUtils.setField(svc, "TTL", Duration.ofNanos(-1));
+
+            assertTrue(svc.claim("-claim-test6-", REQUEST).isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("Complete")
+    public class Complete {
+
+        @DisplayName("a completed key is found")
+        @Test
+        public void complete_test1() {
+            svc.claim("-complete-test1-", REQUEST);
+            svc.complete("-complete-test1-", BODY_HASH, 200, null, "{}");
+            assertTrue(svc.findCompleted("-complete-test1-", REQUEST).isPresent());
+        }
+
+        @DisplayName("a key still being handled is not found")
+        @Test
+        public void complete_test2() {
+            svc.claim("-complete-test2-", REQUEST);
+            assertTrue(svc.findCompleted("-complete-test2-", REQUEST).isEmpty());
+        }
+
+        @DisplayName("completing an unclaimed key throws NoSuchElementException")
+        @Test
+        public void complete_test3() {
+            assertThrows(NoSuchElementException.class,
+                    () -> svc.complete("-complete-test3-", BODY_HASH, 200, null, "{}"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Verify")
+    public class Verify {
+
+        @DisplayName("a retry with the same body is accepted")
+        @Test
+        public void verify_test1() {
+            svc.claim("-verify-test1-", REQUEST);
+            IdempotentRequest completed = svc.complete("-verify-test1-", BODY_HASH, 201, null, "{}");
+            assertDoesNotThrow(() -> svc.verify(completed, BODY_HASH));
+        }
+
+        @DisplayName("a retry with another body throws IdempotencyKeyReusedException")
+        @Test
+        public void verify_test2() {
+            svc.claim("-verify-test2-", REQUEST);
+            IdempotentRequest completed = svc.complete("-verify-test2-", BODY_HASH, 201, null, "{}");
+            assertThrows(IdempotencyKeyReusedException.class, () -> svc.verify(completed, "-other-body-hash-"));
+        }
+    }
+
+    @Nested
+    @DisplayName("EvictExpired")
+    public class EvictExpired {
+
+        @DisplayName("expired keys are deleted")
+        @Test
+        public void evictExpired_test1() {
+            svc.claim("-evictExpired-test1-", REQUEST);
+            svc.complete("-evictExpired-test1-", BODY_HASH, 200, null, "{}");
+            ReflectionTestUtils.setField(svc, "TTL", Duration.ofNanos(-1));
+
+            assertTrue(svc.evictExpired() > 0);
+            resetTtl();
+            assertTrue(svc.findCompleted("-evictExpired-test1-", REQUEST).isEmpty());
+        }
+    }
+}
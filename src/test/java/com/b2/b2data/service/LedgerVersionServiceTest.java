@@ -0,0 +1,115 @@
+package com.b2.b2data.service;
+
+import com.b2.b2data.domain.Account;
+import com.b2.b2data.domain.Element;
+import com.b2.b2data.domain.Transaction;
+import com.b2.b2data.domain.TransactionLine;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class LedgerVersionServiceTest {
+
+    @Autowired
+    private LedgerVersionService svc;
+
+    @Autowired
+    private TransactionService tSvc;
+
+    @Autowired
+    private TransactionLineService lSvc;
+
+    @Autowired
+    private AccountService aSvc;
+
+    @Autowired
+    private PlatformTransactionManager txm;
+
+    @Nested
+    @DisplayName("Bump")
+    public class Bump {
+
+        @DisplayName("bump outside of a database transaction increments the version once")
+        @Test
+        public void bump_test1() {
+            long version = svc.version(Element.class);
+            svc.bump(Element.class);
+            assertEquals(version+1, svc.version(Element.class));
+        }
+
+        @DisplayName("bump inside a database transaction increments the version again once it completes")
+        @Test
+        public void bump_test2() {
+            long version = svc.version(Element.class);
+
+            new TransactionTemplate(txm).executeWithoutResult(status -> {
+                svc.bump(Element.class);
+                assertEquals(version+1, svc.version(Element.class));
+            });
+            assertEquals(version+2, svc.version(Element.class));
+        }
+
+        @DisplayName("saving a transaction header bumps transactions but not lines")
+        @Test
+        public void bump_test3() {
+            Transaction transaction = tSvc.findById(1);
+            LocalDate date = transaction.getDate();
+            String memo = transaction.getMemo();
+            long transactions = svc.version(Transaction.class);
+            long lines = svc.version(TransactionLine.class);
+
+            try {
+                tSvc.updateHeader(1, date, "-bump-test3-");
+                assertTrue(svc.version(Transaction.class) > transactions);
+                assertEquals(lines, svc.version(TransactionLine.class));
+            } finally {
+                tSvc.updateHeader(1, date, memo);
+            }
+        }
+
+        @DisplayName("reconciling lines bumps lines")
+        @Test
+        public void bump_test4() {
+            Account account = aSvc.findByNumber("1000");
+            long lines = svc.version(TransactionLine.class);
+            assertEquals(0, lSvc.reconcile(account, LocalDate.of(1900, 1, 1), LocalDate.of(1900, 1, 1),
+                                           LocalDate.of(1900, 1, 1)));
+            assertTrue(svc.version(TransactionLine.class) > lines);
+        }
+    }
+
+    @Nested
+    @DisplayName("Etag")
+    public class Etag {
+
+        @DisplayName("tag is quoted and unchanged while its tables are not written")
+        @Test
+        public void etag_test1() {
+            String etag = svc.etag(List.of(Transaction.class, TransactionLine.class));
+            assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+            assertFalse(etag.startsWith("W/"));
+
+            svc.bump(Element.class);
+            assertEquals(etag, svc.etag(List.of(Transaction.class, TransactionLine.class)));
+        }
+
+        @DisplayName("tag changes when one of its tables is written")
+        @Test
+        public void etag_test2() {
+            String etag = svc.etag(List.of(Transaction.class, TransactionLine.class));
+            svc.bump(TransactionLine.class);
+            assertNotEquals(etag, svc.etag(List.of(Transaction.class, TransactionLine.class)));
+        }
+    }
+}
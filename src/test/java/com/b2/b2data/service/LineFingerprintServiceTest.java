@@ -0,0 +1,224 @@
+package com.b2.b2data.service;
+
+import com.b2.b2data.domain.Account;
+import com.b2.b2data.domain.Transaction;
+import com.b2.b2data.domain.TransactionLine;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class LineFingerprintServiceTest {
+
+    @Autowired
+    private LineFingerprintService svc;
+
+    @Autowired
+    private TransactionService tSvc;
+
+    @Autowired
+    private TransactionLineService lSvc;
+
+    @Autowired
+    private AccountService aSvc;
+
+    @Autowired
+    private PlatformTransactionManager txm;
+
+    private List<Transaction> initialState;
+
+    @BeforeAll
+    private void setup() {
+        initialState = tSvc.findAll();
+        assert initialState.size() == 12;
+    }
+
+    @BeforeEach
+    private void verifyDataReset() {
+        assert tSvc.findAll().equals(initialState);
+    }
+
+    /**
+     * Gets the memo that identifies the given line
+     *
+     * @param line A transaction line
+     * @return The memo of the line, or of its transaction if the line has none
+     */
+    private static String memo(TransactionLine line) {
+        return line.getMemo() == null ? line.getTransaction().getMemo() : line.getMemo();
+    }
+
+    /**
+     * Copies the given account with the given number
+     *
+     * @param account An account
+     * @param number An account number
+     * @return A copy of the account with the given number
+     */
+    private static Account renumbered(Account account, String number) {
+        Account copy = new Account(number, account.getName(), account.getElement());
+        copy.setId(account.getId());
+        copy.setPlayer(account.getPlayer());
+        return copy;
+    }
+
+    @Nested
+    @DisplayName("MightExist")
+    public class MightExist {
+
+        @DisplayName("every stored line might exist")
+        @Test
+        public void mightExist_test1() {
+            for (TransactionLine line : lSvc.findAll()) {
+                assertTrue(svc.mightExist(line.getTransaction().getDate(), line.getAccount().getNumber(),
+                        line.getAmount(), memo(line)));
+            }
+        }
+
+        @DisplayName("a line never stored does not exist")
+        @Test
+        public void mightExist_test2() {
+            assertFalse(svc.mightExist(LocalDate.of(1999,5,1), "99", 123.45, "-mightExist-test2-"));
+        }
+
+        @DisplayName("lines of a saved transaction might exist")
+        @Test
+        public void mightExist_test3() {
+            LocalDate date = LocalDate.of(1999,5,2);
+            String memo = "-mightExist-test3-";
+            Transaction transaction = tSvc.save(new Transaction(date, memo), List.of(
+                    new TransactionLine(null, null, aSvc.findById(10), 10.0),
+                    new TransactionLine(null, null, aSvc.findById(10), -10.0)
+            ));
+            boolean exists = svc.mightExist(date, "99", 10.0, memo);
+            tSvc.delete(transaction);
+            assertTrue(exists);
+        }
+
+        @DisplayName("lines of a transaction moved by a header update might exist on the new date")
+        @Test
+        public void mightExist_test4() {
+            int id = 10;
+            Transaction original = tSvc.findById(id);
+            TransactionLine line = lSvc.findAllByTransactionId(id).get(0);
+            LocalDate date = LocalDate.of(1999,5,3);
+
+            tSvc.updateHeader(id, date, original.getMemo());
+            boolean exists = svc.mightExist(date, line.getAccount().getNumber(), line.getAmount(),
+                    line.getMemo() == null ? original.getMemo() : line.getMemo());
+            tSvc.updateHeader(id, original.getDate(), original.getMemo());
+
+            assertTrue(exists);
+        }
+
+        @DisplayName("lines of a renumbered account might exist under the new number")
+        @Test
+        public void mightExist_test5() {
+            Transaction transaction = tSvc.findById(1);
+            TransactionLine line = lSvc.findAllByTransactionId(1).get(0);
+            String memo = line.getMemo() == null ? transaction.getMemo() : line.getMemo();
+            Account account = aSvc.findById(line.getAccount().getId());
+            String number = "-98-";
+
+            aSvc.save(renumbered(account, number));
+            boolean exists = svc.mightExist(transaction.getDate(), number, line.getAmount(), memo);
+            aSvc.save(renumbered(account, account.getNumber()));
+
+            assertTrue(exists);
+        }
+
+        @DisplayName("lines of a header update might exist on the new date when the filter is read before it commits")
+        @Test
+        public void mightExist_test6() throws Exception {
+            int id = 10;
+            Transaction original = tSvc.findById(id);
+            TransactionLine line = lSvc.findAllByTransactionId(id).get(0);
+            String memo = line.getMemo() == null ? original.getMemo() : line.getMemo();
+            LocalDate date = LocalDate.of(1999,5,5);
+            TransactionTemplate template = new TransactionTemplate(txm);
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+
+            try {
+                // another thread reads the filter, as an import would, while the update is not yet committed
+                template.executeWithoutResult(status -> {
+                    tSvc.updateHeader(id, date, original.getMemo());
+                    try {
+                        executor.submit(() -> svc.mightExist(date, "-mightExist-test6-", 0.0, null)).get();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                boolean exists = svc.mightExist(date, line.getAccount().getNumber(), line.getAmount(), memo);
+
+                assertTrue(exists);
+            } finally {
+                executor.shutdown();
+                tSvc.updateHeader(id, original.getDate(), original.getMemo());
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("CountExisting")
+    public class CountExisting {
+
+        @DisplayName("can count the stored lines with a fingerprint")
+        @Test
+        public void countExisting_test1() {
+            Transaction transaction = tSvc.findById(1);
+            TransactionLine line = lSvc.findAllByTransactionId(1).get(0);
+            String memo = line.getMemo() == null ? transaction.getMemo() : line.getMemo();
+            long count = lSvc.findAll().stream()
+                    .filter(l -> l.getTransaction().getDate().equals(transaction.getDate())
+                            && l.getAccount().getNumber().equals(line.getAccount().getNumber())
+                            && l.getAmount().equals(line.getAmount())
+                            && memo(l).equals(memo))
+                    .count();
+
+            assertTrue(count > 0);
+            assertEquals(count, svc.countExisting(transaction.getDate(), line.getAccount().getNumber(),
+                    line.getAmount(), memo, Integer.MAX_VALUE));
+        }
+
+        @DisplayName("lines of transactions after the given id are not counted")
+        @Test
+        public void countExisting_test2() {
+            Transaction transaction = tSvc.findById(1);
+            TransactionLine line = lSvc.findAllByTransactionId(1).get(0);
+            String memo = line.getMemo() == null ? transaction.getMemo() : line.getMemo();
+
+            assertEquals(0, svc.countExisting(transaction.getDate(), line.getAccount().getNumber(),
+                    line.getAmount(), memo, 0));
+        }
+
+        @DisplayName("deleted lines might exist but are not counted")
+        @Test
+        public void countExisting_test3() {
+            LocalDate date = LocalDate.of(1999,5,4);
+            String memo = "-countExisting-test3-";
+            Transaction transaction = tSvc.save(new Transaction(date, memo), List.of(
+                    new TransactionLine(null, null, aSvc.findById(10), 10.0),
+                    new TransactionLine(null, null, aSvc.findById(10), -10.0)
+            ));
+            lSvc.delete(lSvc.findAllByTransactionId(transaction.getId()).get(0));
+            boolean exists = svc.mightExist(date, "99", 10.0, memo);
+            long count = svc.countExisting(date, "99", 10.0, memo, Integer.MAX_VALUE);
+            tSvc.delete(transaction);
+
+            assertTrue(exists);
+            assertEquals(0, count);
+        }
+    }
+}
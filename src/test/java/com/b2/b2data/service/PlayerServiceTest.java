@@ -9,7 +9,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -89,6 +91,27 @@ public class PlayerServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("FindAllByNames")
+    public class FindAllByNames {
+
+        @DisplayName("can find many by name, keyed by name")
+        @Test
+        public void findAllByNames_test1() {
+            Map<String, Player> players = svc.findAllByNames(Set.of("Walmart", "Target", "99"));
+
+            assertEquals(Set.of("Walmart", "Target", "99"), players.keySet());
+            players.forEach((name, player) -> assertEquals(svc.findByName(name), player));
+        }
+
+        @DisplayName("search including a non-existent name throws NoSuchElementException")
+        @Test
+        public void findAllByNames_test2() {
+            assertThrows(NoSuchElementException.class,
+                    () -> svc.findAllByNames(Set.of("Walmart", "-find-all-by-names-test-2-")));
+        }
+    }
+
     @Nested
     @DisplayName("FindAll")
     public class FindAll {
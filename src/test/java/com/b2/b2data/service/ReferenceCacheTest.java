@@ -0,0 +1,157 @@
+package com.b2.b2data.service;
+
+import com.b2.b2data.domain.Account;
+import com.b2.b2data.domain.Element;
+import com.b2.b2data.domain.Player;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ReferenceCacheTest {
+
+    @Autowired
+    private AccountService aSvc;
+
+    @Autowired
+    private PlayerService pSvc;
+
+    /**
+     * Finds the statistics of the given region
+     *
+     * @param cache A reference cache
+     * @param region A region name
+     * @return The statistics of the region
+     */
+    private static ReferenceCache.Stats stats(ReferenceCache cache, String region) {
+        return cache.stats().stream().filter(stats -> stats.region().equals(region)).findFirst().orElseThrow();
+    }
+
+    @Nested
+    @DisplayName("Get")
+    public class Get {
+
+        @DisplayName("entry is loaded once and then answered from the cache")
+        @Test
+        public void get_test1() {
+            ReferenceCache cache = new ReferenceCache(10);
+            Player player = new Player("-get-test1-", false);
+            AtomicInteger loads = new AtomicInteger();
+
+            for (int i = 0; i < 3; i++)
+                cache.get(Player.class, Player.NAME, "-get-test1-", () -> {
+                    loads.incrementAndGet();
+                    return Optional.of(player);
+                });
+
+            ReferenceCache.Stats stats = stats(cache, "Player");
+            assertEquals(1, loads.get());
+            assertEquals(2, stats.hits());
+            assertEquals(1, stats.misses());
+            assertEquals(1, stats.size());
+        }
+
+        @DisplayName("entries that do not exist are not cached")
+        @Test
+        public void get_test2() {
+            ReferenceCache cache = new ReferenceCache(10);
+            cache.get(Player.class, Player.NAME, "-get-test2-", Optional::empty);
+            assertEquals(0, stats(cache, "Player").size());
+        }
+
+        @DisplayName("least recently used entry is evicted once a region is full")
+        @Test
+        public void get_test3() {
+            ReferenceCache cache = new ReferenceCache(2);
+
+            for (int number : List.of(1, 2, 1, 3))
+                cache.get(Element.class, Element.NUMBER, number, () -> Optional.of(new Element(number, "-")));
+
+            AtomicInteger loads = new AtomicInteger();
+            cache.get(Element.class, Element.NUMBER, 2, () -> {
+                loads.incrementAndGet();
+                return Optional.of(new Element(2, "-"));
+            });
+            assertEquals(1, loads.get());
+            assertTrue(stats(cache, "Element").evictions() >= 1);
+            assertEquals(2, stats(cache, "Element").size());
+        }
+
+        @DisplayName("entry loaded while the region is invalidated is not cached")
+        @Test
+        public void get_test4() {
+            ReferenceCache cache = new ReferenceCache(10);
+
+            cache.get(Player.class, Player.NAME, "-get-test4-", () -> {
+                cache.invalidate(Player.class);
+                return Optional.of(new Player("-get-test4-", false));
+            });
+            assertEquals(0, stats(cache, "Player").size());
+        }
+    }
+
+    @Nested
+    @DisplayName("GetAll")
+    public class GetAll {
+
+        @DisplayName("only entries that are not cached are loaded")
+        @Test
+        public void getAll_test1() {
+            ReferenceCache cache = new ReferenceCache(10);
+            cache.get(Player.class, Player.NAME, "a", () -> Optional.of(new Player("a", false)));
+            AtomicInteger loaded = new AtomicInteger();
+
+            Map<String, Player> players = cache.getAll(Player.class, Player.NAME, List.of("a", "b"), names -> {
+                loaded.addAndGet(names.size());
+                return names.stream().map(name -> new Player(name, false)).toList();
+            }, Player::getName);
+
+            assertEquals(1, loaded.get());
+            assertEquals(Set.of("a", "b"), players.keySet());
+        }
+    }
+
+    @Nested
+    @DisplayName("Invalidate")
+    public class Invalidate {
+
+        @DisplayName("invalidating players also clears the accounts that hold them")
+        @Test
+        public void invalidate_test1() {
+            ReferenceCache cache = new ReferenceCache(10);
+            cache.get(Account.class, Account.NUMBER, "a", () -> Optional.of(new Account()));
+            cache.get(Element.class, Element.NUMBER, 1, () -> Optional.of(new Element()));
+            cache.invalidate(Player.class);
+
+            assertEquals(0, stats(cache, "Account").size());
+            assertEquals(1, stats(cache, "Element").size());
+            assertEquals(1, stats(cache, "Account").invalidations());
+        }
+
+        @DisplayName("renamed player is seen through a cached account")
+        @Test
+        public void invalidate_test2() {
+            assert aSvc.findByNumber("1000").getPlayer().getName().equals("Chase Bank");
+            Player player = pSvc.findByName("Chase Bank");
+            player.setName("-invalidate-test2-");
+            pSvc.save(player);
+            String name = aSvc.findByNumber("1000").getPlayer().getName();
+            player.setName("Chase Bank");
+            pSvc.save(player);
+
+            assertEquals("-invalidate-test2-", name);
+            assertEquals("Chase Bank", aSvc.findByNumber("1000").getPlayer().getName());
+        }
+    }
+}
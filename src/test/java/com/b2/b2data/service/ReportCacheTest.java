@@ -0,0 +1,243 @@
+package com.b2.b2data.service;
+
+import com.b2.b2data.domain.Account;
+import com.b2.b2data.domain.Transaction;
+import com.b2.b2data.domain.TransactionLine;
+import com.b2.b2data.dto.TransactionDTO;
+import com.b2.b2data.dto.TransactionLineDTO;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ReportCacheTest {
+
+    @Autowired
+    private ReportCache reports;
+
+    @Autowired
+    private LedgerVersionService versions;
+
+    @Autowired
+    private TransactionService tSvc;
+
+    @Autowired
+    private TransactionLineService lSvc;
+
+    @Autowired
+    private AccountService aSvc;
+
+    private List<Transaction> initialState;
+
+    @BeforeAll
+    private void setup() {
+        initialState = tSvc.findAll();
+        assert initialState.size() == 12;
+    }
+
+    @BeforeEach
+    private void verifyDataReset() {
+        assert tSvc.findAll().equals(initialState);
+    }
+
+    /**
+     * Creates the filter parameters of the lines of the given account between the given dates
+     *
+     * @param accountNumber An account number, or null for any account
+     * @param from A minimum bounding date, or null for no minimum
+     * @param to A maximum bounding date, or null for no maximum
+     * @return A line query
+     */
+    private static ReportCache.LineQuery lines(String accountNumber, LocalDate from, LocalDate to) {
+        return new ReportCache.LineQuery(null, accountNumber, null, null, null, from, to);
+    }
+
+    /**
+     * Gets the result of the given query from the given cache, counting the loads
+     *
+     * @param cache A report cache
+     * @param query A query
+     * @param loads The number of times the result was loaded
+     * @return The result of the query
+     */
+    private static List<String> get(ReportCache cache, ReportCache.Query query, AtomicInteger loads) {
+        return cache.get(query, () -> {
+            loads.incrementAndGet();
+            return List.of(query.toString());
+        });
+    }
+
+    /**
+     * Finds the statistics of the given region
+     *
+     * @param cache A report cache
+     * @param region A region name
+     * @return The statistics of the region
+     */
+    private static ReferenceCache.Stats stats(ReportCache cache, String region) {
+        return cache.stats().stream().filter(stats -> stats.region().equals(region)).findFirst().orElseThrow();
+    }
+
+    @Nested
+    @DisplayName("Get")
+    public class Get {
+
+        @DisplayName("result is loaded once and then answered from the cache, unmodifiable")
+        @Test
+        public void get_test1() {
+            ReportCache cache = new ReportCache(10, 100, versions);
+            AtomicInteger loads = new AtomicInteger();
+
+            for (int i = 0; i < 3; i++)
+                get(cache, lines("1000", null, null), loads);
+
+            ReferenceCache.Stats stats = stats(cache, "TransactionLineReport");
+            assertEquals(1, loads.get());
+            assertEquals(2, stats.hits());
+            assertEquals(1, stats.misses());
+            assertThrows(UnsupportedOperationException.class,
+                    () -> get(cache, lines("1000", null, null), loads).add("-get-test1-"));
+        }
+
+        @DisplayName("results with more rows than the limit are not cached")
+        @Test
+        public void get_test2() {
+            ReportCache cache = new ReportCache(10, 1, versions);
+            cache.get(lines(null, null, null), () -> List.of(1, 2));
+            assertEquals(0, stats(cache, "TransactionLineReport").size());
+        }
+
+        @DisplayName("least recently used result is evicted once a region is full")
+        @Test
+        public void get_test3() {
+            ReportCache cache = new ReportCache(2, 100, versions);
+            AtomicInteger loads = new AtomicInteger();
+
+            for (String number : List.of("1000", "2000", "1000", "3000"))
+                get(cache, lines(number, null, null), loads);
+
+            assertEquals(3, loads.get());
+            get(cache, lines("1000", null, null), loads);
+            assertEquals(3, loads.get());
+            get(cache, lines("2000", null, null), loads);
+            assertEquals(4, loads.get());
+            assertEquals(2, stats(cache, "TransactionLineReport").evictions());
+        }
+
+        @DisplayName("line results are reloaded after an account is written, but transaction results are not")
+        @Test
+        public void get_test4() {
+            ReportCache cache = new ReportCache(10, 100, versions);
+            AtomicInteger lineLoads = new AtomicInteger();
+            AtomicInteger transactionLoads = new AtomicInteger();
+            ReportCache.TransactionQuery transactions = new ReportCache.TransactionQuery(null, null, null);
+
+            get(cache, lines("1000", null, null), lineLoads);
+            get(cache, transactions, transactionLoads);
+            versions.bump(Account.class);
+            get(cache, lines("1000", null, null), lineLoads);
+            get(cache, transactions, transactionLoads);
+
+            assertEquals(2, lineLoads.get());
+            assertEquals(1, transactionLoads.get());
+        }
+    }
+
+    @Nested
+    @DisplayName("Invalidate")
+    public class Invalidate {
+
+        @DisplayName("write evicts only the line results whose account and date range overlap it")
+        @Test
+        public void invalidate_test1() {
+            ReportCache cache = new ReportCache(10, 100, versions);
+            AtomicInteger loads = new AtomicInteger();
+            List<ReportCache.LineQuery> queries = List.of(
+                    lines("1000", null, null),
+                    lines("2000", null, null),
+                    lines(null, LocalDate.of(2022, 1, 1), LocalDate.of(2022, 1, 31)),
+                    lines(null, LocalDate.of(2022, 2, 1), null)
+            );
+            queries.forEach(query -> get(cache, query, loads));
+
+            cache.invalidate(ReportCache.LineQuery.class, List.of(
+                    new ReportCache.Touch(1, LocalDate.of(2022, 2, 15), LocalDate.of(2022, 2, 15), "1000", null)));
+
+            assertEquals(2, stats(cache, "TransactionLineReport").size());
+            queries.forEach(query -> get(cache, query, loads));
+            assertEquals(queries.size()+2, loads.get());
+        }
+
+        @DisplayName("write evicts only the transaction results whose date range overlaps it")
+        @Test
+        public void invalidate_test2() {
+            ReportCache cache = new ReportCache(10, 100, versions);
+            AtomicInteger loads = new AtomicInteger();
+            ReportCache.TransactionQuery january = new ReportCache.TransactionQuery(
+                    LocalDate.of(2022, 1, 1), LocalDate.of(2022, 1, 31), null);
+            ReportCache.TransactionQuery march = new ReportCache.TransactionQuery(
+                    LocalDate.of(2022, 3, 1), LocalDate.of(2022, 3, 31), "%");
+
+            get(cache, january, loads);
+            get(cache, march, loads);
+            cache.invalidate(ReportCache.TransactionQuery.class,
+                             List.of(ReportCache.Touch.of(1, LocalDate.of(2022, 3, 2))));
+            get(cache, january, loads);
+            get(cache, march, loads);
+
+            assertEquals(3, loads.get());
+        }
+
+        @DisplayName("saving a transaction keeps the reports of other accounts and evicts those of its accounts")
+        @Test
+        public void invalidate_test3() {
+            List<TransactionLineDTO> checking = lSvc.findAllDtos(null, "1000", null, null, null, null, null);
+            List<TransactionLineDTO> savings = lSvc.findAllDtos(null, "1001", null, null, null, null, null);
+            List<TransactionDTO> transactions = tSvc.findAllDtos(null, null, null);
+
+            List<TransactionLine> lines = List.of(
+                    new TransactionLine(null, null, aSvc.findByNumber("1001"), 25.0),
+                    new TransactionLine(null, null, aSvc.findByNumber("5000"), -25.0)
+            );
+            Transaction transaction = tSvc.save(new Transaction(LocalDate.of(2022, 6, 1), "-invalidate-test3-"), lines);
+
+            try {
+                long hits = stats(reports, "TransactionLineReport").hits();
+                assertSame(checking, lSvc.findAllDtos(null, "1000", null, null, null, null, null));
+                assertEquals(hits+1, stats(reports, "TransactionLineReport").hits());
+
+                assertEquals(savings.size()+1, lSvc.findAllDtos(null, "1001", null, null, null, null, null).size());
+                assertEquals(transactions.size()+1, tSvc.findAllDtos(null, null, null).size());
+            } finally {
+                tSvc.delete(transaction);
+            }
+            assertEquals(savings, lSvc.findAllDtos(null, "1001", null, null, null, null, null));
+            assertEquals(transactions, tSvc.findAllDtos(null, null, null));
+        }
+
+        @DisplayName("reconciling the lines of an account evicts its reports")
+        @Test
+        public void invalidate_test4() {
+            Account account = aSvc.findByNumber("1000");
+            List<TransactionLineDTO> unreconciled = lSvc.findAllDtos(null, "1000", null, null, false, null, null);
+            assertFalse(unreconciled.isEmpty());
+
+            try {
+                lSvc.reconcile(account, null, null, LocalDate.of(2022, 12, 31));
+                assertTrue(lSvc.findAllDtos(null, "1000", null, null, false, null, null).isEmpty());
+            } finally {
+                lSvc.reconcile(unreconciled.stream().map(TransactionLineDTO::getId).toList(), null);
+            }
+            assertEquals(unreconciled, lSvc.findAllDtos(null, "1000", null, null, false, null, null));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.b2.b2data.service;
+
+import com.b2.b2data.repository.TrialBalanceRow;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ReportServiceTest {
+
+    @Autowired
+    private ReportService svc;
+
+    @Nested
+    @DisplayName("TrialBalance")
+    public class TrialBalance {
+
+        @DisplayName("trial balance includes only accounts with activity on or before the date")
+        @ParameterizedTest
+        @MethodSource("trialBalance_test1_generator")
+        public void trialBalance_test1(LocalDate asOf, List<String> accountNumbers) {
+            List<String> actual = svc.trialBalance(asOf).stream().map(TrialBalanceRow::getAccountNumber).toList();
+            assertEquals(accountNumbers, actual);
+        }
+
+        private static Stream<Arguments> trialBalance_test1_generator() {
+            return Stream.of(
+                    Arguments.of(LocalDate.parse("2021-12-31"), List.of()),
+                    Arguments.of(LocalDate.parse("2022-01-31"), List.of("1000", "5000")),
+                    Arguments.of(LocalDate.parse("2022-02-28"), List.of("1000", "1001", "5000", "5001")),
+                    Arguments.of(LocalDate.parse("2022-12-31"), List.of("1000", "1001", "4000", "4001", "5000", "5001")),
+                    Arguments.of(null, List.of("1000", "1001", "4000", "4001", "5000", "5001"))
+            );
+        }
+
+        @DisplayName("trial balance sums the debit and credit amounts of each account")
+        @ParameterizedTest
+        @MethodSource("trialBalance_test2_generator")
+        public void trialBalance_test2(String accountNumber, int elementNumber, double debit, double credit) {
+            TrialBalanceRow row = svc.trialBalance(LocalDate.parse("2022-12-31"))
+                                     .stream()
+                                     .filter(r -> r.getAccountNumber().equals(accountNumber))
+                                     .findFirst()
+                                     .orElseThrow();
+            assertEquals(elementNumber, row.getElementNumber());
+            assertEquals(debit, row.getDebit());
+            assertEquals(credit, row.getCredit());
+        }
+
+        private static Stream<Arguments> trialBalance_test2_generator() {
+            return Stream.of(
+                    Arguments.of("1000", 1, 300.0, 5775.0),
+                    Arguments.of("1001", 1, 400.0, 600.0),
+                    Arguments.of("4000", 4, 0.0, 300.0),
+                    Arguments.of("4001", 4, 0.0, 400.0),
+                    Arguments.of("5000", 5, 5775.0, 0.0),
+                    Arguments.of("5001", 5, 600.0, 0.0)
+            );
+        }
+
+        @DisplayName("total debits equal total credits")
+        @Test
+        public void trialBalance_test3() {
+            List<TrialBalanceRow> rows = svc.trialBalance(null);
+            double debit = rows.stream().mapToDouble(TrialBalanceRow::getDebit).sum();
+            double credit = rows.stream().mapToDouble(TrialBalanceRow::getCredit).sum();
+            assertEquals(debit, credit);
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.b2.b2data.service;
+
+import com.b2.b2data.domain.Transaction;
+import com.b2.b2data.domain.TransactionLine;
+import com.b2.b2data.dto.StatementTemplateDTO;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.validation.ValidationException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class StatementImportServiceTest {
+
+    // imported rows are dated in a year without test data, so that they are easy to find and remove
+    private static final LocalDate FROM = LocalDate.of(1999,1,1);
+    private static final LocalDate TO = LocalDate.of(1999,12,31);
+
+    @Autowired
+    private StatementImportService svc;
+
+    @Autowired
+    private TransactionService tSvc;
+
+    @Autowired
+    private TransactionLineService lSvc;
+
+    @Autowired
+    private AccountService aSvc;
+
+    @Autowired
+    private PlayerService pSvc;
+
+    @Autowired
+    private LineFingerprintService fSvc;
+
+    private List<Transaction> initialState;
+
+    @BeforeAll
+    private void setup() {
+        initialState = tSvc.findAll();
+        assert initialState.size() == 12;
+    }
+
+    @BeforeEach
+    private void verifyDataReset() {
+        assert tSvc.findAll().equals(initialState);
+    }
+
+    /**
+     * Creates a template for statements with the columns date, memo, amount and player name
+     *
+     * @return A statement template
+     */
+    private static StatementTemplateDTO template() {
+        StatementTemplateDTO template = new StatementTemplateDTO();
+        template.setBankAccountNumber("99");
+        template.setOffsetAccountNumber("5000");
+        template.setDateColumn(0);
+        template.setMemoColumn(1);
+        template.setAmountColumn(2);
+        template.setPlayerNameColumn(3);
+        return template;
+    }
+
+    /**
+     * Creates a statement from the given text
+     *
+     * @param text A statement
+     * @return An input stream over the statement
+     */
+    private static InputStream statement(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Waits for the given import to finish
+     *
+     * @param statementImport An import
+     * @return The finished import
+     */
+    private static StatementImport await(StatementImport statementImport) throws InterruptedException {
+        for (int i = 0; i < 600 && !statementImport.isFinished(); i++)
+            Thread.sleep(50);
+
+        assert statementImport.isFinished();
+        return statementImport;
+    }
+
+    /**
+     * Finds and deletes all imported transactions
+     *
+     * @return The imported transactions sorted by memo ascending
+     */
+    private List<Transaction> deleteImported() {
+        List<Transaction> imported = tSvc.findAll(FROM, TO, null);
+        imported.forEach(tSvc::delete);
+        return imported.stream().sorted(Comparator.comparing(Transaction::getMemo)).toList();
+    }
+
+    @Nested
+    @DisplayName("Submit")
+    public class Submit {
+
+        @DisplayName("can import all rows of a statement, skipping its header")
+        @Test
+        public void submit_test1() throws IOException, InterruptedException {
+            String text = """
+                    Date,Description,Amount,Payee
+                    1999-01-05,-submit-test1-a-,-25.50,Walmart
+                    1999-01-06,-submit-test1-b-,100,
+                    """;
+
+            StatementImport statementImport = await(svc.submit(statement(text), template()));
+            List<Transaction> imported = deleteImported();
+
+            assertEquals(StatementImport.Status.COMPLETED, statementImport.getStatus());
+            assertEquals(2, statementImport.getRowsRead());
+            assertEquals(2, statementImport.getTransactionsCreated());
+            assertEquals(List.of("-submit-test1-a-", "-submit-test1-b-"),
+                    imported.stream().map(Transaction::getMemo).toList());
+        }
+
+        @DisplayName("bank line gets the amount and offset line gets its negation")
+        @Test
+        public void submit_test2() throws IOException, InterruptedException {
+            String text = "1999-01-05,-submit-test2-,\"(1,234.50)\",Walmart\r\n";
+            StatementTemplateDTO template = template();
+            template.setHeader(false);
+
+            await(svc.submit(statement(text), template));
+            int id = tSvc.findAll(FROM, TO, null).get(0).getId();
+            List<Double> amounts = lSvc.findAllByTransactionId(id).stream().map(TransactionLine::getAmount).toList();
+            deleteImported();
+
+            assertEquals(List.of(-1234.5, 1234.5), amounts);
+        }
+
+        @DisplayName("rows that cannot be imported are reported by line number without stopping the import")
+        @Test
+        public void submit_test3() throws IOException, InterruptedException {
+            String text = """
+                    Date,Description,Amount,Payee
+                    1999-01-05,-submit-test3-a-,10,
+                    not a date,-submit-test3-b-,10,
+                    1999-01-07,-submit-test3-c-,10,doesn't exist
+
+                    1999-01-09,-submit-test3-e-,10,
+                    1999-01-10,-submit-test3-f-
+                    """;
+
+            StatementImport statementImport = await(svc.submit(statement(text), template()));
+            List<Transaction> imported = deleteImported();
+
+            assertEquals(StatementImport.Status.COMPLETED, statementImport.getStatus());
+            assertEquals(5, statementImport.getRowsRead());
+            assertEquals(2, statementImport.getTransactionsCreated());
+            assertEquals(3, statementImport.getRowsFailed());
+            assertEquals(List.of("-submit-test3-a-", "-submit-test3-e-"),
+                    imported.stream().map(Transaction::getMemo).toList());
+
+            List<String> errors = statementImport.getErrors();
+            assertTrue(errors.stream().anyMatch(error -> error.startsWith("Line 3: ")));
+            assertTrue(errors.contains("Line 4: Player name='doesn't exist' does not exist."));
+            assertTrue(errors.contains("Line 7: Row has no column 2."));
+        }
+
+        @DisplayName("rows split across many segments and batches are each imported once")
+        @Test
+        public void submit_test4() throws IOException, InterruptedException {
+            StatementImportService smallSvc = new StatementImportService(tSvc, aSvc, pSvc, fSvc, 7, 64, 4);
+            StringBuilder text = new StringBuilder("Date,Description,Amount,Payee\n");
+
+            for (int i = 0; i < 100; i++)
+                text.append("1999-02-").append(10+i%10).append(",\"-submit-test4-, ").append(100+i).append("-\",1,\n");
+
+            StatementImport statementImport = await(smallSvc.submit(statement(text.toString()), template()));
+            smallSvc.shutdown();
+            List<Transaction> imported = deleteImported();
+
+            assertEquals(100, statementImport.getRowsRead());
+            assertEquals(100, statementImport.getTransactionsCreated());
+            assertEquals(statementImport.getBytesTotal(), statementImport.getBytesRead());
+            assertEquals(100, imported.stream().map(Transaction::getMemo).distinct().count());
+            assertEquals("-submit-test4-, 100-", imported.get(0).getMemo());
+        }
+
+        @DisplayName("re-importing a statement skips the rows already imported, but not identical rows within it")
+        @Test
+        public void submit_test7() throws IOException, InterruptedException {
+            String first = """
+                    Date,Description,Amount,Payee
+                    1999-04-01,-submit-test7-a-,12.5,
+                    1999-04-01,-submit-test7-a-,12.5,
+                    1999-04-02,-submit-test7-b-,20,
+                    """;
+            String overlapping = first + "1999-04-03,-submit-test7-c-,30,\n";
+
+            StatementImport firstImport = await(svc.submit(statement(first), template()));
+            StatementImport secondImport = await(svc.submit(statement(overlapping), template()));
+            List<Transaction> imported = deleteImported();
+
+            assertEquals(3, firstImport.getTransactionsCreated());
+            assertEquals(0, firstImport.getRowsDuplicate());
+            assertEquals(1, secondImport.getTransactionsCreated());
+            assertEquals(3, secondImport.getRowsDuplicate());
+            assertEquals(List.of("Line 2", "Line 3", "Line 4"), secondImport.getDuplicates());
+            assertEquals(4, imported.size());
+        }
+
+        @DisplayName("duplicates are imported and reported when they are not skipped")
+        @Test
+        public void submit_test8() throws IOException, InterruptedException {
+            String text = "Date,Description,Amount,Payee\n1999-04-05,-submit-test8-,7,\n";
+            StatementTemplateDTO template = template();
+            template.setSkipDuplicates(false);
+
+            await(svc.submit(statement(text), template));
+            StatementImport statementImport = await(svc.submit(statement(text), template));
+            List<Transaction> imported = deleteImported();
+
+            assertEquals(1, statementImport.getTransactionsCreated());
+            assertEquals(1, statementImport.getRowsDuplicate());
+            assertEquals(2, imported.size());
+        }
+
+        @DisplayName("rows after a row that is too long keep their line numbers")
+        @Test
+        public void submit_test9() throws IOException, InterruptedException {
+            String text = "Date,Description,Amount,Payee\n" +
+                    "1999-03-05,-submit-test9-a-,10,\n" +
+                    "1999-03-06,"+"x".repeat(70_000)+",10,\n" +
+                    "not a date,-submit-test9-c-,10,\n" +
+                    "1999-03-08,-submit-test9-d-,10,\n";
+
+            StatementImport statementImport = await(svc.submit(statement(text), template()));
+            List<Transaction> imported = deleteImported();
+
+            assertEquals(4, statementImport.getRowsRead());
+            assertEquals(2, statementImport.getRowsFailed());
+            assertEquals(List.of("-submit-test9-a-", "-submit-test9-d-"),
+                    imported.stream().map(Transaction::getMemo).toList());
+
+            List<String> errors = statementImport.getErrors();
+            assertTrue(errors.contains("Line 3: Row is longer than 65536 bytes."));
+            assertTrue(errors.stream().anyMatch(error -> error.startsWith("Line 4: ")));
+        }
+
+        @DisplayName("rows straddling segment boundaries keep their line numbers, even after a row that is too long")
+        @Test
+        public void submit_test10() throws IOException, InterruptedException {
+            StatementImportService smallSvc = new StatementImportService(tSvc, aSvc, pSvc, fSvc, 7, 16, 4);
+            String text = "Date,Description,Amount,Payee\n" +
+                    "1999-03-15,-submit-test10-a-,10,\n" +
+                    "not a date,-submit-test10-b-,10,\n" +
+                    "1999-03-17,"+"x".repeat(70_000)+",10,\n" +
+                    "1999-03-18,-submit-test10-d-,10,\n" +
+                    "1999-03-19,-submit-test10-e-\n" +
+                    "1999-03-20,-submit-test10-f-,10,\n";
+
+            StatementImport statementImport = await(smallSvc.submit(statement(text), template()));
+            smallSvc.shutdown();
+            List<Transaction> imported = deleteImported();
+
+            assertEquals(6, statementImport.getRowsRead());
+            assertEquals(3, statementImport.getRowsFailed());
+            assertEquals(List.of("-submit-test10-a-", "-submit-test10-d-", "-submit-test10-f-"),
+                    imported.stream().map(Transaction::getMemo).toList());
+
+            List<String> errors = statementImport.getErrors();
+            assertTrue(errors.stream().anyMatch(error -> error.startsWith("Line 3: ")));
+            assertTrue(errors.contains("Line 4: Row is longer than 65536 bytes."));
+            assertTrue(errors.contains("Line 6: Row has no column 2."));
+        }
+
+        @DisplayName("template with an invalid delimiter or date format throws ValidationException")
+        @ParameterizedTest
+        @ValueSource(strings = {";;", "yyyy-MM-ddQQQQQQ"})
+        public void submit_test5(String value) {
+            StatementTemplateDTO template = template();
+
+            if (value.contains(";"))
+                template.setDelimiter(value);
+            else
+                template.setDateFormat(value);
+
+            assertThrows(ValidationException.class, () -> svc.submit(statement(""), template));
+        }
+
+        @DisplayName("template without an offset account throws ValidationException")
+        @Test
+        public void submit_test6() {
+            StatementTemplateDTO template = template();
+            template.setOffsetAccountNumber(null);
+            assertThrows(ValidationException.class, () -> svc.submit(statement(""), template));
+        }
+    }
+
+    @Nested
+    @DisplayName("FindById")
+    public class FindById {
+
+        @DisplayName("can find a submitted import by id")
+        @Test
+        public void findById_test1() throws IOException, InterruptedException {
+            StatementImport statementImport = await(svc.submit(statement(""), template()));
+            assertSame(statementImport, svc.findById(statementImport.getId()));
+        }
+
+        @DisplayName("non-existent id throws NoSuchElementException")
+        @Test
+        public void findById_test2() {
+            assertThrows(NoSuchElementException.class, () -> svc.findById(-1));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.b2.b2data.service;
+
+import com.b2.b2data.domain.Account;
+import com.b2.b2data.domain.Transaction;
+import com.b2.b2data.domain.TransactionLine;
+import com.b2.b2data.repository.TransactionLineRepository;
+import com.b2.b2data.repository.TransactionRepository;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the latency and allocation of {@link TransactionLineService#findAll(Integer, String, String, String,
+ * Boolean, LocalDate, LocalDate)} with the previous implementation, which sorted by transaction in the database
+ * and then re-sorted the whole result by transaction date in memory.
+ * <br/><br/>
+ * Not part of the regular test run. Run with:
+ * <br/><br/>
+ * mvn test -Dtest=TransactionLineServiceBenchmark -Dbenchmark.transactions=10000
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TransactionLineServiceBenchmark {
+
+    private static final int TRANSACTIONS = Integer.getInteger("benchmark.transactions", 10000);
+    private static final int WARMUP_ITERATIONS = Integer.getInteger("benchmark.warmup", 3);
+    private static final int ITERATIONS = Integer.getInteger("benchmark.iterations", 5);
+
+    @Autowired
+    private TransactionLineService svc;
+
+    @Autowired
+    private AccountService aSvc;
+
+    @Autowired
+    private TransactionRepository tRepo;
+
+    @Autowired
+    private TransactionLineRepository lRepo;
+
+    private List<Transaction> transactions;
+    private List<TransactionLine> lines;
+
+    @BeforeAll
+    private void setup() {
+        // lines are written directly through the repositories, so the balance store is left untouched
+        Account debit = aSvc.findByNumber("5001");
+        Account credit = aSvc.findByNumber("1000");
+        Random random = new Random(42);
+
+        transactions = new ArrayList<>(TRANSACTIONS);
+
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            LocalDate date = LocalDate.of(2000, 1, 1).plusDays(random.nextInt(365 * 20));
+            transactions.add(new Transaction(date, "-benchmark-"));
+        }
+        transactions = (List<Transaction>) tRepo.saveAll(transactions);
+        lines = new ArrayList<>(TRANSACTIONS * 2);
+
+        for (Transaction transaction : transactions) {
+            double amount = random.nextInt(100000) / 100.0 + 0.01;
+            lines.add(new TransactionLine(transaction, 1, debit, amount));
+            lines.add(new TransactionLine(transaction, 2, credit, -amount));
+        }
+        lRepo.saveAll(lines);
+    }
+
+    @AfterAll
+    private void teardown() {
+        lRepo.deleteAll(lines);
+        tRepo.deleteAll(transactions);
+    }
+
+    @DisplayName("database ordering versus in-memory re-sort")
+    @Test
+    public void findAll_benchmark() {
+        Result before = measure(() ->
+                lRepo.findAll(Specification.where(null), Sort.by(TransactionLine.TRANSACTION).descending())
+                     .stream()
+                     .sorted((a,b) -> b.getTransaction().getDate().compareTo(a.getTransaction().getDate()))
+                     .toList()
+        );
+        Result after = measure(() -> svc.findAll(null, null, null, null, null, null, null));
+
+        System.out.printf("%nTransactionLineService.findAll benchmark (%d lines, %d iterations)%n",
+                before.rows, ITERATIONS);
+        System.out.printf("  before (sql sort by transaction + in-memory re-sort): %8.1f ms  %10.1f MB%n",
+                before.millis, before.megabytes);
+        System.out.printf("  after  (sql sort by date, transaction id, line id):   %8.1f ms  %10.1f MB%n%n",
+                after.millis, after.megabytes);
+
+        assertEquals(before.rows, after.rows);
+    }
+
+    /**
+     * Runs the given query repeatedly and measures its average latency and allocation on the current thread
+     *
+     * @param query A query returning a list of transaction lines
+     * @return The average results of the query
+     */
+    private Result measure(Supplier<List<TransactionLine>> query) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int rows = 0;
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++)
+            rows = query.get().size();
+
+        long bytes = threads.getThreadAllocatedBytes(threadId);
+        long nanos = System.nanoTime();
+
+        for (int i = 0; i < ITERATIONS; i++)
+            rows = query.get().size();
+
+        nanos = System.nanoTime() - nanos;
+        bytes = threads.getThreadAllocatedBytes(threadId) - bytes;
+
+        return new Result(rows, nanos / 1e6 / ITERATIONS, bytes / 1e6 / ITERATIONS);
+    }
+
+    /**
+     * The average results of a benchmarked query
+     *
+     * @param rows The number of rows returned by the query
+     * @param millis The average latency of the query in milliseconds
+     * @param megabytes The average number of megabytes allocated by the query
+     */
+    private record Result(int rows, double millis, double megabytes) {
+    }
+}
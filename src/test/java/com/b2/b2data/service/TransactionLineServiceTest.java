@@ -1,16 +1,21 @@
 package com.b2.b2data.service;
 
 import com.b2.b2data.domain.*;
+import com.b2.b2data.dto.TransactionLineDTO;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
+import javax.validation.ValidationException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.stream.Stream;
 
@@ -354,6 +359,202 @@ public class TransactionLineServiceTest {
             int count = svc.findAll(null, null, null, null, null, null, null).size();
             assertEquals(initialState.size(), count);
         }
+
+        @DisplayName("lines with the same transaction date are ordered by transaction id desc, then line id asc")
+        @Test
+        public void findAllParams_test10() {
+            List<String> ids = svc.findAll(null, null, null, null, null, LocalDate.of(2022,8,31), LocalDate.of(2022,8,31))
+                                  .stream()
+                                  .map(line -> line.getTransaction().getId()+"-"+line.getLineId())
+                                  .toList();
+
+            assertEquals(List.of("8-1", "8-2", "7-1", "7-2"), ids);
+        }
+    }
+
+    @Nested
+    @DisplayName("FindAllDtos")
+    public class FindAllDtos {
+
+        @DisplayName("projected DTOs match the DTOs of the found transaction lines, in the same order")
+        @ParameterizedTest
+        @MethodSource("findAllDtos_test1_generator")
+        public void findAllDtos_test1(Integer transactionId, String accountNumber, String playerName,
+                                      String memoPattern, Boolean isReconciled, LocalDate from, LocalDate to) {
+
+            List<TransactionLineDTO> expected =
+                    svc.findAll(transactionId, accountNumber, playerName, memoPattern, isReconciled, from, to)
+                       .stream()
+                       .map(TransactionLineDTO::new)
+                       .toList();
+
+            List<TransactionLineDTO> dtos =
+                    svc.findAllDtos(transactionId, accountNumber, playerName, memoPattern, isReconciled, from, to);
+
+            assertEquals(expected, dtos);
+        }
+
+        private static Stream<Arguments> findAllDtos_test1_generator() {
+            return Stream.of(
+                    Arguments.of(null, null, null, null, null, null, null),
+                    Arguments.of(1, null, null, null, null, null, null),
+                    Arguments.of(null, "1000", null, null, null, null, null),
+                    Arguments.of(null, null, "Walmart", null, null, null, null),
+                    Arguments.of(null, null, null, null, true, null, null),
+                    Arguments.of(null, null, null, null, null, LocalDate.of(2022,6,1), LocalDate.of(2022,8,31))
+            );
+        }
+
+        @DisplayName("projected pages match the pages of the found transaction lines, and carry their dates")
+        @ParameterizedTest
+        @ValueSource(ints = {1, 5, 26})
+        public void findAllDtos_test2(int limit) {
+            Cursor cursor = null;
+            List<TransactionLine> page;
+
+            do {
+                page = svc.findAll(null, null, null, null, null, null, null, cursor, limit);
+                List<TransactionLineDTO> dtos =
+                        svc.findAllDtos(null, null, null, null, null, null, null, cursor, limit);
+
+                assertEquals(page.stream().map(TransactionLineDTO::new).toList(), dtos);
+                assertEquals(page.stream().map(line -> line.getTransaction().getDate()).toList(),
+                             dtos.stream().map(TransactionLineDTO::getTransactionDate).toList());
+
+                if (!page.isEmpty())
+                    cursor = Cursor.of(page.get(page.size()-1));
+
+            } while (page.size() == limit);
+        }
+    }
+
+    @Nested
+    @DisplayName("FindAllPage")
+    public class FindAllPage {
+
+        @DisplayName("pages contain at most limit lines")
+        @ParameterizedTest
+        @ValueSource(ints = {1, 5, 26, 100})
+        public void findAllPage_test1(int limit) {
+            int count = svc.findAll(null, null, null, null, null, null, null, null, limit).size();
+            assertEquals(Math.min(limit, initialState.size()), count);
+        }
+
+        @DisplayName("following cursors visits every line once, in transaction date descending order")
+        @ParameterizedTest
+        @ValueSource(ints = {1, 3, 5, 25})
+        public void findAllPage_test2(int limit) {
+            List<TransactionLine> visited = new ArrayList<>();
+            Cursor cursor = null;
+            List<TransactionLine> page;
+
+            do {
+                page = svc.findAll(null, null, null, null, null, null, null, cursor, limit);
+                visited.addAll(page);
+
+                if (!page.isEmpty())
+                    cursor = Cursor.of(page.get(page.size()-1));
+
+            } while (page.size() == limit);
+
+            assertEquals(initialState.size(), visited.size());
+            assertEquals(
+                    initialState.size(),
+                    visited.stream()
+                           .map(line -> new TransactionLineId(line.getTransaction().getId(), line.getLineId()))
+                           .distinct()
+                           .count()
+            );
+
+            for (int i = 1; i < visited.size(); i++) {
+                TransactionLine a = visited.get(i-1);
+                TransactionLine b = visited.get(i);
+                assertFalse(a.getTransaction().getDate().isBefore(b.getTransaction().getDate()));
+            }
+        }
+
+        @DisplayName("filters are applied to each page")
+        @Test
+        public void findAllPage_test3() {
+            List<TransactionLine> page = svc.findAll(null, "5000", null, null, null, null, null, null, 3);
+            Cursor cursor = Cursor.of(page.get(2));
+            List<TransactionLine> next = svc.findAll(null, "5000", null, null, null, null, null, cursor, 100);
+
+            assertEquals(3, page.size());
+            assertEquals(svc.findAllByAccountNumber("5000").size() - 3, next.size());
+            assertTrue(next.stream().allMatch(line -> line.getAccount().getNumber().equals("5000")));
+        }
+
+        @DisplayName("cursor that does not point to a line throws ValidationException")
+        @Test
+        public void findAllPage_test4() {
+            Cursor cursor = new Cursor(LocalDate.of(2022,1,31), 1, null);
+            assertThrows(ValidationException.class,
+                    () -> svc.findAll(null, null, null, null, null, null, null, cursor, 5));
+        }
+    }
+
+    @Nested
+    @DisplayName("ForEach")
+    public class ForEach {
+
+        @DisplayName("visits the same lines in the same order as paging")
+        @Test
+        public void forEach_test1() {
+            List<TransactionLineId> visited = new ArrayList<>();
+            svc.forEach(null, null, null, null, null, null, null,
+                    line -> visited.add(new TransactionLineId(line.getTransaction().getId(), line.getLineId())));
+
+            List<TransactionLineId> expected =
+                    svc.findAll(null, null, null, null, null, null, null, null, 100)
+                       .stream()
+                       .map(line -> new TransactionLineId(line.getTransaction().getId(), line.getLineId()))
+                       .toList();
+
+            assertEquals(expected, visited);
+        }
+
+        @DisplayName("can visit all lines by account number")
+        @ParameterizedTest
+        @ValueSource(strings = {"1000", "5000", "99"})
+        public void forEach_test2(String accountNumber) {
+            List<TransactionLine> visited = new ArrayList<>();
+            svc.forEach(null, accountNumber, null, null, null, null, null, visited::add);
+            assertEquals(svc.findAllByAccountNumber(accountNumber).size(), visited.size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Uncleared")
+    public class Uncleared {
+
+        @DisplayName("can sum cleared and uncleared lines of an account as of a date")
+        @Test
+        public void uncleared_test1() {
+            Account account = aSvc.findByNumber("1000");
+            LocalDate asOf = LocalDate.of(2022,6,30);
+            assertEquals(125.0, svc.sumCleared(account, asOf));
+            assertEquals(-1100.0, svc.sumUncleared(account, asOf));
+        }
+
+        @DisplayName("sums are zero for an account without lines")
+        @Test
+        public void uncleared_test2() {
+            Account account = aSvc.findByNumber("99");
+            LocalDate asOf = LocalDate.of(2022,12,31);
+            assertEquals(0.0, svc.sumCleared(account, asOf));
+            assertEquals(0.0, svc.sumUncleared(account, asOf));
+        }
+
+        @DisplayName("uncleared lines match the uncleared total")
+        @Test
+        public void uncleared_test3() {
+            Account account = aSvc.findByNumber("1000");
+            LocalDate asOf = LocalDate.of(2022,3,31);
+            List<TransactionLineDTO> lines = svc.findUnclearedDtos(account.getNumber(), asOf);
+            assertEquals(svc.sumUncleared(account, asOf),
+                    lines.stream().mapToDouble(TransactionLineDTO::getAmount).sum());
+        }
     }
 
     @Nested
@@ -420,4 +621,150 @@ public class TransactionLineServiceTest {
             assertThrows(NoSuchElementException.class, () -> svc.findById(new TransactionLineId(tranId, lineId)));
         }
     }
+
+    @Nested
+    @DisplayName("UpdateDetails")
+    public class UpdateDetails {
+
+        /**
+         * Finds a transaction line with its account and player loaded
+         *
+         * @param id A transaction line id
+         * @return The transaction line with the given id
+         */
+        private TransactionLine find(TransactionLineId id) {
+            return svc.findAllByTransactionId(id.getTransactionId()).stream()
+                      .filter(line -> line.getLineId().equals(id.getLineId()))
+                      .findFirst()
+                      .orElseThrow();
+        }
+
+        @DisplayName("can update the player, memo and reconciled date of one line")
+        @Test
+        public void updateDetails_test1() {
+            TransactionLineId id = new TransactionLineId(4, 1);
+            TransactionLine original = find(id);
+            svc.updateDetails(id, pSvc.findByName("Costco"), "-update-details-test1-", LocalDate.of(2023,1,15));
+            TransactionLine updated = find(id);
+            svc.updateDetails(id, original.getPlayer(), original.getMemo(), original.getDateReconciled());
+
+            assertEquals("Costco", updated.getPlayer().getName());
+            assertEquals("-update-details-test1-", updated.getMemo());
+            assertEquals(LocalDate.of(2023,1,15), updated.getDateReconciled());
+            assertEquals(original.getAmount(), updated.getAmount());
+            assertEquals(original.getAccount(), updated.getAccount());
+        }
+
+        @DisplayName("null values clear the player, memo and reconciled date")
+        @Test
+        public void updateDetails_test2() {
+            TransactionLineId id = new TransactionLineId(1, 3);
+            TransactionLine original = find(id);
+            svc.updateDetails(id, null, null, null);
+            TransactionLine updated = find(id);
+            svc.updateDetails(id, original.getPlayer(), original.getMemo(), original.getDateReconciled());
+
+            assertNull(updated.getPlayer());
+            assertNull(updated.getMemo());
+            assertNull(updated.getDateReconciled());
+        }
+
+        @DisplayName("non-existent line throws NoSuchElementException")
+        @Test
+        public void updateDetails_test3() {
+            assertThrows(NoSuchElementException.class,
+                    () -> svc.updateDetails(new TransactionLineId(4, 99), null, "-update-details-test3-", null));
+        }
+
+        @DisplayName("only the given details are updated")
+        @Test
+        public void updateDetails_test4() {
+            TransactionLineId id = new TransactionLineId(1, 3);
+            TransactionLine original = find(id);
+            svc.updateDetails(id, Map.of(TransactionLine.MEMO, "-update-details-test4-"));
+            TransactionLine updated = find(id);
+            svc.updateDetails(id, original.getPlayer(), original.getMemo(), original.getDateReconciled());
+
+            assertEquals("-update-details-test4-", updated.getMemo());
+            assertEquals(original.getPlayer(), updated.getPlayer());
+            assertEquals(original.getDateReconciled(), updated.getDateReconciled());
+        }
+
+        @DisplayName("attribute other than the player, memo or reconciled date throws ValidationException")
+        @Test
+        public void updateDetails_test5() {
+            assertThrows(ValidationException.class,
+                    () -> svc.updateDetails(new TransactionLineId(1, 3), Map.of(TransactionLine.AMOUNT, 1.0)));
+        }
+    }
+
+    @Nested
+    @DisplayName("Reconcile")
+    public class Reconcile {
+
+        private final LocalDate DATE = LocalDate.of(2023,1,15);
+
+        @DisplayName("can reconcile and unreconcile lines by id")
+        @Test
+        public void reconcile_test1() {
+            List<TransactionLineId> ids = List.of(new TransactionLineId(5, 2), new TransactionLineId(6, 2));
+            int updated = svc.reconcile(ids, DATE);
+            List<LocalDate> dates = ids.stream().map(id -> svc.findById(id).getDateReconciled()).toList();
+            svc.reconcile(ids, null);
+            assertEquals(2, updated);
+            assertEquals(List.of(DATE, DATE), dates);
+        }
+
+        @DisplayName("non-existent line id throws NoSuchElementException and reconciles no line")
+        @Test
+        public void reconcile_test2() {
+            TransactionLineId id = new TransactionLineId(5, 2);
+            assertThrows(NoSuchElementException.class,
+                    () -> svc.reconcile(List.of(id, new TransactionLineId(5, 99)), DATE));
+            assertNull(svc.findById(id).getDateReconciled());
+        }
+
+        @DisplayName("no line ids or an incomplete line id throws ValidationException")
+        @Test
+        public void reconcile_test3() {
+            assertThrows(ValidationException.class, () -> svc.reconcile(List.of(), DATE));
+            assertThrows(ValidationException.class,
+                    () -> svc.reconcile(List.of(new TransactionLineId(5, null)), DATE));
+        }
+
+        @DisplayName("can reconcile the unreconciled lines of an account within a date range")
+        @Test
+        public void reconcile_test4() {
+            int updated = svc.reconcile(aSvc.findByNumber("1000"), LocalDate.of(2022,5,1),
+                                        LocalDate.of(2022,8,31), DATE);
+            List<TransactionLine> reconciled = svc.findAll(null, "1000", null, null, true, null, null).stream()
+                    .filter(line -> DATE.equals(line.getDateReconciled())).toList();
+            svc.reconcile(reconciled.stream()
+                    .map(line -> new TransactionLineId(line.getTransaction().getId(), line.getLineId()))
+                    .toList(), null);
+            assertEquals(4, updated);
+            assertEquals(List.of(8, 7, 6, 5),
+                    reconciled.stream().map(line -> line.getTransaction().getId()).toList());
+        }
+
+        @DisplayName("lines that are already reconciled keep their reconciliation date")
+        @Test
+        public void reconcile_test5() {
+            int updated = svc.reconcile(aSvc.findByNumber("1000"), null, null, DATE);
+            List<TransactionLine> reconciled = svc.findAll(null, "1000", null, null, true, null, null);
+            svc.reconcile(reconciled.stream()
+                    .filter(line -> DATE.equals(line.getDateReconciled()))
+                    .map(line -> new TransactionLineId(line.getTransaction().getId(), line.getLineId()))
+                    .toList(), null);
+            assertEquals(7, updated);
+            assertEquals(9, reconciled.size());
+            assertEquals(LocalDate.of(2022,1,31), svc.findById(new TransactionLineId(1, 4)).getDateReconciled());
+        }
+
+        @DisplayName("filter without a reconciliation date throws ValidationException")
+        @Test
+        public void reconcile_test6() {
+            assertThrows(ValidationException.class, () -> svc.reconcile(aSvc.findByNumber("1000"), null, null, null));
+        }
+    }
 }
@@ -2,6 +2,12 @@ package com.b2.b2data.service;
 
 import com.b2.b2data.domain.Transaction;
 import com.b2.b2data.domain.TransactionLine;
+import com.b2.b2data.domain.TransactionLineId;
+import com.b2.b2data.dto.TransactionDTO;
+import com.b2.b2data.dto.TransactionLineDTO;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -11,6 +17,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
+import javax.persistence.EntityManagerFactory;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -33,6 +40,12 @@ public class TransactionServiceTest {
     @Autowired
     private AccountService aSvc;
 
+    @Autowired
+    private AccountBalanceService bSvc;
+
+    @Autowired
+    private EntityManagerFactory emf;
+
     private List<Transaction> initialState;
 
     @BeforeAll
@@ -175,6 +188,82 @@ public class TransactionServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("FindAllPage")
+    public class FindAllPage {
+
+        @DisplayName("following cursors visits every transaction once, by date and id descending")
+        @ParameterizedTest
+        @ValueSource(ints = {1, 5, 12})
+        public void findAllPage_test1(int limit) {
+            List<Transaction> visited = new ArrayList<>();
+            Cursor cursor = null;
+            List<Transaction> page;
+
+            do {
+                page = svc.findAll(null, null, null, cursor, limit);
+                visited.addAll(page);
+
+                if (!page.isEmpty())
+                    cursor = Cursor.of(page.get(page.size()-1));
+
+            } while (page.size() == limit);
+
+            List<Integer> ids = visited.stream().map(Transaction::getId).toList();
+            assertEquals(List.of(12, 11, 10, 9, 8, 7, 6, 5, 4, 3, 2, 1), ids);
+        }
+
+        @DisplayName("filters are applied to each page")
+        @Test
+        public void findAllPage_test2() {
+            List<Transaction> page = svc.findAll(LocalDate.of(2022,6,1), null, null, null, 2);
+            List<Transaction> next = svc.findAll(LocalDate.of(2022,6,1), null, null, Cursor.of(page.get(1)), 100);
+
+            assertEquals(List.of(12, 11), page.stream().map(Transaction::getId).toList());
+            assertEquals(List.of(10, 9, 8, 7, 6), next.stream().map(Transaction::getId).toList());
+        }
+    }
+
+    @Nested
+    @DisplayName("FindAllDtos")
+    public class FindAllDtos {
+
+        @DisplayName("projected DTOs match the DTOs of the found transactions")
+        @ParameterizedTest
+        @MethodSource("findAllDtos_test1_generator")
+        public void findAllDtos_test1(LocalDate from, LocalDate to, String memo) {
+            List<TransactionDTO> expected = svc.findAll(from, to, memo).stream().map(TransactionDTO::new).toList();
+            assertEquals(expected, svc.findAllDtos(from, to, memo));
+        }
+
+        private static Stream<Arguments> findAllDtos_test1_generator() {
+            return Stream.of(
+                    Arguments.of(null, null, null),
+                    Arguments.of(LocalDate.of(2022,6,1), null, null),
+                    Arguments.of(null, LocalDate.of(2022,8,31), null),
+                    Arguments.of(null, null, "%a%")
+            );
+        }
+
+        @DisplayName("projected pages match the pages of the found transactions")
+        @ParameterizedTest
+        @ValueSource(ints = {1, 5, 12})
+        public void findAllDtos_test2(int limit) {
+            Cursor cursor = null;
+            List<Transaction> page;
+
+            do {
+                page = svc.findAll(null, null, null, cursor, limit);
+                List<TransactionDTO> dtos = svc.findAllDtos(null, null, null, cursor, limit);
+                assertEquals(page.stream().map(TransactionDTO::new).toList(), dtos);
+
+                if (!page.isEmpty())
+                    cursor = Cursor.of(page.get(page.size()-1));
+
+            } while (page.size() == limit);
+        }
+    }
+
     @Nested
     @DisplayName("Save")
     public class Save {
@@ -226,6 +315,257 @@ public class TransactionServiceTest {
             svc.save(transaction, originalLines);
             assertEquals(newLines.size(), savedLines.size());
         }
+
+        @DisplayName("new transaction and lines are inserted without first being selected")
+        @Test
+        public void save_test5() {
+            LocalDate date = LocalDate.of(2000,1,15);
+            String memo = "-save-test-5-";
+
+            // stores a balance and period for both accounts, so that only the line inserts differ below
+            svc.delete(svc.save(new Transaction(date, memo), newLines_save_test5()));
+            List<TransactionLine> lines = newLines_save_test5();
+
+            Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+            statistics.setStatisticsEnabled(true);
+            statistics.clear();
+
+            Transaction transaction = svc.save(new Transaction(date, memo), lines);
+            long statements = statistics.getPrepareStatementCount();
+
+            statistics.setStatisticsEnabled(false);
+            svc.delete(transaction);
+
+            // 1 transaction insert, 1 batch of 2 line inserts, 2 balance updates and 2 period updates
+            assertEquals(6, statements);
+        }
+
+        @DisplayName("changing one line updates only that line")
+        @Test
+        public void save_test6() {
+            int id = 1;
+            Transaction transaction = svc.findById(id);
+            List<TransactionLine> originalLines = lSvc.findAllByTransactionId(id);
+            List<TransactionLine> newLines = copyLines(originalLines);
+            newLines.get(1).setMemo("-save-test-6-");
+            assert originalLines.size() > 2;
+
+            EntityStatistics statistics = lineStatistics();
+            svc.save(transaction, newLines);
+            long updates = statistics.getUpdateCount();
+            long inserts = statistics.getInsertCount();
+            long deletes = statistics.getDeleteCount();
+            stopStatistics();
+
+            String memo = lSvc.findById(new TransactionLineId(id, 2)).getMemo();
+            svc.save(transaction, originalLines);
+
+            assertEquals("-save-test-6-", memo);
+            assertEquals(List.of(1L, 0L, 0L), List.of(updates, inserts, deletes));
+        }
+
+        @DisplayName("saving unchanged lines writes no lines")
+        @Test
+        public void save_test7() {
+            int id = 1;
+            Transaction transaction = svc.findById(id);
+            List<TransactionLine> lines = copyLines(lSvc.findAllByTransactionId(id));
+
+            EntityStatistics statistics = lineStatistics();
+            svc.save(transaction, lines);
+            long writes = statistics.getUpdateCount() + statistics.getInsertCount() + statistics.getDeleteCount();
+            stopStatistics();
+
+            assertEquals(0, writes);
+        }
+
+        @DisplayName("trailing lines are removed and added lines are inserted")
+        @Test
+        public void save_test8() {
+            int id = 1;
+            Transaction transaction = svc.findById(id);
+            List<TransactionLine> originalLines = lSvc.findAllByTransactionId(id);
+            List<TransactionLine> newLines = new ArrayList<>();
+            newLines.add(new TransactionLine(null, null, aSvc.findById(1), 1000.0));
+            newLines.add(new TransactionLine(null, null, aSvc.findById(1), -1000.0));
+
+            svc.save(transaction, newLines);
+            List<TransactionLine> shrunkLines = lSvc.findAllByTransactionId(id);
+
+            EntityStatistics statistics = lineStatistics();
+            svc.save(transaction, copyLines(originalLines));
+            long inserts = statistics.getInsertCount();
+            stopStatistics();
+
+            List<TransactionLine> restoredLines = lSvc.findAllByTransactionId(id);
+
+            assertEquals(2, shrunkLines.size());
+            assertEquals(originalLines.size()-2, inserts);
+            assertEquals(originalLines.stream().map(TransactionLineDTO::new).toList(),
+                         restoredLines.stream().map(TransactionLineDTO::new).toList());
+        }
+
+        @DisplayName("stored lines with a gap in their ids are matched by line id")
+        @Test
+        public void save_test9() {
+            Transaction transaction = svc.save(new Transaction(LocalDate.of(1999,6,1), "-save-test9-"), List.of(
+                    new TransactionLine(null, null, aSvc.findById(1), 100.0),
+                    new TransactionLine(null, null, aSvc.findById(1), 50.0),
+                    new TransactionLine(null, null, aSvc.findById(7), -150.0)
+            ));
+            lSvc.delete(lSvc.findAllByTransactionId(transaction.getId()).get(1));
+
+            svc.save(transaction, List.of(
+                    new TransactionLine(null, null, aSvc.findById(1), 10.0),
+                    new TransactionLine(null, null, aSvc.findById(1), 20.0),
+                    new TransactionLine(null, null, aSvc.findById(7), -30.0)
+            ));
+            List<TransactionLine> filledLines = lSvc.findAllByTransactionId(transaction.getId());
+
+            lSvc.delete(filledLines.get(1));
+            svc.save(transaction, List.of(
+                    new TransactionLine(null, null, aSvc.findById(1), 40.0),
+                    new TransactionLine(null, null, aSvc.findById(7), -40.0)
+            ));
+            List<TransactionLine> shrunkLines = lSvc.findAllByTransactionId(transaction.getId());
+            boolean balanced = bSvc.rebuild().isEmpty();
+            svc.delete(transaction);
+
+            assertEquals(List.of(1, 2, 3), filledLines.stream().map(TransactionLine::getLineId).toList());
+            assertEquals(List.of(10.0, 20.0, -30.0), filledLines.stream().map(TransactionLine::getAmount).toList());
+            assertEquals(List.of(1, 2), shrunkLines.stream().map(TransactionLine::getLineId).toList());
+            assertEquals(List.of(40.0, -40.0), shrunkLines.stream().map(TransactionLine::getAmount).toList());
+            assertTrue(balanced);
+        }
+
+        private List<TransactionLine> copyLines(List<TransactionLine> lines) {
+            List<TransactionLine> copies = new ArrayList<>();
+
+            for (TransactionLine line : lines) {
+                TransactionLine copy = new TransactionLine(null, null, line.getAccount(), line.getAmount());
+                copy.setPlayer(line.getPlayer());
+                copy.setMemo(line.getMemo());
+                copy.setDateReconciled(line.getDateReconciled());
+                copies.add(copy);
+            }
+            return copies;
+        }
+
+        private EntityStatistics lineStatistics() {
+            Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+            statistics.setStatisticsEnabled(true);
+            statistics.clear();
+            return statistics.getEntityStatistics(TransactionLine.class.getName());
+        }
+
+        private void stopStatistics() {
+            emf.unwrap(SessionFactory.class).getStatistics().setStatisticsEnabled(false);
+        }
+
+        private List<TransactionLine> newLines_save_test5() {
+            List<TransactionLine> lines = new ArrayList<>();
+            lines.add(new TransactionLine(null, null, aSvc.findById(1), 100.0));
+            lines.add(new TransactionLine(null, null, aSvc.findById(7), -100.0));
+            return lines;
+        }
+    }
+
+    @Nested
+    @DisplayName("SaveAll")
+    public class SaveAll {
+
+        @DisplayName("can save many new transactions with their lines")
+        @Test
+        public void saveAll_test1() {
+            List<Transaction> transactions = List.of(
+                    new Transaction(LocalDate.now(), "-saveAll-test1-a-"),
+                    new Transaction(LocalDate.now(), "-saveAll-test1-b-"));
+
+            List<List<TransactionLine>> lines = List.of(
+                    List.of(new TransactionLine(null, null, aSvc.findById(10), 100.0),
+                            new TransactionLine(null, null, aSvc.findById(10), -100.0)),
+                    List.of(new TransactionLine(null, null, aSvc.findById(10), 50.0),
+                            new TransactionLine(null, null, aSvc.findById(10), -20.0),
+                            new TransactionLine(null, null, aSvc.findById(10), -30.0)));
+
+            List<Integer> ids = svc.saveAll(transactions, lines);
+            List<Integer> lineCounts = ids.stream().map(id -> lSvc.findAllByTransactionId(id).size()).toList();
+            List<String> memos = ids.stream().map(id -> svc.findById(id).getMemo()).toList();
+
+            ids.forEach(id -> svc.delete(svc.findById(id)));
+            assertEquals(List.of("-saveAll-test1-a-", "-saveAll-test1-b-"), memos);
+            assertEquals(List.of(2, 3), lineCounts);
+        }
+
+        @DisplayName("saving an existing transaction throws IllegalArgumentException")
+        @Test
+        public void saveAll_test2() {
+            List<Transaction> transactions = List.of(svc.findById(12));
+            List<List<TransactionLine>> lines = List.of(List.of());
+            assertThrows(IllegalArgumentException.class, () -> svc.saveAll(transactions, lines));
+        }
+
+        @DisplayName("transactions without a list of lines throw IllegalArgumentException")
+        @Test
+        public void saveAll_test3() {
+            List<Transaction> transactions = List.of(new Transaction(LocalDate.now(), "-saveAll-test3-"));
+            assertThrows(IllegalArgumentException.class, () -> svc.saveAll(transactions, List.of()));
+        }
+    }
+
+    @Nested
+    @DisplayName("UpdateHeader")
+    public class UpdateHeader {
+
+        @DisplayName("can update date and memo with one read and one write, leaving lines untouched")
+        @Test
+        public void updateHeader_test1() {
+            int id = 10;
+            Transaction original = svc.findById(id);
+            List<TransactionLineDTO> originalLines =
+                    lSvc.findAllByTransactionId(id).stream().map(TransactionLineDTO::new).toList();
+
+            Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+            statistics.setStatisticsEnabled(true);
+            statistics.clear();
+
+            svc.updateHeader(id, original.getDate().withDayOfMonth(1), "-updateHeader-test1-");
+            long statements = statistics.getPrepareStatementCount();
+            statistics.setStatisticsEnabled(false);
+
+            Transaction updated = svc.findById(id);
+            List<TransactionLineDTO> lines =
+                    lSvc.findAllByTransactionId(id).stream().map(TransactionLineDTO::new).toList();
+
+            svc.updateHeader(id, original.getDate(), original.getMemo());
+
+            assertEquals("-updateHeader-test1-", updated.getMemo());
+            assertEquals(original.getDate().withDayOfMonth(1), updated.getDate());
+            assertEquals(originalLines, lines);
+            assertEquals(2, statements);
+        }
+
+        @DisplayName("moving to another month moves the monthly totals of the lines")
+        @Test
+        public void updateHeader_test2() {
+            int id = 1;
+            Transaction original = svc.findById(id);
+            LocalDate before = original.getDate().minusDays(1);
+            double balanceBefore = bSvc.balanceAsOf("5000", before).getBalance();
+
+            svc.updateHeader(id, before.withDayOfMonth(1).minusMonths(1), original.getMemo());
+            double balanceMoved = bSvc.balanceAsOf("5000", before).getBalance();
+            svc.updateHeader(id, original.getDate(), original.getMemo());
+
+            assertNotEquals(balanceBefore, balanceMoved);
+            assertEquals(balanceBefore, bSvc.balanceAsOf("5000", before).getBalance());
+        }
+
+        @DisplayName("update of non-existent id throws NoSuchElementException")
+        @Test
+        public void updateHeader_test3() {
+            assertThrows(NoSuchElementException.class, () -> svc.updateHeader(-1, LocalDate.now(), null));
+        }
     }
 
     @Nested
@@ -256,5 +596,97 @@ public class TransactionServiceTest {
             int count = lSvc.findAllByTransactionId(transaction.getId()).size();
             assertEquals(0, count);
         }
+
+        @DisplayName("delete transaction takes its lines out of the stored balances and periods")
+        @Test
+        public void delete_test3() {
+            // the test data has no stored balances until they are first rebuilt
+            bSvc.rebuild();
+            double balance = bSvc.findByAccountNumber("99").getBalance();
+            Transaction transaction = svc.save(new Transaction(LocalDate.of(1999,7,1), "-delete-test3-"), List.of(
+                    new TransactionLine(null, null, aSvc.findById(10), 250.0),
+                    new TransactionLine(null, null, aSvc.findById(7), -250.0)
+            ));
+            svc.delete(transaction);
+
+            assertEquals(balance, bSvc.findByAccountNumber("99").getBalance());
+            assertTrue(bSvc.rebuild().isEmpty());
+        }
+
+        @DisplayName("delete transaction deletes its lines with one statement, without loading them")
+        @Test
+        public void delete_test4() {
+            Transaction transaction = svc.save(new Transaction(LocalDate.of(1999,7,2), "-delete-test4-"), List.of(
+                    new TransactionLine(null, null, aSvc.findById(10), 1.0),
+                    new TransactionLine(null, null, aSvc.findById(10), 2.0),
+                    new TransactionLine(null, null, aSvc.findById(7), -3.0)
+            ));
+            Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+            statistics.setStatisticsEnabled(true);
+            statistics.clear();
+
+            svc.delete(transaction);
+            long lineLoads = statistics.getEntityStatistics(TransactionLine.class.getName()).getLoadCount();
+            long lineDeletes = statistics.getEntityStatistics(TransactionLine.class.getName()).getDeleteCount();
+            statistics.setStatisticsEnabled(false);
+
+            assertEquals(0, lineLoads);
+            assertEquals(0, lineDeletes);
+            assertTrue(lSvc.findAllByTransactionId(transaction.getId()).isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("DeleteAllById")
+    public class DeleteAllById {
+
+        @DisplayName("can delete many transactions and their lines, keeping the stored balances correct")
+        @Test
+        public void deleteAllById_test1() {
+            bSvc.rebuild();
+            List<Integer> ids = new ArrayList<>();
+
+            for (int i = 1; i <= 3; i++) {
+                ids.add(svc.save(new Transaction(LocalDate.of(1999,i,1), "-deleteAllById-test1-"), List.of(
+                        new TransactionLine(null, null, aSvc.findById(10), 10.0*i),
+                        new TransactionLine(null, null, aSvc.findById(7), -10.0*i)
+                )).getId());
+            }
+            int deleted = svc.deleteAllById(ids);
+
+            assertEquals(3, deleted);
+            assertTrue(svc.findAll(null, null, "-deleteAllById-test1-").isEmpty());
+            assertTrue(bSvc.rebuild().isEmpty());
+        }
+
+        @DisplayName("ids of non-existent transactions are ignored")
+        @Test
+        public void deleteAllById_test2() {
+            assertEquals(0, svc.deleteAllById(List.of(-1, -2)));
+            assertEquals(0, svc.deleteAllById(List.of()));
+        }
+    }
+
+    @Nested
+    @DisplayName("FindIds")
+    public class FindIds {
+
+        @DisplayName("finds the ids of the first matching transactions in id order")
+        @Test
+        public void findIds_test1() {
+            List<Integer> expected = svc.findAll().stream().map(Transaction::getId).sorted().limit(5).toList();
+            assertEquals(expected, svc.findIds(null, null, null, 5));
+        }
+
+        @DisplayName("finds only the ids of transactions matching the parameters")
+        @Test
+        public void findIds_test2() {
+            LocalDate from = LocalDate.of(2022,1,1);
+            String memoPattern = "%a%";
+            List<Integer> expected = svc.findAll(from, null, memoPattern).stream()
+                    .map(Transaction::getId).sorted().toList();
+
+            assertEquals(expected, svc.findIds(from, null, memoPattern, 1000));
+        }
     }
 }
@@ -1,62 +1,62 @@
 USE b2_test;
 
 INSERT INTO element
-(number, name)
+(id, number, name)
 VALUES
-(1, 'Asset'),
-(2, 'Liability'),
-(3, 'Equity'),
-(4, 'Income'),
-(5, 'Expense'),
-(6, 'Accumulated Other Comprehensive Income'),
-(0, 'ZERO'),
-(99, 'NINETY-NINE'),
-(999, 'NINE-NINETY-NINE'),
-(-1, 'NEGATIVE-ONE');
+(1, 1, 'Asset'),
+(2, 2, 'Liability'),
+(3, 3, 'Equity'),
+(4, 4, 'Income'),
+(5, 5, 'Expense'),
+(6, 6, 'Accumulated Other Comprehensive Income'),
+(7, 0, 'ZERO'),
+(8, 99, 'NINETY-NINE'),
+(9, 999, 'NINE-NINETY-NINE'),
+(10, -1, 'NEGATIVE-ONE');
 
 INSERT INTO player
-(name, is_bank)
+(id, name, is_bank)
 VALUES
-('Chase Bank', true),      -- 1
-('Bank of America', true), -- 2
-('US Bank', true),         -- 3
-('Vanguard', true),        -- 4
-('McDonald\'s', false),    -- 5
-('Walmart', false),        -- 6
-('Target', false),         -- 7
-('Costco', false),         -- 8
-('Amazon', false),         -- 9
-('99', false);             -- 10
+(1, 'Chase Bank', true),      -- 1
+(2, 'Bank of America', true), -- 2
+(3, 'US Bank', true),         -- 3
+(4, 'Vanguard', true),        -- 4
+(5, 'McDonald\'s', false),    -- 5
+(6, 'Walmart', false),        -- 6
+(7, 'Target', false),         -- 7
+(8, 'Costco', false),         -- 8
+(9, 'Amazon', false),         -- 9
+(10, '99', false);            -- 10
 
 INSERT INTO gl_account
-(number, name, element_id, player_id)
+(id, number, name, element_id, player_id)
 VALUES
-('1000', 'Checking', 1, 1),                -- 1
-('1001', 'Savings', 1, 2),                 -- 2
-('2000', 'Accounts Payable', 2, 3),        -- 3
-('3000', 'Retained Earnings', 3, 4),       -- 4
-('4000', 'Salary', 4, 5),                  -- 5
-('4001', 'Interest Income', 4, 6),         -- 6
-('5000', 'Food', 5, 7),                    -- 7
-('5001', 'Entertainment', 5, NULL),        -- 8
-('6000', 'Unrealized Gain/Loss', 6, NULL), -- 9
-('99', 'NINETY-NINE', 6, NULL);            -- 10
+(1, '1000', 'Checking', 1, 1),                -- 1
+(2, '1001', 'Savings', 1, 2),                 -- 2
+(3, '2000', 'Accounts Payable', 2, 3),        -- 3
+(4, '3000', 'Retained Earnings', 3, 4),       -- 4
+(5, '4000', 'Salary', 4, 5),                  -- 5
+(6, '4001', 'Interest Income', 4, 6),         -- 6
+(7, '5000', 'Food', 5, 7),                    -- 7
+(8, '5001', 'Entertainment', 5, NULL),        -- 8
+(9, '6000', 'Unrealized Gain/Loss', 6, NULL), -- 9
+(10, '99', 'NINETY-NINE', 6, NULL);           -- 10
 
 INSERT INTO gl_transaction
-(date_entered, memo)
+(id, date_entered, memo)
 VALUES
-('2022-01-31', 'memo-1'), -- 1
-('2022-02-28', 'memo_2'), -- 2
-('2022-03-31', 'memo.3'), -- 3
-('2022-04-30', 'memo:4'), -- 4
-('2022-05-31', '5-memo'), -- 5
-('2022-06-30', '6_memo'), -- 6
-('2022-08-31', '8.memo'), -- 7
-('2022-08-31', '8:memo'), -- 8
-('2022-09-30', '9memo9'), -- 9
-('2022-10-31', '0memo0'), -- 10
-('2022-11-30', 'me-mo'),  -- 11
-('2022-12-31', '99');     -- 12
+(1, '2022-01-31', 'memo-1'),  -- 1
+(2, '2022-02-28', 'memo_2'),  -- 2
+(3, '2022-03-31', 'memo.3'),  -- 3
+(4, '2022-04-30', 'memo:4'),  -- 4
+(5, '2022-05-31', '5-memo'),  -- 5
+(6, '2022-06-30', '6_memo'),  -- 6
+(7, '2022-08-31', '8.memo'),  -- 7
+(8, '2022-08-31', '8:memo'),  -- 8
+(9, '2022-09-30', '9memo9'),  -- 9
+(10, '2022-10-31', '0memo0'), -- 10
+(11, '2022-11-30', 'me-mo'),  -- 11
+(12, '2022-12-31', '99');     -- 12
 
 INSERT INTO gl_transaction_line
 (gl_transaction_id, line_id, gl_account_id, player_id, amount, memo, date_reconciled)
@@ -97,3 +97,9 @@ VALUES
 
 (11, 1, 7, 6, 1100, 'memo', NULL),
 (11, 2, 1, 6, -1100, 'memo', NULL);
+
+-- rows are created by hibernate with the schema; ids must be allocated after the ones above
+UPDATE id_generator SET next_val = 11 WHERE name = 'element';
+UPDATE id_generator SET next_val = 11 WHERE name = 'player';
+UPDATE id_generator SET next_val = 11 WHERE name = 'gl_account';
+UPDATE id_generator SET next_val = 13 WHERE name = 'gl_transaction';